@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.device;
+
+import com.android.annotations.concurrency.GuardedBy;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * In-memory cache of the images used by {@link DeviceArtPainter}: the decoded device art layers (background, shadow, mask and
+ * reflection), their stretched versions for generic devices, the composite frames and the frames scaled to the sizes they are painted
+ * at. All the images share a byte budget, and the least recently used ones are evicted when it is exceeded.
+ * <p>
+ * The cached images are shared, so they must not be modified.
+ */
+public final class DeviceArtImageCache {
+  private static final long DEFAULT_BUDGET_BYTES = 64L * 1024 * 1024;
+
+  private final long myBudgetBytes;
+
+  @GuardedBy("this") private final LinkedHashMap<Key, BufferedImage> myImages = new LinkedHashMap<>(16, 0.75f, true);
+  @GuardedBy("this") private long mySizeBytes;
+  @GuardedBy("this") private long myHitCount;
+  @GuardedBy("this") private long myMissCount;
+  @GuardedBy("this") private long myEvictionCount;
+
+  DeviceArtImageCache() {
+    this(DEFAULT_BUDGET_BYTES);
+  }
+
+  DeviceArtImageCache(long budgetBytes) {
+    myBudgetBytes = budgetBytes;
+  }
+
+  /**
+   * Returns the cached image for the given key, or loads it with the given loader and caches it. The loader is called without holding
+   * any lock, so concurrent calls for the same key may load the image more than once.
+   */
+  @Nullable
+  BufferedImage getImage(@NotNull Key key, @NotNull Supplier<BufferedImage> loader) {
+    synchronized (this) {
+      BufferedImage image = myImages.get(key);
+      if (image != null) {
+        myHitCount++;
+        return image;
+      }
+      myMissCount++;
+    }
+
+    BufferedImage image = loader.get();
+    if (image != null) {
+      putImage(key, image);
+    }
+    return image;
+  }
+
+  private synchronized void putImage(@NotNull Key key, @NotNull BufferedImage image) {
+    long size = getSizeBytes(image);
+    if (size > myBudgetBytes) {
+      return;
+    }
+
+    BufferedImage previous = myImages.put(key, image);
+    if (previous != null) {
+      mySizeBytes -= getSizeBytes(previous);
+    }
+    mySizeBytes += size;
+
+    // The entries are in access order, so the least recently used ones come first.
+    Iterator<Map.Entry<Key, BufferedImage>> iterator = myImages.entrySet().iterator();
+    while (mySizeBytes > myBudgetBytes && iterator.hasNext()) {
+      Map.Entry<Key, BufferedImage> entry = iterator.next();
+      if (entry.getKey().equals(key)) {
+        continue;
+      }
+      mySizeBytes -= getSizeBytes(entry.getValue());
+      iterator.remove();
+      myEvictionCount++;
+    }
+  }
+
+  private static long getSizeBytes(@NotNull BufferedImage image) {
+    return (long)image.getWidth() * image.getHeight() * Math.max(image.getColorModel().getPixelSize() / 8, 1);
+  }
+
+  public synchronized void clear() {
+    myImages.clear();
+    mySizeBytes = 0;
+  }
+
+  public synchronized long getHitCount() {
+    return myHitCount;
+  }
+
+  public synchronized long getMissCount() {
+    return myMissCount;
+  }
+
+  public synchronized long getEvictionCount() {
+    return myEvictionCount;
+  }
+
+  /** Returns the approximate number of bytes used by the cached images */
+  public synchronized long getSizeBytes() {
+    return mySizeBytes;
+  }
+
+  public long getBudgetBytes() {
+    return myBudgetBytes;
+  }
+
+  /**
+   * Identifies a cached image: a variant of a source (e.g. a device art file or a frame), optionally at a given size.
+   */
+  static final class Key {
+    @NotNull private final Object mySource;
+    @NotNull private final String myVariant;
+    private final int myWidth;
+    private final int myHeight;
+
+    Key(@NotNull Object source, @NotNull String variant) {
+      this(source, variant, -1, -1);
+    }
+
+    Key(@NotNull Object source, @NotNull String variant, int width, int height) {
+      mySource = source;
+      myVariant = variant;
+      myWidth = width;
+      myHeight = height;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key)o;
+      return myWidth == key.myWidth &&
+             myHeight == key.myHeight &&
+             mySource.equals(key.mySource) &&
+             myVariant.equals(key.myVariant);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(mySource, myVariant, myWidth, myHeight);
+    }
+  }
+}
@@ -23,7 +23,7 @@ import com.android.sdklib.devices.Screen;
 import com.android.tools.adtui.ImageUtils;
 import com.google.common.collect.Maps;
 import com.intellij.openapi.application.PathManager;
-import com.intellij.reference.SoftReference;
+import com.intellij.openapi.util.LowMemoryWatcher;
 import com.intellij.ui.Gray;
 import com.intellij.util.PathUtil;
 import com.intellij.util.ui.UIUtil;
@@ -57,6 +57,10 @@ import static java.awt.RenderingHints.*;
  */
 public class DeviceArtPainter {
   @NotNull private static final DeviceArtPainter ourInstance = new DeviceArtPainter();
+  @NotNull private static final DeviceArtImageCache ourImageCache = new DeviceArtImageCache();
+  /** Drops the cached images, which are all strongly referenced, when the IDE is low on memory. They are loaded again when painted. */
+  @SuppressWarnings("unused")
+  @NotNull private static final LowMemoryWatcher ourLowMemoryWatcher = LowMemoryWatcher.register(ourImageCache::clear);
   @Nullable private static volatile String ourSystemPath;
   @NotNull private Map<Device,DeviceData> myDeviceData = Maps.newHashMap();
   @Nullable private List<DeviceArtDescriptor> myDescriptors;
@@ -70,6 +74,12 @@ public class DeviceArtPainter {
     return ourInstance;
   }
 
+  /** Returns the cache of the decoded, composed and scaled device art images, e.g. to check its statistics */
+  @NotNull
+  public static DeviceArtImageCache getImageCache() {
+    return ourImageCache;
+  }
+
   /** Returns true if we have a dedicated frame image for the given device */
   public boolean hasDeviceFrame(@Nullable Device device) {
     DeviceData deviceData = getDeviceData(device);
@@ -180,13 +190,35 @@ public class DeviceArtPainter {
       int dy1 = (int)(y1 - scale * frame.getScreenY());
       int dx2 = dx1 + (int)(scale * image.getWidth());
       int dy2 = dy1 + (int)(scale * image.getHeight());
+
+      // Only paint the part of the frame within the clip, e.g. the visible area of a scrolled, zoomed in layout editor
+      Rectangle clip = g.getClipBounds();
+      if (clip == null || clip.contains(dx1, dy1, dx2 - dx1, dy2 - dy1)) {
+        g.drawImage(image,
+                    dx1, dy1, dx2, dy2,
+                    // sx1, sy1, sx2, sy2
+                    0,
+                    0,
+                    image.getWidth(),
+                    image.getHeight(),
+                    null);
+        return;
+      }
+
+      Rectangle visible = clip.intersection(new Rectangle(dx1, dy1, dx2 - dx1, dy2 - dy1));
+      if (visible.isEmpty()) {
+        return;
+      }
+      double scaleX = (dx2 - dx1) / (double)image.getWidth();
+      double scaleY = (dy2 - dy1) / (double)image.getHeight();
+      int sx1 = Math.max((int)Math.floor((visible.x - dx1) / scaleX), 0);
+      int sy1 = Math.max((int)Math.floor((visible.y - dy1) / scaleY), 0);
+      int sx2 = Math.min((int)Math.ceil((visible.x + visible.width - dx1) / scaleX), image.getWidth());
+      int sy2 = Math.min((int)Math.ceil((visible.y + visible.height - dy1) / scaleY), image.getHeight());
       g.drawImage(image,
-                  dx1, dy1, dx2, dy2,
-                  // sx1, sy1, sx2, sy2
-                  0,
-                  0,
-                  image.getWidth(),
-                  image.getHeight(),
+                  dx1 + (int)Math.round(sx1 * scaleX), dy1 + (int)Math.round(sy1 * scaleY),
+                  dx1 + (int)Math.round(sx2 * scaleX), dy1 + (int)Math.round(sy2 * scaleY),
+                  sx1, sy1, sx2, sy2,
                   null);
     }
   }
@@ -204,71 +236,107 @@ public class DeviceArtPainter {
     File background = descriptor.getFrame(orientation);
     File reflection = descriptor.getReflectionOverlay(orientation);
 
-    Graphics2D g2d = null;
-    try {
-      BufferedImage bg = ImageIO.read(background);
-      Dimension screen = descriptor.getScreenSize(orientation); // Size of screen in ninepatch; will be stretched
-      Dimension frameSize = descriptor.getFrameSize(orientation); // Size of full ninepatch, including stretchable screen area
-      Point screenPos = descriptor.getScreenPos(orientation);
-      boolean stretchable = descriptor.isStretchable();
-      if (stretchable) {
-        assert screen != null;
-        assert frameSize != null;
-        int newWidth = image.getWidth() + frameSize.width - screen.width;
-        int newHeight = image.getHeight() + frameSize.height - screen.height;
-        bg = stretchImage(bg, newWidth, newHeight);
-      } else if (screen.width < image.getWidth()) {
-        // if the frame isn't stretchable, but is smaller than the image, then scale down the image
-        double scale = (double) screen.width / image.getWidth();
-        if (Math.abs(scale - 1.0) > ImageUtils.EPSILON) {
-          image = ImageUtils.scale(image, scale, scale);
-        }
+    BufferedImage bg = getLayer(background);
+    if (bg == null) {
+      return image;
+    }
+    Dimension screen = descriptor.getScreenSize(orientation); // Size of screen in ninepatch; will be stretched
+    Dimension frameSize = descriptor.getFrameSize(orientation); // Size of full ninepatch, including stretchable screen area
+    Point screenPos = descriptor.getScreenPos(orientation);
+    boolean stretchable = descriptor.isStretchable();
+    if (stretchable) {
+      assert screen != null;
+      assert frameSize != null;
+      int newWidth = image.getWidth() + frameSize.width - screen.width;
+      int newHeight = image.getHeight() + frameSize.height - screen.height;
+      bg = getStretchedLayer(background, newWidth, newHeight);
+      if (bg == null) {
+        return image;
+      }
+    } else if (screen.width < image.getWidth()) {
+      // if the frame isn't stretchable, but is smaller than the image, then scale down the image
+      double scale = (double) screen.width / image.getWidth();
+      if (Math.abs(scale - 1.0) > ImageUtils.EPSILON) {
+        image = ImageUtils.scale(image, scale, scale);
       }
-      g2d = bg.createGraphics();
+    }
+    // The cached layers are shared, so the frame is painted on a copy of the background
+    BufferedImage result = copyImage(bg);
+    Graphics2D g2d = result.createGraphics();
 
-      if (addShadow && shadow != null) {
-        BufferedImage shadowImage = ImageIO.read(shadow);
-        if (stretchable) {
-          shadowImage = stretchImage(shadowImage, bg.getWidth(), bg.getHeight());
-        }
+    if (addShadow && shadow != null) {
+      BufferedImage shadowImage = stretchable ? getStretchedLayer(shadow, bg.getWidth(), bg.getHeight()) : getLayer(shadow);
+      if (shadowImage != null) {
         g2d.drawImage(shadowImage, 0, 0, null, null);
       }
+    }
 
-      // If the device art has a mask, make sure that the image is clipped by the mask
-      File maskFile = descriptor.getMask(orientation);
-      if (maskFile != null) {
-        BufferedImage mask = ImageIO.read(maskFile);
+    // If the device art has a mask, make sure that the image is clipped by the mask
+    BufferedImage maskLayer = getLayer(descriptor.getMask(orientation));
+    if (maskLayer != null) {
+      BufferedImage mask = copyImage(maskLayer);
 
-        // Render the current image on top of the mask using it as the alpha composite
-        Graphics2D maskG2d = mask.createGraphics();
-        maskG2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_IN));
-        maskG2d.drawImage(image, screenPos.x, screenPos.y, null);
-        maskG2d.dispose();
+      // Render the current image on top of the mask using it as the alpha composite
+      Graphics2D maskG2d = mask.createGraphics();
+      maskG2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_IN));
+      maskG2d.drawImage(image, screenPos.x, screenPos.y, null);
+      maskG2d.dispose();
 
-        // Render the masked image to the destination
-        g2d.drawImage(mask, 0, 0, null);
-      }
-      else {
-        g2d.drawImage(image, screenPos.x, screenPos.y, null);
-      }
+      // Render the masked image to the destination
+      g2d.drawImage(mask, 0, 0, null);
+    }
+    else {
+      g2d.drawImage(image, screenPos.x, screenPos.y, null);
+    }
 
-      if (addReflection && reflection != null) { // Nexus One for example does not supply reflection image
-        BufferedImage reflectionImage = ImageIO.read(reflection);
-        if (stretchable) {
-          reflectionImage = stretchImage(reflectionImage, bg.getWidth(), bg.getHeight());
-        }
+    if (addReflection && reflection != null) { // Nexus One for example does not supply reflection image
+      BufferedImage reflectionImage =
+        stretchable ? getStretchedLayer(reflection, bg.getWidth(), bg.getHeight()) : getLayer(reflection);
+      if (reflectionImage != null) {
         g2d.drawImage(reflectionImage, 0, 0, null, null);
       }
-      return bg;
     }
-    catch (IOException e) {
-      return image;
+    g2d.dispose();
+    return result;
+  }
+
+  /** Returns the decoded device art image stored in the given file */
+  @Nullable
+  private static BufferedImage getLayer(@Nullable File file) {
+    if (file == null) {
+      return null;
     }
-    finally {
-      if (g2d != null) {
-        g2d.dispose();
+    return ourImageCache.getImage(new DeviceArtImageCache.Key(file, "layer"), () -> {
+      if (!file.exists()) {
+        return null;
       }
-    }
+      try {
+        return ImageIO.read(file);
+      }
+      catch (IOException e) {
+        return null;
+      }
+    });
+  }
+
+  /** Returns the nine-patch device art image stored in the given file, stretched to the given size */
+  @Nullable
+  private static BufferedImage getStretchedLayer(@NotNull File file, int width, int height) {
+    return ourImageCache.getImage(new DeviceArtImageCache.Key(file, "stretched", width, height), () -> {
+      BufferedImage layer = getLayer(file);
+      return layer != null ? stretchImage(layer, width, height) : null;
+    });
+  }
+
+  @NotNull
+  private static BufferedImage copyImage(@NotNull BufferedImage image) {
+    @SuppressWarnings("UndesirableClassUsage") // Don't need Retina image here, and it's more expensive
+    BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g = copy.createGraphics();
+    g.setComposite(AlphaComposite.Src);
+    g.drawImage(image, 0, 0, null);
+    g.dispose();
+    return copy;
   }
 
   @Nullable
@@ -355,7 +423,9 @@ public class DeviceArtPainter {
 
       paintClipped(g, scaledImage, device, screenX, screenY, false);
 
-      BufferedImage scaledFrameImage = ImageUtils.scale(frameImage, downScale, downScale, 0, 0);
+      BufferedImage scaledFrameImage =
+        ourImageCache.getImage(new DeviceArtImageCache.Key(frame, showEffects ? "scaled-effects" : "scaled", framedWidth, framedHeight),
+                               () -> ImageUtils.scale(frameImage, downScale, downScale, 0, 0));
       g.drawImage(scaledFrameImage, 0, 0, null);
       g.dispose();
 
@@ -564,11 +634,6 @@ public class DeviceArtPainter {
     private int myFrameHeight;
     private final FrameData myDouble;
 
-    @SuppressWarnings("ConstantConditions")
-    @NotNull private SoftReference<BufferedImage> myPlainImage = new SoftReference<BufferedImage>(null);
-    @SuppressWarnings("ConstantConditions")
-    @NotNull private SoftReference<BufferedImage> myEffectsImage = new SoftReference<BufferedImage>(null);
-
     private boolean isPortrait() {
       return myOrientation == ScreenOrientation.PORTRAIT;
     }
@@ -690,16 +755,7 @@ public class DeviceArtPainter {
         return null;
       }
       assert myDouble == null; // Should be using image from parent
-      if (file.exists()) {
-        try {
-          return ImageIO.read(file);
-        }
-        catch (IOException e) {
-          // pass
-        }
-      }
-
-      return null;
+      return getLayer(file);
     }
 
     private static File getThumbnailCacheDir() {
@@ -790,28 +846,16 @@ public class DeviceArtPainter {
 
     @Nullable
     public BufferedImage getImage(boolean showEffects) {
-      BufferedImage image = showEffects ? myEffectsImage.get() : myPlainImage.get();
-      if (image != null) {
-        return image;
-      }
-
-      image = getCachedImage(showEffects);
-      if (image == null) {
-        image = computeImage(showEffects, myCropX1, myCropY1, myCropX2, myCropY2);
-        if (image != null) {
-          putCachedImage(showEffects, image);
-        }
-      }
-
-      if (image != null) {
-        if (showEffects) {
-          myEffectsImage = new SoftReference<BufferedImage>(image);
-        } else {
-          myPlainImage = new SoftReference<BufferedImage>(image);
+      return ourImageCache.getImage(new DeviceArtImageCache.Key(this, showEffects ? "effects" : "plain"), () -> {
+        BufferedImage image = getCachedImage(showEffects);
+        if (image == null) {
+          image = computeImage(showEffects, myCropX1, myCropY1, myCropX2, myCropY2);
+          if (image != null) {
+            putCachedImage(showEffects, image);
+          }
         }
-      }
-
-      return image;
+        return image;
+      });
     }
 
     @SuppressWarnings("UnnecessaryLocalVariable")
@@ -845,16 +889,13 @@ public class DeviceArtPainter {
       }
 
       DeviceArtDescriptor descriptor = myDeviceData.getDescriptor();
-      BufferedImage background = getImage(descriptor.getFrame(myOrientation));
+      boolean stretchable = isStretchable();
+      File backgroundFile = descriptor.getFrame(myOrientation);
+      BufferedImage background = stretchable ? getStretchedLayer(backgroundFile, myFrameWidth, myFrameHeight) : getImage(backgroundFile);
       if (background == null) {
         return null;
       }
 
-      boolean stretchable = isStretchable();
-      if (stretchable) {
-        background = stretchImage(background, myFrameWidth, myFrameHeight);
-      }
-
       @SuppressWarnings("UndesirableClassUsage") // Don't need Retina image here, and it's more expensive
       BufferedImage composite = new BufferedImage(myFrameWidth, myFrameHeight, BufferedImage.TYPE_INT_ARGB);
       Graphics g = composite.createGraphics();
@@ -868,12 +909,11 @@ public class DeviceArtPainter {
 
       // Draw background shadow, if effects are enabled
       if (showEffects) {
-        BufferedImage shadow = getImage(descriptor.getDropShadow(myOrientation));
+        File shadowFile = descriptor.getDropShadow(myOrientation);
+        BufferedImage shadow = stretchable && shadowFile != null
+                               ? getStretchedLayer(shadowFile, myFrameWidth, myFrameHeight)
+                               : getImage(shadowFile);
         if (shadow != null) {
-          if (stretchable) {
-            shadow = stretchImage(shadow, myFrameWidth, myFrameHeight);
-          }
-
           g.drawImage(shadow, 0, 0, myFrameWidth, myFrameHeight, cropX1, cropY1, cropX2, cropY2, null);
         }
 
@@ -965,11 +1005,11 @@ public class DeviceArtPainter {
 
       // Draw screen glare, if effects are enabled
       if (showEffects) {
-        BufferedImage glare = getImage(descriptor.getReflectionOverlay(myOrientation));
+        File glareFile = descriptor.getReflectionOverlay(myOrientation);
+        BufferedImage glare = stretchable && glareFile != null
+                              ? getStretchedLayer(glareFile, myFrameWidth, myFrameHeight)
+                              : getImage(glareFile);
         if (glare != null) {
-          if (stretchable) {
-            glare = stretchImage(glare, myFrameWidth, myFrameHeight);
-          }
           g.drawImage(glare, 0, 0, myFrameWidth, myFrameHeight, cropX1, cropY1, cropX2, cropY2, null);
         }
       }
@@ -198,6 +198,17 @@ public final class StudioFlags {
     true
   );
 
+  public static final Flag<Integer> PROFILER_PROXY_EVENT_QUEUE_CAPACITY = Flag.create(
+    PROFILER, "proxy.event.queue.capacity", "Device events buffered by the transport proxy",
+    "Maximum number of device events waiting in the transport proxy's event queue before the overflow policy applies.",
+    65536);
+
+  public static final Flag<Boolean> PROFILER_PROXY_DROP_EVENTS_ON_OVERFLOW = Flag.create(
+    PROFILER, "proxy.event.queue.drop", "Drop device events when the transport proxy's event queue is full",
+    "If enabled, device events are dropped (and counted) when the proxy's event queue is full. Otherwise, reading from the device " +
+    "stream pauses until the queue has been drained.",
+    false);
+
   public static final Flag<Boolean> PROFILER_AUDITS = Flag.create(
     PROFILER, "audits", "Enable profiler audits",
     "When enabled, profiler workflows such as capturing CPU atrace captures will generate audits",
@@ -261,6 +272,11 @@ public final class StudioFlags {
     "If enabled, the surface displays some debug information to diagnose performance",
     false);
 
+  public static final Flag<Boolean> NELE_RENDER_CACHE = Flag.create(
+    NELE, "render.cache", "Enable the render result cache",
+    "If enabled, render results are cached by a hash of the layout, configuration and resources and reused when nothing changed",
+    false);
+
   public static final Flag<Boolean> NELE_SHOW_ONLY_SELECTION = Flag.create(
     NELE, "show.only.selection", "Show only selection boundaries when mouse is not hovered in layout",
     "Enable this flag to show selection boundaries without other decoration when mouse is not hovered in layout",
@@ -368,6 +384,11 @@ public final class StudioFlags {
     "When running or debugging an Android process, output the logcat output of the process in the console window.",
     true);
 
+  public static final Flag<Boolean> RUNDEBUG_LOGCAT_BINARY_INGESTION = Flag.create(
+    RUNDEBUG, "logcat.binary.ingestion", "Read logcat in binary format",
+    "Read logcat entries with 'logcat -B' on devices running API 24 or higher, instead of parsing the 'logcat -v long' text output.",
+    false);
+
   public static final Flag<Boolean> RUNDEBUG_ANDROID_BUILD_BUNDLE_ENABLED = Flag.create(
     RUNDEBUG, "android.bundle.build.enabled", "Enable the Build Bundle action",
     "If enabled, the \"Build Bundle(s)\" menu item is enabled. " +
@@ -610,6 +631,25 @@ public final class StudioFlags {
 
   //endregion
 
+  //region Lint
+  private static final FlagGroup LINT = new FlagGroup(FLAGS, "lint", "Lint");
+  public static final Flag<Boolean> LINT_PARALLEL_BATCH_ANALYSIS = Flag.create(
+    LINT, "parallel.batch.analysis",
+    "Analyze independent modules in parallel in batch lint",
+    "If enabled, batch lint (Inspect Code) analyzes groups of modules which don't depend on each other in parallel, each with its own " +
+    "lint client, instead of analyzing all the modules in a single pass.",
+    false
+  );
+
+  public static final Flag<Integer> LINT_PARALLEL_BATCH_THREADS = Flag.create(
+    LINT, "parallel.batch.threads",
+    "Maximum number of threads used by parallel batch lint",
+    "The maximum number of module groups analyzed at the same time when parallel batch lint is enabled. 0 means the number of " +
+    "available processors.",
+    0
+  );
+  //endregion
+
   //region Analyzer
   private static final FlagGroup ANALYZER = new FlagGroup(FLAGS, "analyzer", "Apk/Bundle Analyzer");
   public static final Flag<Boolean> ENABLE_APP_SIZE_OPTIMIZER = Flag.create(
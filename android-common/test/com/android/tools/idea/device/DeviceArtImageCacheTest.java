@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.device;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.awt.image.BufferedImage;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+public final class DeviceArtImageCacheTest {
+  /** Size of the 10x10 ARGB images used by the tests */
+  private static final long IMAGE_BYTES = 10 * 10 * 4;
+
+  @Test
+  public void getImageLoadsOnlyOnce() {
+    DeviceArtImageCache cache = new DeviceArtImageCache();
+    BufferedImage image = createImage();
+
+    assertThat(cache.getImage(new DeviceArtImageCache.Key("frame", "plain"), () -> image)).isSameAs(image);
+    assertThat(cache.getImage(new DeviceArtImageCache.Key("frame", "plain"), DeviceArtImageCacheTest::failLoading)).isSameAs(image);
+
+    assertThat(cache.getMissCount()).isEqualTo(1);
+    assertThat(cache.getHitCount()).isEqualTo(1);
+    assertThat(cache.getSizeBytes()).isEqualTo(IMAGE_BYTES);
+  }
+
+  @Test
+  public void keysWithDifferentSizesAreDistinct() {
+    DeviceArtImageCache cache = new DeviceArtImageCache();
+
+    BufferedImage small = cache.getImage(new DeviceArtImageCache.Key("frame", "scaled", 10, 10), DeviceArtImageCacheTest::createImage);
+    BufferedImage large = cache.getImage(new DeviceArtImageCache.Key("frame", "scaled", 20, 20), DeviceArtImageCacheTest::createImage);
+
+    assertThat(large).isNotSameAs(small);
+    assertThat(cache.getMissCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void leastRecentlyUsedImagesAreEvicted() {
+    DeviceArtImageCache cache = new DeviceArtImageCache(2 * IMAGE_BYTES);
+    BufferedImage first = createImage();
+    cache.getImage(new DeviceArtImageCache.Key("first", "layer"), () -> first);
+    cache.getImage(new DeviceArtImageCache.Key("second", "layer"), DeviceArtImageCacheTest::createImage);
+    // Use the first image again so the second one becomes the least recently used
+    cache.getImage(new DeviceArtImageCache.Key("first", "layer"), DeviceArtImageCacheTest::failLoading);
+    cache.getImage(new DeviceArtImageCache.Key("third", "layer"), DeviceArtImageCacheTest::createImage);
+
+    assertThat(cache.getEvictionCount()).isEqualTo(1);
+    assertThat(cache.getSizeBytes()).isEqualTo(2 * IMAGE_BYTES);
+    assertThat(cache.getImage(new DeviceArtImageCache.Key("first", "layer"), DeviceArtImageCacheTest::failLoading)).isSameAs(first);
+    BufferedImage second = createImage();
+    assertThat(cache.getImage(new DeviceArtImageCache.Key("second", "layer"), () -> second)).isSameAs(second);
+  }
+
+  @Test
+  public void imagesLargerThanTheBudgetAreNotCached() {
+    DeviceArtImageCache cache = new DeviceArtImageCache(IMAGE_BYTES - 1);
+    BufferedImage image = createImage();
+
+    assertThat(cache.getImage(new DeviceArtImageCache.Key("frame", "plain"), () -> image)).isSameAs(image);
+
+    assertThat(cache.getSizeBytes()).isEqualTo(0);
+    assertThat(cache.getEvictionCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void missingImagesAreNotCached() {
+    DeviceArtImageCache cache = new DeviceArtImageCache();
+
+    assertThat(cache.getImage(new DeviceArtImageCache.Key("frame", "plain"), () -> null)).isNull();
+    BufferedImage image = createImage();
+    assertThat(cache.getImage(new DeviceArtImageCache.Key("frame", "plain"), () -> image)).isSameAs(image);
+  }
+
+  @Test
+  public void clearReleasesAllImages() {
+    DeviceArtImageCache cache = new DeviceArtImageCache();
+    cache.getImage(new DeviceArtImageCache.Key("frame", "plain"), DeviceArtImageCacheTest::createImage);
+    cache.clear();
+
+    assertThat(cache.getSizeBytes()).isEqualTo(0);
+    BufferedImage image = createImage();
+    assertThat(cache.getImage(new DeviceArtImageCache.Key("frame", "plain"), () -> image)).isSameAs(image);
+    assertThat(cache.getMissCount()).isEqualTo(2);
+  }
+
+  @NotNull
+  private static BufferedImage createImage() {
+    @SuppressWarnings("UndesirableClassUsage")
+    BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+    return image;
+  }
+
+  @NotNull
+  private static BufferedImage failLoading() {
+    throw new AssertionError("The image should have been cached");
+  }
+}
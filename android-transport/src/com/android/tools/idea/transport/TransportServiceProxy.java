@@ -28,6 +28,7 @@ import com.android.ddmlib.TimeoutException;
 import com.android.sdklib.AndroidVersion;
 import com.android.sdklib.devices.Abi;
 import com.android.tools.idea.ddms.DevicePropertyUtil;
+import com.android.tools.idea.flags.StudioFlags;
 import com.android.tools.idea.protobuf.ByteString;
 import com.android.tools.profiler.proto.Commands.Command;
 import com.android.tools.profiler.proto.Commands.Command.CommandType;
@@ -75,7 +76,13 @@ import java.util.Optional;
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -93,6 +100,8 @@ public class TransportServiceProxy extends ServiceProxy
   }
 
   private static final String EMULATOR = "Emulator";
+  private static final int MAX_EVENT_BATCH_SIZE = 1024;
+  private static final int DROPPED_EVENTS_LOG_INTERVAL = 10000;
   static final String PRE_LOLLIPOP_FAILURE_REASON = "Pre-Lollipop devices are not supported.";
 
   private final TransportServiceGrpc.TransportServiceBlockingStub myServiceStub;
@@ -102,23 +111,34 @@ public class TransportServiceProxy extends ServiceProxy
   private final boolean myIsDeviceApiSupported;
   private final BlockingDeque<Common.Event> myEventQueue;
   private Thread myEventsListenerThread;
+  // Notified by the events listener thread when it drains the event queue.
+  private final Object myEventQueueSpaceLock = new Object();
   private final Map<CommandType, TransportProxy.ProxyCommandHandler> myCommandHandlers = new HashMap<>();
   private final List<TransportEventPreprocessor> myEventPreprocessors = new ArrayList<>();
-  private final List<TransportBytesPreprocessor> myDataPreprocessors = new ArrayList<>();
+  private final List<TransportBytesPreprocessor> myDataPreprocessors = new CopyOnWriteArrayList<>();
   @NotNull private final Map<String, ByteString> myProxyBytesCache;
+  @NotNull private final Map<BytesRequest, CompletableFuture<BytesResponse>> myPendingBytesRequests = new ConcurrentHashMap<>();
 
   // Cache the latest event timestamp we received from the daemon, which is used for closing all still-opened event groups when
   // the proxy lost connection with the device.
   private long myLatestEventTimestampNs = Long.MIN_VALUE;
   @Nullable private CountDownLatch myEventStreamingLatch = null;
 
+  // Statistics of the current event stream, reported when it ends and reset when the next stream starts. Only updated from the events
+  // listener thread, except the dropped events.
+  private final AtomicLong myDroppedEventCount = new AtomicLong();
+  private long myDispatchedEventCount;
+  private long myDispatchedBatchCount;
+  private long myPreprocessingTimeNs;
+  private long myDispatchingTimeNs;
+
   /**
    * @param ddmlibDevice    the {@link IDevice} for retrieving process informatino.
    * @param transportDevice the {@link Common.Device} corresponding to the ddmlibDevice,
    *                        as generated via {@link #transportDeviceFromIDevice(IDevice)}
    * @param channel         the channel that is used for communicating with the device daemon.
    * @param proxyEventQueue event queue shared by the proxy layer.
-   * @param proxyBytesCache byte cache shared by the proxy layer.
+   * @param proxyBytesCache byte cache shared by the proxy layer. It must be safe to access from multiple threads.
    */
   public TransportServiceProxy(@NotNull IDevice ddmlibDevice, @NotNull Common.Device transportDevice, @NotNull ManagedChannel channel,
                                @NotNull BlockingDeque<Common.Event> proxyEventQueue,
@@ -273,6 +293,13 @@ public class TransportServiceProxy extends ServiceProxy
   }
 
   public void getEvents(GetEventsRequest request, StreamObserver<Event> responseObserver) {
+    int eventQueueCapacity = StudioFlags.PROFILER_PROXY_EVENT_QUEUE_CAPACITY.get();
+    boolean dropEventsOnOverflow = StudioFlags.PROFILER_PROXY_DROP_EVENTS_ON_OVERFLOW.get();
+    myDroppedEventCount.set(0);
+    myDispatchedEventCount = 0;
+    myDispatchedBatchCount = 0;
+    myPreprocessingTimeNs = 0;
+    myDispatchingTimeNs = 0;
     // Create a thread to receive the stream of events from perfd.
     // We push all events into an event queue, so any proxy generated events can also be added.
     new Thread(() -> {
@@ -281,12 +308,12 @@ public class TransportServiceProxy extends ServiceProxy
         while (response.hasNext()) {
           // Blocking call to device. If the device is disconnected this call returns null.
           Event event = response.next();
-          if (event != null) {
+          if (event != null && waitForEventQueueSpace(eventQueueCapacity, dropEventsOnOverflow)) {
             myEventQueue.offer(event);
           }
         }
       }
-      catch (StatusRuntimeException ignored) {
+      catch (StatusRuntimeException | InterruptedException ignored) {
         // disconnect handle generally outside of the exception.
       }
 
@@ -300,39 +327,29 @@ public class TransportServiceProxy extends ServiceProxy
     myEventStreamingLatch = new CountDownLatch(1);
     myEventsListenerThread = new Thread(() -> {
       Map<Event.Kind, TLongObjectHashMap> ongoingEventGroups = new HashMap<>();
+      List<Event> batch = new ArrayList<>(MAX_EVENT_BATCH_SIZE);
       // The loop keeps running if the queue is not emptied, to make sure we pipe through all the existing
       // events that are already in the queue.
       while (!Thread.currentThread().isInterrupted() || !myEventQueue.isEmpty()) {
-        try {
-          Event event = myEventQueue.take();
-          myLatestEventTimestampNs = Math.max(myLatestEventTimestampNs, event.getTimestamp());
-
-          // Run registered preprocessors.
-          for (TransportEventPreprocessor preprocessor : myEventPreprocessors) {
-            if (preprocessor.shouldPreprocess(event)) {
-              preprocessor.preprocessEvent(event).forEach(generatedEvent -> responseObserver.onNext(generatedEvent));
-            }
-          }
-
-          // Update the event cache: remove an event group if it has ended, otherwise cache the latest opened event for that group.
-          if (event.getIsEnded()) {
-            ongoingEventGroups.computeIfPresent(event.getKind(), (kind, map) -> {
-              map.remove(event.getGroupId());
-              return map.isEmpty() ? null : map;
-            });
+        if (Thread.currentThread().isInterrupted()) {
+          myEventQueue.drainTo(batch, MAX_EVENT_BATCH_SIZE);
+        }
+        else {
+          try {
+            // Wait for the next event, then take all the events that are already queued so they are dispatched as one batch.
+            batch.add(myEventQueue.take());
+            myEventQueue.drainTo(batch, MAX_EVENT_BATCH_SIZE - 1);
           }
-          else if (event.getGroupId() != 0) {
-            ongoingEventGroups.compute(event.getKind(), (kind, map) -> {
-              map = Optional.ofNullable(map).orElseGet(TLongObjectHashMap::new);
-              map.put(event.getGroupId(), event);
-              return map;
-            });
+          catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            continue;
           }
-          responseObserver.onNext(event);
         }
-        catch (InterruptedException exception) {
-          Thread.currentThread().interrupt();
+        synchronized (myEventQueueSpaceLock) {
+          myEventQueueSpaceLock.notifyAll();
         }
+        dispatchEvents(batch, ongoingEventGroups, responseObserver);
+        batch.clear();
       }
 
       // Create a generic end event with the input kind and group id.
@@ -345,32 +362,142 @@ public class TransportServiceProxy extends ServiceProxy
         });
       }
 
+      getLog().info(String.format("Event stream ended: %d events in %d batches, %d dropped, %d ms preprocessing, %d ms dispatching",
+                                  myDispatchedEventCount, myDispatchedBatchCount, myDroppedEventCount.get(),
+                                  TimeUnit.NANOSECONDS.toMillis(myPreprocessingTimeNs),
+                                  TimeUnit.NANOSECONDS.toMillis(myDispatchingTimeNs)));
       responseObserver.onCompleted();
       myEventStreamingLatch.countDown();
     });
     myEventsListenerThread.start();
   }
 
-  public void getBytes(@NotNull BytesRequest request, StreamObserver<BytesResponse> responseObserver) {
-    BytesResponse.Builder response;
-    synchronized (myProxyBytesCache) {
-      if (myProxyBytesCache.containsKey(request.getId())) {
-        response = BytesResponse.newBuilder().setContents(myProxyBytesCache.get(request.getId()));
-        // Removes cache to save memory once it has been requested/cached by the datastore.
-        myProxyBytesCache.remove(request.getId());
+  /**
+   * Returns true if a device event can be added to the event queue. If the queue is full, the event is either dropped, or this waits
+   * until the listener thread has drained the queue, which stops reading from the device stream until then.
+   */
+  private boolean waitForEventQueueSpace(int capacity, boolean dropOnOverflow) throws InterruptedException {
+    if (myEventQueue.size() < capacity) {
+      return true;
+    }
+    if (dropOnOverflow) {
+      long droppedEventCount = myDroppedEventCount.incrementAndGet();
+      if (droppedEventCount == 1 || droppedEventCount % DROPPED_EVENTS_LOG_INTERVAL == 0) {
+        getLog().warn(String.format("Proxy event queue is full, %d events dropped", droppedEventCount));
       }
-      else {
-        response = myServiceStub.getBytes(request).toBuilder();
+      return false;
+    }
+    synchronized (myEventQueueSpaceLock) {
+      while (myEventQueue.size() >= capacity && myEventsListenerThread != null) {
+        // Timed wait since the listener thread can stop without draining the queue.
+        myEventQueueSpaceLock.wait(100);
       }
+    }
+    return true;
+  }
+
+  /**
+   * Runs the registered preprocessors on a batch of events and sends both the generated events and the batch to the observer.
+   * Note: This method is called from the events listener thread.
+   */
+  private void dispatchEvents(@NotNull List<Event> batch,
+                              @NotNull Map<Event.Kind, TLongObjectHashMap> ongoingEventGroups,
+                              @NotNull StreamObserver<Event> responseObserver) {
+    // The events generated by the preprocessors are sent before the event they were generated from.
+    long preprocessingStartNs = System.nanoTime();
+    List<Iterable<Event>> generatedEvents = new ArrayList<>(batch.size());
+    for (Event event : batch) {
+      myLatestEventTimestampNs = Math.max(myLatestEventTimestampNs, event.getTimestamp());
+
       // Run registered preprocessors.
-      for (TransportBytesPreprocessor preprocessor : myDataPreprocessors) {
-        if (preprocessor.shouldPreprocess(request)) {
-          response.setContents(preprocessor.preprocessBytes(request.getId(), response.getContents()));
+      List<Event> eventsFromPreprocessors = Collections.emptyList();
+      for (TransportEventPreprocessor preprocessor : myEventPreprocessors) {
+        if (preprocessor.shouldPreprocess(event)) {
+          if (eventsFromPreprocessors.isEmpty()) {
+            eventsFromPreprocessors = new ArrayList<>();
+          }
+          preprocessor.preprocessEvent(event).forEach(eventsFromPreprocessors::add);
         }
       }
-      responseObserver.onNext(response.build());
-      responseObserver.onCompleted();
+      generatedEvents.add(eventsFromPreprocessors);
+
+      // Update the event cache: remove an event group if it has ended, otherwise cache the latest opened event for that group.
+      if (event.getIsEnded()) {
+        ongoingEventGroups.computeIfPresent(event.getKind(), (kind, map) -> {
+          map.remove(event.getGroupId());
+          return map.isEmpty() ? null : map;
+        });
+      }
+      else if (event.getGroupId() != 0) {
+        ongoingEventGroups.compute(event.getKind(), (kind, map) -> {
+          map = Optional.ofNullable(map).orElseGet(TLongObjectHashMap::new);
+          map.put(event.getGroupId(), event);
+          return map;
+        });
+      }
+    }
+
+    long dispatchingStartNs = System.nanoTime();
+    for (int i = 0; i < batch.size(); i++) {
+      generatedEvents.get(i).forEach(responseObserver::onNext);
+      responseObserver.onNext(batch.get(i));
+    }
+
+    myPreprocessingTimeNs += dispatchingStartNs - preprocessingStartNs;
+    myDispatchingTimeNs += System.nanoTime() - dispatchingStartNs;
+    myDispatchedEventCount += batch.size();
+    myDispatchedBatchCount++;
+  }
+
+  public void getBytes(@NotNull BytesRequest request, StreamObserver<BytesResponse> responseObserver) {
+    // No lock is held while the bytes are fetched and preprocessed, so a large payload (e.g. a trace or a heap dump) does not block
+    // the requests of other payloads. Concurrent requests for the same payload share a single fetch instead.
+    CompletableFuture<BytesResponse> future = new CompletableFuture<>();
+    CompletableFuture<BytesResponse> pendingFuture = myPendingBytesRequests.putIfAbsent(request, future);
+    if (pendingFuture == null) {
+      try {
+        future.complete(fetchBytes(request));
+      }
+      catch (Throwable t) {
+        // Errors are reported too, the concurrent requests waiting for this fetch would never complete otherwise
+        future.completeExceptionally(t);
+      }
+      finally {
+        myPendingBytesRequests.remove(request, future);
+      }
+      pendingFuture = future;
+    }
+
+    BytesResponse response;
+    try {
+      response = pendingFuture.join();
     }
+    catch (CompletionException e) {
+      responseObserver.onError(e.getCause());
+      return;
+    }
+    responseObserver.onNext(response);
+    responseObserver.onCompleted();
+  }
+
+  @NotNull
+  private BytesResponse fetchBytes(@NotNull BytesRequest request) {
+    BytesResponse.Builder response;
+    // Removes cache to save memory once it has been requested/cached by the datastore.
+    ByteString cachedBytes = myProxyBytesCache.remove(request.getId());
+    if (cachedBytes != null) {
+      response = BytesResponse.newBuilder().setContents(cachedBytes);
+    }
+    else {
+      response = myServiceStub.getBytes(request).toBuilder();
+    }
+    // Run registered preprocessors.
+    for (TransportBytesPreprocessor preprocessor : myDataPreprocessors) {
+      if (preprocessor.shouldPreprocess(request)) {
+        response.setContents(preprocessor.preprocessBytes(request.getId(), response.getContents()));
+      }
+    }
+    return response.build();
   }
 
   @NotNull
@@ -575,6 +702,11 @@ public class TransportServiceProxy extends ServiceProxy
     }
   }
 
+  @TestOnly
+  long getDroppedEventCount() {
+    return myDroppedEventCount.get();
+  }
+
   @TestOnly
   @NotNull
   Map<Client, Common.Process> getCachedProcesses() {
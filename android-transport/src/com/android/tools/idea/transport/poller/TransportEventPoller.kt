@@ -51,30 +51,32 @@ class TransportEventPoller(private val transportClient: TransportServiceGrpc.Tra
   fun poll() {
     // Copy the list so we can remove listeners within the loop in-place.
     val listeners = mutableListOf<TransportEventListener>().apply { addAll(eventListeners) }
+
+    // The parameters of each listener are evaluated right before it is polled, since they may depend on the callbacks of the listeners
+    // polled before it. Listeners that filter the same events still share a single request per poll when the events already fetched
+    // cover their time range, and the events are then filtered by the cursor of each listener.
+    val queryEvents = mutableMapOf<EventGroupsQuery, FetchedEvents>()
+
     // Poll for each listener
     for (eventListener in listeners) {
       // Use start/end time if available
       val startTimestamp = eventListener.startTime?.invoke() ?: listenersToLastTimestamp.getOrDefault(eventListener, Long.MIN_VALUE)
-      val endTimestamp = eventListener.endTime()
-
-      val builder = Transport.GetEventGroupsRequest.newBuilder()
-        .setKind(eventListener.eventKind)
-        .setFromTimestamp(startTimestamp)
-        .setToTimestamp(endTimestamp)
-      eventListener.streamId?.invoke()?.let { builder.streamId = it }
-      eventListener.processId?.invoke()?.let { builder.pid = it }
-      eventListener.groupId?.invoke()?.let { builder.groupId = it }
-
-      val request = builder.build()
+      val query = EventGroupsQuery(eventListener.eventKind,
+                                   eventListener.streamId?.invoke(),
+                                   eventListener.processId?.invoke(),
+                                   eventListener.groupId?.invoke(),
+                                   eventListener.endTime())
       var removeListener = false
 
       // Order by timestamp
-      val response = transportClient.getEventGroups(request)
-      if (response != Transport.GetEventGroupsResponse.getDefaultInstance()) {
-        val filtered = response.groupsList
-          .flatMap { group -> group.eventsList }
-          .sortedWith(sortOrder)
-          .filter { event -> event.timestamp >= startTimestamp && eventListener.filter(event) }
+      var fetchedEvents = queryEvents[query]
+      if (fetchedEvents == null || fetchedEvents.startTimestamp > startTimestamp) {
+        fetchedEvents = FetchedEvents(startTimestamp, getEvents(query, startTimestamp))
+        queryEvents[query] = fetchedEvents
+      }
+      val events = fetchedEvents.events
+      if (events.isNotEmpty()) {
+        val filtered = events.filter { event -> event.timestamp >= startTimestamp && eventListener.filter(event) }
         filtered.forEach { event -> eventListener.executor.execute { removeListener = eventListener.callback(event) } }
         val maxTimeEvent = filtered.maxBy {it.timestamp}
         // Update last timestamp per listener
@@ -87,6 +89,41 @@ class TransportEventPoller(private val transportClient: TransportServiceGrpc.Tra
     }
   }
 
+  /**
+   * Returns the events matching the query from the given timestamp, in the poller's sort order.
+   */
+  private fun getEvents(query: EventGroupsQuery, startTimestamp: Long): List<Common.Event> {
+    val builder = Transport.GetEventGroupsRequest.newBuilder()
+      .setKind(query.eventKind)
+      .setFromTimestamp(startTimestamp)
+      .setToTimestamp(query.endTimestamp)
+    query.streamId?.let { builder.streamId = it }
+    query.processId?.let { builder.pid = it }
+    query.groupId?.let { builder.groupId = it }
+
+    val response = transportClient.getEventGroups(builder.build())
+    if (response == Transport.GetEventGroupsResponse.getDefaultInstance()) {
+      return emptyList()
+    }
+    return response.groupsList
+      .flatMap { group -> group.eventsList }
+      .sortedWith(sortOrder)
+  }
+
+  /**
+   * The parameters of a [Transport.GetEventGroupsRequest], except its start timestamp.
+   */
+  private data class EventGroupsQuery(val eventKind: Common.Event.Kind,
+                                      val streamId: Long?,
+                                      val processId: Int?,
+                                      val groupId: Long?,
+                                      val endTimestamp: Long)
+
+  /**
+   * The events matching a [EventGroupsQuery] from the given timestamp.
+   */
+  private class FetchedEvents(val startTimestamp: Long, val events: List<Common.Event>)
+
   companion object {
     private val myExecutorService = Executors.newScheduledThreadPool(1)
     private val myScheduledFutures = mutableMapOf<TransportEventPoller, ScheduledFuture<*>>()
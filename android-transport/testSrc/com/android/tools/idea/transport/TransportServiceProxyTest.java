@@ -31,6 +31,7 @@ import com.android.ddmlib.ClientData;
 import com.android.ddmlib.IDevice;
 import com.android.ddmlib.IShellOutputReceiver;
 import com.android.sdklib.AndroidVersion;
+import com.android.tools.idea.flags.StudioFlags;
 import com.android.tools.idea.protobuf.ByteString;
 import com.android.tools.profiler.proto.Commands;
 import com.android.tools.profiler.proto.Common;
@@ -38,6 +39,7 @@ import com.android.tools.profiler.proto.Transport;
 import com.android.tools.profiler.proto.Transport.TimeRequest;
 import com.android.tools.profiler.proto.Transport.TimeResponse;
 import com.android.tools.profiler.proto.TransportServiceGrpc;
+import com.google.common.util.concurrent.Uninterruptibles;
 import io.grpc.ManagedChannel;
 import io.grpc.MethodDescriptor;
 import io.grpc.ServerServiceDefinition;
@@ -282,6 +284,51 @@ public class TransportServiceProxyTest {
     assertThat(preprocessedEvents).containsExactly(eventToPreprocess);
   }
 
+  @Test
+  public void testEventsAreDroppedWhenQueueIsFull() throws Exception {
+    StudioFlags.PROFILER_PROXY_EVENT_QUEUE_CAPACITY.override(0);
+    StudioFlags.PROFILER_PROXY_DROP_EVENTS_ON_OVERFLOW.override(true);
+    try {
+      Client client = createMockClient(1, "test", "testClientDescription");
+      IDevice mockDevice = createMockDevice(AndroidVersion.VersionCodes.O, new Client[]{client});
+      Common.Device transportMockDevice = TransportServiceProxy.transportDeviceFromIDevice(mockDevice);
+      FakeTransportService thruService = new FakeTransportService();
+      ManagedChannel thruChannel = startNamedChannel("testEventsAreDroppedWhenQueueIsFull", thruService);
+      TransportServiceProxy proxy =
+        new TransportServiceProxy(mockDevice, transportMockDevice, thruChannel, new LinkedBlockingDeque<>(), new HashMap<>());
+
+      List<Common.Event> receivedEvents = Collections.synchronizedList(new ArrayList<>());
+      proxy.getEvents(Transport.GetEventsRequest.getDefaultInstance(), new StreamObserver<Common.Event>() {
+        @Override
+        public void onNext(Common.Event event) {
+          receivedEvents.add(event);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+          assert false;
+        }
+
+        @Override
+        public void onCompleted() {}
+      });
+      thruService.addEvents(Common.Event.newBuilder().setPid(1).setKind(Common.Event.Kind.ECHO).setIsEnded(true).build(),
+                            Common.Event.newBuilder().setPid(1).setKind(Common.Event.Kind.ECHO).setIsEnded(true).build());
+      thruService.stopEventThread();
+      thruChannel.shutdownNow();
+      // Waits until the events stream has ended.
+      proxy.disconnect();
+
+      assertThat(proxy.getDroppedEventCount()).isEqualTo(2);
+      // Only the device events are subject to the queue capacity, not the events generated by the proxy.
+      assertThat(receivedEvents.stream().filter(event -> event.getKind() == Common.Event.Kind.ECHO).count()).isEqualTo(0);
+    }
+    finally {
+      StudioFlags.PROFILER_PROXY_EVENT_QUEUE_CAPACITY.clearOverride();
+      StudioFlags.PROFILER_PROXY_DROP_EVENTS_ON_OVERFLOW.clearOverride();
+    }
+  }
+
   @Test
   public void testProxyDataPreprocessor() throws Exception {
     //Setup
@@ -336,6 +383,115 @@ public class TransportServiceProxyTest {
     assertThat(receivedData.get(1)).isEqualTo(preprocessor.preprocessBytes("1", FakeTransportService.TEST_BYTES));
   }
 
+  @Test
+  public void testSlowBytesRequestDoesNotBlockOtherRequests() throws Exception {
+    Client client = createMockClient(1, "test", "testClientDescription");
+    IDevice mockDevice = createMockDevice(AndroidVersion.VersionCodes.O, new Client[]{client});
+    Common.Device transportMockDevice = TransportServiceProxy.transportDeviceFromIDevice(mockDevice);
+    FakeTransportService thruService = new FakeTransportService();
+    ManagedChannel thruChannel = startNamedChannel("testSlowBytesRequestDoesNotBlockOtherRequests", thruService);
+    Map<String, ByteString> proxyBytesCache = Collections.synchronizedMap(new HashMap<>());
+    ByteString cachedBytes = ByteString.copyFromUtf8("Cached");
+    proxyBytesCache.put("cached", cachedBytes);
+    TransportServiceProxy proxy =
+      new TransportServiceProxy(mockDevice, transportMockDevice, thruChannel, new LinkedBlockingDeque<>(), proxyBytesCache);
+
+    List<ByteString> receivedData = Collections.synchronizedList(new ArrayList<>());
+    CountDownLatch slowRequestLatch = new CountDownLatch(1);
+    StreamObserver<Transport.BytesResponse> observer = new StreamObserver<Transport.BytesResponse>() {
+      @Override
+      public void onNext(Transport.BytesResponse response) {
+        receivedData.add(response.getContents());
+      }
+
+      @Override
+      public void onError(Throwable throwable) { assert false;}
+
+      @Override
+      public void onCompleted() {}
+    };
+
+    // The upstream request for the slow id does not return until the latch is released.
+    thruService.myBlockedBytesLatch = new CountDownLatch(1);
+    Thread slowRequestThread = new Thread(() -> {
+      proxy.getBytes(Transport.BytesRequest.newBuilder().setId("slow").build(), observer);
+      slowRequestLatch.countDown();
+    });
+    slowRequestThread.start();
+    thruService.myBytesRequestStartedLatch.await();
+
+    // A cached payload can be fetched while the slow request is in flight.
+    proxy.getBytes(Transport.BytesRequest.newBuilder().setId("cached").build(), observer);
+    assertThat(receivedData).containsExactly(cachedBytes);
+    assertThat(slowRequestLatch.getCount()).isEqualTo(1);
+
+    thruService.myBlockedBytesLatch.countDown();
+    slowRequestLatch.await();
+    assertThat(receivedData).containsExactly(cachedBytes, FakeTransportService.TEST_BYTES).inOrder();
+
+    thruChannel.shutdownNow();
+    proxy.disconnect();
+  }
+
+  @Test
+  public void testBytesRequestFailingWithErrorCompletesConcurrentRequests() throws Exception {
+    Client client = createMockClient(1, "test", "testClientDescription");
+    IDevice mockDevice = createMockDevice(AndroidVersion.VersionCodes.O, new Client[]{client});
+    Common.Device transportMockDevice = TransportServiceProxy.transportDeviceFromIDevice(mockDevice);
+    FakeTransportService thruService = new FakeTransportService();
+    ManagedChannel thruChannel = startNamedChannel("testBytesRequestFailingWithErrorCompletesConcurrentRequests", thruService);
+    TransportServiceProxy proxy =
+      new TransportServiceProxy(mockDevice, transportMockDevice, thruChannel, new LinkedBlockingDeque<>(), new HashMap<>());
+
+    // The preprocessing fails with an Error, not a RuntimeException, while the second request is usually waiting for the first one.
+    CountDownLatch preprocessingStartedLatch = new CountDownLatch(1);
+    CountDownLatch failPreprocessingLatch = new CountDownLatch(1);
+    proxy.registerDataPreprocessor(new TransportBytesPreprocessor() {
+      @Override
+      public boolean shouldPreprocess(Transport.BytesRequest request) {
+        return true;
+      }
+
+      @NotNull
+      @Override
+      public ByteString preprocessBytes(String id, ByteString event) {
+        preprocessingStartedLatch.countDown();
+        Uninterruptibles.awaitUninterruptibly(failPreprocessingLatch);
+        throw new StackOverflowError();
+      }
+    });
+
+    List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+    CountDownLatch completedLatch = new CountDownLatch(2);
+    StreamObserver<Transport.BytesResponse> observer = new StreamObserver<Transport.BytesResponse>() {
+      @Override
+      public void onNext(Transport.BytesResponse response) { assert false;}
+
+      @Override
+      public void onError(Throwable throwable) {
+        errors.add(throwable);
+        completedLatch.countDown();
+      }
+
+      @Override
+      public void onCompleted() {}
+    };
+
+    Transport.BytesRequest request = Transport.BytesRequest.newBuilder().setId("1").build();
+    new Thread(() -> proxy.getBytes(request, observer)).start();
+    preprocessingStartedLatch.await();
+    new Thread(() -> proxy.getBytes(request, observer)).start();
+    failPreprocessingLatch.countDown();
+
+    completedLatch.await();
+    assertThat(errors).hasSize(2);
+    assertThat(errors.get(0)).isInstanceOf(StackOverflowError.class);
+    assertThat(errors.get(1)).isInstanceOf(StackOverflowError.class);
+
+    thruChannel.shutdownNow();
+    proxy.disconnect();
+  }
+
   /**
    * @param uniqueName Name should be unique across tests.
    */
@@ -385,6 +541,8 @@ public class TransportServiceProxyTest {
     final LinkedBlockingDeque<Common.Event> myEventQueue = new LinkedBlockingDeque<>();
     @Nullable private Thread myEventThread;
     @Nullable private Commands.Command.CommandType myLastCommandType;
+    @Nullable private CountDownLatch myBlockedBytesLatch;
+    private final CountDownLatch myBytesRequestStartedLatch = new CountDownLatch(1);
     static final ByteString TEST_BYTES = ByteString.copyFromUtf8("Hello");
 
     @Override
@@ -414,6 +572,14 @@ public class TransportServiceProxyTest {
 
     @Override
     public void getBytes(Transport.BytesRequest request, StreamObserver<Transport.BytesResponse> responseObserver) {
+      myBytesRequestStartedLatch.countDown();
+      if (myBlockedBytesLatch != null) {
+        try {
+          myBlockedBytesLatch.await();
+        }
+        catch (InterruptedException ignored) {
+        }
+      }
       responseObserver.onNext(Transport.BytesResponse.newBuilder().setContents(TEST_BYTES).build());
       responseObserver.onCompleted();
     }
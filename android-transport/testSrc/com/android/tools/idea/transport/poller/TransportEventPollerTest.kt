@@ -221,6 +221,109 @@ class TransportEventPollerTest {
     assertThat(receivedEventsCount2).isEqualTo(5)
   }
 
+  /**
+   * Tests that listeners sharing the same filters only receive the events within their own time range.
+   */
+  @Test
+  fun testListenersWithSameFilters() {
+    val transportClient = TransportClient(grpcServer.name)
+    val transportEventPoller = TransportEventPoller.createPoller(
+      transportClient.transportStub,
+      TimeUnit.MILLISECONDS.toNanos(250))
+
+    val echoEvent1 = Common.Event.newBuilder()
+      .setTimestamp(1)
+      .setKind(Common.Event.Kind.ECHO)
+      .setGroupId(1)
+      .setIsEnded(true)
+      .build()
+    val echoEvent2 = Common.Event.newBuilder()
+      .setTimestamp(4)
+      .setKind(Common.Event.Kind.ECHO)
+      .setGroupId(2)
+      .setIsEnded(true)
+      .build()
+    transportService.addEventToStream(FakeTransportService.FAKE_DEVICE_ID, echoEvent1)
+    transportService.addEventToStream(FakeTransportService.FAKE_DEVICE_ID, echoEvent2)
+
+    val eventLatch1 = CountDownLatch(2)
+    val receivedEvents1 = mutableListOf<Common.Event>()
+    val echoListener1 = TransportEventListener(eventKind = Common.Event.Kind.ECHO,
+                                               startTime = { 0L },
+                                               endTime = { 10L },
+                                               callback = { event ->
+                                                 receivedEvents1.add(event)
+                                                 eventLatch1.countDown()
+                                                 eventLatch1.count == 0L
+                                               },
+                                               executor = MoreExecutors.directExecutor())
+    val eventLatch2 = CountDownLatch(1)
+    val receivedEvents2 = mutableListOf<Common.Event>()
+    val echoListener2 = TransportEventListener(eventKind = Common.Event.Kind.ECHO,
+                                               startTime = { 3L },
+                                               endTime = { 10L },
+                                               callback = { event ->
+                                                 receivedEvents2.add(event)
+                                                 eventLatch2.countDown()
+                                                 true
+                                               },
+                                               executor = MoreExecutors.directExecutor())
+    transportEventPoller.registerListener(echoListener1)
+    transportEventPoller.registerListener(echoListener2)
+
+    assertThat(eventLatch1.await(TIMEOUT_MILLISECONDS, TimeUnit.MILLISECONDS)).isTrue()
+    assertThat(eventLatch2.await(TIMEOUT_MILLISECONDS, TimeUnit.MILLISECONDS)).isTrue()
+    assertThat(receivedEvents1).containsExactly(echoEvent1, echoEvent2).inOrder()
+    assertThat(receivedEvents2).containsExactly(echoEvent2)
+  }
+
+  /**
+   * Tests that the filters of a listener are evaluated after the callbacks of the listeners polled before it.
+   */
+  @Test
+  fun testListenerFiltersDependingOnPreviousCallbacks() {
+    val transportClient = TransportClient(grpcServer.name)
+    // Polled manually so the events of both listeners are received in a single poll.
+    val transportEventPoller = TransportEventPoller(transportClient.transportStub, compareBy { it.timestamp })
+
+    val echoEvent1 = Common.Event.newBuilder()
+      .setTimestamp(1)
+      .setKind(Common.Event.Kind.ECHO)
+      .setGroupId(1)
+      .build()
+    val echoEvent2 = Common.Event.newBuilder()
+      .setTimestamp(2)
+      .setKind(Common.Event.Kind.ECHO)
+      .setGroupId(2)
+      .build()
+    transportService.addEventToStream(FakeTransportService.FAKE_DEVICE_ID, echoEvent1)
+    transportService.addEventToStream(FakeTransportService.FAKE_DEVICE_ID, echoEvent2)
+
+    // The first listener selects the group of the events received by the second one.
+    var selectedGroupId = 3L
+    val echoListener1 = TransportEventListener(eventKind = Common.Event.Kind.ECHO,
+                                               groupId = { 1L },
+                                               callback = { event ->
+                                                 selectedGroupId = event.groupId + 1
+                                                 false
+                                               },
+                                               executor = MoreExecutors.directExecutor())
+    val receivedEvents2 = mutableListOf<Common.Event>()
+    val echoListener2 = TransportEventListener(eventKind = Common.Event.Kind.ECHO,
+                                               groupId = { selectedGroupId },
+                                               callback = { event ->
+                                                 receivedEvents2.add(event)
+                                                 false
+                                               },
+                                               executor = MoreExecutors.directExecutor())
+    transportEventPoller.registerListener(echoListener1)
+    transportEventPoller.registerListener(echoListener2)
+
+    transportEventPoller.poll()
+    assertThat(selectedGroupId).isEqualTo(2L)
+    assertThat(receivedEvents2).containsExactly(echoEvent2)
+  }
+
   /**
    * Tests that listeners receive the right events
    */
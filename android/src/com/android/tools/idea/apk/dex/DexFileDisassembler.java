@@ -17,13 +17,19 @@ package com.android.tools.idea.apk.dex;
 
 
 import com.google.common.util.concurrent.ListeningExecutorService;
+import com.intellij.openapi.diagnostic.Logger;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.ide.PooledThreadExecutor;
 import org.jf.baksmali.BaksmaliOptions;
 import org.jf.dexlib2.dexbacked.DexBackedDexFile;
 import org.jf.dexlib2.iface.DexFile;
 
+import java.io.DataInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 
@@ -33,14 +39,68 @@ import static com.intellij.concurrency.JobSchedulerImpl.getCPUCoresCount;
 import static org.jf.baksmali.Baksmali.disassembleDexFile;
 
 public class DexFileDisassembler {
+  /**
+   * Name of the file, in the output folder, that records the checksum of the dex file the folder contains the disassembly of.
+   */
+  static final String CHECKSUM_FILE_NAME = ".dex-checksum";
+
   public boolean disassemble(@NotNull File dexFile, @NotNull File outputFolder) throws ExecutionException, InterruptedException {
+    // The checksum in the dex header identifies its contents, the disassembly only needs to be done again when it changes
+    String checksum = readChecksum(dexFile);
+    File checksumFile = new File(outputFolder, CHECKSUM_FILE_NAME);
+    if (checksum != null && checksum.equals(readChecksumFile(checksumFile))) {
+      return true;
+    }
+
     ListeningExecutorService executor = listeningDecorator(PooledThreadExecutor.INSTANCE);
     Future<DexBackedDexFile> dexFileFuture = executor.submit(() -> getDexFile(dexFile.toPath()));
     DexBackedDexFile dexBackedDexFile = dexFileFuture.get();
-    return disassemble(dexBackedDexFile, outputFolder);
+    boolean disassembled = disassemble(dexBackedDexFile, outputFolder);
+    if (disassembled && checksum != null) {
+      try {
+        Files.write(checksumFile.toPath(), checksum.getBytes(StandardCharsets.UTF_8));
+      }
+      catch (IOException e) {
+        Logger.getInstance(DexFileDisassembler.class).warn("Failed to write " + checksumFile, e);
+      }
+    }
+    return disassembled;
   }
 
   private static boolean disassemble(@NotNull DexFile dexFile, @NotNull File outputFolderPath) {
     return disassembleDexFile(dexFile, outputFolderPath, getCPUCoresCount(), new BaksmaliOptions());
   }
+
+  /**
+   * Returns the Adler-32 checksum and the signature stored in the header of the given dex file, or null if they can't be read.
+   */
+  @Nullable
+  private static String readChecksum(@NotNull File dexFile) {
+    // Header: magic (8 bytes), checksum (4 bytes), SHA-1 signature (20 bytes)
+    byte[] header = new byte[32];
+    try (DataInputStream stream = new DataInputStream(Files.newInputStream(dexFile.toPath()))) {
+      stream.readFully(header);
+    }
+    catch (IOException e) {
+      return null;
+    }
+    StringBuilder checksum = new StringBuilder(2 * (header.length - 8));
+    for (int i = 8; i < header.length; i++) {
+      checksum.append(String.format("%02x", header[i]));
+    }
+    return checksum.toString();
+  }
+
+  @Nullable
+  private static String readChecksumFile(@NotNull File checksumFile) {
+    if (!checksumFile.isFile()) {
+      return null;
+    }
+    try {
+      return new String(Files.readAllBytes(checksumFile.toPath()), StandardCharsets.UTF_8);
+    }
+    catch (IOException e) {
+      return null;
+    }
+  }
 }
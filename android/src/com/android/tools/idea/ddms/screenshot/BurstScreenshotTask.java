@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.ddms.screenshot;
+
+import com.android.ddmlib.IDevice;
+import com.android.ddmlib.RawImage;
+import com.android.tools.adtui.ImageUtils;
+import com.android.tools.idea.device.DeviceArtDescriptor;
+import com.android.tools.idea.device.DeviceArtPainter;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.ExceptionUtil;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.jetbrains.android.util.AndroidBundle;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Captures a series of screenshots from a device and writes them as PNG files to a directory, as soon as each of them is ready.
+ * <p>
+ * The capture is pipelined: while a screenshot is obtained from the device, the previous ones are converted, framed and written on
+ * pooled threads. The images converted from the raw screenshots are reused for the next screenshots once they have been written.
+ */
+public class BurstScreenshotTask extends Task.Backgroundable {
+  /**
+   * Maximum number of screenshots being processed while the next one is obtained from the device, which bounds the memory used.
+   */
+  private static final int MAX_PENDING_SCREENSHOTS = 2;
+
+  private final IDevice myDevice;
+  private final int myCount;
+  private final File myDirectory;
+  private final String myFileNamePrefix;
+  private final int myRotationAngle;
+  @Nullable private final DeviceArtDescriptor myDescriptor;
+  private final boolean myAddShadow;
+  private final boolean myAddReflection;
+
+  private final List<File> myFiles = Collections.synchronizedList(new ArrayList<>());
+  private volatile String myError;
+
+  /**
+   * @param rotationAngle angle in degrees by which the screenshots are rotated, one of 0, 90, 180 or 270
+   * @param descriptor    the device art to frame the screenshots with, or null to leave them unframed
+   */
+  public BurstScreenshotTask(@NotNull Project project,
+                             @NotNull IDevice device,
+                             int count,
+                             @NotNull File directory,
+                             @NotNull String fileNamePrefix,
+                             int rotationAngle,
+                             @Nullable DeviceArtDescriptor descriptor,
+                             boolean addShadow,
+                             boolean addReflection) {
+    super(project, AndroidBundle.message("android.ddms.screenshot.burst.task.title"), true);
+    myDevice = device;
+    myCount = count;
+    myDirectory = directory;
+    myFileNamePrefix = fileNamePrefix;
+    myRotationAngle = rotationAngle;
+    myDescriptor = descriptor;
+    myAddShadow = addShadow;
+    myAddReflection = addReflection;
+  }
+
+  @Override
+  public void run(@NotNull ProgressIndicator indicator) {
+    indicator.setIndeterminate(false);
+
+    Executor executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("BurstScreenshotTask", MAX_PENDING_SCREENSHOTS);
+    Semaphore pendingScreenshots = new Semaphore(MAX_PENDING_SCREENSHOTS);
+    Queue<BufferedImage> reusableImages = new ConcurrentLinkedQueue<>();
+    try {
+      for (int i = 0; i < myCount && myError == null && !indicator.isCanceled(); i++) {
+        indicator.setText(AndroidBundle.message("android.ddms.screenshot.burst.task.step", i + 1, myCount));
+        indicator.setFraction(i / (double)myCount);
+
+        RawImage rawImage = myDevice.getScreenshot(10, TimeUnit.SECONDS);
+        if (rawImage.bpp != 16 && rawImage.bpp != 32) {
+          myError = AndroidBundle.message("android.ddms.screenshot.task.error.invalid.bpp", rawImage.bpp);
+          break;
+        }
+
+        File file = new File(myDirectory, String.format("%s-%02d.png", myFileNamePrefix, i + 1));
+        pendingScreenshots.acquire();
+        executor.execute(() -> {
+          try {
+            // Screenshots still queued when the task is cancelled or has failed are dropped.
+            if (!indicator.isCanceled() && myError == null) {
+              processScreenshot(rawImage, file, reusableImages);
+              myFiles.add(file);
+            }
+          }
+          catch (IOException e) {
+            myError = AndroidBundle.message("android.ddms.screenshot.save.error", ExceptionUtil.getMessage(e));
+          }
+          finally {
+            pendingScreenshots.release();
+          }
+        });
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    catch (Exception e) {
+      myError = AndroidBundle.message("android.ddms.screenshot.task.error1", ExceptionUtil.getMessage(e));
+    }
+    finally {
+      // Wait for the screenshots that are still being processed, so that no file is written after the task has finished.
+      pendingScreenshots.acquireUninterruptibly(MAX_PENDING_SCREENSHOTS);
+    }
+  }
+
+  private void processScreenshot(@NotNull RawImage rawImage, @NotNull File file, @NotNull Queue<BufferedImage> reusableImages)
+    throws IOException {
+    BufferedImage convertedImage = ScreenshotTask.convertImage(rawImage, reusableImages.poll());
+    BufferedImage image = myRotationAngle != 0 ? ImageUtils.rotateByRightAngle(convertedImage, myRotationAngle) : convertedImage;
+    if (myDescriptor != null) {
+      image = DeviceArtPainter.createFrame(image, myDescriptor, myAddShadow, myAddReflection);
+    }
+    BufferedImage croppedImage = ImageUtils.cropBlank(image, null);
+    ScreenshotViewer.writePng(croppedImage != null ? croppedImage : image, file);
+    // The converted image may be the one that has just been written, so it can only be reused now.
+    reusableImages.offer(convertedImage);
+  }
+
+  @Override
+  public void onSuccess() {
+    VirtualFile directory = LocalFileSystem.getInstance().findFileByIoFile(myDirectory);
+    if (directory != null) {
+      directory.refresh(true, false);
+    }
+    if (myError != null) {
+      Messages.showErrorDialog(myProject, myError, AndroidBundle.message("android.ddms.screenshot.burst.title"));
+      return;
+    }
+    ScreenshotViewer.notifyScreenCapture(myProject, AndroidBundle.message("android.ddms.screenshot.burst.title"),
+                                         AndroidBundle.message("android.ddms.screenshot.burst.saved", myFiles.size(), myDirectory.getPath()));
+  }
+
+  /**
+   * Returns the files the screenshots have been written to, in capture order.
+   */
+  @NotNull
+  public List<File> getFiles() {
+    List<File> files = new ArrayList<>(myFiles);
+    files.sort(null);
+    return files;
+  }
+
+  @Nullable
+  public String getError() {
+    return myError;
+  }
+}
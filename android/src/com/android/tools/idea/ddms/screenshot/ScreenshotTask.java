@@ -33,12 +33,16 @@ import java.awt.color.ICC_ColorSpace;
 import java.awt.color.ICC_Profile;
 import java.awt.image.*;
 import java.io.IOException;
+import java.util.Hashtable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.stream.IntStream;
 
 public class ScreenshotTask extends Task.Modal {
+  private static final String PROFILE_NAME_PROPERTY = "screenshot.profile.name";
+
   private final IDevice myDevice;
 
   private String myError;
@@ -87,17 +91,55 @@ public class ScreenshotTask extends Task.Modal {
 
     indicator.setText(AndroidBundle.message("android.ddms.screenshot.task.step.load"));
 
-    myImage = createImage(rawImage);
-    for (int y = 0; y < rawImage.height; y++) {
-      for (int x = 0; x < rawImage.width; x++) {
-        int argb = rawImage.getARGB((x + y * rawImage.width) * (rawImage.bpp / 8));
-        myImage.setRGB(x, y, argb);
+    myImage = convertImage(rawImage, null);
+  }
+
+  /**
+   * Converts a screenshot obtained from the device into a {@link BufferedImage}. The bits per pixel of the raw image must be 16 or 32.
+   *
+   * @param reusableImage an image that is no longer used, which is filled instead of allocating a new one if it is compatible
+   */
+  @NotNull
+  static BufferedImage convertImage(@NotNull RawImage rawImage, @Nullable BufferedImage reusableImage) {
+    BufferedImage image = reusableImage != null && isCompatible(reusableImage, rawImage) ? reusableImage : createImage(rawImage);
+    int bytesPerPixel = rawImage.bpp / 8;
+    if (image.getType() == BufferedImage.TYPE_INT_ARGB) {
+      // Without a color profile the pixels can be written directly to the raster, rows are converted in parallel.
+      int[] pixels = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+      IntStream.range(0, rawImage.height).parallel().forEach(y -> {
+        int offset = y * rawImage.width;
+        for (int x = 0; x < rawImage.width; x++) {
+          pixels[offset + x] = rawImage.getARGB((offset + x) * bytesPerPixel);
+        }
+      });
+    }
+    else {
+      // The color model converts the pixels to its color space, one row at a time.
+      int[] row = new int[rawImage.width];
+      for (int y = 0; y < rawImage.height; y++) {
+        int offset = y * rawImage.width;
+        for (int x = 0; x < rawImage.width; x++) {
+          row[x] = rawImage.getARGB((offset + x) * bytesPerPixel);
+        }
+        image.setRGB(0, y, rawImage.width, 1, row, 0, rawImage.width);
       }
     }
+    return image;
+  }
+
+  private static boolean isCompatible(@NotNull BufferedImage image, @NotNull RawImage rawImage) {
+    if (image.getWidth() != rawImage.width || image.getHeight() != rawImage.height) {
+      return false;
+    }
+    String profileName = getProfileName(rawImage);
+    if (profileName == null) {
+      return image.getType() == BufferedImage.TYPE_INT_ARGB;
+    }
+    return profileName.equals(image.getProperty(PROFILE_NAME_PROPERTY));
   }
 
   @NotNull
-  private BufferedImage createImage(RawImage rawImage) {
+  private static BufferedImage createImage(RawImage rawImage) {
     String profileName = getProfileName(rawImage);
     if (profileName == null) {
       //noinspection UndesirableClassUsage
@@ -106,7 +148,7 @@ public class ScreenshotTask extends Task.Modal {
 
     ICC_Profile profile = ICC_Profile.getInstance(ColorSpace.CS_sRGB);
     try {
-      profile = ICC_Profile.getInstance(getClass().getClassLoader().getResourceAsStream("colorProfiles/" + profileName));
+      profile = ICC_Profile.getInstance(ScreenshotTask.class.getClassLoader().getResourceAsStream("colorProfiles/" + profileName));
     }
     catch (IOException e) {
       // Ignore
@@ -116,8 +158,10 @@ public class ScreenshotTask extends Task.Modal {
     ColorModel colorModel = new DirectColorModel(colorSpace, 32, 0x00ff0000, 0x0000ff00, 0x000000ff, 0xff000000, false, DataBuffer.TYPE_INT);
     WritableRaster raster = colorModel.createCompatibleWritableRaster(rawImage.width, rawImage.height);
 
+    Hashtable<String, String> properties = new Hashtable<>();
+    properties.put(PROFILE_NAME_PROPERTY, profileName);
     //noinspection UndesirableClassUsage
-    return new BufferedImage(colorModel, raster, colorModel.isAlphaPremultiplied(), null);
+    return new BufferedImage(colorModel, raster, colorModel.isAlphaPremultiplied(), properties);
   }
 
   @Nullable
@@ -33,6 +33,8 @@ import com.intellij.notification.Notifications;
 import com.intellij.openapi.actionSystem.DataProvider;
 import com.intellij.openapi.actionSystem.PlatformDataKeys;
 import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.fileChooser.FileChooser;
+import com.intellij.openapi.fileChooser.FileChooserDescriptorFactory;
 import com.intellij.openapi.fileChooser.FileChooserFactory;
 import com.intellij.openapi.fileChooser.FileSaverDescriptor;
 import com.intellij.openapi.fileChooser.FileSaverDialog;
@@ -43,8 +45,11 @@ import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.openapi.ui.InputValidator;
 import com.intellij.openapi.ui.Messages;
 import com.intellij.openapi.util.SystemInfo;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.LocalFileSystem;
 import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
@@ -89,6 +94,8 @@ public class ScreenshotViewer extends DialogWrapper implements DataProvider {
   @NonNls private static final String SCREENSHOT_SAVE_PATH_KEY = "ScreenshotViewer.SavePath";
 
   private static final int ROTATE_AMOUNT = 90;
+  private static final int DEFAULT_BURST_COUNT = 5;
+  private static final int MAX_BURST_COUNT = 99;
 
   private final Project myProject;
   private final IDevice myDevice;
@@ -109,6 +116,7 @@ public class ScreenshotViewer extends DialogWrapper implements DataProvider {
   private JCheckBox myDropShadowCheckBox;
   private JCheckBox myScreenGlareCheckBox;
   private JButton myCopyButton;
+  private JButton myBurstCaptureButton;
 
   /**
    * Angle in degrees by which the screenshot from the device has been rotated. One of 0, 90, 180 or 270.
@@ -148,6 +156,7 @@ public class ScreenshotViewer extends DialogWrapper implements DataProvider {
 
     myRefreshButton.setIcon(AllIcons.Actions.Refresh);
     myRefreshButton.setEnabled(device != null);
+    myBurstCaptureButton.setEnabled(device != null);
 
     myProvider = getImageFileEditorProvider();
     myImageFileEditor = (ImageFileEditor)myProvider.createEditor(myProject, myBackingVirtualFile);
@@ -163,6 +172,9 @@ public class ScreenshotViewer extends DialogWrapper implements DataProvider {
       if (actionEvent.getSource() == myRefreshButton) {
         doRefreshScreenshot();
       }
+      else if (actionEvent.getSource() == myBurstCaptureButton) {
+        doBurstCapture();
+      }
       else if (actionEvent.getSource() == myRotateRightButton) {
         doRotateScreenshot(ROTATE_AMOUNT);
       }
@@ -177,10 +189,8 @@ public class ScreenshotViewer extends DialogWrapper implements DataProvider {
       }
       else if (actionEvent.getSource() == myCopyButton) {
         CopyPasteManager.getInstance().setContents(new ImageTransferable(myImageFileEditor.getImageEditor().getDocument().getValue()));
-        Notifications.Bus.notify(new Notification(NotificationGroup.createIdWithTitle("Screen Capture", AndroidBundle.message("android.ddms.actions.screenshot")),
-                                                  AndroidBundle.message("android.ddms.actions.screenshot"),
-                                                  AndroidBundle.message("android.ddms.actions.screenshot.copied.to.clipboard"),
-                                                  NotificationType.INFORMATION), myProject);
+        notifyScreenCapture(myProject, AndroidBundle.message("android.ddms.actions.screenshot"),
+                            AndroidBundle.message("android.ddms.actions.screenshot.copied.to.clipboard"));
       }
     };
 
@@ -192,6 +202,7 @@ public class ScreenshotViewer extends DialogWrapper implements DataProvider {
     myDropShadowCheckBox.addActionListener(l);
     myScreenGlareCheckBox.addActionListener(l);
     myCopyButton.addActionListener(l);
+    myBurstCaptureButton.addActionListener(l);
 
     myDeviceArtDescriptors = getDescriptorsToFrame(image);
     String[] titles = new String[myDeviceArtDescriptors.size()];
@@ -284,6 +295,55 @@ public class ScreenshotViewer extends DialogWrapper implements DataProvider {
     }.queue();
   }
 
+  private void doBurstCapture() {
+    assert myDevice != null;
+    String countText = Messages.showInputDialog(myProject,
+                                                AndroidBundle.message("android.ddms.screenshot.burst.count.message", MAX_BURST_COUNT),
+                                                AndroidBundle.message("android.ddms.screenshot.burst.title"),
+                                                null,
+                                                String.valueOf(DEFAULT_BURST_COUNT),
+                                                new InputValidator() {
+                                                  @Override
+                                                  public boolean checkInput(String inputString) {
+                                                    int count = StringUtil.parseInt(inputString, 0);
+                                                    return count > 0 && count <= MAX_BURST_COUNT;
+                                                  }
+
+                                                  @Override
+                                                  public boolean canClose(String inputString) {
+                                                    return checkInput(inputString);
+                                                  }
+                                                });
+    if (countText == null) {
+      return;
+    }
+
+    VirtualFile directory = FileChooser.chooseFile(FileChooserDescriptorFactory.createSingleFolderDescriptor(), myProject,
+                                                   loadScreenshotPath());
+    if (directory == null) {
+      return;
+    }
+    PropertiesComponent.getInstance(myProject).setValue(SCREENSHOT_SAVE_PATH_KEY, directory.getPath());
+
+    // The screenshots are rotated and framed like the one displayed.
+    boolean addFrame = myFrameScreenshotCheckBox.isSelected();
+    DeviceArtDescriptor spec = addFrame ? myDeviceArtDescriptors.get(myDeviceArtCombo.getSelectedIndex()) : null;
+    boolean shadow = addFrame && myDropShadowCheckBox.isSelected();
+    boolean reflection = addFrame && myScreenGlareCheckBox.isSelected();
+    String fileNamePrefix = FileUtil.getNameWithoutExtension(getDefaultFileName());
+
+    new BurstScreenshotTask(myProject, myDevice, Integer.parseInt(countText), VfsUtilCore.virtualToIoFile(directory), fileNamePrefix,
+                            myRotationAngle, spec, shadow, reflection).queue();
+  }
+
+  /**
+   * Shows a notification of the screen capture group, e.g. once a screenshot has been copied or saved.
+   */
+  static void notifyScreenCapture(@Nullable Project project, @NotNull String title, @NotNull String content) {
+    Notifications.Bus.notify(new Notification(NotificationGroup.createIdWithTitle("Screen Capture", AndroidBundle.message("android.ddms.actions.screenshot")),
+                                              title, content, NotificationType.INFORMATION), project);
+  }
+
   private void doRotateScreenshot(int change) {
     myRotationAngle = (myRotationAngle + change) % 360;
     processScreenshot(myFrameScreenshotCheckBox.isSelected(), change);
@@ -497,7 +557,7 @@ public class ScreenshotViewer extends DialogWrapper implements DataProvider {
     super.doOKAction();
   }
 
-  private static void writePng(BufferedImage image, File outFile) throws IOException {
+  static void writePng(BufferedImage image, File outFile) throws IOException {
     ImageWriter pngWriter = getWriter(image, SdkConstants.EXT_PNG);
     if (pngWriter == null) {
       throw new IOException("Failed to find png writer");
@@ -109,6 +109,7 @@ public class DeviceExplorerController {
   private static final String DEVICE_EXPLORER_BUSY_MESSAGE = "Device Explorer is busy, please retry later or cancel current operation";
   private static final long FILE_ENTRY_CREATION_TIMEOUT_MILLIS = 10_000;
   private static final long FILE_ENTRY_DELETION_TIMEOUT_MILLIS = 10_000;
+  private static final int MAX_PREFETCHED_DIRECTORIES = 8;
 
   private int myShowLoadingNodeDelayMillis = 200;
   private int myTransferringNodeRepaintMillis = 100;
@@ -706,10 +707,7 @@ public class DeviceExplorerController {
 
       return wrapFileTransfer(
         tracker -> addDownloadOperationWork(tracker, treeNodes),
-        tracker -> executeFuturesInSequence(treeNodes.iterator(), treeNode -> {
-          Path nodePath = localDirectory.resolve(treeNode.getEntry().getName());
-          return downloadSingleNode(treeNode, nodePath, tracker);
-        }));
+        tracker -> downloadNodes(treeNodes, localDirectory, tracker));
     }
 
     /**
@@ -804,6 +802,85 @@ public class DeviceExplorerController {
       };
     }
 
+    /**
+     * Downloads the given nodes into the given local directory. When there are several files, they are downloaded
+     * together with {@link DeviceExplorerFileManager#downloadFileEntries}, so that the device file system can transfer
+     * them concurrently; directories are then downloaded one after the other.
+     */
+    @NotNull
+    private ListenableFuture<Void> downloadNodes(@NotNull List<DeviceFileEntryNode> treeNodes,
+                                                 @NotNull Path localDirectory,
+                                                 @NotNull FileTransferOperationTracker tracker) {
+      List<DeviceFileEntryNode> fileNodes = treeNodes.stream()
+        .filter(x -> !x.getEntry().isDirectory())
+        .collect(Collectors.toList());
+      if (fileNodes.size() <= 1) {
+        return executeFuturesInSequence(treeNodes.iterator(), treeNode -> {
+          Path nodePath = localDirectory.resolve(treeNode.getEntry().getName());
+          return downloadSingleNode(treeNode, nodePath, tracker);
+        });
+      }
+
+      List<DeviceFileEntryNode> directoryNodes = treeNodes.stream()
+        .filter(x -> x.getEntry().isDirectory())
+        .collect(Collectors.toList());
+      ListenableFuture<Void> futureFiles = downloadFiles(fileNodes, localDirectory, tracker);
+      return myEdtExecutor.transformAsync(futureFiles, aVoid -> executeFuturesInSequence(directoryNodes.iterator(), treeNode -> {
+        Path nodePath = localDirectory.resolve(treeNode.getEntry().getName());
+        return downloadSingleDirectory(treeNode, nodePath, tracker);
+      }));
+    }
+
+    @NotNull
+    private ListenableFuture<Void> downloadFiles(@NotNull List<DeviceFileEntryNode> fileNodes,
+                                                 @NotNull Path localDirectory,
+                                                 @NotNull FileTransferOperationTracker tracker) {
+      if (tracker.isCancelled()) {
+        return Futures.immediateCancelledFuture();
+      }
+
+      List<DeviceFileEntryNode> treeNodes = new ArrayList<>();
+      for (DeviceFileEntryNode treeNode : fileNodes) {
+        if (treeNode.isTransferring()) {
+          tracker.addProblem(new Exception(String.format("File %s is already downloading or uploading", getUserFacingNodeName(treeNode))));
+        }
+        else {
+          treeNodes.add(treeNode);
+        }
+      }
+      if (treeNodes.isEmpty()) {
+        return Futures.immediateFuture(null);
+      }
+
+      List<DeviceFileEntry> entries = new ArrayList<>();
+      List<Path> localPaths = new ArrayList<>();
+      List<FileTransferProgress> progresses = new ArrayList<>();
+      List<AtomicReference<Long>> sizeRefs = new ArrayList<>();
+      for (DeviceFileEntryNode treeNode : treeNodes) {
+        tracker.processFile();
+        startNodeDownload(treeNode);
+        AtomicReference<Long> sizeRef = new AtomicReference<>();
+        entries.add(treeNode.getEntry());
+        localPaths.add(localDirectory.resolve(treeNode.getEntry().getName()));
+        progresses.add(createDownloadProgress(treeNode, tracker, sizeRef));
+        sizeRefs.add(sizeRef);
+      }
+      tracker.setDownloadFileText(treeNodes.get(0).getEntry(), 0, 0);
+
+      List<ListenableFuture<Void>> futureDownloads = myFileManager.downloadFileEntries(entries, localPaths, progresses);
+      List<ListenableFuture<Void>> futureResults = new ArrayList<>();
+      for (int i = 0; i < futureDownloads.size(); i++) {
+        DeviceFileEntryNode treeNode = treeNodes.get(i);
+        DeviceFileEntry entry = entries.get(i);
+        AtomicReference<Long> sizeRef = sizeRefs.get(i);
+        ListenableFuture<Void> futureDownload = futureDownloads.get(i);
+        myEdtExecutor.addListener(futureDownload, () -> stopNodeDownload(treeNode));
+        logFuture(futureDownload, millis -> String.format(Locale.US, "Downloaded file in %,d msec: %s", millis, entry.getFullPath()));
+        futureResults.add(completeFileDownload(treeNode, myEdtExecutor.transform(futureDownload, aVoid -> sizeRef.get()), tracker));
+      }
+      return myEdtExecutor.transform(Futures.allAsList(futureResults), results -> null);
+    }
+
     @NotNull
     private ListenableFuture<Void> downloadSingleNode(@NotNull DeviceFileEntryNode node,
                                                       @NotNull Path localPath,
@@ -828,7 +905,13 @@ public class DeviceExplorerController {
         return Futures.immediateFuture(null);
       }
 
-      ListenableFuture<Long> futureEntrySize = downloadFileEntry(treeNode, localPath, tracker);
+      return completeFileDownload(treeNode, downloadFileEntry(treeNode, localPath, tracker), tracker);
+    }
+
+    @NotNull
+    private ListenableFuture<Void> completeFileDownload(@NotNull DeviceFileEntryNode treeNode,
+                                                        @NotNull ListenableFuture<Long> futureEntrySize,
+                                                        @NotNull FileTransferOperationTracker tracker) {
       SettableFuture<Void> futureResult = SettableFuture.create();
       myEdtExecutor.addConsumer(futureEntrySize, (byteCount, throwable) -> {
         if (throwable != null) {
@@ -869,10 +952,7 @@ public class DeviceExplorerController {
       myEdtExecutor.addCallback(futureLoadChildren, new FutureCallback<Void>() {
         @Override
         public void onSuccess(@Nullable Void result) {
-          ListenableFuture<Void> futureDownloadChildren = executeFuturesInSequence(treeNode.getChildEntryNodes().iterator(), node -> {
-            Path nodePath = localDirectoryPath.resolve(node.getEntry().getName());
-            return downloadSingleNode(node, nodePath, tracker);
-          });
+          ListenableFuture<Void> futureDownloadChildren = downloadNodes(treeNode.getChildEntryNodes(), localDirectoryPath, tracker);
           myEdtExecutor.addConsumer(futureDownloadChildren, (aVoid, throwable) -> {
             if (throwable != null) {
               tracker.addProblem(throwable);
@@ -945,7 +1025,7 @@ public class DeviceExplorerController {
 
       myView.startTreeBusyIndicator();
       ListenableFuture<Void> futuresRefresh = executeFuturesInSequence(directoryNodes.iterator(), treeNode -> {
-        treeNode.setLoaded(false);
+        invalidateNodeChildren(treeNode);
         return loadNodeChildren(treeNode);
       });
       myEdtExecutor.addListener(futuresRefresh, myView::stopTreeBusyIndicator);
@@ -1003,7 +1083,7 @@ public class DeviceExplorerController {
         .collect(Collectors.toSet());
 
       executeFuturesInSequence(parentsToRefresh.iterator(), parentNode -> {
-        parentNode.setLoaded(false);
+        invalidateNodeChildren(parentNode);
         return loadNodeChildren(parentNode);
       });
     }
@@ -1109,7 +1189,7 @@ public class DeviceExplorerController {
           futureResult.get(FILE_ENTRY_CREATION_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
 
           // Refresh the parent node to show the newly created file
-          parentTreeNode.setLoaded(false);
+          invalidateNodeChildren(parentTreeNode);
           ListenableFuture<Void> futureLoad = loadNodeChildren(parentTreeNode);
           myEdtExecutor.addListener(futureLoad, () -> myView.expandNode(parentTreeNode));
         }
@@ -1181,13 +1261,24 @@ public class DeviceExplorerController {
     private ListenableFuture<Void> uploadVirtualFiles(@NotNull DeviceFileEntryNode parentNode,
                                                       @NotNull List<VirtualFile> files,
                                                       @NotNull FileTransferOperationTracker tracker) {
-      // Upload each file
-      ListenableFuture<Void> futureUploadFiles =
-        executeFuturesInSequence(files.iterator(), file -> uploadVirtualFile(parentNode, file, tracker));
+      // Upload each file. When there are several files, they are uploaded together, so that the device file system can
+      // transfer them concurrently; directories are then uploaded one after the other.
+      List<VirtualFile> plainFiles = files.stream().filter(x -> !x.isDirectory()).collect(Collectors.toList());
+      ListenableFuture<Void> futureUploadFiles;
+      if (plainFiles.size() <= 1) {
+        futureUploadFiles = executeFuturesInSequence(files.iterator(), file -> uploadVirtualFile(parentNode, file, tracker));
+      }
+      else {
+        List<VirtualFile> directories = files.stream().filter(VirtualFile::isDirectory).collect(Collectors.toList());
+        ListenableFuture<Void> futurePlainFiles = uploadFiles(parentNode, plainFiles, tracker);
+        futureUploadFiles = myEdtExecutor.transformAsync(
+          futurePlainFiles,
+          aVoid -> executeFuturesInSequence(directories.iterator(), file -> uploadDirectory(parentNode, file, tracker)));
+      }
 
       // Refresh children nodes
       return myEdtExecutor.transformAsync(futureUploadFiles, aVoid -> {
-        parentNode.setLoaded(false);
+        invalidateNodeChildren(parentNode);
         return loadNodeChildren(parentNode);
       });
     }
@@ -1222,7 +1313,7 @@ public class DeviceExplorerController {
       ListenableFuture<Void> futureDirectory = parentEntry.createNewDirectory(directoryName);
       myEdtExecutor.addConsumer(futureDirectory, (aVoid, createDirectoryError) -> {
         // Refresh node entries
-        parentNode.setLoaded(false);
+        invalidateNodeChildren(parentNode);
         ListenableFuture<Void> futureLoadChildren = loadNodeChildren(parentNode);
         myEdtExecutor.addCallback(futureLoadChildren, new FutureCallback<Void>() {
           @Override
@@ -1272,17 +1363,48 @@ public class DeviceExplorerController {
       tracker.processFile();
       tracker.setUploadFileText(file, 0, 0);
 
-      SettableFuture<Void> futureResult = SettableFuture.create();
-      logFuture(futureResult,
-                millis -> String.format(Locale.US,
-                                        "Uploaded file in %,d msec: %s",
-                                        millis,
-                                        AdbPathUtil.resolve(parentNode.getEntry().getFullPath(), file.getName())));
-
       DeviceFileEntry parentEntry = parentNode.getEntry();
-      Path localPath = Paths.get(file.getPath());
       UploadFileState uploadState = new UploadFileState();
-      ListenableFuture<Void> futureUpload = parentEntry.uploadFile(localPath, new FileTransferProgress() {
+      ListenableFuture<Void> futureUpload =
+        parentEntry.uploadFile(Paths.get(file.getPath()), createUploadProgress(parentNode, file, tracker, uploadState));
+      return completeFileUpload(parentNode, file, futureUpload, uploadState, tracker);
+    }
+
+    @NotNull
+    private ListenableFuture<Void> uploadFiles(@NotNull DeviceFileEntryNode parentNode,
+                                               @NotNull List<VirtualFile> files,
+                                               @NotNull FileTransferOperationTracker tracker) {
+      if (tracker.isCancelled()) {
+        return Futures.immediateCancelledFuture();
+      }
+
+      List<Path> localPaths = new ArrayList<>();
+      List<FileTransferProgress> progresses = new ArrayList<>();
+      List<UploadFileState> uploadStates = new ArrayList<>();
+      for (VirtualFile file : files) {
+        tracker.processFile();
+        UploadFileState uploadState = new UploadFileState();
+        localPaths.add(Paths.get(file.getPath()));
+        progresses.add(createUploadProgress(parentNode, file, tracker, uploadState));
+        uploadStates.add(uploadState);
+      }
+      tracker.setUploadFileText(files.get(0), 0, 0);
+
+      DeviceFileEntry parentEntry = parentNode.getEntry();
+      List<ListenableFuture<Void>> futureUploads = parentEntry.getFileSystem().uploadFiles(parentEntry, localPaths, progresses);
+      List<ListenableFuture<Void>> futureResults = new ArrayList<>();
+      for (int i = 0; i < futureUploads.size(); i++) {
+        futureResults.add(completeFileUpload(parentNode, files.get(i), futureUploads.get(i), uploadStates.get(i), tracker));
+      }
+      return myEdtExecutor.transform(Futures.allAsList(futureResults), results -> null);
+    }
+
+    @NotNull
+    private FileTransferProgress createUploadProgress(@NotNull DeviceFileEntryNode parentNode,
+                                                      @NotNull VirtualFile file,
+                                                      @NotNull FileTransferOperationTracker tracker,
+                                                      @NotNull UploadFileState uploadState) {
+      return new FileTransferProgress() {
         private long previousBytes;
 
         @Override
@@ -1296,8 +1418,7 @@ public class DeviceExplorerController {
           uploadState.byteCount = totalBytes;
           // First check if child node already exists
           if (uploadState.childNode == null) {
-            String fileName = localPath.getFileName().toString();
-            uploadState.childNode = parentNode.findChildEntry(fileName);
+            uploadState.childNode = parentNode.findChildEntry(file.getName());
             if (uploadState.childNode != null) {
               startNodeUpload(uploadState.childNode);
             }
@@ -1317,7 +1438,7 @@ public class DeviceExplorerController {
           // Start loading children
           if (currentBytes > 0) {
             if (uploadState.loadChildrenFuture == null) {
-              parentNode.setLoaded(false);
+              invalidateNodeChildren(parentNode);
               uploadState.loadChildrenFuture = loadNodeChildren(parentNode);
             }
           }
@@ -1327,7 +1448,21 @@ public class DeviceExplorerController {
         public boolean isCancelled() {
           return tracker.isCancelled();
         }
-      });
+      };
+    }
+
+    @NotNull
+    private ListenableFuture<Void> completeFileUpload(@NotNull DeviceFileEntryNode parentNode,
+                                                      @NotNull VirtualFile file,
+                                                      @NotNull ListenableFuture<Void> futureUpload,
+                                                      @NotNull UploadFileState uploadState,
+                                                      @NotNull FileTransferOperationTracker tracker) {
+      SettableFuture<Void> futureResult = SettableFuture.create();
+      logFuture(futureResult,
+                millis -> String.format(Locale.US,
+                                        "Uploaded file in %,d msec: %s",
+                                        millis,
+                                        AdbPathUtil.resolve(parentNode.getEntry().getFullPath(), file.getName())));
 
       myEdtExecutor.addConsumer(futureUpload, (aVoid, throwable) -> {
         // Complete this method
@@ -1497,7 +1632,17 @@ public class DeviceExplorerController {
       DeviceFileEntry entry = treeNode.getEntry();
       startNodeDownload(treeNode);
       AtomicReference<Long> sizeRef = new AtomicReference<>();
-      ListenableFuture<Void> futureDownload = myFileManager.downloadFileEntry(entry, localPath, new FileTransferProgress() {
+      ListenableFuture<Void> futureDownload = myFileManager.downloadFileEntry(entry, localPath, createDownloadProgress(treeNode, tracker, sizeRef));
+      myEdtExecutor.addListener(futureDownload, () -> stopNodeDownload(treeNode));
+      logFuture(futureDownload, millis -> String.format(Locale.US, "Downloaded file in %,d msec: %s", millis, entry.getFullPath()));
+      return myEdtExecutor.transform(futureDownload, aVoid -> sizeRef.get());
+    }
+
+    @NotNull
+    private FileTransferProgress createDownloadProgress(@NotNull DeviceFileEntryNode treeNode,
+                                                        @NotNull FileTransferOperationTracker tracker,
+                                                        @NotNull AtomicReference<Long> sizeRef) {
+      return new FileTransferProgress() {
         private long previousBytes;
 
         @UiThread
@@ -1518,10 +1663,7 @@ public class DeviceExplorerController {
         public boolean isCancelled() {
           return tracker.isCancelled();
         }
-      });
-      myEdtExecutor.addListener(futureDownload, () -> stopNodeDownload(treeNode));
-      logFuture(futureDownload, millis -> String.format(Locale.US, "Downloaded file in %,d msec: %s", millis, entry.getFullPath()));
-      return myEdtExecutor.transform(futureDownload, aVoid -> sizeRef.get());
+      };
     }
 
     @Override
@@ -1529,6 +1671,15 @@ public class DeviceExplorerController {
       loadNodeChildren(node);
     }
 
+    /**
+     * Marks the node as not loaded and discards the cached entries of its directory, so that the next
+     * {@link #loadNodeChildren} lists them from the device.
+     */
+    private void invalidateNodeChildren(@NotNull DeviceFileEntryNode node) {
+      node.setLoaded(false);
+      node.getEntry().invalidateEntries();
+    }
+
     private ListenableFuture<Void> loadNodeChildren(@NotNull final DeviceFileEntryNode node) {
       // Ensure node is expanded only once
       if (node.isLoaded()) {
@@ -1556,7 +1707,24 @@ public class DeviceExplorerController {
       myLoadingNodesAlarms.addRequest(showLoadingNode, myShowLoadingNodeDelayMillis);
 
       startLoadChildren(node);
-      ListenableFuture<List<DeviceFileEntry>> futureEntries = node.getEntry().getEntries();
+      ListenableFuture<List<DeviceFileEntry>> futureEntries;
+      boolean isFirstLoad = node.getChildEntryNodes().isEmpty();
+      if (isFirstLoad) {
+        // The node is loaded for the first time, show the entries as they are listed
+        List<DeviceFileEntry> partialEntries = new ArrayList<>();
+        futureEntries = node.getEntry().getEntries(entries -> myEdtExecutor.execute(() -> {
+          if (!Objects.equals(treeModel, getTreeModel()) || !node.isLoaded()) {
+            return;
+          }
+          myLoadingNodesAlarms.cancelRequest(showLoadingNode);
+          partialEntries.addAll(entries);
+          partialEntries.sort(NodeSorting.getCustomComparator(DeviceFileEntry::getName, DeviceFileEntry::isDirectory));
+          updateChildrenNodes(treeModel, node, new ArrayList<>(partialEntries));
+        }));
+      }
+      else {
+        futureEntries = node.getEntry().getEntries();
+      }
       myEdtExecutor.addCallback(futureEntries, new FutureCallback<List<DeviceFileEntry>>() {
         @Override
         public void onSuccess(List<DeviceFileEntry> result) {
@@ -1585,11 +1753,19 @@ public class DeviceExplorerController {
           // Restore selection
           restoreTreeSelection(treeSelectionModel, oldSelections, node);
 
-          List<DeviceFileEntryNode> symlinkNodes = addedNodes
+          // Entries received before completion have already been added to the tree
+          List<DeviceFileEntryNode> symlinkNodes = (isFirstLoad ? node.getChildEntryNodes() : addedNodes)
             .stream()
             .filter(x -> x.getEntry().isSymbolicLink())
             .collect(Collectors.toList());
           querySymbolicLinks(symlinkNodes, treeModel);
+
+          // The user is likely to expand one of the sub-directories next
+          node.getChildEntryNodes().stream()
+            .map(DeviceFileEntryNode::getEntry)
+            .filter(DeviceFileEntry::isDirectory)
+            .limit(MAX_PREFETCHED_DIRECTORIES)
+            .forEach(DeviceFileEntry::prefetchEntries);
         }
 
         @Override
@@ -20,6 +20,7 @@ import com.android.tools.idea.explorer.fs.FileTransferProgress;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.intellij.openapi.util.Key;
 import java.nio.file.Path;
+import java.util.List;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -43,6 +44,16 @@ public interface DeviceExplorerFileManager {
   @NotNull
   ListenableFuture<Void> downloadFileEntry(@NotNull DeviceFileEntry entry, @NotNull Path localPath, @NotNull FileTransferProgress progress);
 
+  /**
+   * Download asynchronously the content of several {@link DeviceFileEntry} files of the same device onto the local file system,
+   * see {@link com.android.tools.idea.explorer.fs.DeviceFileSystem#downloadFiles}. Returns a {@link ListenableFuture} for
+   * each entry, that completes when the download of the entry has completed.
+   */
+  @NotNull
+  List<ListenableFuture<Void>> downloadFileEntries(@NotNull List<DeviceFileEntry> entries,
+                                                   @NotNull List<Path> localPaths,
+                                                   @NotNull List<FileTransferProgress> progresses);
+
   /**
    * Opens a previously downloaded file in an editor window. If the file contents is
    * not recognized, the implementation may open a dialog box asking the user to pick
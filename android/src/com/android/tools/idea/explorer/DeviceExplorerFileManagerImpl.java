@@ -24,6 +24,7 @@ import com.android.tools.idea.explorer.options.DeviceFileExplorerSettings;
 import com.android.utils.FileUtils;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import com.intellij.openapi.application.ApplicationManager;
@@ -128,6 +129,49 @@ public class DeviceExplorerFileManagerImpl implements DeviceExplorerFileManager
     return futureResult;
   }
 
+  @NotNull
+  @Override
+  public List<ListenableFuture<Void>> downloadFileEntries(@NotNull List<DeviceFileEntry> entries,
+                                                          @NotNull List<Path> localPaths,
+                                                          @NotNull List<FileTransferProgress> progresses) {
+    if (entries.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<SettableFuture<Void>> futureResults = new ArrayList<>();
+    List<ListenableFuture<VirtualFile>> futureVirtualFiles = new ArrayList<>();
+    for (Path localPath : localPaths) {
+      futureResults.add(SettableFuture.create());
+      FileUtils.mkdirs(localPath.getParent().toFile());
+      futureVirtualFiles.add(DeviceExplorerFilesUtils.findFile(localPath));
+    }
+
+    // As in downloadFileEntry, delete the existing local files using VFS first, then download all the files at once.
+    // Files that do not exist yet are null in the list.
+    myEdtExecutor.addCallback(Futures.successfulAsList(futureVirtualFiles), new FutureCallback<List<VirtualFile>>() {
+      @Override
+      public void onSuccess(List<VirtualFile> virtualFiles) {
+        TransactionGuard.submitTransaction(myProject, () -> {
+          ApplicationManager.getApplication().runWriteAction(() -> {
+            for (int i = 0; i < virtualFiles.size(); i++) {
+              deleteVirtualFile(futureResults.get(i), virtualFiles.get(i));
+            }
+          });
+          List<ListenableFuture<Void>> futureDownloads = entries.get(0).getFileSystem().downloadFiles(entries, localPaths, progresses);
+          for (int i = 0; i < futureDownloads.size(); i++) {
+            completeDownload(futureResults.get(i), futureDownloads.get(i), localPaths.get(i));
+          }
+        });
+      }
+
+      @Override
+      public void onFailure(@NotNull Throwable t) {
+        futureResults.forEach(future -> future.setException(t));
+      }
+    });
+
+    return new ArrayList<>(futureResults);
+  }
+
   private void deleteVirtualFile(SettableFuture<Void> futureResult, VirtualFile virtualFile) {
     if (virtualFile != null) {
       try {
@@ -148,7 +192,10 @@ public class DeviceExplorerFileManagerImpl implements DeviceExplorerFileManager
     @NotNull Path localPath,
     @NotNull FileTransferProgress progress
   ) {
-    ListenableFuture<Void> result = entry.downloadFile(localPath, progress);
+    completeDownload(futureResult, entry.downloadFile(localPath, progress), localPath);
+  }
+
+  private void completeDownload(@NotNull SettableFuture<Void> futureResult, @NotNull ListenableFuture<Void> result, @NotNull Path localPath) {
     myEdtExecutor.addCallback(result, new FutureCallback<Void>() {
       @Override
       public void onSuccess(@Nullable Void result) {
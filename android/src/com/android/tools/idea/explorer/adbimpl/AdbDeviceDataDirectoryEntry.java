@@ -24,6 +24,7 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -228,10 +229,32 @@ public class AdbDeviceDataDirectoryEntry extends AdbDeviceForwardingFileEntry {
 
       return myDevice.getTaskExecutor().transform(futureChildren, entries -> {
         assert entries != null;
-        return entries.stream().map(x -> new AdbDevicePackageDirectoryEntry(this, x, myPackageName)).collect(Collectors.toList());
+        return createChildEntries(entries);
       });
     }
 
+    @NotNull
+    @Override
+    public ListenableFuture<List<DeviceFileEntry>> getEntries(@NotNull Consumer<List<DeviceFileEntry>> partialEntries) {
+      ListenableFuture<List<AdbFileListingEntry>> futureChildren = myDevice.getAdbFileListing().getChildrenRunAs(
+        myEntry, myPackageName, listingEntries -> partialEntries.accept(createChildEntries(listingEntries)));
+
+      return myDevice.getTaskExecutor().transform(futureChildren, entries -> {
+        assert entries != null;
+        return createChildEntries(entries);
+      });
+    }
+
+    @Override
+    public void prefetchEntries() {
+      myDevice.getAdbFileListing().prefetchChildrenRunAs(myEntry, myPackageName);
+    }
+
+    @NotNull
+    private List<DeviceFileEntry> createChildEntries(@NotNull List<AdbFileListingEntry> entries) {
+      return entries.stream().map(x -> new AdbDevicePackageDirectoryEntry(this, x, myPackageName)).collect(Collectors.toList());
+    }
+
     @NotNull
     @Override
     public ListenableFuture<Void> downloadFile(@NotNull Path localPath, @NotNull FileTransferProgress progress) {
@@ -250,10 +273,11 @@ public class AdbDeviceDataDirectoryEntry extends AdbDeviceForwardingFileEntry {
       //
       // We do this directly instead of doing it as a fallback to attempting a regular push
       // because of https://code.google.com/p/android/issues/detail?id=241157.
-      return myDevice.getAdbFileTransfer().uploadFileViaTempLocation(localPath,
-                                                                     AdbPathUtil.resolve(getFullPath(), fileName),
-                                                                     progress,
-                                                                     myPackageName);
+      ListenableFuture<Void> futureUpload = myDevice.getAdbFileTransfer().uploadFileViaTempLocation(localPath,
+                                                                                                    AdbPathUtil.resolve(getFullPath(), fileName),
+                                                                                                    progress,
+                                                                                                    myPackageName);
+      return invalidateEntriesOnCompletion(futureUpload, getFullPath());
     }
   }
 }
\ No newline at end of file
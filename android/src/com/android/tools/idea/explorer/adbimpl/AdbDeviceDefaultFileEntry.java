@@ -23,6 +23,7 @@ import org.jetbrains.annotations.Nullable;
 
 import java.nio.file.Path;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * A {@link AdbDeviceFileEntry} that goes through the file system mounting points (see {@link AdbDeviceFileSystem#resolveMountPoint})
@@ -43,6 +44,26 @@ public class AdbDeviceDefaultFileEntry extends AdbDeviceFileEntry {
     return myDevice.getTaskExecutor().transformAsync(futureMountPoint, AdbDeviceFileEntry::getEntries);
   }
 
+  @NotNull
+  @Override
+  public ListenableFuture<List<DeviceFileEntry>> getEntries(@NotNull Consumer<List<DeviceFileEntry>> partialEntries) {
+    ListenableFuture<AdbDeviceFileEntry> futureMountPoint = myDevice.resolveMountPoint(this);
+    return myDevice.getTaskExecutor().transformAsync(futureMountPoint, x -> {
+      assert x != null;
+      return x.getEntries(partialEntries);
+    });
+  }
+
+  @Override
+  public void prefetchEntries() {
+    ListenableFuture<AdbDeviceFileEntry> futureMountPoint = myDevice.resolveMountPoint(this);
+    myDevice.getTaskExecutor().addConsumer(futureMountPoint, (x, error) -> {
+      if (x != null) {
+        x.prefetchEntries();
+      }
+    });
+  }
+
   @NotNull
   @Override
   public ListenableFuture<Void> delete() {
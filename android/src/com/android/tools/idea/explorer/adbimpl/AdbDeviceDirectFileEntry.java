@@ -29,6 +29,7 @@ import org.jetbrains.annotations.Nullable;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -54,33 +55,57 @@ public class AdbDeviceDirectFileEntry extends AdbDeviceFileEntry {
     ListenableFuture<List<AdbFileListingEntry>> children = myDevice.getAdbFileListing().getChildrenRunAs(myEntry, myRunAs);
     return myDevice.getTaskExecutor().transform(children, result -> {
       assert result != null;
-      return result.stream()
-        .map(listingEntry -> new AdbDeviceDefaultFileEntry(myDevice, listingEntry, this))
-        .collect(Collectors.toList());
+      return createChildEntries(result);
     });
   }
 
+  @NotNull
+  @Override
+  public ListenableFuture<List<DeviceFileEntry>> getEntries(@NotNull Consumer<List<DeviceFileEntry>> partialEntries) {
+    ListenableFuture<List<AdbFileListingEntry>> children = myDevice.getAdbFileListing().getChildrenRunAs(
+      myEntry, myRunAs, listingEntries -> partialEntries.accept(createChildEntries(listingEntries)));
+    return myDevice.getTaskExecutor().transform(children, result -> {
+      assert result != null;
+      return createChildEntries(result);
+    });
+  }
+
+  @Override
+  public void prefetchEntries() {
+    myDevice.getAdbFileListing().prefetchChildrenRunAs(myEntry, myRunAs);
+  }
+
+  @NotNull
+  private List<DeviceFileEntry> createChildEntries(@NotNull List<AdbFileListingEntry> listingEntries) {
+    return listingEntries.stream()
+      .map(listingEntry -> new AdbDeviceDefaultFileEntry(myDevice, listingEntry, this))
+      .collect(Collectors.toList());
+  }
+
   @NotNull
   @Override
   public ListenableFuture<Void> delete() {
+    String parentPath = AdbPathUtil.getParentPath(getFullPath());
     if (isDirectory()) {
-      return myDevice.getAdbFileOperations().deleteRecursiveRunAs(getFullPath(), myRunAs);
+      return invalidateEntriesOnCompletion(myDevice.getAdbFileOperations().deleteRecursiveRunAs(getFullPath(), myRunAs), parentPath);
     }
     else {
-      return myDevice.getAdbFileOperations().deleteFileRunAs(getFullPath(), myRunAs);
+      return invalidateEntriesOnCompletion(myDevice.getAdbFileOperations().deleteFileRunAs(getFullPath(), myRunAs), parentPath);
     }
   }
 
   @NotNull
   @Override
   public ListenableFuture<Void> createNewFile(@NotNull String fileName) {
-    return myDevice.getAdbFileOperations().createNewFileRunAs(getFullPath(), fileName, myRunAs);
+    return invalidateEntriesOnCompletion(myDevice.getAdbFileOperations().createNewFileRunAs(getFullPath(), fileName, myRunAs),
+                                         getFullPath());
   }
 
   @NotNull
   @Override
   public ListenableFuture<Void> createNewDirectory(@NotNull String directoryName) {
-    return myDevice.getAdbFileOperations().createNewDirectoryRunAs(getFullPath(), directoryName, myRunAs);
+    return invalidateEntriesOnCompletion(myDevice.getAdbFileOperations().createNewDirectoryRunAs(getFullPath(), directoryName, myRunAs),
+                                         getFullPath());
   }
 
   @NotNull
@@ -124,7 +149,7 @@ public class AdbDeviceDirectFileEntry extends AdbDeviceFileEntry {
 
     ListenableFuture<Boolean> futureShouldCreateRemote = myDevice.getTaskExecutor().executeAsync(this::isDeviceSuAndNotRoot);
 
-    return myDevice.getTaskExecutor().transformAsync(futureShouldCreateRemote, shouldCreateRemote -> {
+    ListenableFuture<Void> futureUpload = myDevice.getTaskExecutor().transformAsync(futureShouldCreateRemote, shouldCreateRemote -> {
       assert shouldCreateRemote != null;
       if (shouldCreateRemote) {
         ListenableFuture<Void> futureTouchFile = myDevice.getAdbFileOperations().touchFileAsDefaultUser(remotePath);
@@ -142,6 +167,7 @@ public class AdbDeviceDirectFileEntry extends AdbDeviceFileEntry {
         return myDevice.getAdbFileTransfer().uploadFile(localPath, remotePath, progress);
       }
     });
+    return invalidateEntriesOnCompletion(futureUpload, getFullPath());
   }
 
   private static boolean isSyncPermissionError(@NotNull SyncException pullError) {
@@ -17,6 +17,8 @@ package com.android.tools.idea.explorer.adbimpl;
 
 import com.android.tools.idea.explorer.fs.DeviceFileEntry;
 import com.android.tools.idea.explorer.fs.DeviceFileSystem;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.intellij.openapi.util.text.StringUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -51,6 +53,21 @@ public abstract class AdbDeviceFileEntry implements DeviceFileEntry {
     return myDevice;
   }
 
+  @Override
+  public void invalidateEntries() {
+    myDevice.getAdbFileListing().invalidate(getFullPath());
+  }
+
+  /**
+   * Discards the cached listings of {@code directoryPath} when {@code future} completes, e.g. after
+   * a file operation that modified the directory.
+   */
+  @NotNull
+  protected <V> ListenableFuture<V> invalidateEntriesOnCompletion(@NotNull ListenableFuture<V> future, @NotNull String directoryPath) {
+    future.addListener(() -> myDevice.getAdbFileListing().invalidate(directoryPath), MoreExecutors.directExecutor());
+    return future;
+  }
+
   @Nullable
   @Override
   public AdbDeviceFileEntry getParent() {
@@ -21,16 +21,22 @@ import com.android.tools.idea.concurrent.FutureCallbackExecutor;
 import com.android.tools.idea.explorer.fs.DeviceFileEntry;
 import com.android.tools.idea.explorer.fs.DeviceFileSystem;
 import com.android.tools.idea.explorer.fs.DeviceState;
+import com.android.tools.idea.explorer.fs.FileTransferProgress;
 import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.SettableFuture;
 import com.intellij.openapi.util.text.StringUtil;
 import org.jetbrains.annotations.NotNull;
 
 import javax.annotation.Nullable;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 public class AdbDeviceFileSystem implements DeviceFileSystem {
   @NotNull private final AdbDeviceFileSystemService myService;
@@ -156,6 +162,88 @@ public class AdbDeviceFileSystem implements DeviceFileSystem {
     return resultFuture;
   }
 
+  @NotNull
+  @Override
+  public List<ListenableFuture<Void>> downloadFiles(@NotNull List<DeviceFileEntry> entries,
+                                                    @NotNull List<Path> localPaths,
+                                                    @NotNull List<FileTransferProgress> progresses) {
+    Supplier<List<ListenableFuture<Void>>> batchTransfer = () -> {
+      List<AdbFileTransfer.TransferItem> items = new ArrayList<>();
+      for (int i = 0; i < entries.size(); i++) {
+        DeviceFileEntry entry = entries.get(i);
+        items.add(new AdbFileTransfer.TransferItem(entry.getFullPath(), localPaths.get(i), entry.getSize(), progresses.get(i)));
+      }
+      return myFileTransfer.downloadFiles(items);
+    };
+    return transferFiles(entries.stream().allMatch(AdbDeviceFileSystem::isPlainEntry),
+                         entries.size(),
+                         batchTransfer,
+                         () -> DeviceFileSystem.super.downloadFiles(entries, localPaths, progresses));
+  }
+
+  @NotNull
+  @Override
+  public List<ListenableFuture<Void>> uploadFiles(@NotNull DeviceFileEntry directory,
+                                                  @NotNull List<Path> localPaths,
+                                                  @NotNull List<FileTransferProgress> progresses) {
+    Supplier<List<ListenableFuture<Void>>> batchTransfer = () -> {
+      List<AdbFileTransfer.TransferItem> items = new ArrayList<>();
+      for (int i = 0; i < localPaths.size(); i++) {
+        Path localPath = localPaths.get(i);
+        String remotePath = AdbPathUtil.resolve(directory.getFullPath(), localPath.getFileName().toString());
+        items.add(new AdbFileTransfer.TransferItem(remotePath, localPath, localPath.toFile().length(), progresses.get(i)));
+      }
+      List<ListenableFuture<Void>> futures = myFileTransfer.uploadFiles(items);
+      Futures.whenAllComplete(futures).run(() -> myFileListing.invalidate(directory.getFullPath()), MoreExecutors.directExecutor());
+      return futures;
+    };
+    return transferFiles(isPlainEntry(directory) && !Objects.equals(directory.getFullPath(), "/data"),
+                         localPaths.size(),
+                         batchTransfer,
+                         () -> DeviceFileSystem.super.uploadFiles(directory, localPaths, progresses));
+  }
+
+  /**
+   * Returns true if the entry is accessed directly by the shell user, i.e. it is not in an app data directory, which is only accessible
+   * with "run-as".
+   */
+  private static boolean isPlainEntry(@NotNull DeviceFileEntry entry) {
+    return entry instanceof AdbDeviceDefaultFileEntry;
+  }
+
+  /**
+   * Runs {@code batchTransfer}, which transfers all the files with plain sync transfers, if the device allows it, and
+   * {@code perFileTransfer} otherwise. Devices that support "su" but are not root may need to transfer some files through a temporary
+   * location, which is only done by the transfers of the {@link DeviceFileEntry} implementations.
+   */
+  @NotNull
+  private List<ListenableFuture<Void>> transferFiles(boolean plainEntries,
+                                                     int count,
+                                                     @NotNull Supplier<List<ListenableFuture<Void>>> batchTransfer,
+                                                     @NotNull Supplier<List<ListenableFuture<Void>>> perFileTransfer) {
+    if (!plainEntries) {
+      return perFileTransfer.get();
+    }
+
+    List<SettableFuture<Void>> futureResults = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      futureResults.add(SettableFuture.create());
+    }
+    ListenableFuture<Boolean> futureCanBatch = getTaskExecutor().executeAsync(
+      () -> !myDeviceCapabilities.supportsSuRootCommand() || myDeviceCapabilities.isRoot());
+    getTaskExecutor().addConsumer(futureCanBatch, (canBatch, throwable) -> {
+      if (throwable != null) {
+        futureResults.forEach(future -> future.setException(throwable));
+        return;
+      }
+      List<ListenableFuture<Void>> futures = canBatch ? batchTransfer.get() : perFileTransfer.get();
+      for (int i = 0; i < count; i++) {
+        futureResults.get(i).setFuture(futures.get(i));
+      }
+    });
+    return new ArrayList<>(futureResults);
+  }
+
   private void resolvePathSegments(@NotNull SettableFuture<DeviceFileEntry> future,
                                    @NotNull DeviceFileEntry currentEntry,
                                    @NotNull String[] segments,
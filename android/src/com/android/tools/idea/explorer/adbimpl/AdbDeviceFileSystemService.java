@@ -254,6 +254,7 @@ public final class AdbDeviceFileSystemService implements DeviceFileSystemService
         if (deviceFileSystem != null) {
           myListeners.forEach(x -> x.deviceRemoved(deviceFileSystem));
           myDevices.remove(deviceFileSystem);
+          deviceFileSystem.getAdbFileTransfer().closeSyncServices();
         }
       });
     }
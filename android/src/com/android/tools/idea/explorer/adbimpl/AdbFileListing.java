@@ -20,16 +20,27 @@ import com.android.ddmlib.IDevice;
 import com.android.ddmlib.ShellCommandUnresponsiveException;
 import com.android.ddmlib.TimeoutException;
 import com.android.tools.idea.concurrent.FutureCallbackExecutor;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.intellij.openapi.diagnostic.Logger;
+import javax.annotation.concurrent.GuardedBy;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.regex.MatchResult;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -41,11 +52,26 @@ import static com.android.ddmlib.FileListingService.LS_L_PATTERN;
 public class AdbFileListing {
   @NotNull public static final Logger LOGGER = Logger.getInstance(AdbFileListing.class);
   @NotNull private static final Pattern BACKSLASH = Pattern.compile("\\", Pattern.LITERAL);
+  /**
+   * Directory listings younger than this are returned from the cache instead of running "ls" again.
+   */
+  private static final long LISTING_CACHE_TTL_NANOS = TimeUnit.SECONDS.toNanos(5);
+  private static final int MAX_PENDING_PREFETCHES = 16;
 
   @NotNull private final IDevice myDevice;
   @NotNull private AdbDeviceCapabilities myDeviceCapabilities;
   @NotNull private final FutureCallbackExecutor myExecutor;
   @NotNull private final AdbFileListingEntry myRoot;
+  @GuardedBy("myListingCache")
+  @NotNull private final Map<ListingKey, CachedListing> myListingCache = new HashMap<>();
+  /**
+   * Directories to prefetch, most recently requested first. Prefetches run one at a time to avoid flooding the device.
+   */
+  @GuardedBy("myListingCache")
+  @NotNull private final Deque<ListingKey> myPendingPrefetches = new ArrayDeque<>();
+  @GuardedBy("myListingCache")
+  private boolean myPrefetchRunning;
+  private long myListingCacheTtlNanos = LISTING_CACHE_TTL_NANOS;
 
   public AdbFileListing(@NotNull IDevice device, @NotNull AdbDeviceCapabilities deviceCapabilities, @NotNull Executor taskExecutor) {
     myDevice = device;
@@ -67,23 +93,184 @@ public class AdbFileListing {
   @NotNull
   public ListenableFuture<List<AdbFileListingEntry>> getChildrenRunAs(@NotNull AdbFileListingEntry parentEntry,
                                                                       @Nullable String runAs) {
-    return myExecutor.executeAsync(() -> {
+    return getChildrenRunAs(parentEntry, runAs, null);
+  }
+
+  /**
+   * Returns the entries of a directory. Listings are cached for a few seconds, and concurrent requests for the
+   * same directory share a single "ls" command.
+   *
+   * <p>If {@code partialEntries} is not {@code null} and the directory is listed from the device, batches of entries
+   * are passed to it as the output of "ls" is received, on the thread executing the command.
+   */
+  @NotNull
+  public ListenableFuture<List<AdbFileListingEntry>> getChildrenRunAs(@NotNull AdbFileListingEntry parentEntry,
+                                                                      @Nullable String runAs,
+                                                                      @Nullable Consumer<List<AdbFileListingEntry>> partialEntries) {
+    ListingKey key = new ListingKey(parentEntry.getFullPath(), runAs);
+    ListenableFuture<List<AdbFileListingEntry>> futureEntries;
+    synchronized (myListingCache) {
+      removeExpiredListings();
+      CachedListing cached = myListingCache.get(key);
+      if (cached != null && (partialEntries == null || cached.myFutureEntries.isDone())) {
+        futureEntries = cached.myFutureEntries;
+      }
+      else {
+        futureEntries = listChildren(parentEntry, runAs, partialEntries);
+        myListingCache.put(key, new CachedListing(futureEntries));
+      }
+    }
+    // Callers are free to modify the returned list
+    return myExecutor.transform(futureEntries, ArrayList::new);
+  }
+
+  /**
+   * Lists the entries of a directory in the background, so a later call to {@link #getChildrenRunAs} returns
+   * them from the cache.
+   */
+  public void prefetchChildrenRunAs(@NotNull AdbFileListingEntry parentEntry, @Nullable String runAs) {
+    if (!parentEntry.isDirectory()) {
+      return;
+    }
+    ListingKey key = new ListingKey(parentEntry.getFullPath(), runAs);
+    synchronized (myListingCache) {
+      removeExpiredListings();
+      if (myListingCache.containsKey(key)) {
+        return;
+      }
+      myPendingPrefetches.remove(key);
+      myPendingPrefetches.addFirst(key);
+      while (myPendingPrefetches.size() > MAX_PENDING_PREFETCHES) {
+        myPendingPrefetches.removeLast();
+      }
+    }
+    runNextPrefetch();
+  }
+
+  /**
+   * Discards the cached listings of a directory and all its descendants, e.g. after a file operation
+   * that modified them.
+   */
+  public void invalidate(@NotNull String path) {
+    synchronized (myListingCache) {
+      myListingCache.keySet().removeIf(key -> isSameOrDescendant(path, key.myPath));
+    }
+  }
+
+  public void invalidateAll() {
+    synchronized (myListingCache) {
+      myListingCache.clear();
+    }
+  }
+
+  /**
+   * Removes the listings that have expired, so the cache only holds the directories listed in the last few seconds.
+   */
+  @GuardedBy("myListingCache")
+  private void removeExpiredListings() {
+    long nowNanos = System.nanoTime();
+    myListingCache.values().removeIf(cached -> !cached.isValid(nowNanos, myListingCacheTtlNanos));
+  }
+
+  @VisibleForTesting
+  void setListingCacheTtlNanos(long ttlNanos) {
+    myListingCacheTtlNanos = ttlNanos;
+  }
+
+  @VisibleForTesting
+  int getCachedListingCount() {
+    synchronized (myListingCache) {
+      return myListingCache.size();
+    }
+  }
+
+  private void runNextPrefetch() {
+    ListingKey key;
+    ListenableFuture<List<AdbFileListingEntry>> futureEntries;
+    synchronized (myListingCache) {
+      if (myPrefetchRunning) {
+        return;
+      }
+      key = myPendingPrefetches.pollFirst();
+      if (key == null) {
+        return;
+      }
+      removeExpiredListings();
+      CachedListing cached = myListingCache.get(key);
+      if (cached != null) {
+        futureEntries = cached.myFutureEntries;
+      }
+      else {
+        AdbFileListingEntry entry = new AdbFileListingEntryBuilder()
+          .setPath(key.myPath)
+          .setKind(AdbFileListingEntry.EntryKind.DIRECTORY)
+          .build();
+        futureEntries = listChildren(entry, key.myRunAs, null);
+        myListingCache.put(key, new CachedListing(futureEntries));
+      }
+      myPrefetchRunning = true;
+    }
+    futureEntries.addListener(() -> {
+      synchronized (myListingCache) {
+        myPrefetchRunning = false;
+      }
+      runNextPrefetch();
+    }, myExecutor);
+  }
+
+  @NotNull
+  private ListenableFuture<List<AdbFileListingEntry>> listChildren(@NotNull AdbFileListingEntry parentEntry,
+                                                                   @Nullable String runAs,
+                                                                   @Nullable Consumer<List<AdbFileListingEntry>> partialEntries) {
+    ListenableFuture<List<AdbFileListingEntry>> futureEntries = myExecutor.executeAsync(() -> {
       // Run "ls -l" command and process matching output lines
       String command = getCommand(runAs, "ls -l ").withDirectoryEscapedPath(parentEntry.getFullPath()).build(); //$NON-NLS-1$
-
-      AdbShellCommandResult commandResult = AdbShellCommandsUtil.executeCommand(myDevice, command);
       boolean escaping = myDeviceCapabilities.hasEscapingLs();
 
-      List<AdbFileListingEntry> entries = commandResult.getOutput()
-        .stream()
-        .map(line -> processLsOutputLine(line, escaping, parentEntry))
-        .filter(Objects::nonNull)
-        .collect(Collectors.toList());
+      List<AdbFileListingEntry> entries = new ArrayList<>();
+      AdbShellCommandResult commandResult = AdbShellCommandsUtil.executeCommand(myDevice, command, lines -> {
+        List<AdbFileListingEntry> newEntries = Arrays.stream(lines)
+          .map(line -> processLsOutputLine(line, escaping, parentEntry))
+          .filter(Objects::nonNull)
+          .collect(Collectors.toList());
+        entries.addAll(newEntries);
+        if (partialEntries != null && !newEntries.isEmpty()) {
+          partialEntries.accept(newEntries);
+        }
+      });
       if (entries.isEmpty() && commandResult.isError()) {
         commandResult.throwIfError();
       }
       return entries;
     });
+
+    // Failed listings are not cached
+    futureEntries.addListener(() -> {
+      if (isFailed(futureEntries)) {
+        synchronized (myListingCache) {
+          ListingKey key = new ListingKey(parentEntry.getFullPath(), runAs);
+          CachedListing cached = myListingCache.get(key);
+          if (cached != null && cached.myFutureEntries == futureEntries) {
+            myListingCache.remove(key);
+          }
+        }
+      }
+    }, myExecutor);
+    return futureEntries;
+  }
+
+  private static boolean isSameOrDescendant(@NotNull String path, @NotNull String other) {
+    return other.equals(path) || other.startsWith(path.endsWith("/") ? path : path + "/");
+  }
+
+  private static boolean isFailed(@NotNull ListenableFuture<?> future) {
+    try {
+      Futures.getDone(future);
+      return false;
+    }
+    catch (Throwable t) {
+      return true;
+    }
   }
 
   /**
@@ -217,6 +404,54 @@ public class AdbFileListing {
     return escaping ? BACKSLASH.matcher(name).replaceAll("") : name;
   }
 
+  private static final class ListingKey {
+    @NotNull private final String myPath;
+    @Nullable private final String myRunAs;
+
+    private ListingKey(@NotNull String path, @Nullable String runAs) {
+      myPath = path;
+      myRunAs = runAs;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      ListingKey key = (ListingKey)o;
+      return myPath.equals(key.myPath) && Objects.equals(myRunAs, key.myRunAs);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(myPath, myRunAs);
+    }
+  }
+
+  private static final class CachedListing {
+    @NotNull private final ListenableFuture<List<AdbFileListingEntry>> myFutureEntries;
+    private volatile long myCompletionNanos;
+    private volatile boolean myCompleted;
+
+    private CachedListing(@NotNull ListenableFuture<List<AdbFileListingEntry>> futureEntries) {
+      myFutureEntries = futureEntries;
+      futureEntries.addListener(() -> {
+        myCompletionNanos = System.nanoTime();
+        myCompleted = true;
+      }, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Pending listings are always valid, completed ones until they expire.
+     */
+    private boolean isValid(long nowNanos, long ttlNanos) {
+      return !myCompleted || nowNanos - myCompletionNanos < ttlNanos;
+    }
+  }
+
   @NotNull
   private AdbShellCommandBuilder getCommand(@Nullable String runAs, @NotNull String text)
     throws TimeoutException, AdbCommandRejectedException, ShellCommandUnresponsiveException, IOException {
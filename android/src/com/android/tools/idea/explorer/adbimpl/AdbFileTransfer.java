@@ -25,21 +25,40 @@ import com.android.tools.idea.explorer.fs.FileTransferProgress;
 import com.android.tools.idea.explorer.fs.ThrottledProgress;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import com.intellij.openapi.diagnostic.Logger;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
+import javax.annotation.concurrent.GuardedBy;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 public class AdbFileTransfer {
   @NotNull private static Logger LOGGER = Logger.getInstance(AdbFileTransfer.class);
+  /**
+   * Maximum number of {@link SyncService} connections kept open for reuse, which is also the number of files
+   * transferred concurrently by {@link #downloadFiles} and {@link #uploadFiles}.
+   */
+  private static final int MAX_SYNC_SERVICES = 4;
+  /**
+   * Idle {@link SyncService} connections older than this are closed instead of being reused.
+   */
+  private static final long SYNC_SERVICE_IDLE_TIMEOUT_NANOS = 30_000_000_000L;
 
   @NotNull private final IDevice myDevice;
   @NotNull private final AdbFileOperations myFileOperations;
   @NotNull private final FutureCallbackExecutor myProgressExecutor;
   @NotNull private final FutureCallbackExecutor myTaskExecutor;
+  @GuardedBy("myIdleSyncServices")
+  @NotNull private final Deque<IdleSyncService> myIdleSyncServices = new ArrayDeque<>();
 
   public AdbFileTransfer(@NotNull IDevice device,
                          @NotNull AdbFileOperations fileOperations,
@@ -121,6 +140,74 @@ public class AdbFileTransfer {
     });
   }
 
+  /**
+   * Downloads a list of files, keeping up to {@link #MAX_SYNC_SERVICES} transfers in flight over pooled
+   * {@link SyncService} connections. Each file has its own progress and result: an error only fails the
+   * future of the file it happened on.
+   *
+   * <p>The files are pulled directly, so they must be readable by the shell user: files of app data directories,
+   * which are read with "run-as" through a temporary location, must be downloaded one by one.
+   *
+   * @return the future of the download of each item
+   */
+  @NotNull
+  public List<ListenableFuture<Void>> downloadFiles(@NotNull List<TransferItem> items) {
+    return transferFiles(items, item -> downloadFileWorker(item.getRemotePath(), item.getSize(), item.getLocalPath(), item.getProgress()));
+  }
+
+  /**
+   * Uploads a list of files, keeping up to {@link #MAX_SYNC_SERVICES} transfers in flight over pooled
+   * {@link SyncService} connections. See {@link #downloadFiles}.
+   *
+   * @return the future of the upload of each item
+   */
+  @NotNull
+  public List<ListenableFuture<Void>> uploadFiles(@NotNull List<TransferItem> items) {
+    return transferFiles(items, item -> uploadFileWorker(item.getLocalPath(), item.getRemotePath(), item.getProgress()));
+  }
+
+  /**
+   * Closes the idle {@link SyncService} connections, e.g. when the device is disconnected.
+   */
+  public void closeSyncServices() {
+    List<IdleSyncService> idleSyncServices;
+    synchronized (myIdleSyncServices) {
+      idleSyncServices = new ArrayList<>(myIdleSyncServices);
+      myIdleSyncServices.clear();
+    }
+    idleSyncServices.forEach(idle -> idle.mySyncService.close());
+  }
+
+  @NotNull
+  private List<ListenableFuture<Void>> transferFiles(@NotNull List<TransferItem> items, @NotNull TransferFunction transfer) {
+    List<ListenableFuture<Void>> futureResults = new ArrayList<>();
+    Queue<PendingTransfer> pendingTransfers = new ConcurrentLinkedQueue<>();
+    for (TransferItem item : items) {
+      SettableFuture<Void> futureResult = SettableFuture.create();
+      futureResults.add(futureResult);
+      pendingTransfers.add(new PendingTransfer(item, futureResult));
+    }
+    for (int i = 0; i < Math.min(MAX_SYNC_SERVICES, items.size()); i++) {
+      transferNextFile(pendingTransfers, transfer);
+    }
+    return futureResults;
+  }
+
+  /**
+   * Transfers the pending files one after the other, until there are no more.
+   */
+  private void transferNextFile(@NotNull Queue<PendingTransfer> pendingTransfers, @NotNull TransferFunction transfer) {
+    PendingTransfer pending = pendingTransfers.poll();
+    if (pending == null) {
+      return;
+    }
+    ListenableFuture<Void> futureTransfer = pending.myItem.getProgress().isCancelled()
+                                            ? Futures.immediateCancelledFuture()
+                                            : transfer.apply(pending.myItem);
+    pending.myFutureResult.setFuture(futureTransfer);
+    futureTransfer.addListener(() -> transferNextFile(pendingTransfers, transfer), myTaskExecutor);
+  }
+
   @NotNull
   private ListenableFuture<Void> downloadFileWorker(@NotNull String remotePath,
                                                     long remotePathSize,
@@ -139,10 +226,13 @@ public class AdbFileTransfer {
         long endTime = System.nanoTime();
         LOGGER.info(String.format(Locale.US, "Pull file took %,d ms to execute: \"%s\" -> \"%s\"", (endTime - startTime) / 1_000_000,
                                   remotePath, localPath));
+        releaseSyncService(syncService);
         return null;
       }
-      finally {
+      catch (Throwable t) {
+        // The state of the connection is unknown after an error or a cancellation, so it can not be reused
         syncService.close();
+        throw t;
       }
     });
 
@@ -176,10 +266,12 @@ public class AdbFileTransfer {
         LOGGER.info(String
                       .format(Locale.US, "Push file took %,d ms to execute: \"%s\" -> \"%s\"", (endTime - startTime) / 1_000_000, localPath,
                               remotePath));
+        releaseSyncService(syncService);
         return null;
       }
-      finally {
+      catch (Throwable t) {
         syncService.close();
+        throw t;
       }
     });
 
@@ -194,9 +286,28 @@ public class AdbFileTransfer {
     });
   }
 
+  /**
+   * Returns an idle {@link SyncService} connection if there is one, or opens a new one. The connection must be given
+   * back with {@link #releaseSyncService} after a successful transfer, or closed.
+   */
   @NotNull
   private ListenableFuture<SyncService> getSyncService() {
     return myTaskExecutor.executeAsync(() -> {
+      long now = System.nanoTime();
+      while (true) {
+        IdleSyncService idle;
+        synchronized (myIdleSyncServices) {
+          idle = myIdleSyncServices.pollLast();
+        }
+        if (idle == null) {
+          break;
+        }
+        if (now - idle.myIdleSinceNanos < SYNC_SERVICE_IDLE_TIMEOUT_NANOS) {
+          return idle.mySyncService;
+        }
+        idle.mySyncService.close();
+      }
+
       SyncService sync = myDevice.getSyncService();
       if (sync == null) {
         throw new IOException("Unable to open synchronization service to device");
@@ -205,6 +316,80 @@ public class AdbFileTransfer {
     });
   }
 
+  private void releaseSyncService(@NotNull SyncService syncService) {
+    synchronized (myIdleSyncServices) {
+      if (myIdleSyncServices.size() < MAX_SYNC_SERVICES) {
+        myIdleSyncServices.addLast(new IdleSyncService(syncService, System.nanoTime()));
+        return;
+      }
+    }
+    syncService.close();
+  }
+
+  /**
+   * A file to transfer with {@link #downloadFiles} or {@link #uploadFiles}.
+   */
+  public static class TransferItem {
+    @NotNull private final String myRemotePath;
+    @NotNull private final Path myLocalPath;
+    private final long mySize;
+    @NotNull private final FileTransferProgress myProgress;
+
+    /**
+     * @param size the size of the file being transferred, used to report progress
+     */
+    public TransferItem(@NotNull String remotePath, @NotNull Path localPath, long size, @NotNull FileTransferProgress progress) {
+      myRemotePath = remotePath;
+      myLocalPath = localPath;
+      mySize = size;
+      myProgress = progress;
+    }
+
+    @NotNull
+    public String getRemotePath() {
+      return myRemotePath;
+    }
+
+    @NotNull
+    public Path getLocalPath() {
+      return myLocalPath;
+    }
+
+    public long getSize() {
+      return mySize;
+    }
+
+    @NotNull
+    public FileTransferProgress getProgress() {
+      return myProgress;
+    }
+  }
+
+  private interface TransferFunction {
+    @NotNull
+    ListenableFuture<Void> apply(@NotNull TransferItem item);
+  }
+
+  private static class PendingTransfer {
+    @NotNull private final TransferItem myItem;
+    @NotNull private final SettableFuture<Void> myFutureResult;
+
+    private PendingTransfer(@NotNull TransferItem item, @NotNull SettableFuture<Void> futureResult) {
+      myItem = item;
+      myFutureResult = futureResult;
+    }
+  }
+
+  private static class IdleSyncService {
+    @NotNull private final SyncService mySyncService;
+    private final long myIdleSinceNanos;
+
+    private IdleSyncService(@NotNull SyncService syncService, long idleSinceNanos) {
+      mySyncService = syncService;
+      myIdleSinceNanos = idleSinceNanos;
+    }
+  }
+
   /**
    * Forward callbacks from a {@link SyncService.ISyncProgressMonitor}, running on a pooled thread,
    * to a {@link FileTransferProgress}, using the provided {@link Executor}, typically the
@@ -19,12 +19,14 @@ import com.android.ddmlib.*;
 import com.intellij.openapi.diagnostic.Logger;
 import java.util.Locale;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Consumer;
 
 public class AdbShellCommandsUtil {
   @NotNull private static final Logger LOGGER = Logger.getInstance(AdbShellCommandsUtil.class);
@@ -33,12 +35,24 @@ public class AdbShellCommandsUtil {
 
   public static AdbShellCommandResult executeCommand(@NotNull IDevice device, @NotNull String command)
     throws TimeoutException, AdbCommandRejectedException, ShellCommandUnresponsiveException, IOException {
-    return executeCommandImpl(device, command, true);
+    return executeCommandImpl(device, command, true, null);
+  }
+
+  /**
+   * Same as {@link #executeCommand(IDevice, String)}, but also passes each batch of output lines
+   * to {@code linesConsumer} as soon as it is received, on the thread executing the command.
+   * The batches may include the lines used to detect errors.
+   */
+  public static AdbShellCommandResult executeCommand(@NotNull IDevice device,
+                                                     @NotNull String command,
+                                                     @NotNull Consumer<String[]> linesConsumer)
+    throws TimeoutException, AdbCommandRejectedException, ShellCommandUnresponsiveException, IOException {
+    return executeCommandImpl(device, command, true, linesConsumer);
   }
 
   public static AdbShellCommandResult executeCommandNoErrorCheck(@NotNull IDevice device, @NotNull String command)
     throws TimeoutException, AdbCommandRejectedException, ShellCommandUnresponsiveException, IOException {
-    return executeCommandImpl(device, command, false);
+    return executeCommandImpl(device, command, false, null);
   }
 
   public static void executeRawCommand(@NotNull IDevice device, @NotNull String command, IShellOutputReceiver receiver)
@@ -53,7 +67,10 @@ public class AdbShellCommandsUtil {
     }
   }
 
-  private static AdbShellCommandResult executeCommandImpl(@NotNull IDevice device, @NotNull String command, boolean errorCheck)
+  private static AdbShellCommandResult executeCommandImpl(@NotNull IDevice device,
+                                                          @NotNull String command,
+                                                          boolean errorCheck,
+                                                          @Nullable Consumer<String[]> linesConsumer)
     throws TimeoutException, AdbCommandRejectedException, ShellCommandUnresponsiveException, IOException {
 
     List<String> commandOutput = new ArrayList<>();
@@ -64,6 +81,9 @@ public class AdbShellCommandsUtil {
       @Override
       public void processNewLines(@NotNull String[] lines) {
         Arrays.stream(lines).forEach(commandOutput::add);
+        if (linesConsumer != null) {
+          linesConsumer.accept(lines);
+        }
       }
 
       @Override
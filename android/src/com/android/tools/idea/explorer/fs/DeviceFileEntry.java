@@ -21,6 +21,7 @@ import org.jetbrains.annotations.Nullable;
 
 import java.nio.file.Path;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * An file or directory entry in a {@link DeviceFileSystem}
@@ -56,6 +57,30 @@ public interface DeviceFileEntry {
   @NotNull
   ListenableFuture<List<DeviceFileEntry>> getEntries();
 
+  /**
+   * The list of entries contained in this directory. While the entries are being listed, batches of entries
+   * may be passed to {@code partialEntries}, on a worker thread, before the returned future completes
+   * with the full list.
+   */
+  @NotNull
+  default ListenableFuture<List<DeviceFileEntry>> getEntries(@NotNull Consumer<List<DeviceFileEntry>> partialEntries) {
+    return getEntries();
+  }
+
+  /**
+   * Hints that the entries of this directory are likely to be requested soon, so that they can be
+   * listed in the background.
+   */
+  default void prefetchEntries() {
+  }
+
+  /**
+   * Discards any cached entries of this directory and its descendants, so that the next call
+   * to {@link #getEntries()} lists them from the file system.
+   */
+  default void invalidateEntries() {
+  }
+
   /**
    * Deletes the entry from the device file system.
    */
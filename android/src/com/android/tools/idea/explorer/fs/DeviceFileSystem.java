@@ -15,7 +15,12 @@
  */
 package com.android.tools.idea.explorer.fs;
 
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -48,4 +53,57 @@ public interface DeviceFileSystem {
    */
   @NotNull
   ListenableFuture<DeviceFileEntry> getEntry(@NotNull String path);
-}
\ No newline at end of file
+
+  /**
+   * Downloads several files of this device to the local file system, e.g. the files of a directory. Implementations may transfer
+   * several files at the same time. Each file has its own progress and result: an error only fails the future of the file it happened
+   * on.
+   * <p>
+   * The default implementation downloads the files one after the other with {@link DeviceFileEntry#downloadFile}.
+   *
+   * @param localPaths the local path of each entry
+   * @param progresses the progress of each entry
+   * @return the future of the download of each entry
+   */
+  @NotNull
+  default List<ListenableFuture<Void>> downloadFiles(@NotNull List<DeviceFileEntry> entries,
+                                                     @NotNull List<Path> localPaths,
+                                                     @NotNull List<FileTransferProgress> progresses) {
+    List<ListenableFuture<Void>> futures = new ArrayList<>();
+    ListenableFuture<Void> previous = Futures.immediateFuture(null);
+    for (int i = 0; i < entries.size(); i++) {
+      DeviceFileEntry entry = entries.get(i);
+      Path localPath = localPaths.get(i);
+      FileTransferProgress progress = progresses.get(i);
+      // Each download starts when the previous one is done, whether it succeeded or not
+      previous = Futures.whenAllComplete(previous)
+        .callAsync(() -> entry.downloadFile(localPath, progress), MoreExecutors.directExecutor());
+      futures.add(previous);
+    }
+    return futures;
+  }
+
+  /**
+   * Uploads several local files to a directory of this device. See {@link #downloadFiles}.
+   * <p>
+   * The default implementation uploads the files one after the other with {@link DeviceFileEntry#uploadFile}.
+   *
+   * @param progresses the progress of each file
+   * @return the future of the upload of each file
+   */
+  @NotNull
+  default List<ListenableFuture<Void>> uploadFiles(@NotNull DeviceFileEntry directory,
+                                                   @NotNull List<Path> localPaths,
+                                                   @NotNull List<FileTransferProgress> progresses) {
+    List<ListenableFuture<Void>> futures = new ArrayList<>();
+    ListenableFuture<Void> previous = Futures.immediateFuture(null);
+    for (int i = 0; i < localPaths.size(); i++) {
+      Path localPath = localPaths.get(i);
+      FileTransferProgress progress = progresses.get(i);
+      previous = Futures.whenAllComplete(previous)
+        .callAsync(() -> directory.uploadFile(localPath, progress), MoreExecutors.directExecutor());
+      futures.add(previous);
+    }
+    return futures;
+  }
+}
@@ -35,9 +35,16 @@ import com.intellij.openapi.project.ProjectUtil;
 import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
 import java.io.File;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import org.jetbrains.annotations.NotNull;
@@ -158,10 +165,55 @@ public class ProjectBuildModelImpl implements ProjectBuildModel {
 
   @Override
   public void reparse() {
-    // myBuildModelContext has all the files removed when reset() is called. We need to ensure we collect the files before calling reset.
+    // We need to ensure we collect the files before removing the changed ones from myBuildModelContext.
     List<GradleDslFile> files = myBuildModelContext.getAllRequestedFiles();
-    myBuildModelContext.reset();
-    files.forEach(GradleDslFile::reparse);
+    Set<GradleDslFile> filesToReparse = findFilesToReparse(files, myBuildModelContext.getRootProjectFile());
+    // Unchanged files keep their parsed elements. Changed ones are created again when requested, e.g. by the files applying them.
+    myBuildModelContext.removeFiles(filesToReparse);
+    files.stream().filter(filesToReparse::contains).forEach(GradleDslFile::reparse);
+  }
+
+  /**
+   * Returns the files which have changed since they were parsed, either on disk or in memory, together with all the files whose
+   * elements may reference theirs: the files of the child modules, the files applying them or applied by them and, for properties files,
+   * the build files of the same module.
+   */
+  @NotNull
+  private static Set<GradleDslFile> findFilesToReparse(@NotNull List<GradleDslFile> files, @Nullable GradleDslFile rootProjectFile) {
+    Map<GradleDslFile, Set<GradleDslFile>> dependents = new HashMap<>();
+    for (GradleDslFile file : files) {
+      GradleDslFile parent = file.getParentModuleDslFile();
+      if (parent != null) {
+        dependents.computeIfAbsent(parent, f -> new HashSet<>()).add(file);
+      }
+      // Any build file can reference the root project, not only the ones of its direct children.
+      if (rootProjectFile != null && file != rootProjectFile && file instanceof GradleBuildFile) {
+        dependents.computeIfAbsent(rootProjectFile, f -> new HashSet<>()).add(file);
+      }
+      GradleDslFile sibling = file.getSiblingDslFile();
+      if (sibling != null) {
+        dependents.computeIfAbsent(sibling, f -> new HashSet<>()).add(file);
+      }
+      for (GradleDslFile appliedFile : file.getApplyDslElement()) {
+        dependents.computeIfAbsent(appliedFile, f -> new HashSet<>()).add(file);
+        dependents.computeIfAbsent(file, f -> new HashSet<>()).add(appliedFile);
+      }
+    }
+
+    Set<GradleDslFile> filesToReparse = new HashSet<>();
+    Deque<GradleDslFile> queue = new ArrayDeque<>();
+    for (GradleDslFile file : files) {
+      if (file.isModified() || file.isContentChanged()) {
+        queue.add(file);
+      }
+    }
+    while (!queue.isEmpty()) {
+      GradleDslFile file = queue.remove();
+      if (filesToReparse.add(file)) {
+        queue.addAll(dependents.getOrDefault(file, Collections.emptySet()));
+      }
+    }
+    return filesToReparse;
   }
 
   @NotNull
@@ -30,6 +30,7 @@ import com.intellij.openapi.module.Module;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -117,6 +118,13 @@ public final class BuildModelContext {
     myFileCache.clearAllFiles();
   }
 
+  /**
+   * Removes the given files from the build context, they will be parsed again the next time they are requested.
+   */
+  public void removeFiles(@NotNull Collection<GradleDslFile> files) {
+    myFileCache.removeFiles(files);
+  }
+
   /* The following methods are just wrappers around the same methods in GradleDslFileCache but pass this build
    * context along as well. */
   @NotNull
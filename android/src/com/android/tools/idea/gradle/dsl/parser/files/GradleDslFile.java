@@ -32,6 +32,8 @@ import com.android.tools.idea.gradle.dsl.parser.kotlin.KotlinDslParser;
 import com.android.tools.idea.gradle.dsl.parser.kotlin.KotlinDslWriter;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import com.intellij.openapi.application.Application;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.editor.Document;
@@ -44,6 +46,8 @@ import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiManager;
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
@@ -68,6 +72,11 @@ public abstract class GradleDslFile extends GradlePropertiesDslElement {
   @Nullable private ApplyDslElement myApplyDslElement;
   @NotNull private final BuildModelContext myBuildModelContext;
 
+  /**
+   * Hash of the contents this file was last parsed from, or null if they are unknown.
+   */
+  @Nullable private HashCode myParsedContentHash;
+
   protected GradleDslFile(@NotNull VirtualFile file,
                           @NotNull Project project,
                           @NotNull String moduleName,
@@ -111,6 +120,7 @@ public abstract class GradleDslFile extends GradlePropertiesDslElement {
   }
 
   public void parse() {
+    recordParsedContent();
     myGradleDslParser.parse();
     // Attempt to resolve all the remaining dependencies. Ideally we would not have to do this here, but when elements
     // are created there parents are not necessarily attached to the tree. This means references to their siblings will not
@@ -125,6 +135,43 @@ public abstract class GradleDslFile extends GradlePropertiesDslElement {
     getContext().getDependencyManager().resolveAll();
   }
 
+  /**
+   * Records the current contents of the file as the ones it has been parsed from, see {@link #isContentChanged()}.
+   */
+  protected void recordParsedContent() {
+    myParsedContentHash = computeContentHash();
+  }
+
+  /**
+   * Returns true if the contents of this file may have changed since it was last parsed. The contents are compared by hash, such that
+   * a file which was saved or reverted without changes doesn't need to be parsed again.
+   */
+  public boolean isContentChanged() {
+    HashCode hash = computeContentHash();
+    return hash == null || !hash.equals(myParsedContentHash);
+  }
+
+  @Nullable
+  private HashCode computeContentHash() {
+    PsiElement element = getPsiElement();
+    if (element != null) {
+      String text =
+        ApplicationManager.getApplication().runReadAction((Computable<String>)() -> element.isValid() ? element.getText() : null);
+      return text == null ? null : Hashing.sha256().hashString(text, StandardCharsets.UTF_8);
+    }
+
+    // Files without PSI (i.e. properties files) are read from disk.
+    if (!myFile.isValid()) {
+      return null;
+    }
+    try {
+      return Hashing.sha256().hashBytes(myFile.contentsToByteArray());
+    }
+    catch (IOException e) {
+      return null;
+    }
+  }
+
   @NotNull
   public Project getProject() {
     return myProject;
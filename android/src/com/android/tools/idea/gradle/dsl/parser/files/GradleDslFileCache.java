@@ -28,6 +28,7 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
@@ -73,6 +74,10 @@ public class GradleDslFileCache {
     return (GradleBuildFile)dslFile;
   }
 
+  public void removeFiles(@NotNull Collection<GradleDslFile> files) {
+    myParsedBuildFiles.values().removeAll(files);
+  }
+
   public void putBuildFile(@NotNull String name, @NotNull GradleDslFile buildFile) {
     myParsedBuildFiles.put(name, buildFile);
   }
@@ -41,6 +41,7 @@ public final class GradlePropertiesFile extends GradleDslFile {
                               @NotNull BuildModelContext context) {
     super(file, project, moduleName, context);
     myProperties = properties;
+    recordParsedContent();
   }
 
   @Override
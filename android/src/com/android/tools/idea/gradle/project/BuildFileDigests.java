@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.gradle.project;
+
+import static com.android.tools.idea.gradle.util.GradleUtil.getCacheFolderRootPath;
+import static com.intellij.openapi.util.io.FileUtil.ensureExists;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Computes the SHA-256 digests of the build files of a project (build.gradle, settings.gradle, gradle.properties, external native build
+ * files, etc.), used to find out whether they changed since the last sync.
+ * <p>
+ * The contents of the files are streamed from disk, without loading their PSI or text. Digests are stored in ".idea/caches", together with
+ * the size and the timestamp of the files, and are only computed again when those change.
+ */
+public class BuildFileDigests implements Disposable {
+  private static final HashFunction HASH_FUNCTION = Hashing.sha256();
+  @VisibleForTesting static final HashCode EMPTY_DIGEST = HASH_FUNCTION.hashBytes(new byte[0]);
+
+  /**
+   * Files modified this close to the time their digest was computed may have been modified again without a change in their timestamp, due
+   * to the granularity of file system timestamps. The digests of such files are not reused.
+   */
+  private static final long TIMESTAMP_GRANULARITY_MS = 2000;
+
+  @Nullable private final File myStoreFilePath;
+
+  @Nullable private Map<String, Entry> myEntries;
+  private volatile boolean myModified;
+
+  @NotNull
+  public static BuildFileDigests getInstance(@NotNull Project project) {
+    return ServiceManager.getService(project, BuildFileDigests.class);
+  }
+
+  public BuildFileDigests(@NotNull Project project) {
+    this(project.isDefault() ? null : new File(getCacheFolderRootPath(project), "build_file_digests.ser"));
+  }
+
+  @VisibleForTesting
+  BuildFileDigests(@Nullable File storeFilePath) {
+    myStoreFilePath = storeFilePath;
+  }
+
+  /**
+   * Returns the digest of the given file. If the file has a document with unsaved changes, the digest is the one of the document contents
+   * as they would be saved; otherwise it is the one of the file on disk.
+   *
+   * @return the digest, or {@code null} if the file is not a local file or it cannot be read.
+   */
+  @Nullable
+  public HashCode getDigest(@NotNull VirtualFile file) {
+    FileDocumentManager documentManager = FileDocumentManager.getInstance();
+    Document document = documentManager.getCachedDocument(file);
+    if (document != null && documentManager.isDocumentUnsaved(document)) {
+      String lineSeparator = documentManager.getLineSeparator(file, null);
+      String text = StringUtil.convertLineSeparators(document.getImmutableCharSequence().toString(), lineSeparator);
+      Hasher hasher = HASH_FUNCTION.newHasher();
+      byte[] bom = file.getBOM();
+      if (bom != null) {
+        hasher.putBytes(bom);
+      }
+      return hasher.putBytes(text.getBytes(file.getCharset())).hash();
+    }
+    if (!file.isInLocalFileSystem()) {
+      return null;
+    }
+    try {
+      return getDigest(VfsUtilCore.virtualToIoFile(file));
+    }
+    catch (IOException e) {
+      getLog().debug("Failed to compute the digest of " + file.getPath(), e);
+      return null;
+    }
+  }
+
+  /**
+   * Returns the digest of the contents of the given file on disk, or the digest of empty contents if the file does not exist.
+   */
+  @NotNull
+  public HashCode getDigest(@NotNull File file) throws IOException {
+    BasicFileAttributes attributes;
+    try {
+      attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+    }
+    catch (NoSuchFileException e) {
+      return EMPTY_DIGEST;
+    }
+    if (!attributes.isRegularFile()) {
+      return EMPTY_DIGEST;
+    }
+
+    Map<String, Entry> entries = getEntries();
+    String key = file.getAbsolutePath();
+    long size = attributes.size();
+    long lastModified = attributes.lastModifiedTime().toMillis();
+    Entry entry = entries.get(key);
+    if (entry != null && entry.isValid(size, lastModified)) {
+      return HashCode.fromBytes(entry.myDigest);
+    }
+
+    long timestamp = System.currentTimeMillis();
+    HashCode digest = com.google.common.io.Files.asByteSource(file).hash(HASH_FUNCTION);
+    entries.put(key, new Entry(size, lastModified, timestamp, digest.asBytes()));
+    myModified = true;
+    return digest;
+  }
+
+  @NotNull
+  private synchronized Map<String, Entry> getEntries() {
+    if (myEntries == null) {
+      myEntries = new ConcurrentHashMap<>(load());
+    }
+    return myEntries;
+  }
+
+  @NotNull
+  private Map<String, Entry> load() {
+    if (myStoreFilePath == null || !myStoreFilePath.isFile()) {
+      return new HashMap<>();
+    }
+    try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(myStoreFilePath))) {
+      //noinspection unchecked
+      return (Map<String, Entry>)in.readObject();
+    }
+    catch (IOException | ClassNotFoundException | ClassCastException e) {
+      getLog().info("Failed to load the build file digests, they will be computed again", e);
+      return new HashMap<>();
+    }
+  }
+
+  /**
+   * Saves the digests computed since they were last saved, dropping the ones of files which no longer exist.
+   */
+  public synchronized void save() {
+    if (myStoreFilePath == null || myEntries == null || !myModified) {
+      return;
+    }
+    myModified = false;
+    Map<String, Entry> entries = new HashMap<>(myEntries);
+    for (Iterator<String> iterator = entries.keySet().iterator(); iterator.hasNext(); ) {
+      if (!new File(iterator.next()).isFile()) {
+        iterator.remove();
+      }
+    }
+    try {
+      ensureExists(myStoreFilePath.getParentFile());
+      try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(myStoreFilePath))) {
+        out.writeObject(entries);
+      }
+    }
+    catch (IOException e) {
+      getLog().info("Failed to save the build file digests", e);
+    }
+  }
+
+  @Override
+  public void dispose() {
+    save();
+  }
+
+  @NotNull
+  private static Logger getLog() {
+    return Logger.getInstance(BuildFileDigests.class);
+  }
+
+  private static final class Entry implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final long mySize;
+    private final long myLastModified;
+    private final long myTimestamp;
+    @NotNull private final byte[] myDigest;
+
+    Entry(long size, long lastModified, long timestamp, @NotNull byte[] digest) {
+      mySize = size;
+      myLastModified = lastModified;
+      myTimestamp = timestamp;
+      myDigest = digest;
+    }
+
+    boolean isValid(long size, long lastModified) {
+      return mySize == size && myLastModified == lastModified && myTimestamp - lastModified > TIMESTAMP_GRANULARITY_MS;
+    }
+  }
+}
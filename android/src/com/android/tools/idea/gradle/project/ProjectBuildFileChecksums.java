@@ -23,7 +23,6 @@ import com.android.tools.idea.gradle.project.model.NdkModuleModel;
 import com.android.tools.idea.gradle.project.sync.GradleSyncState;
 import com.android.tools.idea.gradle.util.LocalProperties;
 import com.android.tools.idea.sdk.IdeSdks;
-import com.google.common.hash.Hashing;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.module.ModuleManager;
@@ -41,16 +40,14 @@ import static com.android.SdkConstants.*;
 import static com.android.tools.idea.Projects.getBaseDirPath;
 import static com.android.tools.idea.gradle.util.GradleProjects.isGradleProjectModule;
 import static com.android.tools.idea.gradle.util.GradleUtil.*;
-import static com.google.common.io.Files.toByteArray;
 import static com.intellij.openapi.util.io.FileUtil.*;
 import static com.intellij.openapi.vfs.VfsUtilCore.virtualToIoFile;
-import static com.intellij.util.ArrayUtilRt.EMPTY_BYTE_ARRAY;
 
 /**
  * The Project data that needs to be persisted to check whether it is possible to reload the Project without the need of calling Gradle.
  */
 public class ProjectBuildFileChecksums implements Serializable {
-  // Key: build file path (relative if inside project). Value: MD5 hash of file.
+  // Key: build file path (relative if inside project). Value: SHA-256 digest of file, see BuildFileDigests.
   private Map<String, byte[]> myFileChecksums = new HashMap<>();
 
   /**
@@ -59,6 +56,7 @@ public class ProjectBuildFileChecksums implements Serializable {
   private long myLastGradleSyncTimestamp = -1L;
 
   private transient File myRootFolderPath;
+  private transient BuildFileDigests myDigests;
 
   public static class Loader {
     @Nullable
@@ -121,6 +119,7 @@ public class ProjectBuildFileChecksums implements Serializable {
       try (ObjectInputStream ois = new ObjectInputStream(fis)) {
         ProjectBuildFileChecksums data = (ProjectBuildFileChecksums)ois.readObject();
         data.myRootFolderPath = rootFolderPath;
+        data.myDigests = BuildFileDigests.getInstance(project);
         return data;
       }
     }
@@ -139,6 +138,7 @@ public class ProjectBuildFileChecksums implements Serializable {
         File file = getProjectStateFile(project);
         ensureExists(file.getParentFile());
         buildFileChecksums.saveTo(file);
+        BuildFileDigests.getInstance(project).save();
         cacheSaved = true;
       }
     }
@@ -155,6 +155,7 @@ public class ProjectBuildFileChecksums implements Serializable {
   @Nullable
   static ProjectBuildFileChecksums createFrom(@NotNull Project project) throws IOException {
     ProjectBuildFileChecksums buildFileChecksums = new ProjectBuildFileChecksums();
+    buildFileChecksums.myDigests = BuildFileDigests.getInstance(project);
     File rootFolderPath = getBaseDirPath(project);
 
     for (Module module : ModuleManager.getInstance(project).getModules()) {
@@ -212,7 +213,7 @@ public class ProjectBuildFileChecksums implements Serializable {
     else {
       key = file.getAbsolutePath();
     }
-    myFileChecksums.put(key, createChecksum(file));
+    myFileChecksums.put(key, myDigests.getDigest(file).asBytes());
   }
 
   /**
@@ -260,7 +261,7 @@ public class ProjectBuildFileChecksums implements Serializable {
         file = new File(myRootFolderPath, file.getPath());
       }
       try {
-        if (!Arrays.equals(entry.getValue(), createChecksum(file))) {
+        if (!Arrays.equals(entry.getValue(), myDigests.getDigest(file).asBytes())) {
           return false;
         }
       }
@@ -271,13 +272,6 @@ public class ProjectBuildFileChecksums implements Serializable {
     return true;
   }
 
-  @NotNull
-  private static byte[] createChecksum(@NotNull File file) throws IOException {
-    // For files tracked by the IDE we get the content from the virtual files, otherwise we revert to io.
-    byte[] data = file.exists() ? toByteArray(file) : EMPTY_BYTE_ARRAY;
-    return Hashing.md5().hashBytes(data).asBytes();
-  }
-
   public long getLastGradleSyncTimestamp() {
     return myLastGradleSyncTimestamp;
   }
@@ -98,7 +98,7 @@ import org.jetbrains.jps.android.model.impl.JpsAndroidModuleProperties;
  */
 public class AndroidModuleModel implements AndroidModel, ModuleModel {
   // Increase the value when adding/removing fields or when changing the serialization/deserialization mechanism.
-  private static final long serialVersionUID = 4L;
+  private static final long serialVersionUID = 5L;
 
   private static final String[] TEST_ARTIFACT_NAMES = {ARTIFACT_UNIT_TEST, ARTIFACT_ANDROID_TEST};
   private static final AndroidVersion NOT_SPECIFIED = new AndroidVersion(0, null);
@@ -106,18 +106,21 @@ public class AndroidModuleModel implements AndroidModel, ModuleModel {
   @NotNull private ProjectSystemId myProjectSystemId;
   @NotNull private String myModuleName;
   @NotNull private File myRootDirPath;
-  @NotNull private IdeAndroidProject myAndroidProject;
+  // The imported project is only decoded from the sync cache when the model is first used, see ensureLoaded().
+  @NotNull private SerializedModelSection<IdeAndroidProject> myAndroidProjectSection;
+  private transient volatile boolean myLoaded;
+  private transient IdeAndroidProject myAndroidProject;
 
-  @NotNull private transient AndroidModelFeatures myFeatures;
+  private transient AndroidModelFeatures myFeatures;
   @Nullable private transient GradleVersion myModelVersion;
   @NotNull private String mySelectedVariantName;
 
   @Nullable private Boolean myOverridesManifestPackage;
   @Nullable private transient AndroidVersion myMinSdkVersion;
 
-  @NotNull private Map<String, BuildTypeContainer> myBuildTypesByName = new HashMap<>();
-  @NotNull private Map<String, ProductFlavorContainer> myProductFlavorsByName = new HashMap<>();
-  @NotNull private Map<String, IdeVariant> myVariantsByName = new HashMap<>();
+  @NotNull private transient Map<String, BuildTypeContainer> myBuildTypesByName = new HashMap<>();
+  @NotNull private transient Map<String, ProductFlavorContainer> myProductFlavorsByName = new HashMap<>();
+  @NotNull private transient Map<String, IdeVariant> myVariantsByName = new HashMap<>();
   @NotNull private Set<File> myExtraGeneratedSourceFolders = new HashSet<>();
 
   @Nullable
@@ -167,17 +170,49 @@ public class AndroidModuleModel implements AndroidModel, ModuleModel {
     return new AndroidModuleModel(moduleName, rootDirPath, ideAndroidProject, variantName);
   }
 
-  @PropertyMapping({"myModuleName", "myRootDirPath", "myAndroidProject", "mySelectedVariantName"})
   @VisibleForTesting
   AndroidModuleModel(@NotNull String moduleName,
                      @NotNull File rootDirPath,
                      @NotNull IdeAndroidProject androidProject,
                      @NotNull String variantName) {
-    myAndroidProject = androidProject;
+    this(moduleName, rootDirPath, SerializedModelSection.of(androidProject), variantName);
+    load(androidProject);
+  }
+
+  @PropertyMapping({"myModuleName", "myRootDirPath", "myAndroidProjectSection", "mySelectedVariantName"})
+  private AndroidModuleModel(@NotNull String moduleName,
+                             @NotNull File rootDirPath,
+                             @NotNull SerializedModelSection<IdeAndroidProject> androidProjectSection,
+                             @NotNull String variantName) {
+    myAndroidProjectSection = androidProjectSection;
 
     myProjectSystemId = GRADLE_SYSTEM_ID;
     myModuleName = moduleName;
     myRootDirPath = rootDirPath;
+    mySelectedVariantName = variantName;
+  }
+
+  /**
+   * Decodes the imported project, if it was loaded from the sync cache and this is the first time it is used, and initializes the state
+   * derived from it.
+   */
+  private void ensureLoaded() {
+    if (myLoaded) {
+      return;
+    }
+    synchronized (this) {
+      if (myLoaded) {
+        return;
+      }
+      load(myAndroidProjectSection.getValue());
+    }
+  }
+
+  /**
+   * Initializes the state derived from the imported project, and selects an existing variant if the selected one is not found in it.
+   */
+  private void load(@NotNull IdeAndroidProject androidProject) {
+    myAndroidProject = androidProject;
     parseAndSetModelVersion();
     myFeatures = new AndroidModelFeatures(myModelVersion);
 
@@ -185,9 +220,24 @@ public class AndroidModuleModel implements AndroidModel, ModuleModel {
     populateProductFlavorsByName();
     populateVariantsByName();
 
-    mySelectedVariantName = findVariantToSelect(variantName);
+    mySelectedVariantName = findVariantToSelect(mySelectedVariantName);
+    myLoaded = true;
   }
 
+  /**
+   * @return whether the imported project has been decoded, i.e. whether this model has been used since it was loaded from the sync cache.
+   */
+  public boolean isLoaded() {
+    return myLoaded;
+  }
+
+  /**
+   * @return whether the imported project can be decoded, i.e. whether this model was loaded from a sync cache which is intact and was
+   * written by the current version of the IDE.
+   */
+  public boolean canLoad() {
+    return myLoaded || myAndroidProjectSection.canDecode();
+  }
 
   private void populateBuildTypesByName() {
     for (BuildTypeContainer container : myAndroidProject.getBuildTypes()) {
@@ -242,11 +292,13 @@ public class AndroidModuleModel implements AndroidModel, ModuleModel {
 
   @NotNull
   public AndroidModelFeatures getFeatures() {
+    ensureLoaded();
     return myFeatures;
   }
 
   @Nullable
   public GradleVersion getModelVersion() {
+    ensureLoaded();
     return myModelVersion;
   }
 
@@ -264,6 +316,7 @@ public class AndroidModuleModel implements AndroidModel, ModuleModel {
   @Override
   @NotNull
   public List<SourceProvider> getActiveSourceProviders() {
+    ensureLoaded();
     return getMainSourceProviders(mySelectedVariantName);
   }
 
@@ -314,11 +367,13 @@ public class AndroidModuleModel implements AndroidModel, ModuleModel {
   @Override
   @NotNull
   public List<SourceProvider> getTestSourceProviders() {
+    ensureLoaded();
     return getTestSourceProviders(mySelectedVariantName, TEST_ARTIFACT_NAMES);
   }
 
   @NotNull
   public List<SourceProvider> getTestSourceProviders(@NotNull String artifactName) {
+    ensureLoaded();
     return getTestSourceProviders(mySelectedVariantName, artifactName);
   }
 
@@ -367,7 +422,7 @@ public class AndroidModuleModel implements AndroidModel, ModuleModel {
    * @return true if the variant model with given name has been requested before.
    */
   public boolean variantExists(@NotNull String variantName) {
-    for (Variant variant : myAndroidProject.getVariants()) {
+    for (Variant variant : getAndroidProject().getVariants()) {
       if (variantName.equals(variant.getName())) {
         return true;
       }
@@ -378,14 +433,14 @@ public class AndroidModuleModel implements AndroidModel, ModuleModel {
   @Override
   @NotNull
   public List<SourceProvider> getAllSourceProviders() {
-    Collection<Variant> variants = myAndroidProject.getVariants();
+    Collection<Variant> variants = getAndroidProject().getVariants();
     List<SourceProvider> providers = new ArrayList<>();
 
     // Add main source set
     providers.add(getDefaultSourceProvider());
 
     // Add all flavors
-    Collection<ProductFlavorContainer> flavors = myAndroidProject.getProductFlavors();
+    Collection<ProductFlavorContainer> flavors = getAndroidProject().getProductFlavors();
     for (ProductFlavorContainer flavorContainer : flavors) {
       providers.add(flavorContainer.getSourceProvider());
     }
@@ -399,7 +454,7 @@ public class AndroidModuleModel implements AndroidModel, ModuleModel {
     }
 
     // Add all the build types
-    Collection<BuildTypeContainer> buildTypes = myAndroidProject.getBuildTypes();
+    Collection<BuildTypeContainer> buildTypes = getAndroidProject().getBuildTypes();
     for (BuildTypeContainer btc : buildTypes) {
       providers.add(btc.getSourceProvider());
     }
@@ -425,7 +480,7 @@ public class AndroidModuleModel implements AndroidModel, ModuleModel {
   @NotNull
   public Set<String> getAllApplicationIds() {
     Set<String> ids = new HashSet<>();
-    for (Variant variant : myAndroidProject.getVariants()) {
+    for (Variant variant : getAndroidProject().getVariants()) {
       String applicationId = variant.getMergedFlavor().getApplicationId();
       if (applicationId != null) {
         ids.add(applicationId);
@@ -512,21 +567,25 @@ public class AndroidModuleModel implements AndroidModel, ModuleModel {
 
   @Nullable
   public BuildTypeContainer findBuildType(@NotNull String name) {
+    ensureLoaded();
     return myBuildTypesByName.get(name);
   }
 
   @NotNull
   public Set<String> getBuildTypes() {
+    ensureLoaded();
     return myBuildTypesByName.keySet();
   }
 
   @NotNull
   public Set<String> getProductFlavors() {
+    ensureLoaded();
     return myProductFlavorsByName.keySet();
   }
 
   @Nullable
   public ProductFlavorContainer findProductFlavor(@NotNull String name) {
+    ensureLoaded();
     return myProductFlavorsByName.get(name);
   }
 
@@ -547,7 +606,7 @@ public class AndroidModuleModel implements AndroidModel, ModuleModel {
 
   @Override
   public boolean isGenerated(@NotNull VirtualFile file) {
-    VirtualFile buildFolder = findFileByIoFile(myAndroidProject.getBuildFolder(), false);
+    VirtualFile buildFolder = findFileByIoFile(getAndroidProject().getBuildFolder(), false);
     if (buildFolder != null && isAncestor(buildFolder, file, false)) {
       return true;
     }
@@ -559,6 +618,7 @@ public class AndroidModuleModel implements AndroidModel, ModuleModel {
    */
   @NotNull
   public IdeAndroidProject getAndroidProject() {
+    ensureLoaded();
     return myAndroidProject;
   }
 
@@ -572,6 +632,7 @@ public class AndroidModuleModel implements AndroidModel, ModuleModel {
    */
   @NotNull
   public IdeVariant getSelectedVariant() {
+    ensureLoaded();
     IdeVariant selected = myVariantsByName.get(mySelectedVariantName);
     assert selected != null;
     return selected;
@@ -579,6 +640,7 @@ public class AndroidModuleModel implements AndroidModel, ModuleModel {
 
   @Nullable
   public Variant findVariantByName(@NotNull String variantName) {
+    ensureLoaded();
     return myVariantsByName.get(variantName);
   }
 
@@ -589,6 +651,7 @@ public class AndroidModuleModel implements AndroidModel, ModuleModel {
    * @param name the new name.
    */
   public void setSelectedVariantName(@NotNull String name) {
+    ensureLoaded();
     mySelectedVariantName = findVariantToSelect(name);
 
     // force lazy recompute
@@ -629,22 +692,24 @@ public class AndroidModuleModel implements AndroidModel, ModuleModel {
 
   @NotNull
   public Collection<String> getBuildTypeNames() {
+    ensureLoaded();
     return myBuildTypesByName.keySet();
   }
 
   @NotNull
   public Collection<String> getProductFlavorNames() {
+    ensureLoaded();
     return myProductFlavorsByName.keySet();
   }
 
   @NotNull
   public Collection<String> getVariantNames() {
-    return myAndroidProject.getVariantNames();
+    return getAndroidProject().getVariantNames();
   }
 
   @Nullable
   public LanguageLevel getJavaLanguageLevel() {
-    JavaCompileOptions compileOptions = myAndroidProject.getJavaCompileOptions();
+    JavaCompileOptions compileOptions = getAndroidProject().getJavaCompileOptions();
     String sourceCompatibility = compileOptions.getSourceCompatibility();
     return LanguageLevel.parse(sourceCompatibility);
   }
@@ -698,7 +763,7 @@ public class AndroidModuleModel implements AndroidModel, ModuleModel {
   @Nullable
   public Collection<SyncIssue> getSyncIssues() {
     if (getFeatures().isIssueReportingSupported()) {
-      return myAndroidProject.getSyncIssues();
+      return getAndroidProject().getSyncIssues();
     }
     return null;
   }
@@ -732,7 +797,7 @@ public class AndroidModuleModel implements AndroidModel, ModuleModel {
     out.writeObject(myProjectSystemId);
     out.writeObject(myModuleName);
     out.writeObject(myRootDirPath);
-    out.writeObject(myAndroidProject);
+    out.writeObject(myAndroidProjectSection);
     out.writeObject(mySelectedVariantName);
   }
 
@@ -740,22 +805,15 @@ public class AndroidModuleModel implements AndroidModel, ModuleModel {
     myProjectSystemId = (ProjectSystemId)in.readObject();
     myModuleName = (String)in.readObject();
     myRootDirPath = (File)in.readObject();
-    myAndroidProject = (IdeAndroidProject)in.readObject();
-    String variantName = (String)in.readObject();
-
-    parseAndSetModelVersion();
-    myFeatures = new AndroidModelFeatures(myModelVersion);
+    //noinspection unchecked
+    myAndroidProjectSection = (SerializedModelSection<IdeAndroidProject>)in.readObject();
+    mySelectedVariantName = (String)in.readObject();
 
     myBuildTypesByName = new HashMap<>();
     myProductFlavorsByName = new HashMap<>();
     myVariantsByName = new HashMap<>();
     myExtraGeneratedSourceFolders = new HashSet<>();
-
-    populateBuildTypesByName();
-    populateProductFlavorsByName();
-    populateVariantsByName();
-
-    setSelectedVariantName(variantName);
+    // The imported project and the state derived from it are initialized by ensureLoaded(), when the model is first used.
   }
 
   private void parseAndSetModelVersion() {
@@ -902,7 +960,7 @@ public class AndroidModuleModel implements AndroidModel, ModuleModel {
   @NotNull
   @Override
   public AaptOptions.Namespacing getNamespacing() {
-    return myAndroidProject.getAaptOptions().getNamespacing();
+    return getAndroidProject().getAaptOptions().getNamespacing();
   }
 
   @NotNull
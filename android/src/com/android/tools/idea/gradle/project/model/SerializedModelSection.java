@@ -0,0 +1,247 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.gradle.project.model;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.serialization.PropertyMapping;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.ObjectStreamException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A part of a sync model which is stored in the sync cache as a compact binary section, and only decoded the first time it is accessed.
+ * <p>
+ * Equal strings (e.g. paths, coordinates and names repeated across variants and artifacts) are written only once per section. A section
+ * is created for each module, so reopening a project only decodes the models of the modules which are actually used.
+ * <p>
+ * A section only holds its encoded bytes or its value, never both, so a model is not kept in memory twice: a section created from a sync
+ * is only encoded when it is written to the sync cache, and the bytes of a section read from the cache are dropped once it is decoded.
+ * A section also records a checksum of its bytes and the serial version of every class it contains, so {@link #canDecode()} can tell a
+ * corrupt or outdated section from the sync cache without decoding it.
+ */
+public final class SerializedModelSection<T> implements Serializable {
+  // Increase the value when adding/removing fields or when changing the serialization/deserialization mechanism.
+  private static final long serialVersionUID = 2L;
+
+  @Nullable private volatile byte[] myBytes;
+  private final long myChecksum;
+  @NotNull private final Map<String, Long> myClassVersions;
+  private transient volatile T myValue;
+
+  @NotNull
+  public static <T> SerializedModelSection<T> of(@NotNull T value) {
+    SerializedModelSection<T> section = new SerializedModelSection<>(null, 0, null);
+    section.myValue = value;
+    return section;
+  }
+
+  @VisibleForTesting
+  @PropertyMapping({"myBytes", "myChecksum", "myClassVersions"})
+  SerializedModelSection(@Nullable byte[] bytes, long checksum, @Nullable Map<String, Long> classVersions) {
+    myBytes = bytes;
+    myChecksum = checksum;
+    myClassVersions = classVersions != null ? classVersions : Collections.emptyMap();
+  }
+
+  /**
+   * Returns the value of this section, decoding it the first time this method is called.
+   *
+   * @throws IllegalStateException if the section cannot be decoded, which callers can check beforehand with {@link #canDecode()}.
+   */
+  @NotNull
+  public T getValue() {
+    T value = myValue;
+    if (value == null) {
+      synchronized (this) {
+        value = myValue;
+        if (value == null) {
+          byte[] bytes = myBytes;
+          if (bytes == null) {
+            throw new IllegalStateException("Cached sync model section has no content");
+          }
+          value = decode(bytes);
+          myValue = value;
+          myBytes = null;
+        }
+      }
+    }
+    return value;
+  }
+
+  /**
+   * Returns whether {@link #getValue()} can decode this section, i.e. whether its bytes are intact and were written by the current
+   * versions of the model classes. A section which cannot be decoded should be treated as missing from the sync cache.
+   */
+  public boolean canDecode() {
+    if (myValue != null) {
+      return true;
+    }
+    byte[] bytes = myBytes;
+    if (bytes == null || checksum(bytes) != myChecksum) {
+      return false;
+    }
+    ClassLoader classLoader = SerializedModelSection.class.getClassLoader();
+    for (Map.Entry<String, Long> entry : myClassVersions.entrySet()) {
+      try {
+        ObjectStreamClass streamClass = ObjectStreamClass.lookup(Class.forName(entry.getKey(), false, classLoader));
+        if (streamClass == null || streamClass.getSerialVersionUID() != entry.getValue()) {
+          return false;
+        }
+      }
+      catch (ClassNotFoundException | LinkageError e) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public boolean isDecoded() {
+    return myValue != null;
+  }
+
+  /**
+   * Returns the size of the encoded section, or 0 if it has not been encoded or its bytes were dropped after it was decoded.
+   */
+  public int getSizeInBytes() {
+    byte[] bytes = myBytes;
+    return bytes != null ? bytes.length : 0;
+  }
+
+  @VisibleForTesting
+  @Nullable
+  byte[] getBytes() {
+    return myBytes;
+  }
+
+  @VisibleForTesting
+  long getChecksum() {
+    return myChecksum;
+  }
+
+  @VisibleForTesting
+  @NotNull
+  Map<String, Long> getClassVersions() {
+    return myClassVersions;
+  }
+
+  private Object writeReplace() throws ObjectStreamException {
+    // Sections created from a sync, and sections which dropped their bytes once decoded, are encoded when written to the sync cache.
+    // The encoded copy is only referenced by the stream, so this section keeps holding the value alone.
+    T value = myValue;
+    return value != null ? encodeSection(value) : this;
+  }
+
+  @NotNull
+  private static <T> SerializedModelSection<T> encodeSection(@NotNull T value) {
+    Map<String, Long> classVersions = new HashMap<>();
+    byte[] bytes = encode(value, classVersions);
+    return new SerializedModelSection<>(bytes, checksum(bytes), classVersions);
+  }
+
+  @NotNull
+  private static byte[] encode(@NotNull Object value, @NotNull Map<String, Long> classVersions) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new StringDeduplicatingOutputStream(bytes, classVersions)) {
+      out.writeObject(value);
+    }
+    catch (IOException e) {
+      throw new IllegalStateException("Failed to encode " + value.getClass().getName(), e);
+    }
+    return bytes.toByteArray();
+  }
+
+  @NotNull
+  private static <T> T decode(@NotNull byte[] bytes) {
+    try (ObjectInputStream in = new ModelInputStream(new ByteArrayInputStream(bytes))) {
+      //noinspection unchecked
+      return (T)in.readObject();
+    }
+    catch (IOException | ClassNotFoundException e) {
+      Logger.getInstance(SerializedModelSection.class).warn("Failed to decode cached sync model", e);
+      throw new IllegalStateException("Failed to decode cached sync model", e);
+    }
+  }
+
+  private static long checksum(@NotNull byte[] bytes) {
+    CRC32 crc = new CRC32();
+    crc.update(bytes);
+    return crc.getValue();
+  }
+
+  /**
+   * Writes equal strings as references to the first one written, instead of writing each of them in full, and records the serial version
+   * of every class written.
+   */
+  private static final class StringDeduplicatingOutputStream extends ObjectOutputStream {
+    @NotNull private final Map<String, String> myStrings = new HashMap<>();
+    @NotNull private final Map<String, Long> myClassVersions;
+
+    StringDeduplicatingOutputStream(@NotNull OutputStream out, @NotNull Map<String, Long> classVersions) throws IOException {
+      super(out);
+      myClassVersions = classVersions;
+      enableReplaceObject(true);
+    }
+
+    @Override
+    protected void annotateClass(Class<?> cl) {
+      ObjectStreamClass streamClass = ObjectStreamClass.lookup(cl);
+      if (streamClass != null) {
+        myClassVersions.put(cl.getName(), streamClass.getSerialVersionUID());
+      }
+    }
+
+    @Override
+    protected Object replaceObject(Object obj) {
+      if (obj instanceof String) {
+        return myStrings.computeIfAbsent((String)obj, string -> string);
+      }
+      return obj;
+    }
+  }
+
+  /**
+   * Resolves the model classes with the class loader of the plugin, since sections can be decoded on any thread.
+   */
+  private static final class ModelInputStream extends ObjectInputStream {
+    ModelInputStream(@NotNull InputStream in) throws IOException {
+      super(in);
+    }
+
+    @Override
+    protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+      try {
+        return Class.forName(desc.getName(), false, SerializedModelSection.class.getClassLoader());
+      }
+      catch (ClassNotFoundException e) {
+        return super.resolveClass(desc);
+      }
+    }
+  }
+}
@@ -27,14 +27,15 @@ import static com.intellij.openapi.vfs.VfsUtil.findFileByIoFile;
 
 import com.android.annotations.concurrency.GuardedBy;
 import com.android.tools.idea.concurrency.AndroidIoManager;
+import com.android.tools.idea.gradle.project.BuildFileDigests;
 import com.android.tools.idea.gradle.project.model.NdkModuleModel;
 import com.android.tools.idea.gradle.util.GradleWrapper;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
+import com.google.common.hash.HashCode;
 import com.intellij.lang.properties.PropertiesFileType;
 import com.intellij.openapi.application.Application;
 import com.intellij.openapi.application.ApplicationManager;
-import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.fileEditor.FileEditor;
 import com.intellij.openapi.fileEditor.FileEditorManager;
@@ -62,11 +63,13 @@ import com.intellij.ui.EditorNotifications;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
@@ -91,7 +94,7 @@ public class GradleFiles {
 
   @GuardedBy("myLock")
   @NotNull
-  private final Map<VirtualFile, Integer> myFileHashes = new HashMap<>();
+  private final Map<VirtualFile, HashCode> myFileHashes = new HashMap<>();
 
   @GuardedBy("myLock")
   @NotNull
@@ -204,14 +207,14 @@ public class GradleFiles {
     }
   }
 
-  private void putHashForFile(@NotNull Map<VirtualFile, Integer> map, @NotNull VirtualFile file) {
-    Integer hash = computeHash(file);
+  private void putHashForFile(@NotNull Map<VirtualFile, HashCode> map, @NotNull VirtualFile file) {
+    HashCode hash = computeHash(file);
     if (hash != null) {
       map.put(file, hash);
     }
   }
 
-  private void storeHashesForFiles(@NotNull Map<VirtualFile, Integer> files) {
+  private void storeHashesForFiles(@NotNull Map<VirtualFile, HashCode> files) {
     synchronized (myLock) {
       myFileHashes.clear();
       myFileHashes.putAll(files);
@@ -224,7 +227,7 @@ public class GradleFiles {
    * in hashValue should be ignored.
    */
   @Nullable
-  private Integer getStoredHashForFile(@NotNull VirtualFile file) {
+  private HashCode getStoredHashForFile(@NotNull VirtualFile file) {
     synchronized (myLock) {
       return myFileHashes.get(file);
     }
@@ -249,25 +252,16 @@ public class GradleFiles {
   }
 
   /**
-   * Computes a hash for a given {@code VirtualFile} by using the string obtained from its {@code PsiFile},
-   * and stores it as the first element in hashValue. If this method returns false the hash was not computed
-   * and its value should not be used.
+   * Computes the digest of the contents of the given file, streamed from disk unless the file has unsaved changes, without loading its
+   * PSI. Returns {@code null} if the digest could not be computed.
    */
   @Nullable
-  private Integer computeHash(@NotNull VirtualFile file) {
-    return ReadAction.compute(() -> {
-      PsiFile psiFile = PsiManager.getInstance(myProject).findFile(file);
-
-      if (psiFile != null && psiFile.isValid()) {
-        return psiFile.getText().hashCode();
-      }
-
-      return null;
-    });
+  private HashCode computeHash(@NotNull VirtualFile file) {
+    return BuildFileDigests.getInstance(myProject).getDigest(file);
   }
 
   private boolean areHashesEqual(@NotNull VirtualFile file) {
-    Integer oldHash = getStoredHashForFile(file);
+    HashCode oldHash = getStoredHashForFile(file);
     return oldHash != null && oldHash.equals(computeHash(file));
   }
 
@@ -314,7 +308,8 @@ public class GradleFiles {
       PsiDocumentManager.getInstance(myProject).commitAllDocuments();
 
       // Local map to minimize time holding myLock
-      Map<VirtualFile, Integer> fileHashes = new HashMap<>();
+      // Hashes are computed in parallel, see below.
+      Map<VirtualFile, HashCode> fileHashes = new ConcurrentHashMap<>();
       GradleWrapper gradleWrapper = GradleWrapper.find(myProject);
       if (gradleWrapper != null) {
         File propertiesFilePath = gradleWrapper.getPropertiesFilePath();
@@ -328,7 +323,7 @@ public class GradleFiles {
 
       // Clean external build files before they are repopulated.
       removeExternalBuildFiles();
-      List<VirtualFile> externalBuildFiles = new ArrayList<>();
+      List<VirtualFile> externalBuildFiles = Collections.synchronizedList(new ArrayList<>());
 
       List<Module> modules = Lists.newArrayList(ModuleManager.getInstance(myProject).getModules());
       ExecutorService executorService = AndroidIoManager.getInstance().getBackgroundDiskIoExecutor();
@@ -27,13 +27,17 @@ import com.intellij.openapi.module.Module;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.roots.ModifiableRootModel;
 import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.UserDataHolderBase;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Arrays;
 import java.util.List;
 
-public class ModuleSetupContext {
+/**
+ * Data used to set up a module after sync. Setup steps can store data computed while preparing the setup as user data.
+ */
+public class ModuleSetupContext extends UserDataHolderBase {
   public static final Key<ModuleFinder> MODULES_BY_GRADLE_PATH_KEY = Key.create("gradle.sync.modules.by.gradle.path");
 
   @NotNull private final Module myModule;
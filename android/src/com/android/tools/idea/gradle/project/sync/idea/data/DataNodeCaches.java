@@ -117,7 +117,8 @@ public class DataNodeCaches {
       AndroidFacet androidFacet = AndroidFacet.getInstance(module);
       if (androidFacet != null) {
         DataNode<AndroidModuleModel> androidDataNode = find(cache, ANDROID_MODEL);
-        if (androidDataNode == null) {
+        // A model which cannot be decoded is treated as missing, so the project is synced instead of set up from the cache.
+        if (androidDataNode == null || !androidDataNode.getData().canLoad()) {
           return true;
         }
       }
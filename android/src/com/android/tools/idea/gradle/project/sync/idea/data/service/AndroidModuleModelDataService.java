@@ -29,6 +29,7 @@ import com.intellij.openapi.externalSystem.service.project.IdeModifiableModelsPr
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.project.Project;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -66,28 +67,47 @@ public class AndroidModuleModelDataService extends ModuleModelDataService<Androi
     return ANDROID_MODEL;
   }
 
+  @Override
+  @NotNull
+  protected Map<Module, ModuleSetupContext> prepareData(@NotNull IdeModifiableModelsProvider modelsProvider,
+                                                        @NotNull Map<String, AndroidModuleModel> modelsByModuleName) {
+    return prepareModuleSetup(modelsProvider, modelsByModuleName, myModuleSetup, myModuleSetupContextFactory);
+  }
+
   @Override
   protected void importData(@NotNull Collection<DataNode<AndroidModuleModel>> toImport,
                             @NotNull Project project,
                             @NotNull IdeModifiableModelsProvider modelsProvider,
                             @NotNull Map<String, AndroidModuleModel> modelsByModuleName) {
+    importData(toImport, project, modelsProvider, modelsByModuleName, Collections.emptyMap());
+  }
+
+  @Override
+  protected void importData(@NotNull Collection<DataNode<AndroidModuleModel>> toImport,
+                            @NotNull Project project,
+                            @NotNull IdeModifiableModelsProvider modelsProvider,
+                            @NotNull Map<String, AndroidModuleModel> modelsByModuleName,
+                            @NotNull Map<Module, ModuleSetupContext> preparedContexts) {
     AndroidModuleValidator moduleValidator = myModuleValidatorFactory.create(project);
     for (Module module : modelsProvider.getModules()) {
       AndroidModuleModel androidModel = modelsByModuleName.get(module.getName());
-      setUpModule(module, moduleValidator, modelsProvider, androidModel);
+      setUpModule(module, moduleValidator, modelsProvider, androidModel, preparedContexts.get(module));
     }
 
     if (!modelsByModuleName.isEmpty()) {
       moduleValidator.fixAndReportFoundIssues();
     }
+    logStepTimes(myModuleSetup);
   }
 
   private void setUpModule(@NotNull Module module,
                            @NotNull AndroidModuleValidator moduleValidator,
                            @NotNull IdeModifiableModelsProvider modelsProvider,
-                           @Nullable AndroidModuleModel androidModel) {
+                           @Nullable AndroidModuleModel androidModel,
+                           @Nullable ModuleSetupContext preparedContext) {
     if (androidModel != null) {
-      ModuleSetupContext context = myModuleSetupContextFactory.create(module, modelsProvider);
+      ModuleSetupContext context =
+        preparedContext != null ? preparedContext : myModuleSetupContextFactory.create(module, modelsProvider);
       myModuleSetup.setUpModule(context, androidModel);
       moduleValidator.validate(module, androidModel);
     }
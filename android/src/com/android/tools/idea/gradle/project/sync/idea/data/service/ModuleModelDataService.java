@@ -17,7 +17,12 @@ package com.android.tools.idea.gradle.project.sync.idea.data.service;
 
 import com.android.tools.idea.gradle.project.model.ModuleModel;
 import com.android.tools.idea.gradle.project.sync.GradleSyncState;
+import com.android.tools.idea.gradle.project.sync.ModuleSetupContext;
+import com.android.tools.idea.gradle.project.sync.setup.module.common.BaseSetup;
 import com.android.tools.idea.gradle.util.GradleUtil;
+import com.intellij.concurrency.JobLauncher;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.command.WriteCommandAction;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.externalSystem.model.DataNode;
@@ -26,13 +31,18 @@ import com.intellij.openapi.externalSystem.model.project.ProjectData;
 import com.intellij.openapi.externalSystem.service.project.IdeModifiableModelsProvider;
 import com.intellij.openapi.externalSystem.service.project.manage.AbstractProjectDataService;
 import com.intellij.openapi.module.Module;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import static com.intellij.openapi.util.text.StringUtil.isNotEmpty;
@@ -71,12 +81,17 @@ public abstract class ModuleModelDataService<T extends ModuleModel> extends Abst
   private void importData(@NotNull Collection<DataNode<T>> toImport,
                           @NotNull Project project,
                           @NotNull IdeModifiableModelsProvider modelsProvider) {
+    if (project.isDisposed()) {
+      return;
+    }
+    Map<String, T> modelsByModuleName = ReadAction.compute(() -> indexByModuleName(toImport, modelsProvider));
+    // Compute what doesn't need the write action first, so that it can be done concurrently for all the modules.
+    Map<Module, ModuleSetupContext> preparedContexts = prepareData(modelsProvider, modelsByModuleName);
     WriteCommandAction.runWriteCommandAction(project, ()->  {
         if (project.isDisposed()) {
           return;
         }
-        Map<String, T> modelsByModuleName = indexByModuleName(toImport, modelsProvider);
-        importData(toImport, project, modelsProvider, modelsByModuleName);
+        importData(toImport, project, modelsProvider, modelsByModuleName, preparedContexts);
     });
   }
 
@@ -85,6 +100,74 @@ public abstract class ModuleModelDataService<T extends ModuleModel> extends Abst
                                      @NotNull IdeModifiableModelsProvider modelsProvider,
                                      @NotNull Map<String, T> modelsByModuleName);
 
+  /**
+   * Imports the given models, setting up the modules with the contexts returned by {@link #prepareData} when there are any.
+   */
+  protected void importData(@NotNull Collection<DataNode<T>> toImport,
+                            @NotNull Project project,
+                            @NotNull IdeModifiableModelsProvider modelsProvider,
+                            @NotNull Map<String, T> modelsByModuleName,
+                            @NotNull Map<Module, ModuleSetupContext> preparedContexts) {
+    importData(toImport, project, modelsProvider, modelsByModuleName);
+  }
+
+  /**
+   * Prepares the import of the given models, outside of the write action in which they are imported. Returns the contexts to set up
+   * the modules with, by module.
+   */
+  @NotNull
+  protected Map<Module, ModuleSetupContext> prepareData(@NotNull IdeModifiableModelsProvider modelsProvider,
+                                                        @NotNull Map<String, T> modelsByModuleName) {
+    return Collections.emptyMap();
+  }
+
+  /**
+   * Creates the contexts to set up the modules which have a model, and prepares the setup of all of them concurrently (see
+   * {@link BaseSetup#prepareModule}).
+   */
+  @NotNull
+  protected Map<Module, ModuleSetupContext> prepareModuleSetup(@NotNull IdeModifiableModelsProvider modelsProvider,
+                                                               @NotNull Map<String, T> modelsByModuleName,
+                                                               @NotNull BaseSetup<?, T> moduleSetup,
+                                                               @NotNull ModuleSetupContext.Factory contextFactory) {
+    Map<Module, ModuleSetupContext> contexts = new LinkedHashMap<>();
+    for (Module module : modelsProvider.getModules()) {
+      if (modelsByModuleName.containsKey(module.getName())) {
+        contexts.put(module, contextFactory.create(module, modelsProvider));
+      }
+    }
+    if (contexts.isEmpty()) {
+      return contexts;
+    }
+
+    // All contexts share the module finder, create it before the modules are prepared concurrently.
+    ModuleSetupContext firstContext = contexts.values().iterator().next();
+    ReadAction.run(() -> firstContext.getModuleFinder());
+
+    long startTime = System.currentTimeMillis();
+    if (ApplicationManager.getApplication().isWriteAccessAllowed()) {
+      // Other threads can't read while this one holds the write lock.
+      contexts.forEach((module, context) -> moduleSetup.prepareModule(context, modelsByModuleName.get(module.getName())));
+    }
+    else {
+      ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+      JobLauncher.getInstance().invokeConcurrentlyUnderProgress(
+        new ArrayList<>(contexts.entrySet()), indicator != null ? indicator : new EmptyProgressIndicator(), entry -> {
+          ReadAction.run(() -> moduleSetup.prepareModule(entry.getValue(), modelsByModuleName.get(entry.getKey().getName())));
+          return true;
+        });
+    }
+    getLog().info(String.format("Prepared setup of %1$d modules in %2$d ms", contexts.size(), System.currentTimeMillis() - startTime));
+    return contexts;
+  }
+
+  protected void logStepTimes(@NotNull BaseSetup<?, T> moduleSetup) {
+    Map<String, Long> stepTimesMs = moduleSetup.getAndResetStepTimesMs();
+    if (stepTimesMs != null && !stepTimesMs.isEmpty()) {
+      getLog().info("Module setup step times (ms): " + stepTimesMs);
+    }
+  }
+
   @NotNull
   private Map<String, T> indexByModuleName(@NotNull Collection<DataNode<T>> dataNodes,
                                            @NotNull IdeModifiableModelsProvider modelsProvider) {
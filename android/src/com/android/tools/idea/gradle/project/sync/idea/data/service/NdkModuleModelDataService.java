@@ -28,6 +28,7 @@ import com.intellij.openapi.externalSystem.service.project.IdeModifiableModelsPr
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.project.Project;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 import org.jetbrains.annotations.NotNull;
 
@@ -56,21 +57,41 @@ public class NdkModuleModelDataService extends ModuleModelDataService<NdkModuleM
     return NDK_MODEL;
   }
 
+  @Override
+  @NotNull
+  protected Map<Module, ModuleSetupContext> prepareData(@NotNull IdeModifiableModelsProvider modelsProvider,
+                                                        @NotNull Map<String, NdkModuleModel> modelsByModuleName) {
+    return prepareModuleSetup(modelsProvider, modelsByModuleName, myModuleSetup, myModuleSetupContextFactory);
+  }
+
   @Override
   protected void importData(@NotNull Collection<DataNode<NdkModuleModel>> toImport,
                             @NotNull Project project,
                             @NotNull IdeModifiableModelsProvider modelsProvider,
                             @NotNull Map<String, NdkModuleModel> modelsByModuleName) {
+    importData(toImport, project, modelsProvider, modelsByModuleName, Collections.emptyMap());
+  }
+
+  @Override
+  protected void importData(@NotNull Collection<DataNode<NdkModuleModel>> toImport,
+                            @NotNull Project project,
+                            @NotNull IdeModifiableModelsProvider modelsProvider,
+                            @NotNull Map<String, NdkModuleModel> modelsByModuleName,
+                            @NotNull Map<Module, ModuleSetupContext> preparedContexts) {
     for (Module module : modelsProvider.getModules()) {
       NdkModuleModel ndkModuleModel = modelsByModuleName.get(module.getName());
       if (ndkModuleModel != null) {
-        ModuleSetupContext context = myModuleSetupContextFactory.create(module, modelsProvider);
+        ModuleSetupContext context = preparedContexts.get(module);
+        if (context == null) {
+          context = myModuleSetupContextFactory.create(module, modelsProvider);
+        }
         myModuleSetup.setUpModule(context, ndkModuleModel);
       }
       else {
         onModelNotFound(module, modelsProvider);
       }
     }
+    logStepTimes(myModuleSetup);
   }
 
   @Override
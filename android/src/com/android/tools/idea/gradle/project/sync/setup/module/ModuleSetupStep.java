@@ -35,6 +35,21 @@ public abstract class ModuleSetupStep<T> {
 
   protected abstract void doSetUpModule(@NotNull ModuleSetupContext context, @NotNull T gradleModel);
 
+  /**
+   * Computes data this step needs to set up the module of the given context. This is called for all the modules before any of them is
+   * set up, outside of the write action and concurrently for different modules, so it must not change the modifiable models. The
+   * results can be stored in the context, see {@link ModuleSetupContext#putUserData}.
+   */
+  public final void prepareModule(@NotNull ModuleSetupContext context, @Nullable T gradleModel) {
+    if (gradleModel == null) {
+      return;
+    }
+    doPrepareModule(context, gradleModel);
+  }
+
+  protected void doPrepareModule(@NotNull ModuleSetupContext context, @NotNull T gradleModel) {
+  }
+
   public boolean invokeOnBuildVariantChange() {
     return false;
   }
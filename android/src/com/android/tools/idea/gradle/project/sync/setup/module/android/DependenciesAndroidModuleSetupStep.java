@@ -52,6 +52,7 @@ import com.intellij.openapi.roots.ContentEntry;
 import com.intellij.openapi.roots.DependencyScope;
 import com.intellij.openapi.roots.ModifiableRootModel;
 import com.intellij.openapi.roots.ModuleOrderEntry;
+import com.intellij.openapi.util.Key;
 import com.intellij.openapi.vfs.VirtualFile;
 import java.io.File;
 import java.util.Arrays;
@@ -67,6 +68,8 @@ import org.jetbrains.annotations.SystemIndependent;
 
 public class DependenciesAndroidModuleSetupStep extends AndroidModuleSetupStep {
   private static final String GRADLE_LOCAL_LIBRARY_PREFIX = "Gradle: __local_aars__:";
+  @VisibleForTesting
+  static final Key<DependencySet> DEPENDENCIES_KEY = Key.create("android.module.setup.dependencies");
 
   @NotNull private final DependenciesExtractor myDependenciesExtractor;
   @NotNull private final AndroidModuleDependenciesSetup myDependenciesSetup;
@@ -82,6 +85,15 @@ public class DependenciesAndroidModuleSetupStep extends AndroidModuleSetupStep {
     myDependenciesSetup = dependenciesSetup;
   }
 
+  @Override
+  protected void doPrepareModule(@NotNull ModuleSetupContext context, @NotNull AndroidModuleModel androidModel) {
+    // Extracting the dependencies only needs the Gradle model, it can be done before the modifiable models are changed.
+    ModuleFinder moduleFinder = context.getModuleFinder();
+    if (moduleFinder != null) {
+      context.putUserData(DEPENDENCIES_KEY, myDependenciesExtractor.extractFrom(androidModel.getSelectedVariant(), moduleFinder));
+    }
+  }
+
   @Override
   protected void doSetUpModule(@NotNull ModuleSetupContext context, @NotNull AndroidModuleModel androidModel) {
     ModuleFinder moduleFinder = context.getModuleFinder();
@@ -89,7 +101,10 @@ public class DependenciesAndroidModuleSetupStep extends AndroidModuleSetupStep {
 
     Module module = context.getModule();
     IdeModifiableModelsProvider ideModelsProvider = context.getIdeModelsProvider();
-    DependencySet dependencies = myDependenciesExtractor.extractFrom(androidModel.getSelectedVariant(), moduleFinder);
+    DependencySet dependencies = context.getUserData(DEPENDENCIES_KEY);
+    if (dependencies == null) {
+      dependencies = myDependenciesExtractor.extractFrom(androidModel.getSelectedVariant(), moduleFinder);
+    }
 
     for (LibraryDependency dependency : dependencies.onLibraries()) {
       updateLibraryDependency(module, ideModelsProvider, dependency, androidModel);
@@ -17,24 +17,49 @@ package com.android.tools.idea.gradle.project.sync.setup.module.common;
 
 import com.android.tools.idea.gradle.project.sync.ModuleSetupContext;
 import com.android.tools.idea.gradle.project.sync.setup.module.ModuleSetupStep;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 public abstract class BaseSetup<T extends ModuleSetupStep<M>, M> {
   protected final T[] mySetupSteps;
 
+  /**
+   * Time spent in each step since the last call to {@link #getAndResetStepTimesMs()}, in nanoseconds.
+   */
+  @NotNull private final Map<String, Long> myStepTimesNanos = new ConcurrentHashMap<>();
+
   protected BaseSetup(T... steps) {
     mySetupSteps = steps;
   }
 
   protected void beforeSetup(@NotNull ModuleSetupContext context, @Nullable M model) { }
 
+  /**
+   * Runs the preparation of the setup steps for the module of the given context, see {@link ModuleSetupStep#prepareModule}. This can be
+   * called concurrently for different modules.
+   */
+  public void prepareModule(@NotNull ModuleSetupContext context, @Nullable M model) {
+    for (T step : mySetupSteps) {
+      if (shouldRunSyncStep(step)) {
+        long startTime = System.nanoTime();
+        step.prepareModule(context, model);
+        recordStepTime(step, " (prepare)", startTime);
+      }
+    }
+  }
+
   public void setUpModule(@NotNull ModuleSetupContext context, @Nullable M model) {
     beforeSetup(context, model);
 
     for (T step : mySetupSteps) {
       if (shouldRunSyncStep(step)) {
+        long startTime = System.nanoTime();
         step.setUpModule(context, model);
+        recordStepTime(step, "", startTime);
         if (step.shouldTerminateSetup()) {
           return;
         }
@@ -42,6 +67,25 @@ public abstract class BaseSetup<T extends ModuleSetupStep<M>, M> {
     }
   }
 
+  private void recordStepTime(@NotNull T step, @NotNull String phase, long startTime) {
+    myStepTimesNanos.merge(step.getClass().getSimpleName() + phase, System.nanoTime() - startTime, Long::sum);
+  }
+
+  /**
+   * Returns the total time spent in each step, by step name, since the last call to this method.
+   */
+  @NotNull
+  public Map<String, Long> getAndResetStepTimesMs() {
+    Map<String, Long> times = new TreeMap<>();
+    for (String step : myStepTimesNanos.keySet()) {
+      Long time = myStepTimesNanos.remove(step);
+      if (time != null) {
+        times.put(step, TimeUnit.NANOSECONDS.toMillis(time));
+      }
+    }
+    return times;
+  }
+
   protected boolean shouldRunSyncStep(T step) {
     return true;
   }
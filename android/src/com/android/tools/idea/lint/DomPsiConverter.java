@@ -25,6 +25,8 @@ import com.intellij.openapi.util.Computable;
 import com.intellij.openapi.util.TextRange;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
 import com.intellij.psi.xml.*;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -65,7 +67,13 @@ class DomPsiConverter {
         return null;
       }
 
-      return convert(xmlDocument);
+      // The DOM nodes only wrap the PSI elements, and are created as they are visited. The DOM of an unmodified file is reused,
+      // so the nodes visited by a previous lint run (e.g. on the previous keystroke in another file) don't have to be created again.
+      // The cached value is dropped when the file changes, and can be collected under memory pressure.
+      return CachedValuesManager.getCachedValue(xmlFile, () -> {
+        XmlDocument psiDocument = xmlFile.getDocument();
+        return CachedValueProvider.Result.create(psiDocument != null ? convert(psiDocument) : null, xmlFile);
+      });
     }
     catch (ProcessCanceledException e) {
       // Ignore: common occurrence, e.g. we're running lint as part of an editor background
@@ -90,8 +98,8 @@ class DomPsiConverter {
    * @param document the document to be converted
    * @return a corresponding W3C DOM tree
    */
-  @Nullable
-  private static Document convert(@NotNull XmlDocument document)  {
+  @NotNull
+  private static DomDocument convert(@NotNull XmlDocument document)  {
     return new DomDocument(document);
   }
 
@@ -289,6 +297,11 @@ class DomPsiConverter {
       }
       myChildren.add(node);
     }
+
+    /** Adds a node which is already a child of another list, without changing its siblings */
+    void addMatch(@NotNull DomNode node) {
+      myChildren.add(node);
+    }
   }
 
   private static class DomNamedNodeMap implements NamedNodeMap {
@@ -381,7 +394,7 @@ class DomPsiConverter {
     @Nullable protected final Document myOwner;
     @Nullable protected final DomNode myParent;
     @NotNull protected final XmlElement myElement;
-    @Nullable protected DomNodeList myChildren;
+    @Nullable protected volatile DomNodeList myChildren;
     @Nullable protected DomNode myNext;
     @Nullable protected DomNode myPrevious;
 
@@ -400,31 +413,39 @@ class DomPsiConverter {
     @NotNull
     @Override
     public DomNodeList getChildNodes() {
-      if (myChildren == null) {
-        PsiElement[] children = myElement.getChildren();
-        if (children.length > 0) {
-          DomNodeList list = new DomNodeList();
-          myChildren = list;
-          // True except for in DomDocument, which has custom getChildNodes
-          assert myOwner != null;
-
-          for (PsiElement child : children) {
-            if (child instanceof XmlTag) {
-              list.add(new DomElement(myOwner, this, (XmlTag) child));
-            } else if (child instanceof XmlText) {
-              list.add(new DomText(myOwner, this, (XmlText) child));
-            } else if (child instanceof XmlComment) {
-              list.add(new DomComment(myOwner, this, (XmlComment) child));
-            } else {
-              // Skipping other types for now; lint doesn't care about them.
-              // TODO: Consider whether we need CDATA.
+      DomNodeList childNodes = myChildren;
+      if (childNodes != null) {
+        return childNodes;
+      }
+
+      // Documents are shared between lint runs (see #convert), so the nodes must only be created once
+      synchronized (this) {
+        if (myChildren == null) {
+          PsiElement[] children = myElement.getChildren();
+          if (children.length > 0) {
+            DomNodeList list = new DomNodeList();
+            // True except for in DomDocument, which has custom getChildNodes
+            assert myOwner != null;
+
+            for (PsiElement child : children) {
+              if (child instanceof XmlTag) {
+                list.add(new DomElement(myOwner, this, (XmlTag) child));
+              } else if (child instanceof XmlText) {
+                list.add(new DomText(myOwner, this, (XmlText) child));
+              } else if (child instanceof XmlComment) {
+                list.add(new DomComment(myOwner, this, (XmlComment) child));
+              } else {
+                // Skipping other types for now; lint doesn't care about them.
+                // TODO: Consider whether we need CDATA.
+              }
             }
+            myChildren = list;
+          } else {
+            myChildren = EMPTY;
           }
-        } else {
-          myChildren = EMPTY;
         }
+        return myChildren;
       }
-      return myChildren;
     }
 
     @Nullable
@@ -657,7 +678,7 @@ class DomPsiConverter {
 
   private static class DomDocument extends DomNode implements Document {
     @NotNull private final XmlDocument myPsiDocument;
-    @Nullable private DomElement myRoot;
+    @Nullable private volatile DomElement myRoot;
 
     private DomDocument(@NotNull XmlDocument document) {
       super(null, null, document);
@@ -686,16 +707,22 @@ class DomPsiConverter {
     @NotNull
     @Override
     public DomNodeList getChildNodes() {
-      if (myChildren == null) {
-        DomNodeList list = new DomNodeList();
-        myChildren = list;
-        DomNode documentElement = (DomNode)getDocumentElement();
-        if (documentElement != null) {
-          list.add(documentElement);
-        }
+      DomNodeList childNodes = myChildren;
+      if (childNodes != null) {
+        return childNodes;
       }
 
-      return myChildren;
+      synchronized (this) {
+        if (myChildren == null) {
+          DomNodeList list = new DomNodeList();
+          DomNode documentElement = (DomNode)getDocumentElement();
+          if (documentElement != null) {
+            list.add(documentElement);
+          }
+          myChildren = list;
+        }
+        return myChildren;
+      }
     }
 
     @Nullable
@@ -721,15 +748,21 @@ class DomPsiConverter {
     @Nullable
     @Override
     public Element getDocumentElement() {
-      if (myRoot == null) {
-        XmlTag rootTag = myPsiDocument.getRootTag();
-        if (rootTag == null) {
-          return null;
-        }
-        myRoot = new DomElement(this, this, rootTag);
+      DomElement root = myRoot;
+      if (root != null) {
+        return root;
       }
 
-      return myRoot;
+      synchronized (this) {
+        if (myRoot == null) {
+          XmlTag rootTag = myPsiDocument.getRootTag();
+          if (rootTag == null) {
+            return null;
+          }
+          myRoot = new DomElement(this, this, rootTag);
+        }
+        return myRoot;
+      }
     }
 
     @NotNull
@@ -899,7 +932,7 @@ class DomPsiConverter {
 
   private static class DomElement extends DomNode implements Element {
     private final XmlTag myTag;
-    @Nullable private NamedNodeMap myAttributes;
+    @Nullable private volatile NamedNodeMap myAttributes;
 
     private DomElement(@NotNull Document owner, @NotNull DomNode parent, @NotNull XmlTag tag) {
       super(owner, parent, tag);
@@ -943,16 +976,22 @@ class DomPsiConverter {
         return application.runReadAction((Computable<NamedNodeMap>)this::getAttributes);
       }
 
-      if (myAttributes == null) {
-        XmlAttribute[] attributes = myTag.getAttributes();
-        if (attributes.length == 0) {
-         myAttributes = EMPTY_ATTRIBUTES;
-        } else {
-          myAttributes = new DomNamedNodeMap(this, attributes);
-        }
+      NamedNodeMap attributeMap = myAttributes;
+      if (attributeMap != null) {
+        return attributeMap;
       }
 
-      return myAttributes;
+      synchronized (this) {
+        if (myAttributes == null) {
+          XmlAttribute[] attributes = myTag.getAttributes();
+          if (attributes.length == 0) {
+           myAttributes = EMPTY_ATTRIBUTES;
+          } else {
+            myAttributes = new DomNamedNodeMap(this, attributes);
+          }
+        }
+        return myAttributes;
+      }
     }
 
     // From org.w3c.dom.Element:
@@ -1040,7 +1079,7 @@ class DomPsiConverter {
       for (int i = 0, n = childNodes.getLength(); i < n; i++) {
         Node node = childNodes.item(i);
         if (s.equals(node.getNodeName())) {
-          matches.add((DomNode)node);
+          matches.addMatch((DomNode)node);
         }
       }
 
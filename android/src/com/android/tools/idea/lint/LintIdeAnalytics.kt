@@ -61,14 +61,27 @@ class LintIdeAnalytics(private val project: com.intellij.openapi.project.Project
     severityModule: Module?,
     warnings1: List<ProblemData>?,
     warnings2: Map<Issue, Map<File, List<ProblemData>>>?
+  ) = logSession(type, listOf(driver), severityModule, warnings1, warnings2)
+
+  /**
+   * Logs a lint run made of several analyses, e.g. the module groups of a batch run analyzed in parallel, as a single session: the
+   * statistics of all the drivers are added up. The drivers are expected to have the same analysis start time and options.
+   */
+  fun logSession(
+    type: LintSession.AnalysisType,
+    drivers: List<LintDriver>,
+    severityModule: Module?,
+    warnings1: List<ProblemData>?,
+    warnings2: Map<Issue, Map<File, List<ProblemData>>>?
   ) {
-    if (project.isDisposed) return
+    if (project.isDisposed || drivers.isEmpty()) return
 
+    val driver = drivers.first()
     val session = LintSession.newBuilder().apply {
       analysisType = type
       projectId = computeProjectId(project)
-      lintPerformance = computePerformance(driver, type == LintSession.AnalysisType.IDE_FILE)
-      baselineEnabled = driver.baseline != null
+      lintPerformance = computePerformance(drivers, type == LintSession.AnalysisType.IDE_FILE)
+      baselineEnabled = drivers.any { it.baseline != null }
       includingGeneratedSources = driver.checkGeneratedSources
       includingTestSources = driver.checkTestSources
       includingDependencies = driver.checkDependencies
@@ -87,19 +100,19 @@ class LintIdeAnalytics(private val project: com.intellij.openapi.project.Project
     UsageTracker.log(event)
   }
 
-  private fun computePerformance(driver: LintDriver, singleFileAnalysis: Boolean): LintPerformance =
+  private fun computePerformance(drivers: List<LintDriver>, singleFileAnalysis: Boolean): LintPerformance =
     LintPerformance.newBuilder().apply {
-      analysisTimeMs = System.currentTimeMillis() - driver.analysisStartTime
-      fileCount = driver.fileCount.toLong()
+      analysisTimeMs = System.currentTimeMillis() - drivers.first().analysisStartTime
+      fileCount = drivers.sumBy { it.fileCount }.toLong()
 
       // When doing single file analysis we don't have an accurate module count for
       // the project etc; the below statistics aren't interesting and are misleading
       if (!singleFileAnalysis) {
-        moduleCount = driver.moduleCount.toLong()
-        javaSourceCount = driver.javaFileCount.toLong()
-        kotlinSourceCount = driver.kotlinFileCount.toLong()
-        resourceFileCount = driver.resourceFileCount.toLong()
-        testSourceCount = driver.testSourceCount.toLong()
+        moduleCount = drivers.sumBy { it.moduleCount }.toLong()
+        javaSourceCount = drivers.sumBy { it.javaFileCount }.toLong()
+        kotlinSourceCount = drivers.sumBy { it.kotlinFileCount }.toLong()
+        resourceFileCount = drivers.sumBy { it.resourceFileCount }.toLong()
+        testSourceCount = drivers.sumBy { it.testSourceCount }.toLong()
       }
     }.build()
 
@@ -16,6 +16,7 @@
 package com.android.tools.idea.lint;
 
 import com.android.annotations.NonNull;
+import com.android.annotations.Nullable;
 import com.android.tools.lint.checks.*;
 import com.android.tools.lint.detector.api.Detector;
 import com.android.tools.lint.detector.api.Implementation;
@@ -34,6 +35,8 @@ import static com.android.tools.idea.lint.LintIdeProject.SUPPORT_CLASS_FILES;
  * any issues that aren't usable inside IDEA (e.g. they
  * rely on class files), and it will also replace the implementation
  * of some issues with IDEA specific ones.
+ * <p>
+ * The registry can be shared by concurrent analyses: the issues it caches by scope and by id are computed under its lock.
  */
 public class LintIdeIssueRegistry extends BuiltinIssueRegistry {
   private static List<Issue> ourFilteredIssues;
@@ -65,6 +68,18 @@ public class LintIdeIssueRegistry extends BuiltinIssueRegistry {
     return ourFilteredIssues;
   }
 
+  @NonNull
+  @Override
+  protected synchronized List<Issue> getIssuesForScope(@NonNull EnumSet<Scope> scope) {
+    return super.getIssuesForScope(scope);
+  }
+
+  @Nullable
+  @Override
+  public synchronized Issue getIssue(@NonNull String id) {
+    return super.getIssue(id);
+  }
+
   /** Returns true if the given lint check is relevant in the IDE (typically because the check is duplicated by existing IDE inspections) */
   public static boolean isRelevant(@NonNull Issue issue) {
 
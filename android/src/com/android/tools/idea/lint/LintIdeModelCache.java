@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.lint;
+
+import static com.android.tools.idea.projectsystem.ProjectSystemSyncUtil.PROJECT_SYSTEM_SYNC_TOPIC;
+
+import com.android.tools.lint.detector.api.Issue;
+import com.intellij.ProjectTopics;
+import com.intellij.codeInsight.daemon.HighlightDisplayKey;
+import com.intellij.codeInspection.InspectionProfile;
+import com.intellij.facet.Facet;
+import com.intellij.facet.FacetManager;
+import com.intellij.facet.FacetManagerAdapter;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ModuleRootEvent;
+import com.intellij.openapi.roots.ModuleRootListener;
+import com.intellij.openapi.util.Pair;
+import com.intellij.profile.ProfileChangeAdapter;
+import com.intellij.util.messages.MessageBusConnection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import javax.annotation.concurrent.GuardedBy;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.TestOnly;
+
+/**
+ * Per-project cache of the data lint needs for every on-the-fly analysis of an editor, but which only depends on the project structure
+ * and the inspection profile: whether the project has Android modules, the Android module used as the main project of each module, and
+ * the lint issues that have a corresponding inspection.
+ * <p>
+ * The cache is cleared when the project is synced, when the roots or the facets of its modules change, and when the inspection profile
+ * changes.
+ */
+public final class LintIdeModelCache {
+  @GuardedBy("this") @Nullable private Boolean myHasAndroidModule;
+  @GuardedBy("this") @NotNull private final Map<Module, Optional<Module>> myMainAndroidModules = new HashMap<>();
+  @GuardedBy("this") @Nullable private List<Pair<Issue, HighlightDisplayKey>> myInspectionIssues;
+  @GuardedBy("this") private int myInvalidationCount;
+
+  public LintIdeModelCache(@NotNull Project project) {
+    MessageBusConnection connection = project.getMessageBus().connect(project);
+    connection.subscribe(PROJECT_SYSTEM_SYNC_TOPIC, result -> invalidate());
+    connection.subscribe(ProjectTopics.PROJECT_ROOTS, new ModuleRootListener() {
+      @Override
+      public void rootsChanged(@NotNull ModuleRootEvent event) {
+        invalidate();
+      }
+    });
+    connection.subscribe(FacetManager.FACETS_TOPIC, new FacetManagerAdapter() {
+      @Override
+      public void facetAdded(@NotNull Facet facet) {
+        invalidate();
+      }
+
+      @Override
+      public void facetRemoved(@NotNull Facet facet) {
+        invalidate();
+      }
+    });
+    connection.subscribe(ProfileChangeAdapter.TOPIC, new ProfileChangeAdapter() {
+      @Override
+      public void profileChanged(@Nullable InspectionProfile profile) {
+        invalidate();
+      }
+
+      @Override
+      public void profileActivated(@Nullable InspectionProfile oldProfile, @Nullable InspectionProfile profile) {
+        invalidate();
+      }
+    });
+  }
+
+  @NotNull
+  public static LintIdeModelCache getInstance(@NotNull Project project) {
+    return ServiceManager.getService(project, LintIdeModelCache.class);
+  }
+
+  /**
+   * Returns true if the project has at least one Android module, computing it with the given supplier the first time.
+   */
+  boolean hasAndroidModule(@NotNull Supplier<Boolean> compute) {
+    int invalidationCount;
+    synchronized (this) {
+      if (myHasAndroidModule != null) {
+        return myHasAndroidModule;
+      }
+      invalidationCount = myInvalidationCount;
+    }
+    boolean hasAndroidModule = compute.get();
+    synchronized (this) {
+      // Don't cache a value computed from a project structure that changed in the meantime
+      if (invalidationCount == myInvalidationCount) {
+        myHasAndroidModule = hasAndroidModule;
+      }
+    }
+    return hasAndroidModule;
+  }
+
+  /**
+   * Returns the Android module to use as the main project when analyzing files of the given module, computing it with the given function
+   * the first time.
+   */
+  @Nullable
+  Module getMainAndroidModule(@NotNull Module module, @NotNull Function<Module, Module> compute) {
+    int invalidationCount;
+    synchronized (this) {
+      Optional<Module> mainModule = myMainAndroidModules.get(module);
+      if (mainModule != null) {
+        return mainModule.orElse(null);
+      }
+      invalidationCount = myInvalidationCount;
+    }
+    Module mainModule = compute.apply(module);
+    synchronized (this) {
+      if (invalidationCount == myInvalidationCount) {
+        myMainAndroidModules.put(module, Optional.ofNullable(mainModule));
+      }
+    }
+    return mainModule;
+  }
+
+  /**
+   * Returns the lint issues which have an inspection, as computed by the given supplier the first time. Whether the inspections are
+   * enabled is not cached, since it can depend on the analyzed file.
+   */
+  @NotNull
+  public List<Pair<Issue, HighlightDisplayKey>> getInspectionIssues(@NotNull Supplier<List<Pair<Issue, HighlightDisplayKey>>> compute) {
+    int invalidationCount;
+    synchronized (this) {
+      if (myInspectionIssues != null) {
+        return myInspectionIssues;
+      }
+      invalidationCount = myInvalidationCount;
+    }
+    List<Pair<Issue, HighlightDisplayKey>> issues = compute.get();
+    synchronized (this) {
+      if (invalidationCount == myInvalidationCount) {
+        myInspectionIssues = issues;
+      }
+    }
+    return issues;
+  }
+
+  @TestOnly
+  public synchronized int getInvalidationCount() {
+    return myInvalidationCount;
+  }
+
+  public synchronized void invalidate() {
+    myHasAndroidModule = null;
+    myMainAndroidModules.clear();
+    myInspectionIssues = null;
+    myInvalidationCount++;
+  }
+}
@@ -163,7 +163,8 @@ public class LintIdeProject extends Project {
       // and lint asks for getMainProject().getMinSdk(), we return the min SDK of an application
       // using the library, not "1" (the default for a module without a manifest)
       if (!project.isAndroidProject()) {
-        Module androidModule = findAndroidModule(module);
+        Module androidModule =
+          LintIdeModelCache.getInstance(module.getProject()).getMainAndroidModule(module, LintIdeProject::findAndroidModule);
         if (androidModule != null) {
           main = createModuleProject(client, androidModule);
           if (main != null) {
@@ -369,7 +370,7 @@ public class LintIdeProject extends Project {
   }
 
   public static boolean hasAndroidModule(@NonNull com.intellij.openapi.project.Project project) {
-    return findAndroidFacetInProject(project) != null;
+    return LintIdeModelCache.getInstance(project).hasAndroidModule(() -> findAndroidFacetInProject(project) != null);
   }
 
   @Nullable
@@ -10,6 +10,7 @@ import com.intellij.diagnostic.logging.LogConsoleBase;
 import com.intellij.diagnostic.logging.LogFilter;
 import com.intellij.diagnostic.logging.LogFilterListener;
 import com.intellij.diagnostic.logging.LogFilterModel;
+import com.intellij.execution.impl.ConsoleBuffer;
 import com.intellij.execution.process.ProcessOutputTypes;
 import com.intellij.openapi.util.Key;
 import com.intellij.openapi.util.text.StringUtil;
@@ -54,6 +55,16 @@ public abstract class AndroidLogFilterModel extends LogFilterModel {
   private final ImmutableList<AndroidLogLevelFilter> myLogLevelFilters;
   private final AndroidLogcatFormatter myFormatter;
 
+  /**
+   * Parsed headers of the processed lines. When the filter changes and all the lines are processed again, this avoids parsing them
+   * again and allows skipping the custom pattern matching on chunks of lines that can not match. It is bounded like the console.
+   */
+  private final LogcatLineIndex myLineIndex =
+    new LogcatLineIndex(ConsoleBuffer.useCycleBuffer() ? ConsoleBuffer.getCycleBufferSize() : Integer.MAX_VALUE);
+  private int myLinePosition;
+  /** If {@link #myCustomPattern} is a literal, the lower case literal. Used to query the {@link #myLineIndex} */
+  @Nullable private String myCustomLiteral;
+
   AndroidLogFilterModel(@NotNull AndroidLogcatFormatter formatter) {
     ImmutableList.Builder<AndroidLogLevelFilter> builder = ImmutableList.builder();
     for (Log.LogLevel logLevel : Log.LogLevel.values()) {
@@ -75,6 +86,7 @@ public abstract class AndroidLogFilterModel extends LogFilterModel {
    */
   public void updateCustomPattern(@Nullable Pattern pattern) {
     myCustomPattern = pattern;
+    myCustomLiteral = pattern != null ? LogcatLineIndex.getLowerCaseLiteral(pattern) : null;
     fireTextFilterChange();
   }
 
@@ -141,6 +153,14 @@ public abstract class AndroidLogFilterModel extends LogFilterModel {
   }
 
 
+  // Same as isApplicable(String) but uses the index to skip the pattern matching when the line at the given position can not match.
+  private boolean isApplicable(int position, @NotNull String text) {
+    if (myCustomLiteral != null && !myLineIndex.mayContain(position, myCustomLiteral)) {
+      return false;
+    }
+    return isApplicable(text);
+  }
+
   // Checks if the log message (with header stripped) matches the active filter, if set. Note that
   // this should ONLY be called if myPrevHeader was already set (which is how the filter will test
   // against header information).
@@ -209,6 +229,7 @@ public abstract class AndroidLogFilterModel extends LogFilterModel {
   public void processingStarted() {
     myPrevHeader = null;
     myRejectBeforeHeader = null;
+    myLinePosition = 0;
     myCustomApplicable = false;
     myConfiguredApplicable = false;
     myMessageSoFar.setLength(0);
@@ -217,8 +238,25 @@ public abstract class AndroidLogFilterModel extends LogFilterModel {
   @Override
   @NotNull
   public final MyProcessingResult processLine(String line) {
-    LogCatMessage message = myFormatter.tryParseMessage(line);
-    String continuation = (message == null) ? AndroidLogcatFormatter.tryParseContinuation(line) : null;
+    if (myLinePosition == 0) {
+      // The console drops its oldest lines when it exceeds its cycle buffer, so its first line may have been indexed at a later position
+      myLinePosition = Math.max(myLineIndex.findPosition(line), 0);
+    }
+    int position = myLinePosition++;
+    LogCatMessage message = null;
+    String continuation = null;
+    byte kind = myLineIndex.isIndexed(position, line) ? myLineIndex.getKind(position) : LogcatLineIndex.KIND_UNPARSED;
+    if (kind == LogcatLineIndex.KIND_MESSAGE) {
+      message = new LogCatMessage(myLineIndex.getHeader(position), line.substring(myLineIndex.getContentStart(position)));
+    }
+    else if (kind == LogcatLineIndex.KIND_CONTINUATION) {
+      continuation = line.substring(myLineIndex.getContentStart(position));
+    }
+    else if (kind == LogcatLineIndex.KIND_UNPARSED) {
+      message = myFormatter.tryParseMessage(line);
+      continuation = (message == null) ? AndroidLogcatFormatter.tryParseContinuation(line) : null;
+      indexLine(position, line, message, continuation);
+    }
 
     boolean validContinuation = continuation != null && myPrevHeader != null;
     if (message == null && !validContinuation) {
@@ -227,12 +265,12 @@ public abstract class AndroidLogFilterModel extends LogFilterModel {
 
     if (message != null) {
       myPrevHeader = message.getHeader();
-      myCustomApplicable = isApplicable(line);
+      myCustomApplicable = isApplicable(position, line);
       myConfiguredApplicable = isApplicableByConfiguredFilter(message.getMessage());
       myMessageSoFar.setLength(0);
     }
     else {
-      myCustomApplicable = myCustomApplicable || isApplicable(continuation);
+      myCustomApplicable = myCustomApplicable || isApplicable(position, continuation);
       myConfiguredApplicable = myConfiguredApplicable || isApplicableByConfiguredFilter(continuation);
     }
 
@@ -256,4 +294,22 @@ public abstract class AndroidLogFilterModel extends LogFilterModel {
 
     return result;
   }
+
+  private void indexLine(int position, @NotNull String line, @Nullable LogCatMessage message, @Nullable String continuation) {
+    if (myLineIndex.isIndexed(position, line)) {
+      return;
+    }
+    if (message != null) {
+      String text = message.getMessage();
+      boolean isLocated = line.endsWith(text);
+      myLineIndex.add(position, line, isLocated ? LogcatLineIndex.KIND_MESSAGE : LogcatLineIndex.KIND_UNPARSED, message.getHeader(),
+                      line.length() - text.length());
+    }
+    else if (continuation != null && line.endsWith(continuation)) {
+      myLineIndex.add(position, line, LogcatLineIndex.KIND_CONTINUATION, null, line.length() - continuation.length());
+    }
+    else {
+      myLineIndex.add(position, line, continuation != null ? LogcatLineIndex.KIND_UNPARSED : LogcatLineIndex.KIND_OTHER, null, 0);
+    }
+  }
 }
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.logcat;
+
+import com.android.ddmlib.IDevice;
+import com.android.ddmlib.IShellOutputReceiver;
+import com.android.ddmlib.Log.LogLevel;
+import com.android.ddmlib.logcat.LogCatHeader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * An {@link IShellOutputReceiver} which receives the output of 'logcat -B', where each log entry is a binary logger_entry struct
+ * followed by the priority, the tag and the message. This avoids formatting the entries as text on the device and parsing the
+ * headers back with regular expressions.
+ * <p>
+ * The decoded messages are passed to an {@link AndroidLogcatReceiver}, which expands stack traces and notifies the listener.
+ */
+final class AndroidLogcatBinaryReceiver implements IShellOutputReceiver {
+  /**
+   * Size of the header of version 1 logger entries, which do not contain the header size.
+   */
+  private static final int V1_HEADER_SIZE = 20;
+  private static final int MAX_ENTRY_SIZE = 5 * 1024 * 1024;
+
+  private final IDevice myDevice;
+  private final AndroidLogcatReceiver myReceiver;
+  /** Interned tags and application names */
+  private final Map<String, String> myStrings = new HashMap<>();
+
+  private ByteBuffer myPending = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+
+  AndroidLogcatBinaryReceiver(@NotNull IDevice device, @NotNull AndroidLogcatReceiver receiver) {
+    myDevice = device;
+    myReceiver = receiver;
+  }
+
+  @Override
+  public void addOutput(byte[] data, int offset, int length) {
+    if (isCancelled()) {
+      return;
+    }
+
+    if (myPending.remaining() < length) {
+      ByteBuffer grown = ByteBuffer.allocate(Math.max(myPending.capacity() * 2, myPending.position() + length))
+        .order(ByteOrder.LITTLE_ENDIAN);
+      myPending.flip();
+      grown.put(myPending);
+      myPending = grown;
+    }
+    myPending.put(data, offset, length);
+
+    myPending.flip();
+    while (processEntry(myPending)) {
+      if (isCancelled()) {
+        break;
+      }
+    }
+    myPending.compact();
+  }
+
+  /**
+   * Processes the entry at the current position of the buffer. Returns false if the buffer does not contain a full entry.
+   */
+  private boolean processEntry(@NotNull ByteBuffer buffer) {
+    int start = buffer.position();
+    if (buffer.remaining() < 4) {
+      return false;
+    }
+    int payloadLength = Short.toUnsignedInt(buffer.getShort(start));
+    int headerSize = Short.toUnsignedInt(buffer.getShort(start + 2));
+    if (headerSize == 0) {
+      headerSize = V1_HEADER_SIZE;
+    }
+    int entryLength = headerSize + payloadLength;
+    if (headerSize < V1_HEADER_SIZE || entryLength > MAX_ENTRY_SIZE) {
+      // The stream is corrupted, there is no way to find the next entry
+      buffer.position(buffer.limit());
+      return false;
+    }
+    if (buffer.remaining() < entryLength) {
+      return false;
+    }
+
+    int pid = buffer.getInt(start + 4);
+    int tid = buffer.getInt(start + 8);
+    Instant timestamp = Instant.ofEpochSecond(Integer.toUnsignedLong(buffer.getInt(start + 12)), buffer.getInt(start + 16));
+
+    int payloadStart = start + headerSize;
+    int payloadEnd = payloadStart + payloadLength;
+    buffer.position(payloadEnd);
+    if (payloadLength < 1) {
+      return true;
+    }
+
+    LogLevel level = getLogLevel(buffer.get(payloadStart));
+    int tagEnd = indexOf(buffer, payloadStart + 1, payloadEnd);
+    String tag = intern(decode(buffer, payloadStart + 1, tagEnd));
+    int messageStart = Math.min(tagEnd + 1, payloadEnd);
+    String message = decode(buffer, messageStart, indexOf(buffer, messageStart, payloadEnd));
+
+    String appName = myDevice.getClientName(pid);
+    LogCatHeader header = new LogCatHeader(level, pid, tid, appName != null ? intern(appName) : "?", tag, timestamp);
+    myReceiver.processMessage(header, message);
+    return true;
+  }
+
+  @NotNull
+  private static LogLevel getLogLevel(byte priority) {
+    for (LogLevel level : LogLevel.values()) {
+      if (level.getPriority() == priority) {
+        return level;
+      }
+    }
+    return priority > LogLevel.ASSERT.getPriority() ? LogLevel.ASSERT : LogLevel.VERBOSE;
+  }
+
+  /**
+   * Returns the position of the first 0 between from and to, or to if there is none.
+   */
+  private static int indexOf(@NotNull ByteBuffer buffer, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (buffer.get(i) == 0) {
+        return i;
+      }
+    }
+    return to;
+  }
+
+  @NotNull
+  private static String decode(@NotNull ByteBuffer buffer, int from, int to) {
+    return new String(buffer.array(), buffer.arrayOffset() + from, to - from, StandardCharsets.UTF_8);
+  }
+
+  @NotNull
+  private String intern(@NotNull String string) {
+    return myStrings.computeIfAbsent(string, s -> s);
+  }
+
+  @Override
+  public void flush() {
+  }
+
+  @Override
+  public boolean isCancelled() {
+    return myReceiver.isCancelled();
+  }
+}
@@ -51,6 +51,7 @@ public final class AndroidLogcatReceiver extends AndroidOutputReceiver implement
   private static final String STACK_TRACE_CAUSE_LINE_PREFIX = Character.toString(' ');
 
   private static final Pattern CARRIAGE_RETURN = Pattern.compile("\r", Pattern.LITERAL);
+  private static final Pattern NEWLINE = Pattern.compile("\n", Pattern.LITERAL);
 
   private final LogCatMessageParser myLongEpochParser;
   private final LogCatMessageParser myLongParser;
@@ -127,6 +128,28 @@ public final class AndroidLogcatReceiver extends AndroidOutputReceiver implement
     }
   }
 
+  /**
+   * Processes a full log message whose header has already been parsed, as received from 'logcat -B'. See
+   * {@link AndroidLogcatBinaryReceiver}.
+   */
+  void processMessage(@NotNull LogCatHeader header, @NotNull String message) {
+    myStackTraceExpander.reset();
+    myActiveHeader = header;
+    myLineIndex = 0;
+    myDelayedNewlineCount = 0;
+
+    // As for the text format, leading and trailing newlines are dropped
+    message = StringUtil.trimTrailing(StringUtil.trimLeading(CARRIAGE_RETURN.matcher(message).replaceAll(""), '\n'), '\n');
+    if (message.isEmpty()) {
+      return;
+    }
+    for (String line : NEWLINE.split(message, -1)) {
+      for (String processedLine : myStackTraceExpander.process(line)) {
+        notifyLine(header, processedLine);
+      }
+    }
+  }
+
   // This method is package protected so other Logcat components can feed receiver processed log lines if they need to
   void notifyLine(@NotNull LogCatHeader header, @NotNull String line) {
     myLogcatListener.onLogLineReceived(new LogCatMessage(header, line));
@@ -20,6 +20,7 @@ import com.android.ddmlib.Log.LogLevel;
 import com.android.ddmlib.logcat.LogCatHeader;
 import com.android.ddmlib.logcat.LogCatMessage;
 import com.android.tools.idea.IdeInfo;
+import com.android.tools.idea.flags.StudioFlags;
 import com.android.tools.idea.run.LoggingReceiver;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
@@ -61,38 +62,34 @@ public final class AndroidLogcatService implements AndroidDebugBridge.IDeviceCha
     return Logger.getInstance(AndroidLogcatService.class);
   }
 
-  private static class LogcatBuffer {
-    private int myBufferSize;
-    private final LinkedList<LogCatMessage> myMessages = new LinkedList<>();
+  /**
+   * Size of the message buffer of each device when the console cycle buffer is disabled.
+   */
+  private static final int DEFAULT_BUFFER_SIZE = 16 * 1024 * 1024;
 
-    public void addMessage(@NotNull LogCatMessage message) {
-      myMessages.add(message);
-      myBufferSize += message.getMessage().length();
-      if (ConsoleBuffer.useCycleBuffer()) {
-        while (myBufferSize > ConsoleBuffer.getCycleBufferSize()) {
-          myBufferSize -= myMessages.removeFirst().getMessage().length();
-        }
-      }
-    }
+  /**
+   * Minimum API level for 'logcat -B'. Older devices run shell commands in a pty, which mangles the binary output.
+   */
+  private static final int MIN_BINARY_LOGCAT_API_LEVEL = 24;
 
-    @NotNull
-    public List<LogCatMessage> getMessages() {
-      return myMessages;
-    }
+  @NotNull
+  private static LogcatRingBuffer newLogcatBuffer() {
+    // The buffer also stores the headers, so it is sized to keep at least as many messages as the console can display
+    return new LogcatRingBuffer(ConsoleBuffer.useCycleBuffer() ? 2 * ConsoleBuffer.getCycleBufferSize() : DEFAULT_BUFFER_SIZE);
   }
 
   private static class ListenerConnector implements LogcatListener {
     @GuardedBy("myListenerLock")
     @Nullable private LogcatListener myListener; // Initially not null, set to null when disconnected.
     @GuardedBy("myBacklogLock")
-    @Nullable private Queue<LogCatMessage> myBacklog; // myBacklog is either null or not empty.
+    @Nullable private Iterator<LogCatMessage> myBacklog; // myBacklog is either null or has next. Messages are decoded as they are dispatched.
     // The two locks bellow should never be held simultaneously or for a prolonged period of time.
     @NotNull private final Object myListenerLock = new Object();
     @NotNull private final Object myBacklogLock = new Object();
 
-    ListenerConnector(@NotNull LogcatListener listener, @NotNull Collection<LogCatMessage> messageBacklog) {
+    ListenerConnector(@NotNull LogcatListener listener, @NotNull Iterator<LogCatMessage> messageBacklog) {
       myListener = listener;
-      myBacklog = messageBacklog.isEmpty() ? null : new ArrayDeque<>(messageBacklog);
+      myBacklog = messageBacklog.hasNext() ? messageBacklog : null;
     }
 
     @Override
@@ -149,8 +146,8 @@ public final class AndroidLogcatService implements AndroidDebugBridge.IDeviceCha
         if (myBacklog == null) {
           return null;
         }
-        LogCatMessage message = myBacklog.remove();
-        if (myBacklog.isEmpty()) {
+        LogCatMessage message = myBacklog.next();
+        if (!myBacklog.hasNext()) {
           myBacklog = null;
         }
         return message;
@@ -174,7 +171,7 @@ public final class AndroidLogcatService implements AndroidDebugBridge.IDeviceCha
   private final Map<IDevice, AndroidLogcatReceiver> myLogReceivers;
 
   @GuardedBy("myLock")
-  private final Map<IDevice, LogcatBuffer> myLogBuffers;
+  private final Map<IDevice, LogcatRingBuffer> myLogBuffers;
 
   /**
    * This is a list of commands to execute per device. We use a newSingleThreadExecutor
@@ -213,7 +210,7 @@ public final class AndroidLogcatService implements AndroidDebugBridge.IDeviceCha
 
       AndroidLogcatReceiver receiver = newAndroidLogcatReceiver(device);
       myLogReceivers.put(device, receiver);
-      myLogBuffers.put(device, new LogcatBuffer());
+      myLogBuffers.put(device, newLogcatBuffer());
       myExecutors.get(device).execute(() -> executeLogcat(device, receiver));
     }
   }
@@ -226,7 +223,7 @@ public final class AndroidLogcatService implements AndroidDebugBridge.IDeviceCha
         Iterable<ListenerConnector> connectors;
         synchronized (myLock) {
           connectors = ImmutableList.copyOf(myDeviceToListenerMultimap.get(device));
-          LogcatBuffer buffer = myLogBuffers.get(device);
+          LogcatRingBuffer buffer = myLogBuffers.get(device);
 
           if (buffer != null) {
             buffer.addMessage(line);
@@ -238,8 +235,12 @@ public final class AndroidLogcatService implements AndroidDebugBridge.IDeviceCha
     });
   }
 
-  private static void executeLogcat(@NotNull IShellEnabledDevice device, @NotNull AndroidLogcatReceiver receiver) {
+  private static void executeLogcat(@NotNull IDevice device, @NotNull AndroidLogcatReceiver receiver) {
     try {
+      if (StudioFlags.RUNDEBUG_LOGCAT_BINARY_INGESTION.get() && device.getVersion().getApiLevel() >= MIN_BINARY_LOGCAT_API_LEVEL) {
+        device.executeShellCommand("logcat -B", new AndroidLogcatBinaryReceiver(device, receiver), 0, TimeUnit.MILLISECONDS);
+        return;
+      }
       execute(device, supportsEpochFormatModifier(device) ? "logcat -v long -v epoch" : "logcat -v long", receiver, Duration.ZERO);
     }
     catch (Throwable throwable) {
@@ -366,8 +367,9 @@ public final class AndroidLogcatService implements AndroidDebugBridge.IDeviceCha
    */
   public void addListener(@NotNull IDevice device, @NotNull LogcatListener listener, boolean addOldLogs) {
     synchronized (myLock) {
-      List<LogCatMessage> oldMessages =
-          addOldLogs && myLogBuffers.containsKey(device) ? myLogBuffers.get(device).getMessages() : ImmutableList.of();
+      Iterator<LogCatMessage> oldMessages =
+          addOldLogs && myLogBuffers.containsKey(device) ? myLogBuffers.get(device).iterator() : Collections.emptyIterator();
+      boolean hasOldMessages = oldMessages.hasNext();
 
       ListenerConnector listenerConnector = new ListenerConnector(listener, oldMessages);
       myDeviceToListenerMultimap.put(device, listenerConnector);
@@ -376,7 +378,7 @@ public final class AndroidLogcatService implements AndroidDebugBridge.IDeviceCha
         startReceiving(device);
       }
 
-      if (!oldMessages.isEmpty()) {
+      if (hasOldMessages) {
         ExecutorService executor = myExecutors.get(device);
         assert executor != null;
         executor.execute(() -> listenerConnector.processBacklog());
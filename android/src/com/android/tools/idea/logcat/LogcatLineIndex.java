@@ -0,0 +1,381 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.logcat;
+
+import com.android.ddmlib.Log.LogLevel;
+import com.android.ddmlib.logcat.LogCatHeader;
+import gnu.trove.TByteArrayList;
+import gnu.trove.TIntArrayList;
+import gnu.trove.TLongArrayList;
+import gnu.trove.TObjectIntHashMap;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Columnar index of the lines processed by {@link AndroidLogFilterModel}, in the order they are processed.
+ * <p>
+ * When the filter changes, the console replays all its lines through the filter model. The index keeps the parsed header of every
+ * line (log level, pid, tid, tag, application and timestamp) so the replay does not need to parse the lines again with regular
+ * expressions. Lines are identified by their position, length and 64-bit hash, so the index is only used while the replayed lines match
+ * the ones that were indexed.
+ * <p>
+ * The console drops its oldest lines when it grows over its cycle buffer size, so the index also drops its oldest lines, a chunk at a
+ * time, when the indexed lines exceed that size. Positions are not affected: the index then starts at a later position.
+ * <p>
+ * The lines are also grouped in chunks of {@link #CHUNK_SIZE} lines, each with a bloom filter of the trigrams they contain. For literal
+ * search patterns, this allows skipping the regular expression matching of all the lines of a chunk that can not contain the pattern.
+ */
+final class LogcatLineIndex {
+  static final byte KIND_OTHER = 0;
+  static final byte KIND_MESSAGE = 1;
+  static final byte KIND_CONTINUATION = 2;
+  /** Message whose text could not be located in the line, it needs to be parsed again */
+  static final byte KIND_UNPARSED = 3;
+
+  private static final int CHUNK_SIZE = 256;
+  private static final int BLOOM_BITS = 16 * 1024;
+  private static final int BLOOM_MASK = BLOOM_BITS - 1;
+  private static final LogLevel[] LOG_LEVELS = LogLevel.values();
+  private static final String REGEX_META_CHARACTERS = "\\^$.|?*+()[]{}";
+
+  private final int myMaxChars;
+  /** Position of the first indexed line */
+  private int myFirstPosition;
+  private int myCharCount;
+  /** Offset of the end of the last indexed line, counting the lines since the index was last cleared and a newline after each line */
+  private long myEndOffset;
+
+  private final TLongArrayList myHashes = new TLongArrayList();
+  private final TIntArrayList myLengths = new TIntArrayList();
+  /** Offsets of the starts of the lines, see {@link #myEndOffset} */
+  private final TLongArrayList myOffsets = new TLongArrayList();
+  private final TByteArrayList myKinds = new TByteArrayList();
+  /** Start of the message text (for messages) or the continuation text (for continuations) within the line */
+  private final TIntArrayList myContentStarts = new TIntArrayList();
+  private final TByteArrayList myLevels = new TByteArrayList();
+  private final TIntArrayList myPids = new TIntArrayList();
+  private final TIntArrayList myTids = new TIntArrayList();
+  private final TIntArrayList myTagIds = new TIntArrayList();
+  private final TIntArrayList myAppNameIds = new TIntArrayList();
+  private final TLongArrayList myTimestamps = new TLongArrayList();
+  private final TIntArrayList myNanos = new TIntArrayList();
+  /** Bloom filters of the chunks, starting with the chunk of {@link #myFirstPosition} */
+  private final List<long[]> myChunkBlooms = new ArrayList<>();
+
+  private final List<String> myStrings = new ArrayList<>();
+  private final TObjectIntHashMap<String> myStringIds = new TObjectIntHashMap<>();
+
+  /**
+   * @param maxChars the maximum number of characters of the indexed lines, usually the size of the console cycle buffer
+   */
+  LogcatLineIndex(int maxChars) {
+    myMaxChars = maxChars;
+  }
+
+  int size() {
+    return myHashes.size();
+  }
+
+  int getFirstPosition() {
+    return myFirstPosition;
+  }
+
+  /**
+   * Returns true if the line at the given position has been indexed and is the given line.
+   */
+  boolean isIndexed(int position, @NotNull String line) {
+    int i = position - myFirstPosition;
+    return i >= 0 && i < myHashes.size() && myLengths.get(i) == line.length() && myHashes.get(i) == hash(line);
+  }
+
+  /**
+   * Returns the position of the given line if it is the first line of the console, or -1 if it is not indexed.
+   * <p>
+   * The console keeps the last lines which fit in its cycle buffer, so its first line is the first indexed line which starts less than
+   * {@link #myMaxChars} characters before the end of the indexed lines. The lines before can not be in the console anymore, so they are
+   * not considered even if they are the same as the given line.
+   */
+  int findPosition(@NotNull String line) {
+    int i = myOffsets.binarySearch(myEndOffset - myMaxChars);
+    if (i < 0) {
+      i = -i - 1;
+    }
+    // The console may have dropped a bit more than expected, e.g. if it counts the characters differently
+    long hash = hash(line);
+    for (; i < myHashes.size(); i++) {
+      if (myLengths.get(i) == line.length() && myHashes.get(i) == hash) {
+        return myFirstPosition + i;
+      }
+    }
+    return -1;
+  }
+
+  byte getKind(int position) {
+    return myKinds.get(position - myFirstPosition);
+  }
+
+  int getContentStart(int position) {
+    return myContentStarts.get(position - myFirstPosition);
+  }
+
+  /**
+   * Returns the header of the message at the given position. Only valid for lines of kind {@link #KIND_MESSAGE}.
+   */
+  @NotNull
+  LogCatHeader getHeader(int position) {
+    int i = position - myFirstPosition;
+    return new LogCatHeader(LOG_LEVELS[myLevels.get(i)],
+                            myPids.get(i),
+                            myTids.get(i),
+                            myStrings.get(myAppNameIds.get(i)),
+                            myStrings.get(myTagIds.get(i)),
+                            Instant.ofEpochSecond(myTimestamps.get(i), myNanos.get(i)));
+  }
+
+  /**
+   * Adds a line at the given position. Any line previously indexed at that position or after is dropped. If the position is before the
+   * first indexed line, the index starts again at that position.
+   *
+   * @param header       the parsed header for lines of kind {@link #KIND_MESSAGE}
+   * @param contentStart the start of the message or continuation text within the line
+   */
+  void add(int position, @NotNull String line, byte kind, @Nullable LogCatHeader header, int contentStart) {
+    if (position < myFirstPosition) {
+      clear();
+      myFirstPosition = position;
+    }
+    truncate(position);
+    if (position != myFirstPosition + myHashes.size()) {
+      // Lines can only be appended, the previous lines were not indexed
+      return;
+    }
+
+    myHashes.add(hash(line));
+    myLengths.add(line.length());
+    myOffsets.add(myEndOffset);
+    myEndOffset += line.length() + 1;
+    myCharCount += line.length();
+    myKinds.add(kind);
+    myContentStarts.add(contentStart);
+    if (header != null) {
+      Instant timestamp = header.getTimestamp();
+      myLevels.add((byte)header.getLogLevel().ordinal());
+      myPids.add(header.getPid());
+      myTids.add(header.getTid());
+      myTagIds.add(intern(header.getTag()));
+      myAppNameIds.add(intern(header.getAppName()));
+      myTimestamps.add(timestamp.getEpochSecond());
+      myNanos.add(timestamp.getNano());
+    }
+    else {
+      myLevels.add((byte)0);
+      myPids.add(0);
+      myTids.add(0);
+      myTagIds.add(0);
+      myAppNameIds.add(0);
+      myTimestamps.add(0);
+      myNanos.add(0);
+    }
+
+    int chunk = position / CHUNK_SIZE - myFirstPosition / CHUNK_SIZE;
+    if (chunk == myChunkBlooms.size()) {
+      myChunkBlooms.add(new long[BLOOM_BITS / 64]);
+    }
+    long[] bloom = myChunkBlooms.get(chunk);
+    String lowerCaseLine = line.toLowerCase(Locale.US);
+    for (int i = 0; i + 3 <= lowerCaseLine.length(); i++) {
+      int bit = trigramHash(lowerCaseLine, i) & BLOOM_MASK;
+      bloom[bit >>> 6] |= 1L << bit;
+    }
+
+    // Drop the oldest chunks once the lines can not be in the console anymore, but always keep the chunk being filled
+    while (myCharCount > myMaxChars && myChunkBlooms.size() > 1) {
+      removeFirstChunk();
+    }
+  }
+
+  /**
+   * Returns false if no line of the chunk containing the given position can contain the given text. The text must be lower case.
+   */
+  boolean mayContain(int position, @NotNull String lowerCaseText) {
+    int chunk = position / CHUNK_SIZE;
+    if (chunk * CHUNK_SIZE < myFirstPosition || (chunk + 1) * CHUNK_SIZE > myFirstPosition + myHashes.size()) {
+      // Only complete chunks can be used, some lines of the chunk have not been indexed
+      return true;
+    }
+    long[] bloom = myChunkBlooms.get(chunk - myFirstPosition / CHUNK_SIZE);
+    for (int i = 0; i + 3 <= lowerCaseText.length(); i++) {
+      int bit = trigramHash(lowerCaseText, i) & BLOOM_MASK;
+      if ((bloom[bit >>> 6] & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  void clear() {
+    truncate(myFirstPosition);
+    myStrings.clear();
+    myStringIds.clear();
+  }
+
+  /**
+   * Drops the lines at the given position and after.
+   */
+  private void truncate(int position) {
+    int size = position - myFirstPosition;
+    if (size >= myHashes.size()) {
+      return;
+    }
+    myEndOffset = myOffsets.get(size);
+    removeLines(size, myHashes.size() - size);
+
+    // The bloom filter of a partially truncated chunk keeps the trigrams of the removed lines. That is fine since it can only cause
+    // false positives.
+    int chunks = size == 0 ? 0 : (position - 1) / CHUNK_SIZE - myFirstPosition / CHUNK_SIZE + 1;
+    while (myChunkBlooms.size() > chunks) {
+      myChunkBlooms.remove(myChunkBlooms.size() - 1);
+    }
+  }
+
+  private void removeFirstChunk() {
+    int count = (myFirstPosition / CHUNK_SIZE + 1) * CHUNK_SIZE - myFirstPosition;
+    removeLines(0, count);
+    myChunkBlooms.remove(0);
+    myFirstPosition += count;
+  }
+
+  private void removeLines(int offset, int count) {
+    for (int i = offset; i < offset + count; i++) {
+      myCharCount -= myLengths.get(i);
+    }
+    myHashes.remove(offset, count);
+    myLengths.remove(offset, count);
+    myOffsets.remove(offset, count);
+    myKinds.remove(offset, count);
+    myContentStarts.remove(offset, count);
+    myLevels.remove(offset, count);
+    myPids.remove(offset, count);
+    myTids.remove(offset, count);
+    myTagIds.remove(offset, count);
+    myAppNameIds.remove(offset, count);
+    myTimestamps.remove(offset, count);
+    myNanos.remove(offset, count);
+  }
+
+  /**
+   * 64-bit FNV-1a hash of the line, which unlike {@link String#hashCode()} makes collisions between different lines unlikely.
+   */
+  private static long hash(@NotNull String line) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < line.length(); i++) {
+      hash ^= line.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    return hash;
+  }
+
+  private int intern(@NotNull String string) {
+    int id = myStringIds.get(string);
+    if (id == 0 && !myStringIds.containsKey(string)) {
+      id = myStrings.size();
+      myStrings.add(string);
+      myStringIds.put(string, id);
+    }
+    return id;
+  }
+
+  private static int trigramHash(@NotNull String text, int start) {
+    int hash = (text.charAt(start) * 31 + text.charAt(start + 1)) * 31 + text.charAt(start + 2);
+    // Spread the bits so close trigrams do not fall in the same bloom filter words
+    return hash * 0x9E3779B1 >>> 15;
+  }
+
+  /**
+   * Returns the text that every match of the pattern contains, in lower case, or null if the pattern is not a literal. Besides patterns
+   * compiled with {@link Pattern#LITERAL}, literals include the patterns quoted by {@link Pattern#quote(String)} and the patterns whose
+   * meta characters are all escaped with a backslash.
+   */
+  @Nullable
+  static String getLowerCaseLiteral(@NotNull Pattern pattern) {
+    String text = pattern.pattern();
+    String literal;
+    if ((pattern.flags() & Pattern.LITERAL) != 0) {
+      literal = text;
+    }
+    else if ((pattern.flags() & Pattern.COMMENTS) != 0) {
+      // White space and comments are ignored in the pattern
+      return null;
+    }
+    else {
+      literal = unescape(text);
+      if (literal == null) {
+        return null;
+      }
+    }
+    for (int i = 0; i < literal.length(); i++) {
+      // Only ASCII literals are supported so lower casing the text and the lines can not change the character positions
+      if (literal.charAt(i) > 127) {
+        return null;
+      }
+    }
+    return literal.toLowerCase(Locale.US);
+  }
+
+  /**
+   * Returns the text matched by the given regular expression, or null if it does not only match a literal text.
+   */
+  @Nullable
+  private static String unescape(@NotNull String regex) {
+    StringBuilder literal = new StringBuilder(regex.length());
+    for (int i = 0; i < regex.length(); i++) {
+      char c = regex.charAt(i);
+      if (c != '\\') {
+        if (REGEX_META_CHARACTERS.indexOf(c) != -1) {
+          return null;
+        }
+        literal.append(c);
+        continue;
+      }
+      if (++i == regex.length()) {
+        return null;
+      }
+      c = regex.charAt(i);
+      if (c == 'Q') {
+        // Everything up to \E, or the end of the pattern, is quoted
+        int end = regex.indexOf("\\E", i + 1);
+        if (end == -1) {
+          end = regex.length();
+        }
+        literal.append(regex, i + 1, end);
+        i = end + 1;
+      }
+      else if (Character.isLetterOrDigit(c)) {
+        // Character classes (e.g. \d), back references and escape sequences
+        return null;
+      }
+      else {
+        literal.append(c);
+      }
+    }
+    return literal.toString();
+  }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.logcat;
+
+import com.android.ddmlib.Log.LogLevel;
+import com.android.ddmlib.logcat.LogCatHeader;
+import com.android.ddmlib.logcat.LogCatMessage;
+import gnu.trove.TObjectIntHashMap;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Fixed size store of {@link LogCatMessage}s. Messages are encoded into a preallocated direct {@link ByteBuffer} used as a ring: when
+ * there is no space left for a new message, the oldest messages are dropped. Tags and application names are interned, so each message
+ * only takes a few bytes on top of its UTF-8 encoded text, and no objects are retained per message.
+ * <p>
+ * The stored messages are decoded back into {@link LogCatMessage}s lazily, see {@link #iterator()}.
+ */
+@ThreadSafe
+final class LogcatRingBuffer {
+  /**
+   * Size of the fixed part of an encoded record: record length, level, pid, tid, seconds, nanos, tag id, app name id.
+   */
+  private static final int RECORD_HEADER_SIZE = 4 + 1 + 4 + 4 + 8 + 4 + 4 + 4;
+
+  private static final LogLevel[] LOG_LEVELS = LogLevel.values();
+
+  private final ByteBuffer myBuffer;
+
+  /** Start of the oldest record */
+  @GuardedBy("this") private int myHead;
+  /** Position where the next record will be written */
+  @GuardedBy("this") private int myTail;
+  /** When the records wrap around the end of the buffer, end of the last record before the wrap */
+  @GuardedBy("this") private int myEnd;
+  @GuardedBy("this") private boolean myWrapped;
+  @GuardedBy("this") private int myCount;
+
+  @GuardedBy("this") private final List<String> myStrings = new ArrayList<>();
+  @GuardedBy("this") private final TObjectIntHashMap<String> myStringIds = new TObjectIntHashMap<>();
+
+  LogcatRingBuffer(int capacity) {
+    myBuffer = ByteBuffer.allocateDirect(Math.max(capacity, RECORD_HEADER_SIZE));
+  }
+
+  synchronized void addMessage(@NotNull LogCatMessage message) {
+    LogCatHeader header = message.getHeader();
+    byte[] text = message.getMessage().getBytes(StandardCharsets.UTF_8);
+    int textLength = Math.min(text.length, myBuffer.capacity() - RECORD_HEADER_SIZE);
+    int recordLength = RECORD_HEADER_SIZE + textLength;
+
+    makeSpace(recordLength);
+
+    Instant timestamp = header.getTimestamp();
+    myBuffer.position(myTail);
+    myBuffer
+      .putInt(recordLength)
+      .put((byte)header.getLogLevel().ordinal())
+      .putInt(header.getPid())
+      .putInt(header.getTid())
+      .putLong(timestamp.getEpochSecond())
+      .putInt(timestamp.getNano())
+      .putInt(intern(header.getTag()))
+      .putInt(intern(header.getAppName()))
+      .put(text, 0, textLength);
+    myTail += recordLength;
+    myCount++;
+  }
+
+  synchronized int size() {
+    return myCount;
+  }
+
+  synchronized void clear() {
+    myHead = 0;
+    myTail = 0;
+    myEnd = 0;
+    myWrapped = false;
+    myCount = 0;
+  }
+
+  /**
+   * Returns an iterator over a snapshot of the messages currently in the buffer, from oldest to newest. The snapshot is a copy of the
+   * encoded records so messages added afterwards do not affect it. Each message is only decoded when {@link Iterator#next()} is called.
+   */
+  @NotNull
+  synchronized Iterator<LogCatMessage> iterator() {
+    byte[] data;
+    if (myWrapped) {
+      data = new byte[myEnd - myHead + myTail];
+      copy(myHead, data, 0, myEnd - myHead);
+      copy(0, data, myEnd - myHead, myTail);
+    }
+    else {
+      data = new byte[myTail - myHead];
+      copy(myHead, data, 0, data.length);
+    }
+    String[] strings = myStrings.toArray(new String[0]);
+    ByteBuffer records = ByteBuffer.wrap(data);
+
+    return new Iterator<LogCatMessage>() {
+      @Override
+      public boolean hasNext() {
+        return records.hasRemaining();
+      }
+
+      @Override
+      public LogCatMessage next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        int start = records.position();
+        int recordLength = records.getInt();
+        LogLevel level = LOG_LEVELS[records.get()];
+        int pid = records.getInt();
+        int tid = records.getInt();
+        Instant timestamp = Instant.ofEpochSecond(records.getLong(), records.getInt());
+        String tag = strings[records.getInt()];
+        String appName = strings[records.getInt()];
+        String text = new String(data, records.position(), start + recordLength - records.position(), StandardCharsets.UTF_8);
+        records.position(start + recordLength);
+        return new LogCatMessage(new LogCatHeader(level, pid, tid, appName, tag, timestamp), text);
+      }
+    };
+  }
+
+  /**
+   * Drops the oldest records until there is space for a record of the given length at {@link #myTail}.
+   */
+  @GuardedBy("this")
+  private void makeSpace(int recordLength) {
+    while (true) {
+      if (!myWrapped) {
+        if (myTail + recordLength <= myBuffer.capacity()) {
+          return;
+        }
+        if (myCount == 0) {
+          myHead = 0;
+          myTail = 0;
+          return;
+        }
+        // Continue writing at the start of the buffer
+        myEnd = myTail;
+        myTail = 0;
+        myWrapped = true;
+      }
+
+      // The free space is between the tail and the head
+      if (myTail + recordLength <= myHead) {
+        return;
+      }
+      dropOldest();
+    }
+  }
+
+  @GuardedBy("this")
+  private void dropOldest() {
+    myHead += myBuffer.getInt(myHead);
+    myCount--;
+    if (myWrapped && myHead == myEnd) {
+      myHead = 0;
+      myWrapped = false;
+    }
+    if (myCount == 0) {
+      myHead = 0;
+      myTail = 0;
+      myWrapped = false;
+    }
+  }
+
+  @GuardedBy("this")
+  private void copy(int from, @NotNull byte[] destination, int offset, int length) {
+    ByteBuffer source = myBuffer.duplicate();
+    source.position(from);
+    source.get(destination, offset, length);
+  }
+
+  @GuardedBy("this")
+  private int intern(@NotNull String string) {
+    int id = myStringIds.get(string);
+    if (id == 0 && !myStringIds.containsKey(string)) {
+      id = myStrings.size();
+      myStrings.add(string);
+      myStringIds.put(string, id);
+    }
+    return id;
+  }
+}
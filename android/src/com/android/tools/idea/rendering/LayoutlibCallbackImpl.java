@@ -970,6 +970,13 @@ public class LayoutlibCallbackImpl extends LayoutlibCallback {
     return myClassLoader.hasLoadedClass(classFqn);
   }
 
+  /**
+   * Returns the generation of the project class loader, which changes when the custom view classes are rebuilt.
+   */
+  long getClassLoaderGeneration() {
+    return myClassLoader.getClassLoaderGeneration();
+  }
+
   private static class NamedXmlParser extends KXmlParser {
     @Nullable
     private final String myName;
@@ -64,6 +64,7 @@ public class RefreshRenderAction extends AnAction {
         IAndroidTarget target = configuration.getTarget();
         Module module = configuration.getModule();
         if (module != null) {
+          RenderService.getInstance(module.getProject()).getRenderResultCache().invalidateAll();
           ResourceIdManager.get(module).resetDynamicIds();
           if (target != null) {
             AndroidTargetData targetData = AndroidTargetData.getTargetData(target, module);
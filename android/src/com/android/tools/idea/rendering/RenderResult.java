@@ -40,6 +40,7 @@ public class RenderResult {
   @NotNull private final Map<Object, Map<ResourceReference, ResourceValue>> myDefaultProperties;
   @NotNull private final Map<Object, String> myDefaultStyles;
   @NotNull private final Module myModule;
+  private final boolean myIsFromCache;
   private boolean isDisposed;
 
   protected RenderResult(@NotNull PsiFile file,
@@ -52,6 +53,20 @@ public class RenderResult {
                          @NotNull ImagePool.Image image,
                          @NotNull Map<Object, Map<ResourceReference, ResourceValue>> defaultProperties,
                          @NotNull Map<Object, String> defaultStyles) {
+    this(file, module, logger, renderTask, renderResult, rootViews, systemRootViews, image, defaultProperties, defaultStyles, false);
+  }
+
+  private RenderResult(@NotNull PsiFile file,
+                       @NotNull Module module,
+                       @NotNull RenderLogger logger,
+                       @Nullable RenderTask renderTask,
+                       @NotNull Result renderResult,
+                       @NotNull ImmutableList<ViewInfo> rootViews,
+                       @NotNull ImmutableList<ViewInfo> systemRootViews,
+                       @NotNull ImagePool.Image image,
+                       @NotNull Map<Object, Map<ResourceReference, ResourceValue>> defaultProperties,
+                       @NotNull Map<Object, String> defaultStyles,
+                       boolean isFromCache) {
     myRenderTask = renderTask;
     myModule = module;
     myFile = file;
@@ -62,6 +77,7 @@ public class RenderResult {
     myImage = image;
     myDefaultProperties = defaultProperties;
     myDefaultStyles = defaultStyles;
+    myIsFromCache = isFromCache;
   }
 
   public void dispose() {
@@ -95,6 +111,38 @@ public class RenderResult {
       defaultStyles != null ? ImmutableMap.copyOf(defaultStyles) : ImmutableMap.of());
   }
 
+  /**
+   * Creates a new {@link RenderResult} from an entry of the {@link RenderResultCache}. The image is copied into the given {@link ImagePool}
+   * so the returned result can be disposed independently of the cache.
+   * <p>
+   * The cache only keeps images: the view hierarchy is taken from the given session, which must have just inflated the same layout. If
+   * there is no session, the result has no view hierarchy.
+   */
+  @NotNull
+  static RenderResult createFromCache(@NotNull RenderTask renderTask,
+                                      @Nullable RenderSession session,
+                                      @NotNull PsiFile file,
+                                      @NotNull RenderLogger logger,
+                                      @NotNull RenderResultCache.CachedRender cachedRender,
+                                      @NotNull ImagePool imagePool) {
+    List<ViewInfo> rootViews = session != null ? session.getRootViews() : null;
+    List<ViewInfo> systemRootViews = session != null ? session.getSystemRootViews() : null;
+    Map<Object, Map<ResourceReference, ResourceValue>> defaultProperties = session != null ? session.getDefaultNamespacedProperties() : null;
+    Map<Object, String> defaultStyles = session != null ? session.getDefaultStyles() : null;
+    return new RenderResult(
+      file,
+      renderTask.getContext().getModule(),
+      logger,
+      renderTask,
+      cachedRender.result,
+      rootViews != null ? ImmutableList.copyOf(rootViews) : ImmutableList.of(),
+      systemRootViews != null ? ImmutableList.copyOf(systemRootViews) : ImmutableList.of(),
+      imagePool.copyOf(cachedRender.image),
+      defaultProperties != null ? ImmutableMap.copyOf(defaultProperties) : ImmutableMap.of(),
+      defaultStyles != null ? ImmutableMap.copyOf(defaultStyles) : ImmutableMap.of(),
+      true);
+  }
+
   /**
    * Creates a new session initialization error {@link RenderResult} from a given RenderTask
    */
@@ -156,6 +204,13 @@ public class RenderResult {
     return !isDisposed ? myImage : ImagePool.NULL_POOLED_IMAGE;
   }
 
+  /**
+   * Returns true if this result was served from the {@link RenderResultCache} instead of being rendered by layoutlib.
+   */
+  public boolean isFromCache() {
+    return myIsFromCache;
+  }
+
   public boolean hasImage() {
     return !isDisposed && myImage != ImagePool.NULL_POOLED_IMAGE;
   }
@@ -210,6 +265,7 @@ public class RenderResult {
       .add("psiFile", myFile)
       .add("rootViews", myRootViews)
       .add("systemViews", mySystemRootViews)
+      .add("fromCache", myIsFromCache)
       .toString();
   }
 }
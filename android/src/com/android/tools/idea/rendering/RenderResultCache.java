@@ -0,0 +1,309 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.rendering;
+
+import com.android.ide.common.rendering.api.Result;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.intellij.util.concurrency.SequentialTaskExecutor;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.imageio.ImageIO;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Bounded cache of rendered images. Entries are keyed by a hash of all the inputs of a render (layout contents, configuration, theme,
+ * resource repository and class loader generations, see {@link RenderTask#render()}) so a render with the same inputs can be served
+ * without drawing the layout again. Only images are cached: the view hierarchy belongs to the render session that inflated the layout,
+ * and is always taken from the current one.
+ * <p/>
+ * The cache has two tiers:
+ * <ul>
+ *   <li>A memory tier, bounded by the number of bytes of the cached images.</li>
+ *   <li>An optional disk tier that receives the images evicted from the memory tier.</li>
+ * </ul>
+ * Resource and class loader generations are only meaningful within the current IDE session so the disk tier is cleared when the cache is
+ * created. All the disk I/O runs on a pooled thread.
+ */
+public class RenderResultCache implements Disposable {
+  private static final Logger LOG = Logger.getInstance(RenderResultCache.class);
+
+  /** Default maximum number of image bytes kept in the memory tier */
+  private static final long DEFAULT_MAX_MEMORY_BYTES = 64L * 1024 * 1024; // 64MB
+  /** Default maximum number of bytes kept in the disk tier */
+  private static final long DEFAULT_MAX_DISK_BYTES = 256L * 1024 * 1024; // 256MB
+  /** Entries in the memory tier are also expired after some time without being accessed, to release the image memory */
+  private static final long MEMORY_EXPIRATION_MINUTES = 5;
+
+  private final Cache<String, CachedRender> myMemoryCache;
+  @Nullable private final File myDiskCacheDir;
+  private final long myMaxDiskBytes;
+  /** Access ordered map of the entries in the disk tier and their size in bytes. Guarded by itself. */
+  private final LinkedHashMap<String, Long> myDiskEntries = new LinkedHashMap<>(16, 0.75f, true);
+  private long myDiskBytes;
+  private final ExecutorService myDiskExecutor = SequentialTaskExecutor.createSequentialApplicationPoolExecutor("RenderResultCache Disk");
+
+  private final AtomicLong myMemoryHits = new AtomicLong();
+  private final AtomicLong myDiskHits = new AtomicLong();
+  private final AtomicLong myMisses = new AtomicLong();
+
+  /**
+   * The image and the result of a successful render.
+   */
+  static class CachedRender {
+    @NotNull final BufferedImage image;
+    @NotNull final Result result;
+
+    CachedRender(@NotNull BufferedImage image, @NotNull Result result) {
+      this.image = image;
+      this.result = result;
+    }
+
+    private int getImageBytes() {
+      return image.getWidth() * image.getHeight() * 4;
+    }
+  }
+
+  public interface Stats {
+    long memoryHits();
+
+    long diskHits();
+
+    long misses();
+
+    long memoryBytes();
+
+    long diskBytes();
+  }
+
+  RenderResultCache(@Nullable File diskCacheDir) {
+    this(DEFAULT_MAX_MEMORY_BYTES, diskCacheDir, DEFAULT_MAX_DISK_BYTES);
+  }
+
+  @VisibleForTesting
+  RenderResultCache(long maxMemoryBytes, @Nullable File diskCacheDir, long maxDiskBytes) {
+    myMaxDiskBytes = maxDiskBytes;
+    myDiskCacheDir = diskCacheDir;
+    if (myDiskCacheDir != null) {
+      File dir = myDiskCacheDir;
+      // Runs before any entry is spilled to disk since the executor is sequential
+      myDiskExecutor.execute(() -> {
+        FileUtil.delete(dir);
+        if (!dir.mkdirs()) {
+          LOG.warn("Unable to create render cache directory " + dir);
+        }
+      });
+    }
+
+    myMemoryCache = CacheBuilder.newBuilder()
+      // Renders are serialized on the layoutlib thread so there is little contention. A single segment makes the weight limit global.
+      .concurrencyLevel(1)
+      .maximumWeight(maxMemoryBytes)
+      .<String, CachedRender>weigher((key, value) -> value.getImageBytes())
+      .expireAfterAccess(MEMORY_EXPIRATION_MINUTES, TimeUnit.MINUTES)
+      .removalListener((RemovalNotification<String, CachedRender> notification) -> {
+        // Entries evicted because of the size limit are spilled to the disk tier
+        if (notification.getCause() == RemovalCause.SIZE && notification.getKey() != null && notification.getValue() != null) {
+          spillToDisk(notification.getKey(), notification.getValue().image);
+        }
+      })
+      .build();
+  }
+
+  /**
+   * Adds the given {@link RenderResult} to the cache. Only successful results with an image are cached.
+   */
+  void put(@NotNull String key, @NotNull RenderResult result) {
+    if (!result.getRenderResult().isSuccess() || !result.hasImage()) {
+      return;
+    }
+
+    BufferedImage image = result.getRenderedImage().getCopy();
+    if (image == null) {
+      return;
+    }
+
+    myMemoryCache.put(key, new CachedRender(image, result.getRenderResult()));
+  }
+
+  /**
+   * Returns the cached render for the given key, from the memory or the disk tier, or null if there is none. The returned future is
+   * already completed unless the entry has to be read from the disk tier, which is done on a pooled thread.
+   */
+  @NotNull
+  CompletableFuture<CachedRender> get(@NotNull String key) {
+    CachedRender cached = myMemoryCache.getIfPresent(key);
+    if (cached != null) {
+      myMemoryHits.incrementAndGet();
+      return CompletableFuture.completedFuture(cached);
+    }
+
+    File dir = myDiskCacheDir;
+    boolean onDisk;
+    synchronized (myDiskEntries) {
+      // Updates the access order
+      onDisk = dir != null && myDiskEntries.get(key) != null;
+    }
+    if (!onDisk) {
+      myMisses.incrementAndGet();
+      return CompletableFuture.completedFuture(null);
+    }
+
+    try {
+      return CompletableFuture.supplyAsync(() -> {
+        BufferedImage image = readFromDisk(dir, key);
+        if (image == null) {
+          myMisses.incrementAndGet();
+          return null;
+        }
+        myDiskHits.incrementAndGet();
+        return new CachedRender(image, Result.Status.SUCCESS.createResult());
+      }, myDiskExecutor);
+    }
+    catch (RejectedExecutionException e) {
+      // The cache has been disposed
+      return CompletableFuture.completedFuture(null);
+    }
+  }
+
+  /**
+   * Removes all the entries from both tiers.
+   */
+  public void invalidateAll() {
+    myMemoryCache.invalidateAll();
+    synchronized (myDiskEntries) {
+      myDiskEntries.clear();
+      myDiskBytes = 0;
+    }
+    if (myDiskCacheDir != null) {
+      File dir = myDiskCacheDir;
+      myDiskExecutor.execute(() -> {
+        File[] files = dir.listFiles();
+        if (files != null) {
+          for (File file : files) {
+            FileUtil.delete(file);
+          }
+        }
+      });
+    }
+  }
+
+  @NotNull
+  public Stats getStats() {
+    return new Stats() {
+      @Override
+      public long memoryHits() {
+        return myMemoryHits.get();
+      }
+
+      @Override
+      public long diskHits() {
+        return myDiskHits.get();
+      }
+
+      @Override
+      public long misses() {
+        return myMisses.get();
+      }
+
+      @Override
+      public long memoryBytes() {
+        return myMemoryCache.asMap().values().stream().mapToLong(CachedRender::getImageBytes).sum();
+      }
+
+      @Override
+      public long diskBytes() {
+        synchronized (myDiskEntries) {
+          return myDiskBytes;
+        }
+      }
+    };
+  }
+
+  @NotNull
+  private static File getDiskFile(@NotNull File dir, @NotNull String key) {
+    return new File(dir, key + ".png");
+  }
+
+  private void spillToDisk(@NotNull String key, @NotNull BufferedImage image) {
+    File dir = myDiskCacheDir;
+    if (dir == null) {
+      return;
+    }
+
+    myDiskExecutor.execute(() -> {
+      File file = getDiskFile(dir, key);
+      try {
+        if (!ImageIO.write(image, "PNG", file)) {
+          return;
+        }
+      }
+      catch (IOException e) {
+        LOG.debug("Unable to write render cache entry", e);
+        return;
+      }
+
+      synchronized (myDiskEntries) {
+        Long previousSize = myDiskEntries.put(key, file.length());
+        myDiskBytes += file.length() - (previousSize != null ? previousSize : 0);
+        Iterator<Map.Entry<String, Long>> it = myDiskEntries.entrySet().iterator();
+        while (myDiskBytes > myMaxDiskBytes && it.hasNext()) {
+          Map.Entry<String, Long> eldest = it.next();
+          it.remove();
+          myDiskBytes -= eldest.getValue();
+          FileUtil.delete(getDiskFile(dir, eldest.getKey()));
+        }
+      }
+    });
+  }
+
+  @Nullable
+  private static BufferedImage readFromDisk(@NotNull File dir, @NotNull String key) {
+    try {
+      return ImageIO.read(getDiskFile(dir, key));
+    }
+    catch (IOException e) {
+      LOG.debug("Unable to read render cache entry", e);
+      return null;
+    }
+  }
+
+  @Override
+  public void dispose() {
+    myMemoryCache.invalidateAll();
+    myDiskExecutor.shutdownNow();
+    if (myDiskCacheDir != null) {
+      AppExecutorUtil.getAppExecutorService().execute(() -> FileUtil.delete(myDiskCacheDir));
+    }
+  }
+}
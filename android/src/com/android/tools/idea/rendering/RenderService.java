@@ -40,6 +40,7 @@ import com.android.tools.idea.rendering.parsers.TagSnapshot;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.Futures;
 import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.PathManager;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.module.Module;
@@ -53,6 +54,7 @@ import com.intellij.psi.xml.XmlFile;
 import com.intellij.psi.xml.XmlTag;
 import com.intellij.util.IncorrectOperationException;
 import com.intellij.util.concurrency.AppExecutorUtil;
+import java.io.File;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
@@ -156,6 +158,8 @@ public class RenderService implements Disposable {
 
   private final ImagePool myImagePool = ImagePoolFactory.createImagePool();
 
+  private final RenderResultCache myRenderResultCache;
+
   /**
    * @return the {@linkplain RenderService} for the given facet.
    */
@@ -178,6 +182,11 @@ public class RenderService implements Disposable {
   protected RenderService(@NotNull Project project) {
     myProject = project;
     Disposer.register(project, this);
+    File diskCacheDir = ApplicationManager.getApplication().isUnitTestMode()
+                        ? null
+                        : new File(PathManager.getSystemPath(), "layoutlib-render-cache" + File.separator + project.getLocationHash());
+    myRenderResultCache = new RenderResultCache(diskCacheDir);
+    Disposer.register(this, myRenderResultCache);
   }
 
   @Nullable
@@ -412,6 +421,15 @@ public class RenderService implements Disposable {
     return myImagePool;
   }
 
+  /**
+   * Returns the {@link RenderResultCache} shared by all the {@link RenderTask}s of this project. The cache is only used when
+   * {@link StudioFlags#NELE_RENDER_CACHE} is enabled.
+   */
+  @NotNull
+  public RenderResultCache getRenderResultCache() {
+    return myRenderResultCache;
+  }
+
   /** This is the View.MeasureSpec mode shift */
   private static final int MEASURE_SPEC_MODE_SHIFT = 30;
 
@@ -442,6 +460,7 @@ public class RenderService implements Disposable {
     private boolean useHighQualityShadows = StudioFlags.NELE_RENDER_HIGH_QUALITY_SHADOW.get();
     private SessionParams.RenderingMode myRenderingMode = null;
     private boolean useTransparentBackground = false;
+    private boolean allowImageOnlyCachedResults = false;
 
     private RenderTaskBuilder(@NotNull RenderService service,
                               @NotNull AndroidFacet facet,
@@ -558,6 +577,15 @@ public class RenderService implements Disposable {
       return this;
     }
 
+    /**
+     * @see RenderTask#setAllowImageOnlyCachedResults(boolean)
+     */
+    @NotNull
+    public RenderTaskBuilder allowImageOnlyCachedResults() {
+      allowImageOnlyCachedResults = true;
+      return this;
+    }
+
     /**
      * Builds a new {@link RenderTask}. The returned future always completes successfully but the value might be null if the RenderTask
      * can not be created.
@@ -652,6 +680,10 @@ public class RenderService implements Disposable {
             task.setRenderingMode(myRenderingMode);
           }
 
+          if (allowImageOnlyCachedResults) {
+            task.setAllowImageOnlyCachedResults(true);
+          }
+
           return task;
         } catch (IllegalStateException | IncorrectOperationException | AssertionError e) {
           // Ignore the exception if it was generated when the facet is being disposed (project is being closed)
@@ -44,6 +44,7 @@ import com.android.tools.analytics.crash.CrashReporter;
 import com.android.tools.idea.AndroidPsiUtils;
 import com.android.tools.idea.configurations.Configuration;
 import com.android.tools.idea.diagnostics.crash.StudioExceptionReport;
+import com.android.tools.idea.flags.StudioFlags;
 import com.android.tools.idea.layoutlib.LayoutLibrary;
 import com.android.tools.idea.layoutlib.RenderParamsFlags;
 import com.android.tools.idea.model.ActivityAttributesSnapshot;
@@ -64,6 +65,8 @@ import com.android.tools.idea.res.ResourceIdManager;
 import com.android.tools.idea.res.ResourceRepositoryManager;
 import com.android.tools.idea.util.DependencyManagementUtil;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Strings;
+import com.google.common.hash.Hashing;
 import com.google.common.util.concurrent.Futures;
 import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.diagnostic.Logger;
@@ -75,6 +78,7 @@ import com.intellij.psi.xml.XmlFile;
 import com.intellij.psi.xml.XmlTag;
 import java.awt.image.BufferedImage;
 import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -148,8 +152,19 @@ public class RenderTask {
   @NotNull private final LayoutlibCallbackImpl myLayoutlibCallback;
   @NotNull private final LayoutLibrary myLayoutLib;
   @NotNull private final HardwareConfigHelper myHardwareConfigHelper;
+  @NotNull private final LocalResourceRepository myAppResources;
+  @NotNull private final RenderResultCache myRenderResultCache;
   private final float myDefaultQuality;
+  private float myQuality;
+  private long myElapsedFrameTimeNanos = -1;
+  private boolean myAllowImageOnlyCachedResults;
+  /**
+   * Whether {@link #myRenderSession} has been rendered since it was inflated. Later renders of the same session might show live updates
+   * or animation frames that are not part of the {@link RenderResultCache} key, so only the first one can use the cache.
+   */
+  private volatile boolean myRenderedSinceInflate;
   @Nullable private IncludeReference myIncludedWithin;
+  @Nullable private final ILayoutPullParserFactory myParserFactory;
   @NotNull private RenderingMode myRenderingMode = RenderingMode.NORMAL;
   @Nullable private Integer myOverrideBgColor;
   private boolean myShowDecorations = true;
@@ -198,6 +213,7 @@ public class RenderTask {
     myCredential = credential;
     myCrashReporter = crashReporter;
     myImagePool = imagePool;
+    myParserFactory = parserFactory;
     myAssetRepository = new AssetRepositoryImpl(facet);
     myHardwareConfigHelper = new HardwareConfigHelper(device);
 
@@ -207,6 +223,8 @@ public class RenderTask {
     myHardwareConfigHelper.setOrientation(orientation);
     myLayoutLib = layoutLib;
     LocalResourceRepository appResources = ResourceRepositoryManager.getAppResources(facet);
+    myAppResources = appResources;
+    myRenderResultCache = renderService.getRenderResultCache();
     ActionBarHandler actionBarHandler = new ActionBarHandler(this, myCredential);
     Module module = facet.getModule();
     myLayoutlibCallback =
@@ -228,6 +246,7 @@ public class RenderTask {
   }
 
   public void setQuality(float quality) {
+    myQuality = quality;
     if (quality >= 1.f) {
       myCachingImageFactory = SIMPLE_IMAGE_FACTORY;
       return;
@@ -457,6 +476,19 @@ public class RenderTask {
     return this;
   }
 
+  /**
+   * Sets whether {@link #render()} can return a cached image before the layout has been inflated. Those results contain no view hierarchy
+   * so this should only be enabled by callers that just use the image, like thumbnails.
+   * <p>
+   * Default is {@code false}.
+   */
+  @SuppressWarnings("UnusedReturnValue")
+  @NotNull
+  public RenderTask setAllowImageOnlyCachedResults(boolean allowImageOnlyCachedResults) {
+    myAllowImageOnlyCachedResults = allowImageOnlyCachedResults;
+    return this;
+  }
+
   /** Returns whether this parser will provide view cookies for included views. */
   public boolean getProvideCookiesForIncludedViews() {
     return myProvideCookiesForIncludedViews;
@@ -616,6 +648,7 @@ public class RenderTask {
         }
         RenderResult result = RenderResult.create(this, session, psiFile, myLogger, myImagePool.copyOf(session.getImage()));
         myRenderSession = session;
+        myRenderedSinceInflate = false;
         addDiagnostics(result.getRenderResult());
         return result;
       }
@@ -817,6 +850,7 @@ public class RenderTask {
       try {
         return runAsyncRenderAction(() -> {
           myRenderSession.render();
+          myRenderedSinceInflate = true;
           RenderResult result =
             RenderResult.create(this, myRenderSession, psiFile, myLogger, myImagePool.copyOf(myRenderSession.getImage()));
           Result renderResult = result.getRenderResult();
@@ -863,10 +897,104 @@ public class RenderTask {
    * that can be accessed via the returned {@link RenderResult}
    * <p/>
    * If {@link #inflate()} hasn't been called before, this method will implicitly call it.
+   * <p/>
+   * The first render after an inflation can be served from the {@link RenderResultCache}. Only the draw step is saved: the layout is
+   * still inflated and the view hierarchy of the result comes from the current session.
    */
   @NotNull
   public CompletableFuture<RenderResult> render() {
-    return render(myCachingImageFactory);
+    XmlFile xmlFile = getXmlFile();
+    RenderSession session = myRenderSession;
+    if (!StudioFlags.NELE_RENDER_CACHE.get() || xmlFile == null || isDisposed.get() || (session != null && myRenderedSinceInflate)) {
+      return render(myCachingImageFactory);
+    }
+
+    String cacheKey = computeRenderCacheKey(xmlFile);
+    if (session == null && !myAllowImageOnlyCachedResults) {
+      return renderAndCache(cacheKey);
+    }
+
+    return myRenderResultCache.get(cacheKey).thenCompose(cached -> {
+      if (cached == null) {
+        return renderAndCache(cacheKey);
+      }
+      if (session == null) {
+        return CompletableFuture.completedFuture(RenderResult.createFromCache(this, null, xmlFile, myLogger, cached, myImagePool));
+      }
+      myRenderedSinceInflate = true;
+      return runAsyncRenderAction(() -> RenderResult.createFromCache(this, session, xmlFile, myLogger, cached, myImagePool));
+    });
+  }
+
+  @NotNull
+  private CompletableFuture<RenderResult> renderAndCache(@NotNull String cacheKey) {
+    return render(myCachingImageFactory).whenComplete((result, exception) -> {
+      // Results with problems are not cached since the logger messages would not be reported on a cache hit
+      if (result != null && !myLogger.hasProblems()) {
+        myRenderResultCache.put(cacheKey, result);
+      }
+    });
+  }
+
+  /**
+   * Returns a hash of all the inputs that affect the result of {@link #render()}: the layout contents, the {@link Configuration}
+   * (device, theme, locale, target), the generations of the app resources and of the project classes and the render settings of this
+   * task, including the layout it is rendered within and the parser factory.
+   */
+  @NotNull
+  private String computeRenderCacheKey(@NotNull XmlFile xmlFile) {
+    Configuration configuration = getContext().getConfiguration();
+    Device device = configuration.getDevice();
+    IAndroidTarget target = configuration.getTarget();
+    HardwareConfig hardwareConfig = myHardwareConfigHelper.getConfig();
+    String text = ReadAction.compute(() -> xmlFile.getText());
+    VirtualFile virtualFile = xmlFile.getVirtualFile();
+
+    return Hashing.sha256().newHasher()
+      .putString(virtualFile != null ? virtualFile.getPath() : xmlFile.getName(), StandardCharsets.UTF_8)
+      .putString(text, StandardCharsets.UTF_8)
+      .putString(configuration.getFullConfig().getQualifierString(), StandardCharsets.UTF_8)
+      .putString(Strings.nullToEmpty(configuration.getTheme()), StandardCharsets.UTF_8)
+      .putString(device != null ? device.getId() : "", StandardCharsets.UTF_8)
+      .putString(target != null ? target.hashString() : "", StandardCharsets.UTF_8)
+      .putString(myLocale.toString(), StandardCharsets.UTF_8)
+      .putString(Strings.nullToEmpty(configuration.getActivity()), StandardCharsets.UTF_8)
+      .putFloat(configuration.getFontScale())
+      .putInt(hardwareConfig.getScreenWidth())
+      .putInt(hardwareConfig.getScreenHeight())
+      .putString(String.valueOf(hardwareConfig.getDensity()), StandardCharsets.UTF_8)
+      .putString(String.valueOf(hardwareConfig.getOrientation()), StandardCharsets.UTF_8)
+      .putLong(myAppResources.getModificationCount())
+      .putLong(myLayoutlibCallback.getClassLoaderGeneration())
+      .putString(myRenderingMode.name(), StandardCharsets.UTF_8)
+      .putBoolean(myShowDecorations)
+      .putBoolean(myShadowEnabled)
+      .putBoolean(myHighQualityShadow)
+      .putInt(myOverrideBgColor != null ? myOverrideBgColor : 0)
+      .putBoolean(myOverrideBgColor != null)
+      .putFloat(myQuality)
+      .putLong(myElapsedFrameTimeNanos)
+      .putString(getIncludedWithinKey(), StandardCharsets.UTF_8)
+      .putString(myParserFactory != null
+                 ? myParserFactory.getClass().getName() + '@' + System.identityHashCode(myParserFactory)
+                 : "", StandardCharsets.UTF_8)
+      .hash()
+      .toString();
+  }
+
+  /**
+   * Returns the path and the contents of the layout this layout is rendered within, if it was set with {@link #setIncludedWithin}, or an
+   * empty string otherwise.
+   */
+  @NotNull
+  private String getIncludedWithinKey() {
+    IncludeReference includedWithin = myIncludedWithin;
+    if (includedWithin == null || includedWithin == IncludeReference.NONE) {
+      return "";
+    }
+    PsiFile fromPsiFile = AndroidPsiUtils.getPsiFileSafely(getContext().getProject(), includedWithin.getFromFile());
+    String fromText = fromPsiFile != null ? ReadAction.compute(() -> fromPsiFile.getText()) : "";
+    return includedWithin.getFromPath() + '\n' + fromText;
   }
 
   /**
@@ -874,6 +1002,7 @@ public class RenderTask {
    * the current system nanos time.
    */
   public void setElapsedFrameTimeNanos(long nanos) {
+    myElapsedFrameTimeNanos = nanos;
     if (myRenderSession != null) {
       myRenderSession.setElapsedFrameTimeNanos(nanos);
     }
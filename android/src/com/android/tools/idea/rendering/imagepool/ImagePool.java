@@ -82,6 +82,21 @@ public interface ImagePool {
     long totalBytesAllocated();
 
     long totalBytesInUse();
+
+    /**
+     * Number of images that had to be allocated because there was no free image available in the pool
+     */
+    long allocationCount();
+
+    /**
+     * Number of images served from the pool
+     */
+    long reuseCount();
+
+    /**
+     * Number of images dropped from the pool, either because their size class was full or to stay within the pool byte budget
+     */
+    long evictionCount();
   }
 
   /**
@@ -18,10 +18,9 @@ package com.android.tools.idea.rendering.imagepool;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.FinalizablePhantomReference;
 import com.google.common.base.FinalizableReferenceQueue;
-import com.google.common.collect.EvictingQueue;
-import com.google.common.collect.ForwardingQueue;
 import com.google.common.collect.Sets;
 import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.util.LowMemoryWatcher;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.jetbrains.annotations.NotNull;
@@ -32,11 +31,7 @@ import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferInt;
 import java.awt.image.WritableRaster;
 import java.lang.ref.Reference;
-import java.lang.ref.SoftReference;
 import java.util.*;
-import java.util.Queue;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
@@ -46,20 +41,37 @@ import java.util.function.Function;
  * Class that offers a pool of {@link BufferedImage}s. The returned {@link Image} do not offer a direct access
  * to the underlying {@link BufferedImage} to avoid clients holding references to it.
  * Once the {@link Image} is not being referenced anymore, it will be automatically returned to the pool.
+ * <p/>
+ * Images are distributed in size classes (buckets) and the free images are strongly referenced so they are not lost on every GC.
+ * The total size of the free images is bounded by a byte budget. When the budget is exceeded, the images that were returned
+ * to the pool the longest time ago are evicted first. All the free images are released when the IDE is low on memory.
  */
 @SuppressWarnings("ALL")
 class ImagePoolImpl implements ImagePool {
   private static final boolean DEBUG = false;
   private static final Bucket NULL_BUCKET = new Bucket(0, 0, 0);
+  /** Default maximum number of bytes of the free images kept in the pool */
+  static final long DEFAULT_MAX_POOLED_BYTES = Math.min(Runtime.getRuntime().maxMemory() / 8, 256L * 1024 * 1024); // 256MB
   private final int[] myBucketSizes;
   private final HashMap<String, Bucket> myPool = new HashMap<>();
   private final BiFunction<Integer, Integer, Function<Integer, Integer>> myBucketSizingPolicy;
   @SuppressWarnings("IOResourceOpenedButNotSafelyClosed")
   private final FinalizableReferenceQueue myFinalizableReferenceQueue = new FinalizableReferenceQueue();
   private final Set<Reference<?>> myReferences = Sets.newConcurrentHashSet();
+  private final long myMaxPooledBytes;
+  /**
+   * Free images in the order they were returned to the pool, with the bucket that contains them. The least recently returned images
+   * are evicted first when the pool goes over budget. This map is also the lock for all the bucket contents.
+   */
+  private final LinkedHashMap<BufferedImage, Bucket> myFreeImages = new LinkedHashMap<>();
+  private long myFreeBytes = 0;
+  private final LowMemoryWatcher myLowMemoryWatcher = LowMemoryWatcher.register(this::releaseFreeImages);
 
   private final LongAdder myTotalAllocatedBytes = new LongAdder();
   private final LongAdder myTotalInUseBytes = new LongAdder();
+  private final LongAdder myAllocationCount = new LongAdder();
+  private final LongAdder myReuseCount = new LongAdder();
+  private final LongAdder myEvictionCount = new LongAdder();
 
   private final Stats myStats = new Stats() {
     @Override
@@ -71,12 +83,27 @@ class ImagePoolImpl implements ImagePool {
     public long totalBytesInUse() {
       return myTotalInUseBytes.sum();
     }
+
+    @Override
+    public long allocationCount() {
+      return myAllocationCount.sum();
+    }
+
+    @Override
+    public long reuseCount() {
+      return myReuseCount.sum();
+    }
+
+    @Override
+    public long evictionCount() {
+      return myEvictionCount.sum();
+    }
   };
 
   /**
    * Constructs a new {@link ImagePoolImpl} with a custom queue sizing policy. The passed bucketSizingPolicy will be called
    * every time that a new cache is needed for a given (width, height) -> (imageType).
-   * The return value from calling that function will be the size of the EvictingQueue used for caching the pooled
+   * The return value from calling that function will be the maximum number of free images kept in the bucket of the pooled
    * images.
    *
    * @param bucketSizes        Array containing a list of the allowed bucket sizes. The images will be allocated into a bucket that fits its two
@@ -84,20 +111,94 @@ class ImagePoolImpl implements ImagePool {
    *                           allocated into the pool.
    * @param bucketSizingPolicy Function that returns the maximum size for a given bucket. The bucket is defined by width, height and image
    *                           type. If the returned size is 0, no pooling will be done for that bucket size.
+   * @param maxPooledBytes     Maximum number of bytes used by the free images kept in the pool.
    */
-  ImagePoolImpl(@NotNull int[] bucketSizes, @NotNull BiFunction<Integer, Integer, Function<Integer, Integer>> bucketSizingPolicy) {
+  ImagePoolImpl(@NotNull int[] bucketSizes,
+                @NotNull BiFunction<Integer, Integer, Function<Integer, Integer>> bucketSizingPolicy,
+                long maxPooledBytes) {
     if (DEBUG) {
       System.out.println("New ImagePool");
     }
     myBucketSizes = bucketSizes;
     Arrays.sort(myBucketSizes);
     myBucketSizingPolicy = bucketSizingPolicy;
+    myMaxPooledBytes = maxPooledBytes;
+  }
+
+  ImagePoolImpl(@NotNull int[] bucketSizes, @NotNull BiFunction<Integer, Integer, Function<Integer, Integer>> bucketSizingPolicy) {
+    this(bucketSizes, bucketSizingPolicy, DEFAULT_MAX_POOLED_BYTES);
   }
 
-  private boolean isDisposed = false;
+  private static long getEstimatedSize(@NotNull BufferedImage image) {
+    return (long)image.getWidth() * image.getHeight() * 4;
+  }
 
   /**
-   * Returns the key to be used for indexing the {@link EvictingQueue}.
+   * Removes and returns the most recently returned free image from the given bucket or null if the bucket is empty.
+   */
+  @Nullable
+  private BufferedImage takeFreeImage(@NotNull Bucket bucket) {
+    synchronized (myFreeImages) {
+      BufferedImage image = bucket.myImages.pollLast();
+      if (image != null) {
+        myFreeImages.remove(image);
+        myFreeBytes -= getEstimatedSize(image);
+      }
+      return image;
+    }
+  }
+
+  /**
+   * Returns the given image to the bucket. If the bucket is full or the image does not fit in the budget, the image is dropped.
+   * Other free images might be evicted to make space for this one.
+   *
+   * @return true if the image was added to the pool
+   */
+  private boolean returnFreeImage(@NotNull Bucket bucket, @NotNull BufferedImage image) {
+    long size = getEstimatedSize(image);
+    synchronized (myFreeImages) {
+      if (isDisposed || bucket.myImages.size() >= bucket.myMaxSize || size > myMaxPooledBytes) {
+        return false;
+      }
+
+      Iterator<Map.Entry<BufferedImage, Bucket>> it = myFreeImages.entrySet().iterator();
+      while (myFreeBytes + size > myMaxPooledBytes && it.hasNext()) {
+        Map.Entry<BufferedImage, Bucket> eldest = it.next();
+        it.remove();
+        eldest.getValue().myImages.removeFirstOccurrence(eldest.getKey());
+        long evictedSize = getEstimatedSize(eldest.getKey());
+        myFreeBytes -= evictedSize;
+        myTotalAllocatedBytes.add(-evictedSize);
+        myEvictionCount.increment();
+      }
+
+      bucket.myImages.addLast(image);
+      myFreeImages.put(image, bucket);
+      myFreeBytes += size;
+      return true;
+    }
+  }
+
+  private volatile boolean isDisposed = false;
+
+  /**
+   * Releases all the free images kept in the pool.
+   */
+  @VisibleForTesting
+  void releaseFreeImages() {
+    synchronized (myFreeImages) {
+      for (Map.Entry<BufferedImage, Bucket> entry : myFreeImages.entrySet()) {
+        entry.getValue().myImages.clear();
+        myTotalAllocatedBytes.add(-getEstimatedSize(entry.getKey()));
+        myEvictionCount.increment();
+      }
+      myFreeImages.clear();
+      myFreeBytes = 0;
+    }
+  }
+
+  /**
+   * Returns the key to be used for indexing the {@link Bucket}s.
    */
   @NotNull
   private static String getPoolKey(int w, int h, int type) {
@@ -155,7 +256,7 @@ class ImagePoolImpl implements ImagePool {
       int size = myBucketSizingPolicy.apply(finalWidthBucket, finalHeightBucket).apply(type);
 
       if (size == 0) {
-        // For size 0, do not allocate extra memory for a new EvictingQueue.
+        // For size 0, do not allocate extra memory for a new Bucket.
         return NULL_BUCKET;
       }
 
@@ -168,20 +269,14 @@ class ImagePoolImpl implements ImagePool {
   ImageImpl create(final int w, final int h, final int type, @Nullable Consumer<BufferedImage> freedCallback) {
     assert !isDisposed : "ImagePool already disposed";
 
-    // To avoid creating a large number of EvictingQueues, we distribute the images in buckets and use that
+    // To avoid creating a large number of Buckets, we distribute the images in size classes and use that
     Bucket bucket = getTypeBucket(w, h, type);
     if (DEBUG) {
       System.out.printf("create(%dx%d-%d) in bucket (%dx%d)\n", w, h, type, bucket.myMinWidth, bucket.myMinHeight);
     }
 
-    BufferedImage image;
-    SoftReference<BufferedImage> imageRef;
-    try {
-      imageRef = bucket.remove();
-      while ((image = imageRef.get()) == null) {
-        imageRef = bucket.remove();
-      }
-
+    BufferedImage image = takeFreeImage(bucket);
+    if (image != null) {
       long totalSize = image.getWidth() * image.getHeight();
       if (DEBUG) {
         double wasted = (totalSize - w * h);
@@ -191,6 +286,7 @@ class ImagePoolImpl implements ImagePool {
                           (int)((wasted / totalSize) * 100));
       }
       myTotalInUseBytes.add(totalSize * 4);
+      myReuseCount.increment();
       // Clear the image
       if (image.getRaster().getDataBuffer().getDataType() == java.awt.image.DataBuffer.TYPE_INT) {
         Arrays.fill(((DataBufferInt)image.getRaster().getDataBuffer()).getData(), 0);
@@ -202,7 +298,7 @@ class ImagePoolImpl implements ImagePool {
         g.dispose();
       }
     }
-    catch (NoSuchElementException e) {
+    else {
       if (DEBUG) {
         System.out.printf("  New image %dx%d - %d\n", w, h, type);
       }
@@ -213,10 +309,10 @@ class ImagePoolImpl implements ImagePool {
       // Set acceleration priority to 0.9 out of 1.0. We reserve 1.0 for the shared buffers
       // that we paint to screen.
       image.setAccelerationPriority(0.9f);
-      long estimatedSize = newImageWidth * newImageHeight * 4;
+      long estimatedSize = getEstimatedSize(image);
       myTotalAllocatedBytes.add(estimatedSize);
       myTotalInUseBytes.add(estimatedSize);
-
+      myAllocationCount.increment();
     }
 
     ImageImpl pooledImage = new ImageImpl(w, h, image);
@@ -228,19 +324,19 @@ class ImagePoolImpl implements ImagePool {
         // This method might be called twice if the user has manually called the free() method. The second call will have no effect.
         if (myReferences.remove(this)) {
 
-          boolean accepted = bucket.offer(new SoftReference<>(imagePointer));
+          long estimatedSize = getEstimatedSize(imagePointer);
+          // The image is not in use anymore, account for it before it can be evicted by returnFreeImage
+          myTotalInUseBytes.add(-estimatedSize);
+          boolean accepted = returnFreeImage(bucket, imagePointer);
           if (DEBUG) {
             System.out.printf("%s image (%dx%d-%d) in bucket (%dx%d)\n",
                               accepted ? "Released" : "Rejected",
                               w, h, type, bucket.myMinWidth, bucket.myMinHeight);
           }
 
-          long estimatedSize = imagePointer.getWidth() * imagePointer.getHeight() * 4;
           if (!accepted) {
             myTotalAllocatedBytes.add(-estimatedSize);
-          }
-          else {
-            myTotalInUseBytes.add(-estimatedSize);
+            myEvictionCount.increment();
           }
           if (freedCallback != null) {
             freedCallback.accept(imagePointer);
@@ -254,24 +350,20 @@ class ImagePoolImpl implements ImagePool {
     return pooledImage;
   }
 
-  private static class Bucket extends ForwardingQueue<SoftReference<BufferedImage>> {
-    private final Queue<SoftReference<BufferedImage>> myDelegate;
-    private final AtomicLong myLastAccess = new AtomicLong(System.currentTimeMillis());
+  /**
+   * Size class of the pool. Contains the free images of a given minimum width, minimum height and type.
+   * The contents are guarded by {@link #myFreeImages}.
+   */
+  private static class Bucket {
+    private final ArrayDeque<BufferedImage> myImages = new ArrayDeque<>();
     private final int myMinWidth;
     private final int myMinHeight;
+    private final int myMaxSize;
 
     public Bucket(int minWidth, int minHeight, int maxSize) {
       myMinWidth = minWidth;
       myMinHeight = minHeight;
-      myDelegate = maxSize == 0 ?
-                   EvictingQueue.create(0)
-                                : new ArrayBlockingQueue<SoftReference<BufferedImage>>(maxSize);
-    }
-
-    @Override
-    protected Queue<SoftReference<BufferedImage>> delegate() {
-      myLastAccess.set(System.currentTimeMillis());
-      return myDelegate;
+      myMaxSize = maxSize;
     }
   }
 
@@ -312,7 +404,12 @@ class ImagePoolImpl implements ImagePool {
    * Disposes the image pool
    */
   public void dispose() {
-    isDisposed = true;
+    myLowMemoryWatcher.stop();
+    synchronized (myFreeImages) {
+      isDisposed = true;
+      myFreeImages.clear();
+      myFreeBytes = 0;
+    }
     myFinalizableReferenceQueue.close();
     myReferences.clear();
     myPool.clear();
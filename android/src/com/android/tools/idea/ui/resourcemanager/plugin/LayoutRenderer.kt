@@ -55,6 +55,7 @@ private fun createRenderTask(facet: AndroidFacet,
     .withMaxRenderSize(MAX_RENDER_WIDTH, MAX_RENDER_HEIGHT)
     .disableDecorations()
     .disableShadow()
+    .allowImageOnlyCachedResults()
     .build()
 }
 
@@ -24,6 +24,7 @@ import com.intellij.codeInspection.ex.CustomEditInspectionToolsSettingsAction;
 import com.intellij.codeInspection.ex.DisableInspectionToolAction;
 import com.intellij.lang.annotation.*;
 import com.intellij.openapi.actionSystem.IdeActions;
+import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.fileTypes.FileType;
 import com.intellij.openapi.fileTypes.FileTypes;
@@ -58,6 +59,7 @@ import org.jetbrains.plugins.groovy.GroovyFileType;
 
 import javax.swing.*;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 import static com.android.SdkConstants.*;
 import static com.android.tools.lint.detector.api.TextFormat.HTML;
@@ -68,6 +70,12 @@ import static com.android.tools.lint.detector.api.TextFormat.RAW;
  */
 public class AndroidLintExternalAnnotator extends ExternalAnnotator<State, State> {
   static final boolean INCLUDE_IDEA_SUPPRESS_ACTIONS = false;
+  private static final Logger LOG = Logger.getInstance(AndroidLintExternalAnnotator.class);
+  /**
+   * The registry holds no state of the analyzed project and caches the issues by scope, so a single one is shared by all the analyses,
+   * see {@link LintIdeIssueRegistry}.
+   */
+  private static final IssueRegistry ISSUE_REGISTRY = new LintIdeIssueRegistry();
 
   @Nullable
   @Override
@@ -122,13 +130,19 @@ public class AndroidLintExternalAnnotator extends ExternalAnnotator<State, State
       return null;
     }
 
+    long issuesStartTime = System.nanoTime();
     final Set<Issue> issues = getIssuesFromInspections(file.getProject(), file);
+    if (LOG.isDebugEnabled()) {
+      LOG.debug(String.format("Lint issues for %1$s: %2$d issues in %3$d ms", vFile.getName(), issues.size(),
+                              TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - issuesStartTime)));
+    }
     return new State(module, vFile, file.getText(), issues);
   }
 
   @Override
   public State doAnnotate(final State state) {
     long startTime = System.currentTimeMillis();
+    long setupStartTime = System.nanoTime();
 
     final LintIdeClient client = LintIdeClient.forEditor(state);
     try {
@@ -172,9 +186,21 @@ public class AndroidLintExternalAnnotator extends ExternalAnnotator<State, State
                                                Collections.singletonList(state.getModule()), true /* incremental */);
       request.setScope(scope);
 
-      LintDriver lint = new LintDriver(new LintIdeIssueRegistry(), client, request);
+      // Create the lint projects up front, the driver reuses them, so the time spent on the project model can be measured separately
+      long projectStartTime = System.nanoTime();
+      request.getProjects();
+      long analysisStartTime = System.nanoTime();
+
+      LintDriver lint = new LintDriver(ISSUE_REGISTRY, client, request);
       lint.analyze();
 
+      if (LOG.isDebugEnabled()) {
+        LOG.debug(String.format("Lint analysis of %1$s: setup %2$d ms, project model %3$d ms, analysis %4$d ms", name,
+                                TimeUnit.NANOSECONDS.toMillis(projectStartTime - setupStartTime),
+                                TimeUnit.NANOSECONDS.toMillis(analysisStartTime - projectStartTime),
+                                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - analysisStartTime)));
+      }
+
       lint.setAnalysisStartTime(startTime);
       LintIdeAnalytics analytics = new LintIdeAnalytics(project);
       analytics.logSession(AnalysisType.IDE_FILE, lint, state.getModule(), state.getProblems(), null);
@@ -187,21 +213,15 @@ public class AndroidLintExternalAnnotator extends ExternalAnnotator<State, State
 
   @NotNull
   static Set<Issue> getIssuesFromInspections(@NotNull Project project, @Nullable PsiElement context) {
-    final IssueRegistry fullRegistry = new LintIdeIssueRegistry();
-
-    final List<Issue> issueList = fullRegistry.getIssues();
+    // The issues and their inspections only change with the project structure and the inspection profile, only the enabled state
+    // is computed for every analysis since it can depend on the context
+    final List<Pair<Issue, HighlightDisplayKey>> issueList =
+      LintIdeModelCache.getInstance(project).getInspectionIssues(() -> getInspectionIssues(project));
+    final InspectionProfile profile = InspectionProjectProfileManager.getInstance(project).getCurrentProfile();
     final Set<Issue> result = Sets.newHashSetWithExpectedSize(issueList.size() + 10);
-    for (Issue issue : issueList) {
-      final String inspectionShortName = AndroidLintInspectionBase.getInspectionShortNameByIssue(project, issue);
-      if (inspectionShortName == null) {
-        continue;
-      }
-      final HighlightDisplayKey key = HighlightDisplayKey.find(inspectionShortName);
-      if (key == null) {
-        continue;
-      }
-
-      final InspectionProfile profile = InspectionProjectProfileManager.getInstance(project).getCurrentProfile();
+    for (Pair<Issue, HighlightDisplayKey> pair : issueList) {
+      final Issue issue = pair.getFirst();
+      final HighlightDisplayKey key = pair.getSecond();
       final boolean enabled = context != null ? profile.isToolEnabled(key, context) : profile.isToolEnabled(key);
 
       if (!enabled) {
@@ -218,6 +238,27 @@ public class AndroidLintExternalAnnotator extends ExternalAnnotator<State, State
     return result;
   }
 
+  /** Returns the lint issues which have a corresponding inspection, with the key of the inspection */
+  @NotNull
+  private static List<Pair<Issue, HighlightDisplayKey>> getInspectionIssues(@NotNull Project project) {
+    final IssueRegistry fullRegistry = ISSUE_REGISTRY;
+
+    final List<Issue> issueList = fullRegistry.getIssues();
+    final List<Pair<Issue, HighlightDisplayKey>> result = new ArrayList<>(issueList.size());
+    for (Issue issue : issueList) {
+      final String inspectionShortName = AndroidLintInspectionBase.getInspectionShortNameByIssue(project, issue);
+      if (inspectionShortName == null) {
+        continue;
+      }
+      final HighlightDisplayKey key = HighlightDisplayKey.find(inspectionShortName);
+      if (key == null) {
+        continue;
+      }
+      result.add(Pair.create(issue, key));
+    }
+    return result;
+  }
+
   @Override
   public void apply(@NotNull PsiFile file, State state, @NotNull AnnotationHolder holder) {
     if (state.isDirty()) {
@@ -6,6 +6,7 @@ import static org.jetbrains.android.inspections.lint.AndroidLintInspectionBase.L
 import com.android.ide.common.gradle.model.IdeLintOptions;
 import com.android.ide.common.repository.GradleVersion;
 import com.android.tools.idea.editors.strings.StringsVirtualFile;
+import com.android.tools.idea.flags.StudioFlags;
 import com.android.tools.idea.gradle.project.model.AndroidModuleModel;
 import com.android.tools.idea.lint.AndroidLintLintBaselineInspection;
 import com.android.tools.idea.lint.LintIdeAnalytics;
@@ -40,6 +41,8 @@ import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.progress.util.ProgressWrapper;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ModuleRootManager;
+import com.intellij.openapi.util.Disposer;
 import com.intellij.openapi.util.Key;
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.vfs.VirtualFile;
@@ -293,7 +296,35 @@ class AndroidLintGlobalInspectionContext implements GlobalInspectionContextExten
       }
     }
 
-    lint.analyze();
+    List<LintDriver> sessionDrivers = Collections.singletonList(lint);
+    List<List<Module>> groups = Collections.emptyList();
+    if (StudioFlags.LINT_PARALLEL_BATCH_ANALYSIS.get() && files == null && myBaseline == null) {
+      groups = ReadAction.compute(() -> LintBatchAnalyzer.partition(
+        modules, module -> Arrays.asList(ModuleRootManager.getInstance(module).getDependencies())));
+    }
+    if (groups.size() > 1) {
+      // Modules in different groups don't depend on each other, so they can be analyzed by separate clients at the same time.
+      AnalysisScope groupScope = scope;
+      Set<Issue> groupIssues = issues;
+      EnumSet<Scope> groupLintScope = lintScope;
+      List<LintDriver> drivers = LintBatchAnalyzer.analyze(groups, problemMap, (group, groupProblemMap) -> {
+        LintIdeClient groupClient = LintIdeClient.forBatch(project, groupProblemMap, groupScope, groupIssues);
+        try {
+          LintRequest groupRequest = new LintIdeRequest(groupClient, project, null, group, false);
+          groupRequest.setScope(groupLintScope);
+          LintDriver groupLint = new LintDriver(new LintIdeIssueRegistry(), groupClient, groupRequest);
+          groupLint.analyze();
+          return groupLint;
+        }
+        finally {
+          Disposer.dispose(groupClient);
+        }
+      }, indicator);
+      sessionDrivers = drivers;
+    }
+    else {
+      lint.analyze();
+    }
 
     // Running all detectors? Then add dynamically registered detectors too.
     if (!runningSingleInspection) {
@@ -319,9 +350,12 @@ class AndroidLintGlobalInspectionContext implements GlobalInspectionContextExten
 
     AndroidLintLintBaselineInspection.clearNextRunState();
 
-    lint.setAnalysisStartTime(startTime);
+    // The module groups analyzed in parallel are logged as a single session, with the statistics of all the groups
+    for (LintDriver sessionDriver : sessionDrivers) {
+      sessionDriver.setAnalysisStartTime(startTime);
+    }
     LintIdeAnalytics analytics = new LintIdeAnalytics(project);
-    analytics.logSession(AnalysisType.IDE_BATCH, lint, severityModule, null, problemMap);
+    analytics.logSession(AnalysisType.IDE_BATCH, sessionDrivers, severityModule, null, problemMap);
 
     myResults = problemMap;
   }
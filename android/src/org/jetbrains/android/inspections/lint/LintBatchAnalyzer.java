@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.android.inspections.lint;
+
+import com.android.tools.idea.flags.StudioFlags;
+import com.android.tools.lint.client.api.LintDriver;
+import com.android.tools.lint.detector.api.Issue;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.intellij.concurrency.SensitiveProgressWrapper;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.util.ProgressWrapper;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Runs batch lint over groups of modules in parallel.
+ * <p>
+ * Modules are partitioned into groups which don't depend on each other; each group is analyzed by its own lint client and driver,
+ * such that library modules shared by several modules are still analyzed only once. The problems found in a group are merged into
+ * the shared problem map as soon as the group is done.
+ */
+final class LintBatchAnalyzer {
+  private LintBatchAnalyzer() {
+  }
+
+  /**
+   * Partitions the given items into the connected components of their dependency graph. Dependencies are followed transitively, also
+   * through dependencies which are not among the given items: lint analyzes the libraries of a module with it, so items sharing a
+   * library must be in the same group for the library to be analyzed only once. The groups are in the order of their first item, and
+   * the items of a group are in their original order.
+   */
+  @NotNull
+  static <T> List<List<T>> partition(@NotNull List<T> items, @NotNull Function<T, Collection<T>> dependencies) {
+    Map<T, T> parents = new IdentityHashMap<>();
+    for (T item : items) {
+      parents.put(item, item);
+    }
+    Deque<T> pending = new ArrayDeque<>(items);
+    Set<T> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+    while (!pending.isEmpty()) {
+      T item = pending.removeFirst();
+      if (!visited.add(item)) {
+        continue;
+      }
+      for (T dependency : dependencies.apply(item)) {
+        parents.putIfAbsent(dependency, dependency);
+        T root = findRoot(parents, item);
+        T dependencyRoot = findRoot(parents, dependency);
+        if (root != dependencyRoot) {
+          parents.put(dependencyRoot, root);
+        }
+        pending.addLast(dependency);
+      }
+    }
+
+    Map<T, List<T>> groups = new LinkedHashMap<>();
+    for (T item : items) {
+      groups.computeIfAbsent(findRoot(parents, item), root -> new ArrayList<>()).add(item);
+    }
+    return new ArrayList<>(groups.values());
+  }
+
+  @NotNull
+  private static <T> T findRoot(@NotNull Map<T, T> parents, @NotNull T item) {
+    T root = item;
+    while (parents.get(root) != root) {
+      root = parents.get(root);
+    }
+    // Path compression, to keep later lookups short.
+    while (item != root) {
+      T parent = parents.get(item);
+      parents.put(item, root);
+      item = parent;
+    }
+    return root;
+  }
+
+  /**
+   * Analyzes the given groups in parallel with the given function, which is expected to create a lint client reporting into the given
+   * problem map, run a {@link LintDriver} over the given group and return it. Returns the drivers, in the order of the groups.
+   */
+  @NotNull
+  static <T> List<LintDriver> analyze(@NotNull List<List<T>> groups,
+                                      @NotNull Map<Issue, Map<File, List<ProblemData>>> problemMap,
+                                      @NotNull BiFunction<List<T>, Map<Issue, Map<File, List<ProblemData>>>, LintDriver> analyzer,
+                                      @Nullable ProgressIndicator indicator) {
+    ProgressIndicator progress = indicator != null ? indicator : new EmptyProgressIndicator();
+    // Cancelled once the analysis ends, so the groups still running stop when another one has failed
+    ProgressIndicator groupProgress = new SensitiveProgressWrapper(progress);
+    int threads = StudioFlags.LINT_PARALLEL_BATCH_THREADS.get();
+    if (threads <= 0) {
+      threads = Runtime.getRuntime().availableProcessors();
+    }
+    ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("Android Lint", Math.min(threads, groups.size()));
+
+    AtomicInteger finished = new AtomicInteger();
+    List<GroupTask> tasks = new ArrayList<>(groups.size());
+    List<Future<LintDriver>> futures = new ArrayList<>(groups.size());
+    for (List<T> group : groups) {
+      GroupTask task = new GroupTask(() -> ProgressManager.getInstance().runProcess(() -> {
+        groupProgress.checkCanceled();
+        Map<Issue, Map<File, List<ProblemData>>> groupProblems = new HashMap<>();
+        LintDriver driver = analyzer.apply(group, groupProblems);
+        synchronized (problemMap) {
+          merge(groupProblems, problemMap);
+        }
+        ProgressWrapper.unwrap(progress)
+          .setText(String.format("Running Android Lint (%1$d/%2$d module groups)", finished.incrementAndGet(), groups.size()));
+        return driver;
+      }, groupProgress));
+      tasks.add(task);
+      futures.add(executor.submit(task));
+    }
+
+    List<LintDriver> drivers = new ArrayList<>(groups.size());
+    try {
+      for (Future<LintDriver> future : futures) {
+        drivers.add(future.get());
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ProcessCanceledException(e);
+    }
+    catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException)cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error)cause;
+      }
+      throw new RuntimeException(cause);
+    }
+    finally {
+      groupProgress.cancel();
+      for (Future<LintDriver> future : futures) {
+        future.cancel(true);
+      }
+      executor.shutdown();
+      // No group may still report problems or use the project once this returns
+      for (GroupTask task : tasks) {
+        task.skipOrAwait();
+      }
+    }
+    return drivers;
+  }
+
+  /**
+   * The analysis of a group, which can be skipped if it has not started yet. Unlike {@link Future#get()} on a cancelled future,
+   * {@link #skipOrAwait()} waits for the analysis to end if it is running.
+   */
+  private static final class GroupTask implements Callable<LintDriver> {
+    @NotNull private final Callable<LintDriver> myAnalysis;
+    private final AtomicBoolean myClaimed = new AtomicBoolean();
+    private final CountDownLatch myDone = new CountDownLatch(1);
+
+    private GroupTask(@NotNull Callable<LintDriver> analysis) {
+      myAnalysis = analysis;
+    }
+
+    @Override
+    @Nullable
+    public LintDriver call() throws Exception {
+      if (!myClaimed.compareAndSet(false, true)) {
+        return null;
+      }
+      try {
+        return myAnalysis.call();
+      }
+      finally {
+        myDone.countDown();
+      }
+    }
+
+    void skipOrAwait() {
+      if (!myClaimed.compareAndSet(false, true)) {
+        Uninterruptibles.awaitUninterruptibly(myDone);
+      }
+    }
+  }
+
+  private static void merge(@NotNull Map<Issue, Map<File, List<ProblemData>>> from,
+                            @NotNull Map<Issue, Map<File, List<ProblemData>>> to) {
+    for (Map.Entry<Issue, Map<File, List<ProblemData>>> issueEntry : from.entrySet()) {
+      Map<File, List<ProblemData>> files = to.computeIfAbsent(issueEntry.getKey(), issue -> new HashMap<>());
+      for (Map.Entry<File, List<ProblemData>> fileEntry : issueEntry.getValue().entrySet()) {
+        files.computeIfAbsent(fileEntry.getKey(), file -> new ArrayList<>()).addAll(fileEntry.getValue());
+      }
+    }
+  }
+}
@@ -49,6 +49,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
 import org.jetbrains.android.dom.manifest.AndroidManifestUtils;
@@ -68,6 +69,9 @@ import org.jetbrains.annotations.Nullable;
 public final class ModuleClassLoader extends RenderClassLoader {
   private static final Logger LOG = Logger.getInstance(ModuleClassLoader.class);
 
+  /** Source of the generations of the class loaders, see {@link #getGeneration()} */
+  private static final AtomicLong ourGenerationCounter = new AtomicLong();
+
   /** The base module to use as a render context; the class loader will consult the module dependencies and library dependencies
    * of this class as well to find classes */
   private final WeakReference<Module> myModuleReference;
@@ -80,6 +84,9 @@ public final class ModuleClassLoader extends RenderClassLoader {
   /** Map from fully qualified class name to the corresponding last modified info for each class loaded by this class loader */
   private Map<String, ClassModificationTimestamp> myClassFilesLastModified;
 
+  /** Generation of the classes this loader can load, updated when the jar dependencies are reloaded */
+  private volatile long myGeneration = ourGenerationCounter.incrementAndGet();
+
   private static class ClassModificationTimestamp {
     public final long timestamp;
     public final long length;
@@ -488,6 +495,14 @@ public final class ModuleClassLoader extends RenderClassLoader {
     return true;
   }
 
+  /**
+   * Returns a number that changes whenever the classes loaded by this loader might have changed, that is, when a new loader is created
+   * because the project classes were rebuilt or when the jar dependencies are reloaded. Generations are unique within an IDE session.
+   */
+  public long getGeneration() {
+    return myGeneration;
+  }
+
   /**
    * Returns a project class loader to use for rendering. May cache instances across render sessions.
    */
@@ -519,6 +534,7 @@ public final class ModuleClassLoader extends RenderClassLoader {
             LOG.debug("  Recreating jar class loader because dependencies have changed.");
           }
           loader.myJarClassLoader = loader.createClassLoader(updatedJarDependencies);
+          loader.myGeneration = ourGenerationCounter.incrementAndGet();
         }
       }
 
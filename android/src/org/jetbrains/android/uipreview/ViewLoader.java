@@ -245,6 +245,13 @@ public class ViewLoader {
     return myModuleClassLoader;
   }
 
+  /**
+   * Returns the generation of the project class loader used by this loader, see {@link ModuleClassLoader#getGeneration()}.
+   */
+  public long getClassLoaderGeneration() {
+    return getModuleClassLoader().getGeneration();
+  }
+
   /** Checks that the given class has not been edited since the last compilation (and if it has, logs a warning to the user) */
   private void checkModified(@NotNull String fqcn) {
     if (DumbService.getInstance(myModule.getProject()).isDumb()) {
@@ -22,6 +22,7 @@ import com.intellij.openapi.vfs.VfsUtil;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.testFramework.PlatformTestCase;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.util.ArrayList;
@@ -66,6 +67,37 @@ public class DexFileDisassemblerTest extends PlatformTestCase {
     assertThat(smaliFileNames).contains("Test.smali");
   }
 
+  public void testDisassembleSkipsUnchangedDexFile() throws Throwable {
+    File outFolder = new File(getProject().getBasePath(), "out");
+    File dexFilePath = new File(getTestDataPath(), join("apk", "Test.dex"));
+
+    assertThat(myDisassembler.disassemble(dexFilePath, outFolder)).isTrue();
+    assertThat(new File(outFolder, DexFileDisassembler.CHECKSUM_FILE_NAME).isFile()).isTrue();
+
+    File smaliFile = findSmaliFile(outFolder, "Test.smali");
+    assertThat(smaliFile).isNotNull();
+    assertThat(smaliFile.delete()).isTrue();
+
+    // The dex file has not changed, so the previous disassembly is kept
+    assertThat(myDisassembler.disassemble(dexFilePath, outFolder)).isTrue();
+    assertThat(findSmaliFile(outFolder, "Test.smali")).isNull();
+  }
+
+  @Nullable
+  private static File findSmaliFile(@NotNull File folder, @NotNull String name) {
+    File[] children = folder.listFiles();
+    if (children == null) {
+      return null;
+    }
+    for (File child : children) {
+      File found = child.isDirectory() ? findSmaliFile(child, name) : name.equals(child.getName()) ? child : null;
+      if (found != null) {
+        return found;
+      }
+    }
+    return null;
+  }
+
   private static void collectSmaliFileNames(@NotNull VirtualFile folder, @NotNull List<String> smaliFilePaths) {
     //noinspection UnsafeVfsRecursion
     for (VirtualFile child : folder.getChildren()) {
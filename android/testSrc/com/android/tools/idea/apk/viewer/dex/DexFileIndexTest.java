@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.apk.viewer.dex;
+
+import com.android.tools.apk.analyzer.dex.PackageTreeCreator;
+import com.android.tools.apk.analyzer.dex.tree.DexElementNode;
+import org.jf.dexlib2.dexbacked.DexBackedDexFile;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import static com.android.tools.idea.apk.viewer.dex.GenerateProguardKeepRuleActionTest.getDexPath;
+import static com.google.common.truth.Truth.assertThat;
+
+public class DexFileIndexTest {
+  @Test
+  public void dexFilesAreParsedOnce() throws Exception {
+    Path path = getDexPath("Test.dex");
+
+    DexBackedDexFile dexFile = new DexFileIndex(new Path[]{path}).getDexFile(path).get();
+
+    // Another index of the same dex file, e.g. for the APK opened again, uses the already parsed file
+    assertThat(new DexFileIndex(new Path[]{path}).getDexFile(path).get()).isSameAs(dexFile);
+  }
+
+  @Test
+  public void referencesAreComputedOnce() throws Exception {
+    DexFileIndex index = new DexFileIndex(new Path[]{getDexPath("Test.dex")});
+
+    assertThat(index.getReferences()).isSameAs(index.getReferences());
+    assertThat(index.getReferences().get()).isNotNull();
+  }
+
+  @Test
+  public void byteCodeIsCached() throws Exception {
+    Path path = getDexPath("Test.dex");
+    DexFileIndex index = new DexFileIndex(new Path[]{path});
+    Map<Path, DexBackedDexFile> dexFiles = index.getDexFiles().get();
+    DexElementNode packageTree = new PackageTreeCreator(null, false).constructPackageTree(dexFiles);
+    DexElementNode node = ShowDisassemblyActionTest.getNode(packageTree, "Test.<init>()");
+    assertThat(node).isNotNull();
+
+    String byteCode = index.getByteCode(dexFiles.get(path), path, node, null);
+
+    assertThat(byteCode).isEqualTo(ShowDisassemblyAction.getByteCode(dexFiles.get(path), node, null));
+    assertThat(index.getByteCode(dexFiles.get(path), path, node, null)).isSameAs(byteCode);
+  }
+}
@@ -151,7 +151,7 @@ public class ShowDisassemblyActionTest {
   }
 
   @Nullable
-  private static DexElementNode getNode(@NotNull DexElementNode root, String path) {
+  static DexElementNode getNode(@NotNull DexElementNode root, String path) {
     int index = path.indexOf('.');
 
     String segment = index < 0 ? path : path.substring(0, index);
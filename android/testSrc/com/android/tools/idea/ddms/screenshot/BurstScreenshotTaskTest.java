@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.ddms.screenshot;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.android.ddmlib.IDevice;
+import com.android.ddmlib.RawImage;
+import com.android.ddmlib.TimeoutException;
+import com.android.tools.idea.testing.AndroidProjectRule;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.ImageIO;
+import org.jetbrains.android.util.AndroidBundle;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public final class BurstScreenshotTaskTest {
+  @Rule
+  public final AndroidProjectRule myRule = AndroidProjectRule.inMemory();
+
+  @Rule
+  public final TemporaryFolder myFolder = new TemporaryFolder();
+
+  @Test
+  public void screenshotsAreWrittenInCaptureOrder() throws Exception {
+    IDevice device = mock(IDevice.class);
+    when(device.getScreenshot(anyLong(), any(TimeUnit.class))).thenAnswer(invocation -> createRawImage(32, 3, 2));
+    File directory = myFolder.getRoot();
+
+    BurstScreenshotTask task = new BurstScreenshotTask(myRule.getProject(), device, 3, directory, "screen", 0, null, false, false);
+    task.run(new EmptyProgressIndicator());
+
+    assertThat(task.getError()).isNull();
+    assertThat(task.getFiles())
+      .containsExactly(new File(directory, "screen-01.png"), new File(directory, "screen-02.png"), new File(directory, "screen-03.png"))
+      .inOrder();
+    for (File file : task.getFiles()) {
+      BufferedImage image = ImageIO.read(file);
+      assertThat(image.getWidth()).isEqualTo(3);
+      assertThat(image.getHeight()).isEqualTo(2);
+    }
+  }
+
+  @Test
+  public void screenshotsAreRotated() throws Exception {
+    IDevice device = mock(IDevice.class);
+    when(device.getScreenshot(anyLong(), any(TimeUnit.class))).thenAnswer(invocation -> createRawImage(32, 3, 2));
+
+    BurstScreenshotTask task = new BurstScreenshotTask(myRule.getProject(), device, 1, myFolder.getRoot(), "screen", 90, null, false, false);
+    task.run(new EmptyProgressIndicator());
+
+    assertThat(task.getFiles()).hasSize(1);
+    BufferedImage image = ImageIO.read(task.getFiles().get(0));
+    assertThat(image.getWidth()).isEqualTo(2);
+    assertThat(image.getHeight()).isEqualTo(3);
+  }
+
+  @Test
+  public void invalidScreenshotStopsCapture() throws Exception {
+    IDevice device = mock(IDevice.class);
+    when(device.getScreenshot(anyLong(), any(TimeUnit.class))).thenReturn(createRawImage(24, 3, 2));
+
+    BurstScreenshotTask task = new BurstScreenshotTask(myRule.getProject(), device, 3, myFolder.getRoot(), "screen", 0, null, false, false);
+    task.run(new EmptyProgressIndicator());
+
+    assertThat(task.getError()).isEqualTo(AndroidBundle.message("android.ddms.screenshot.task.error.invalid.bpp", 24));
+    assertThat(task.getFiles()).isEmpty();
+    verify(device, times(1)).getScreenshot(anyLong(), any(TimeUnit.class));
+  }
+
+  @Test
+  public void deviceErrorStopsCapture() throws Exception {
+    IDevice device = mock(IDevice.class);
+    when(device.getScreenshot(anyLong(), any(TimeUnit.class)))
+      .thenAnswer(invocation -> createRawImage(32, 3, 2))
+      .thenThrow(new TimeoutException());
+
+    BurstScreenshotTask task = new BurstScreenshotTask(myRule.getProject(), device, 3, myFolder.getRoot(), "screen", 0, null, false, false);
+    task.run(new EmptyProgressIndicator());
+
+    assertThat(task.getError()).isNotNull();
+    verify(device, times(2)).getScreenshot(anyLong(), any(TimeUnit.class));
+  }
+
+  private static RawImage createRawImage(int bpp, int width, int height) {
+    RawImage rawImage = new RawImage();
+    rawImage.bpp = bpp;
+    rawImage.width = width;
+    rawImage.height = height;
+    rawImage.size = width * height * 4;
+    rawImage.red_offset = 0;
+    rawImage.red_length = 8;
+    rawImage.green_offset = 8;
+    rawImage.green_length = 8;
+    rawImage.blue_offset = 16;
+    rawImage.blue_length = 8;
+    rawImage.alpha_offset = 24;
+    rawImage.alpha_length = 8;
+    rawImage.colorSpace = RawImage.COLOR_SPACE_UNKNOWN;
+    rawImage.data = new byte[rawImage.size];
+    // Opaque pixels, so the screenshots are not cropped.
+    Arrays.fill(rawImage.data, (byte)0xFF);
+    return rawImage;
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.ddms.screenshot;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.android.ddmlib.RawImage;
+import java.awt.image.BufferedImage;
+import org.junit.Test;
+
+public final class ScreenshotTaskTest {
+  @Test
+  public void convertImageCopiesPixels() {
+    RawImage rawImage = createRawImage(3, 2);
+
+    BufferedImage image = ScreenshotTask.convertImage(rawImage, null);
+
+    assertThat(image.getWidth()).isEqualTo(3);
+    assertThat(image.getHeight()).isEqualTo(2);
+    for (int y = 0; y < 2; y++) {
+      for (int x = 0; x < 3; x++) {
+        assertThat(image.getRGB(x, y)).isEqualTo(rawImage.getARGB((x + y * 3) * 4));
+      }
+    }
+  }
+
+  @Test
+  public void convertImageReusesCompatibleImage() {
+    BufferedImage image = ScreenshotTask.convertImage(createRawImage(3, 2), null);
+
+    assertThat(ScreenshotTask.convertImage(createRawImage(3, 2), image)).isSameAs(image);
+    assertThat(ScreenshotTask.convertImage(createRawImage(2, 3), image)).isNotSameAs(image);
+  }
+
+  private static RawImage createRawImage(int width, int height) {
+    RawImage rawImage = new RawImage();
+    rawImage.bpp = 32;
+    rawImage.width = width;
+    rawImage.height = height;
+    rawImage.size = width * height * 4;
+    rawImage.red_offset = 0;
+    rawImage.red_length = 8;
+    rawImage.green_offset = 8;
+    rawImage.green_length = 8;
+    rawImage.blue_offset = 16;
+    rawImage.blue_length = 8;
+    rawImage.alpha_offset = 24;
+    rawImage.alpha_length = 8;
+    rawImage.colorSpace = RawImage.COLOR_SPACE_UNKNOWN;
+    rawImage.data = new byte[rawImage.size];
+    for (int i = 0; i < rawImage.data.length; i++) {
+      rawImage.data[i] = (byte)(i * 37);
+    }
+    return rawImage;
+  }
+}
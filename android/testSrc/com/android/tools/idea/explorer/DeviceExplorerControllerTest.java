@@ -28,6 +28,7 @@ import com.android.tools.idea.concurrent.FutureCallbackExecutor;
 import com.android.tools.idea.ddms.DeviceNamePropertiesProvider;
 import com.android.tools.idea.deviceExplorer.FileHandler;
 import com.android.tools.idea.explorer.adbimpl.AdbShellCommandException;
+import com.android.tools.idea.explorer.fs.DeviceFileEntry;
 import com.android.tools.idea.explorer.fs.DeviceFileSystem;
 import com.android.tools.idea.explorer.fs.DeviceFileSystemRenderer;
 import com.android.tools.idea.explorer.fs.DeviceFileSystemService;
@@ -917,9 +918,13 @@ public class DeviceExplorerControllerTest extends AndroidTestCase {
 
     // Assert
     pumpEventsAndWaitForFuture(myMockView.getStartTreeBusyIndicatorTacker().consume());
+    List<DeviceFileEntry> downloadedEntries = pumpEventsAndWaitForFuture(myMockFileManager.getDownloadFileEntriesTracker().consume());
     pumpEventsAndWaitForFuture(myMockView.getStopTreeBusyIndicatorTacker().consume());
     String summaryMessage = pumpEventsAndWaitForFuture(myMockView.getReportMessageRelatedToNodeTracker().consume());
 
+    // Both files have been downloaded in a single batch
+    assertSameElements(downloadedEntries, myFooFile1, myFooFile2);
+
     assertNotNull(summaryMessage);
     System.out.println("SaveAs message: " + summaryMessage);
     assertTrue(summaryMessage.contains("Successfully downloaded"));
@@ -1410,6 +1415,11 @@ public class DeviceExplorerControllerTest extends AndroidTestCase {
     pumpEventsAndWaitForFuture(myMockView.getStopTreeBusyIndicatorTacker().consume());
 
     // Assert
+    // The files of the directory have been uploaded in a single batch
+    List<Path> uploadedPaths = pumpEventsAndWaitForFuture(myDevice1.getUploadFilesTracker().consume());
+    assertEquals(3, uploadedPaths.size());
+    assertTrue(uploadedPaths.contains(foobar2File.toPath()));
+
     // Two nodes have been added
     DeviceFileEntryNode fooNode = DeviceFileEntryNode.fromNode(getFileEntryPath(myFoo).getLastPathComponent());
     assertNotNull(fooNode);
@@ -16,9 +16,12 @@
 package com.android.tools.idea.explorer.adbimpl;
 
 import com.android.ddmlib.IDevice;
+import com.android.ddmlib.SyncException;
 import com.android.tools.idea.explorer.fs.DeviceFileEntry;
 import com.android.tools.idea.explorer.fs.DeviceState;
 import com.android.tools.idea.explorer.fs.FileTransferProgress;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.intellij.openapi.Disposable;
 import com.intellij.openapi.util.Disposer;
 import com.intellij.openapi.util.EmptyRunnable;
@@ -35,6 +38,8 @@ import org.junit.rules.TestRule;
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.ExecutionException;
@@ -444,6 +449,79 @@ public class AdbDeviceFileSystemTest {
     assertThat(tempFile.toFile().length()).isEqualTo(deviceEntry.getSize());
   }
 
+  @Test
+  public void test_FileTransfer_DownloadFiles_Works() throws Exception {
+    // Prepare
+    assert myFileSystem != null;
+    assert myMockDevice != null;
+    assert myCallbackExecutor != null;
+    Path tempDirectory = FileUtil.createTempDirectory("localFiles", "tmp").toPath();
+    List<AdbFileTransfer.TransferItem> items = new ArrayList<>();
+    List<AtomicReference<Long>> totalBytesRefs = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      String remotePath = "/sdcard/file" + i + ".txt";
+      myMockDevice.addRemoteFile(remotePath, 1000 + i);
+      AtomicReference<Long> totalBytesRef = new AtomicReference<>();
+      items.add(new AdbFileTransfer.TransferItem(remotePath, tempDirectory.resolve("file" + i + ".txt"), 1000 + i, new FileTransferProgress() {
+        @Override
+        public void progress(long currentBytes, long totalBytes) {
+          totalBytesRef.set(totalBytes);
+        }
+
+        @Override
+        public boolean isCancelled() {
+          return false;
+        }
+      }));
+      totalBytesRefs.add(totalBytesRef);
+    }
+
+    // Act
+    List<Void> results = waitForFuture(Futures.allAsList(myFileSystem.getAdbFileTransfer().downloadFiles(items)));
+    // Ensure all progress callbacks have been executed
+    myCallbackExecutor.submit(EmptyRunnable.getInstance()).get(TIMEOUT_MILLISECONDS, TimeUnit.MILLISECONDS);
+
+    // Assert
+    assertThat(results).hasSize(10);
+    for (int i = 0; i < items.size(); i++) {
+      AdbFileTransfer.TransferItem item = items.get(i);
+      assertThat(totalBytesRefs.get(i).get()).isEqualTo(item.getSize());
+      assertThat(item.getLocalPath().toFile().length()).isEqualTo(item.getSize());
+    }
+  }
+
+  @Test
+  public void test_FileTransfer_DownloadFiles_FailsOnlyMissingFile() throws Exception {
+    // Prepare
+    assert myFileSystem != null;
+    assert myMockDevice != null;
+    Path tempDirectory = FileUtil.createTempDirectory("localFiles", "tmp").toPath();
+    myMockDevice.addRemoteFile("/sdcard/file.txt", 1000);
+    FileTransferProgress progress = new FileTransferProgress() {
+      @Override
+      public void progress(long currentBytes, long totalBytes) {
+      }
+
+      @Override
+      public boolean isCancelled() {
+        return false;
+      }
+    };
+    List<AdbFileTransfer.TransferItem> items = Arrays.asList(
+      new AdbFileTransfer.TransferItem("/sdcard/file.txt", tempDirectory.resolve("file.txt"), 1000, progress),
+      new AdbFileTransfer.TransferItem("/sdcard/missing.txt", tempDirectory.resolve("missing.txt"), 1000, progress));
+
+    // Act
+    List<ListenableFuture<Void>> futures = myFileSystem.getAdbFileTransfer().downloadFiles(items);
+    Void result = waitForFuture(futures.get(0));
+    Throwable error = waitForFutureException(futures.get(1));
+
+    // Assert
+    assertThat(result).isNull();
+    assertThat(tempDirectory.resolve("file.txt").toFile().length()).isEqualTo(1000);
+    assertThat(error).isInstanceOf(SyncException.class);
+  }
+
   @Test
   public void test_FileSystem_UploadSystemFile_ReturnsError() throws Exception {
     // Prepare
@@ -27,6 +27,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import java.awt.*;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
@@ -80,6 +81,70 @@ public class AdbFileListingTest {
     waitForFuture(fileListing.getChildren(root));
   }
 
+  @Test
+  public void test_Nexus7Api23_GetRootChildren_UsesCache() throws Exception {
+    // Prepare
+    TestShellCommands commands = new TestShellCommands();
+    TestDevices.addNexus7Api23Commands(commands);
+    IDevice device = commands.createMockDevice();
+    Executor taskExecutor = PooledThreadExecutor.INSTANCE;
+    AdbFileListing fileListing = new AdbFileListing(device, new AdbDeviceCapabilities(device), taskExecutor);
+    AdbFileListingEntry root = waitForFuture(fileListing.getRoot());
+    List<AdbFileListingEntry> rootEntries = waitForFuture(fileListing.getChildren(root));
+
+    // Act
+    commands.addError("ls -l /" + COMMAND_ERROR_CHECK_SUFFIX, new ShellCommandUnresponsiveException());
+    List<AdbFileListingEntry> cachedEntries = waitForFuture(fileListing.getChildren(root));
+
+    // Assert
+    assertThat(cachedEntries).isEqualTo(rootEntries);
+
+    // Act: invalidated entries are listed again
+    fileListing.invalidate("/");
+    thrown.expect(ExecutionException.class);
+    thrown.expectCause(IsInstanceOf.instanceOf(ShellCommandUnresponsiveException.class));
+    waitForFuture(fileListing.getChildren(root));
+  }
+
+  @Test
+  public void test_Nexus7Api23_GetChildren_RemovesExpiredListings() throws Exception {
+    // Prepare
+    TestShellCommands commands = new TestShellCommands();
+    TestDevices.addNexus7Api23Commands(commands);
+    IDevice device = commands.createMockDevice();
+    Executor taskExecutor = PooledThreadExecutor.INSTANCE;
+    AdbFileListing fileListing = new AdbFileListing(device, new AdbDeviceCapabilities(device), taskExecutor);
+    fileListing.setListingCacheTtlNanos(0);
+    AdbFileListingEntry root = waitForFuture(fileListing.getRoot());
+    List<AdbFileListingEntry> rootEntries = waitForFuture(fileListing.getChildren(root));
+    AdbFileListingEntry systemEntry = rootEntries.stream().filter(x -> x.getName().equals("system")).findFirst().orElse(null);
+    assertThat(systemEntry).isNotNull();
+
+    // Act
+    waitForFuture(fileListing.getChildren(systemEntry));
+
+    // Assert: the listing of the root directory has expired and is no longer held by the cache
+    assertThat(fileListing.getCachedListingCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void test_Nexus7Api23_GetRootChildren_StreamsPartialEntries() throws Exception {
+    // Prepare
+    TestShellCommands commands = new TestShellCommands();
+    TestDevices.addNexus7Api23Commands(commands);
+    IDevice device = commands.createMockDevice();
+    Executor taskExecutor = PooledThreadExecutor.INSTANCE;
+    AdbFileListing fileListing = new AdbFileListing(device, new AdbDeviceCapabilities(device), taskExecutor);
+    AdbFileListingEntry root = waitForFuture(fileListing.getRoot());
+
+    // Act
+    List<AdbFileListingEntry> partialEntries = new ArrayList<>();
+    List<AdbFileListingEntry> rootEntries = waitForFuture(fileListing.getChildrenRunAs(root, null, partialEntries::addAll));
+
+    // Assert
+    assertThat(partialEntries).isEqualTo(rootEntries);
+  }
+
   @Test
   public void test_Nexus7Api23_GetRootChildren() throws Exception {
     // Prepare
@@ -34,6 +34,7 @@ import com.intellij.util.io.PathKt;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.function.Supplier;
@@ -49,6 +50,7 @@ public class MockDeviceExplorerFileManager implements DeviceExplorerFileManager,
   @NotNull private final Set<DeviceFileSystem> myDevices = new HashSet<>();
   @NotNull private final FutureValuesTracker<DeviceFileEntry> myDownloadFileEntryTracker = new FutureValuesTracker<>();
   @NotNull private final FutureValuesTracker<DeviceFileEntry> myDownloadFileEntryCompletionTracker = new FutureValuesTracker<>();
+  @NotNull private final FutureValuesTracker<List<DeviceFileEntry>> myDownloadFileEntriesTracker = new FutureValuesTracker<>();
   @NotNull private final FutureValuesTracker<Path> myOpenFileInEditorTracker = new FutureValuesTracker<>();
   @Nullable private RuntimeException myOpenFileInEditorError;
 
@@ -66,6 +68,28 @@ public class MockDeviceExplorerFileManager implements DeviceExplorerFileManager,
     myDevices.add(entry.getFileSystem());
 
     ListenableFuture<Void> futureResult = myFileManagerImpl.downloadFileEntry(entry, localPath, progress);
+    trackCompletion(entry, futureResult);
+    return futureResult;
+  }
+
+  @NotNull
+  @Override
+  public List<ListenableFuture<Void>> downloadFileEntries(@NotNull List<DeviceFileEntry> entries,
+                                                          @NotNull List<Path> localPaths,
+                                                          @NotNull List<FileTransferProgress> progresses) {
+    myDownloadFileEntriesTracker.produce(entries);
+    entries.forEach(myDownloadFileEntryTracker::produce);
+
+    entries.forEach(entry -> myDevices.add(entry.getFileSystem()));
+
+    List<ListenableFuture<Void>> futureResults = myFileManagerImpl.downloadFileEntries(entries, localPaths, progresses);
+    for (int i = 0; i < futureResults.size(); i++) {
+      trackCompletion(entries.get(i), futureResults.get(i));
+    }
+    return futureResults;
+  }
+
+  private void trackCompletion(@NotNull DeviceFileEntry entry, @NotNull ListenableFuture<Void> futureResult) {
     myEdtExecutor.addCallback(futureResult, new FutureCallback<Void>() {
       @Override
       public void onSuccess(@Nullable Void result) {
@@ -77,8 +101,6 @@ public class MockDeviceExplorerFileManager implements DeviceExplorerFileManager,
         myDownloadFileEntryCompletionTracker.produceException(t);
       }
     });
-
-    return futureResult;
   }
 
   @NotNull
@@ -132,6 +154,11 @@ public class MockDeviceExplorerFileManager implements DeviceExplorerFileManager,
     return myDownloadFileEntryCompletionTracker;
   }
 
+  @NotNull
+  public FutureValuesTracker<List<DeviceFileEntry>> getDownloadFileEntriesTracker() {
+    return myDownloadFileEntriesTracker;
+  }
+
   @NotNull
   public FutureValuesTracker<Path> getOpenFileInEditorTracker() {
     return myOpenFileInEditorTracker;
@@ -15,6 +15,7 @@
  */
 package com.android.tools.idea.explorer.mocks;
 
+import com.android.tools.idea.explorer.FutureValuesTracker;
 import com.android.tools.idea.util.FutureUtils;
 import com.android.tools.idea.explorer.adbimpl.AdbShellCommandException;
 import com.android.tools.idea.explorer.fs.DeviceFileEntry;
@@ -34,12 +35,14 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 
 @SuppressWarnings("SameParameterValue")
 public class MockDeviceFileSystem implements DeviceFileSystem {
   @NotNull private final MockDeviceFileSystemService myService;
   @NotNull private final String myName;
   @NotNull private final MockDeviceFileEntry myRoot;
+  @NotNull private final FutureValuesTracker<List<Path>> myUploadFilesTracker = new FutureValuesTracker<>();
   private long myDownloadChunkSize = 1024;
   private long myUploadChunkSize = 1024;
   private int myDownloadFileChunkIntervalMillis = MockDeviceFileSystemService.OPERATION_TIMEOUT_MILLIS;
@@ -113,6 +116,20 @@ public class MockDeviceFileSystem implements DeviceFileSystem {
     return new UploadWorker((MockDeviceFileEntry)remoteDirectory, fileName, localFilePath, progress).myFutureResult;
   }
 
+  @NotNull
+  @Override
+  public List<ListenableFuture<Void>> uploadFiles(@NotNull DeviceFileEntry directory,
+                                                  @NotNull List<Path> localPaths,
+                                                  @NotNull List<FileTransferProgress> progresses) {
+    myUploadFilesTracker.produce(localPaths);
+    return DeviceFileSystem.super.uploadFiles(directory, localPaths, progresses);
+  }
+
+  @NotNull
+  public FutureValuesTracker<List<Path>> getUploadFilesTracker() {
+    return myUploadFilesTracker;
+  }
+
   public void setDownloadFileChunkSize(long size) {
     myDownloadChunkSize = size;
   }
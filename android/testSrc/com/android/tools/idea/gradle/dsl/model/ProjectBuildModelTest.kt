@@ -47,6 +47,7 @@ import com.android.tools.idea.gradle.dsl.api.ext.PropertyType.REGULAR
 import com.android.tools.idea.gradle.dsl.model.GradleFileModelTestCase.runWriteAction
 import org.gradle.internal.impldep.org.hamcrest.CoreMatchers.hasItems
 import org.gradle.internal.impldep.org.hamcrest.MatcherAssert.assertThat
+import org.junit.Assume.assumeTrue
 import org.junit.Test
 import java.io.File
 import java.io.IOException
@@ -294,4 +295,38 @@ class ProjectBuildModelTest : GradleFileModelTestCase() {
     assertEquals(subPsiFile.virtualFile, subBuildModel.virtualFile)
     assertEquals(settingFile.virtualFile, settingModel.virtualFile)
   }
+
+  @Test
+  fun testReparseOnlyReparsesChangedFiles() {
+    assumeTrue(isGroovy)
+    writeToBuildFile("ext.rootProperty = 'root'")
+    writeToSubModuleBuildFile("ext.childProperty = 'child'")
+    writeToSettingsFile(subModuleSettingsText)
+
+    val pbm = ProjectBuildModel.get(myProject)
+    val rootDslFile = (pbm.projectBuildModel as GradleBuildModelImpl).dslFile
+    val subBuildModel = pbm.getModuleBuildModel(mySubModule)!!
+    val subDslFile = (subBuildModel as GradleBuildModelImpl).dslFile
+    val rootExt = rootDslFile.getPropertyElement("ext")
+    val subExt = subDslFile.getPropertyElement("ext")
+
+    // Nothing changed, so the parsed elements are kept.
+    pbm.reparse()
+    assertSame(rootExt, rootDslFile.getPropertyElement("ext"))
+    assertSame(subExt, subDslFile.getPropertyElement("ext"))
+
+    // Only the sub module is parsed again when it changes.
+    writeToSubModuleBuildFile("ext.childProperty = 'changed'")
+    pbm.reparse()
+    assertSame(rootExt, rootDslFile.getPropertyElement("ext"))
+    assertNotSame(subExt, subDslFile.getPropertyElement("ext"))
+    assertEquals("changed", subBuildModel.ext().findProperty("childProperty").getValue(STRING_TYPE))
+
+    // The sub module can reference the root project, so it is parsed again when the root project changes.
+    val newSubExt = subDslFile.getPropertyElement("ext")
+    writeToBuildFile("ext.rootProperty = 'changed'")
+    pbm.reparse()
+    assertNotSame(rootExt, rootDslFile.getPropertyElement("ext"))
+    assertNotSame(newSubExt, subDslFile.getPropertyElement("ext"))
+  }
 }
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.gradle.project;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.hash.Hashing;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public final class BuildFileDigestsTest {
+  @Rule public TemporaryFolder myTemporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void digestIsSha256OfContents() throws Exception {
+    File file = writeFile("build.gradle", "apply plugin: 'com.android.application'", System.currentTimeMillis());
+    BuildFileDigests digests = new BuildFileDigests((File)null);
+
+    assertThat(digests.getDigest(file)).isEqualTo(Hashing.sha256().hashString("apply plugin: 'com.android.application'", UTF_8));
+  }
+
+  @Test
+  public void digestOfMissingFileIsDigestOfEmptyContents() throws Exception {
+    BuildFileDigests digests = new BuildFileDigests((File)null);
+
+    assertThat(digests.getDigest(new File(myTemporaryFolder.getRoot(), "settings.gradle"))).isEqualTo(BuildFileDigests.EMPTY_DIGEST);
+  }
+
+  @Test
+  public void digestIsReusedWhileSizeAndTimestampDoNotChange() throws Exception {
+    long lastModified = System.currentTimeMillis() - 60_000;
+    File file = writeFile("build.gradle", "version = 1", lastModified);
+    BuildFileDigests digests = new BuildFileDigests((File)null);
+    String digest = digests.getDigest(file).toString();
+
+    // Same size and timestamp: the file is not read again.
+    writeFile("build.gradle", "version = 2", lastModified);
+    assertThat(digests.getDigest(file).toString()).isEqualTo(digest);
+
+    writeFile("build.gradle", "version = 2", lastModified + 1000);
+    assertThat(digests.getDigest(file).toString()).isNotEqualTo(digest);
+  }
+
+  @Test
+  public void recentlyModifiedFileIsReadAgain() throws Exception {
+    long lastModified = System.currentTimeMillis();
+    File file = writeFile("build.gradle", "version = 1", lastModified);
+    BuildFileDigests digests = new BuildFileDigests((File)null);
+    String digest = digests.getDigest(file).toString();
+
+    // The timestamp may not have changed because of its granularity.
+    writeFile("build.gradle", "version = 2", lastModified);
+    assertThat(digests.getDigest(file).toString()).isNotEqualTo(digest);
+  }
+
+  @Test
+  public void digestsArePersisted() throws Exception {
+    long lastModified = System.currentTimeMillis() - 60_000;
+    File file = writeFile("build.gradle", "version = 1", lastModified);
+    File storeFile = new File(myTemporaryFolder.getRoot(), "caches/build_file_digests.ser");
+    BuildFileDigests digests = new BuildFileDigests(storeFile);
+    String digest = digests.getDigest(file).toString();
+    digests.save();
+    assertThat(storeFile.isFile()).isTrue();
+
+    writeFile("build.gradle", "version = 2", lastModified);
+    assertThat(new BuildFileDigests(storeFile).getDigest(file).toString()).isEqualTo(digest);
+  }
+
+  @NotNull
+  private File writeFile(@NotNull String name, @NotNull String contents, long lastModified) throws IOException {
+    File file = new File(myTemporaryFolder.getRoot(), name);
+    Files.write(file.toPath(), contents.getBytes(UTF_8));
+    assertThat(file.setLastModified(lastModified)).isTrue();
+    return file;
+  }
+}
@@ -45,7 +45,12 @@ public class AndroidModuleModelSerializationTest extends AndroidGradleTestCase {
     AndroidModuleModel androidModel = AndroidModuleModel.get(appModule);
 
     AndroidModuleModel androidModelCopy = serializeAndDeserialize(androidModel);
+    // The imported project is only decoded when it is used.
+    assertFalse(androidModelCopy.isLoaded());
+    assertEquals(androidModel.getModuleName(), androidModelCopy.getModuleName());
+    assertFalse(androidModelCopy.isLoaded());
     assertAreEqual(androidModel, androidModelCopy);
+    assertTrue(androidModelCopy.isLoaded());
   }
 
   @NotNull
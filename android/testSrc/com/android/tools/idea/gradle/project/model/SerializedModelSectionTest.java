@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.gradle.project.model;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+public final class SerializedModelSectionTest {
+  @Test
+  public void sectionIsDecodedLazily() throws Exception {
+    ArrayList<String> value = new ArrayList<>();
+    value.add("debug");
+    value.add("release");
+    SerializedModelSection<ArrayList<String>> section = SerializedModelSection.of(value);
+    assertThat(section.isDecoded()).isTrue();
+
+    SerializedModelSection<ArrayList<String>> copy = serializeAndDeserialize(section);
+    assertThat(copy.isDecoded()).isFalse();
+    assertThat(copy.getValue()).containsExactly("debug", "release").inOrder();
+    assertThat(copy.isDecoded()).isTrue();
+    assertThat(copy.getValue()).isSameAs(copy.getValue());
+  }
+
+  @Test
+  public void sectionIsEncodedWhenWritten() {
+    ArrayList<String> value = new ArrayList<>();
+    value.add("debug");
+    SerializedModelSection<ArrayList<String>> section = SerializedModelSection.of(value);
+    assertThat(section.getBytes()).isNull();
+
+    SerializedModelSection<ArrayList<String>> copy = serializeAndDeserialize(section);
+    assertThat(copy.getSizeInBytes()).isGreaterThan(0);
+    assertThat(copy.canDecode()).isTrue();
+    // Writing the section does not keep its bytes alongside the value.
+    assertThat(section.getBytes()).isNull();
+    assertThat(section.getValue()).isSameAs(value);
+  }
+
+  @Test
+  public void bytesAreDroppedOnceDecoded() {
+    ArrayList<String> value = new ArrayList<>();
+    value.add("debug");
+    SerializedModelSection<ArrayList<String>> copy = serializeAndDeserialize(SerializedModelSection.of(value));
+    assertThat(copy.getSizeInBytes()).isGreaterThan(0);
+
+    copy.getValue();
+    assertThat(copy.getBytes()).isNull();
+    assertThat(copy.canDecode()).isTrue();
+    // A decoded section is encoded again when it is written back to the cache.
+    assertThat(serializeAndDeserialize(copy).getValue()).containsExactly("debug");
+  }
+
+  @Test
+  public void corruptSectionCannotBeDecoded() {
+    ArrayList<String> value = new ArrayList<>();
+    value.add("debug");
+    SerializedModelSection<ArrayList<String>> section = serializeAndDeserialize(SerializedModelSection.of(value));
+    byte[] bytes = section.getBytes().clone();
+    assertThat(new SerializedModelSection<>(bytes, section.getChecksum(), section.getClassVersions()).canDecode()).isTrue();
+
+    bytes[bytes.length - 1] ^= 1;
+    assertThat(new SerializedModelSection<>(bytes, section.getChecksum(), section.getClassVersions()).canDecode()).isFalse();
+    assertThat(new SerializedModelSection<>(null, section.getChecksum(), section.getClassVersions()).canDecode()).isFalse();
+  }
+
+  @Test
+  public void sectionOfOutdatedClassesCannotBeDecoded() {
+    ArrayList<String> value = new ArrayList<>();
+    value.add("debug");
+    SerializedModelSection<ArrayList<String>> section = serializeAndDeserialize(SerializedModelSection.of(value));
+    assertThat(section.getClassVersions()).containsKey(ArrayList.class.getName());
+
+    Map<String, Long> classVersions = new HashMap<>(section.getClassVersions());
+    classVersions.put(ArrayList.class.getName(), classVersions.get(ArrayList.class.getName()) + 1);
+    assertThat(new SerializedModelSection<>(section.getBytes(), section.getChecksum(), classVersions).canDecode()).isFalse();
+
+    classVersions = new HashMap<>(section.getClassVersions());
+    classVersions.put("com.example.RemovedModel", 1L);
+    assertThat(new SerializedModelSection<>(section.getBytes(), section.getChecksum(), classVersions).canDecode()).isFalse();
+  }
+
+  @Test
+  public void equalStringsAreWrittenOnce() {
+    String path = "/home/user/project/app/build/intermediates/javac/debug/classes";
+    ArrayList<String> once = new ArrayList<>();
+    once.add(path);
+    ArrayList<String> repeated = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      // Equal but distinct instances, as created when reading the models from Gradle.
+      repeated.add(new String(path));
+    }
+
+    int onceSize = serializeAndDeserialize(SerializedModelSection.of(once)).getSizeInBytes();
+    int repeatedSize = serializeAndDeserialize(SerializedModelSection.of(repeated)).getSizeInBytes();
+    assertThat(repeatedSize).isLessThan(onceSize + 100 * path.length() / 4);
+
+    ArrayList<String> decoded = serializeAndDeserialize(SerializedModelSection.of(repeated)).getValue();
+    assertThat(decoded).isEqualTo(repeated);
+  }
+
+  @NotNull
+  private static <T> SerializedModelSection<T> serializeAndDeserialize(@NotNull SerializedModelSection<T> section) {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+        out.writeObject(section);
+      }
+      try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+        //noinspection unchecked
+        return (SerializedModelSection<T>)in.readObject();
+      }
+    }
+    catch (IOException | ClassNotFoundException e) {
+      throw new AssertionError(e);
+    }
+  }
+}
@@ -23,17 +23,23 @@ import static com.intellij.openapi.roots.DependencyScope.COMPILE;
 import static com.intellij.openapi.roots.DependencyScope.TEST;
 import static com.intellij.openapi.vfs.VfsUtilCore.virtualToIoFile;
 import static com.intellij.util.PathUtil.toSystemDependentName;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
 import com.android.ide.common.gradle.model.IdeAndroidProject;
+import com.android.ide.common.gradle.model.IdeVariant;
 import com.android.ide.common.repository.GradleVersion;
 import com.android.tools.idea.gradle.project.facet.gradle.GradleFacet;
 import com.android.tools.idea.gradle.project.model.AndroidModelFeatures;
 import com.android.tools.idea.gradle.project.model.AndroidModuleModel;
+import com.android.tools.idea.gradle.project.sync.ModuleSetupContext;
+import com.android.tools.idea.gradle.project.sync.setup.module.ModuleFinder;
 import com.android.tools.idea.gradle.project.sync.setup.module.dependency.DependenciesExtractor;
+import com.android.tools.idea.gradle.project.sync.setup.module.dependency.DependencySet;
 import com.android.tools.idea.gradle.project.sync.setup.module.dependency.LibraryDependency;
 import com.android.tools.idea.gradle.project.sync.setup.module.dependency.ModuleDependency;
 import com.intellij.openapi.application.ApplicationManager;
@@ -92,6 +98,25 @@ public class DependenciesAndroidModuleSetupStepTest extends PlatformTestCase {
                                                 null));
   }
 
+  public void testPrepareModuleExtractsDependencies() {
+    IdeModifiableModelsProvider modelsProvider = new IdeModifiableModelsProviderImpl(getProject());
+    ModuleSetupContext context = new ModuleSetupContext.Factory().create(myModule, modelsProvider);
+    AndroidModuleModel moduleModel = mock(AndroidModuleModel.class);
+    IdeVariant variant = mock(IdeVariant.class);
+    when(moduleModel.getSelectedVariant()).thenReturn(variant);
+    when(myDependenciesExtractor.extractFrom(same(variant), any(ModuleFinder.class))).thenReturn(DependencySet.EMPTY);
+
+    try {
+      mySetupStep.prepareModule(context, moduleModel);
+    }
+    finally {
+      ModuleSetupContext.removeSyncContextDataFrom(getProject());
+    }
+
+    // The dependencies extracted while preparing the module are the ones set up later.
+    assertSame(DependencySet.EMPTY, context.getUserData(DependenciesAndroidModuleSetupStep.DEPENDENCIES_KEY));
+  }
+
   private void updateLibraryDependency(@NotNull String modelVersion, boolean exported) throws IOException {
     // Create gradle facet and mock AndroidModuleModel.
     AndroidModuleModel moduleModel = createAndroidFacetAndModuleModel(modelVersion);
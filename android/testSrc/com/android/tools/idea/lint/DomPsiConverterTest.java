@@ -18,12 +18,14 @@ package com.android.tools.idea.lint;
 import com.android.ide.common.xml.XmlPrettyPrinter;
 import com.android.utils.XmlUtils;
 import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.command.WriteCommandAction;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Computable;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiManager;
 import com.intellij.psi.xml.XmlFile;
+import com.intellij.psi.xml.XmlTag;
 import org.jetbrains.android.AndroidTestCase;
 import org.w3c.dom.Document;
 import org.w3c.dom.NodeList;
@@ -60,6 +62,25 @@ public class DomPsiConverterTest extends AndroidTestCase {
     assertEquals("@drawable/icon", elementsByTagName.item(0).getAttributes().getNamedItemNS(ANDROID_URI, "icon").getNodeValue());
   }
 
+  public void testDocumentIsReusedUntilFileChanges() {
+    VirtualFile file = myFixture.copyFileToProject("AndroidManifest.xml", "AndroidManifest.xml");
+    XmlFile xmlFile = (XmlFile)PsiManager.getInstance(getProject()).findFile(file);
+    assertNotNull(xmlFile);
+
+    Document domDocument = DomPsiConverter.convert(xmlFile);
+    assertNotNull(domDocument);
+    assertSame(domDocument, DomPsiConverter.convert(xmlFile));
+
+    XmlTag rootTag = xmlFile.getRootTag();
+    assertNotNull(rootTag);
+    WriteCommandAction.runWriteCommandAction(getProject(), () -> rootTag.setAttribute("versionName", ANDROID_URI, "2.0"));
+
+    Document updatedDocument = DomPsiConverter.convert(xmlFile);
+    assertNotNull(updatedDocument);
+    assertNotSame(domDocument, updatedDocument);
+    assertEquals("2.0", updatedDocument.getDocumentElement().getAttributeNS(ANDROID_URI, "versionName"));
+  }
+
   public void testAsyncAccess() throws InterruptedException {
     VirtualFile file = myFixture.copyFileToProject("AndroidManifest.xml", "AndroidManifest.xml");
     assertNotNull(file);
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.lint;
+
+import static com.android.tools.idea.projectsystem.ProjectSystemSyncUtil.PROJECT_SYSTEM_SYNC_TOPIC;
+import static com.google.common.truth.Truth.assertThat;
+
+import com.android.tools.idea.projectsystem.ProjectSystemSyncManager;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jetbrains.android.AndroidTestCase;
+
+public class LintIdeModelCacheTest extends AndroidTestCase {
+  public void testValuesAreComputedOnce() {
+    LintIdeModelCache cache = LintIdeModelCache.getInstance(getProject());
+    AtomicInteger computeCount = new AtomicInteger();
+
+    assertThat(cache.getMainAndroidModule(myModule, module -> { computeCount.incrementAndGet(); return null; })).isNull();
+    assertThat(cache.getMainAndroidModule(myModule, module -> { computeCount.incrementAndGet(); return module; })).isNull();
+    assertThat(computeCount.get()).isEqualTo(1);
+
+    assertThat(LintIdeProject.hasAndroidModule(getProject())).isTrue();
+    assertThat(cache.hasAndroidModule(() -> false)).isTrue();
+  }
+
+  public void testSyncInvalidatesCache() {
+    LintIdeModelCache cache = LintIdeModelCache.getInstance(getProject());
+    assertThat(cache.hasAndroidModule(() -> true)).isTrue();
+    int invalidationCount = cache.getInvalidationCount();
+
+    getProject().getMessageBus().syncPublisher(PROJECT_SYSTEM_SYNC_TOPIC).syncEnded(ProjectSystemSyncManager.SyncResult.SUCCESS);
+
+    assertThat(cache.getInvalidationCount()).isEqualTo(invalidationCount + 1);
+    assertThat(cache.hasAndroidModule(() -> false)).isFalse();
+  }
+}
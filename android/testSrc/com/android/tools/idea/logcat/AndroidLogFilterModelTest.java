@@ -176,6 +176,27 @@ public class AndroidLogFilterModelTest {
     assertThat(result.isApplicable()).isFalse();
   }
 
+  @Test
+  public void reprocessedLinesGiveSameResults() {
+    String[] lines = "2018-01-23 12:34:56.789 1234-5678/? I/DummyTag: line 1\n+ line 2\n--- INVALID LINE ---".split("\n");
+    for (String line : lines) {
+      myFilterModel.processLine(line);
+    }
+
+    myFilterModel.updateCustomPattern(Pattern.compile("line 2"));
+    myFilterModel.processingStarted();
+
+    assertThat(myFilterModel.processLine(lines[0]).isApplicable()).isFalse();
+    LogFilterModel.MyProcessingResult result = myFilterModel.processLine(lines[1]);
+    assertThat(result.isApplicable()).isTrue();
+    assertThat(result.getMessagePrefix()).isEqualTo("2018-01-23 12:34:56.789 1234-5678/? I/DummyTag: line 1\n");
+    assertThat(myFilterModel.processLine(lines[2]).isApplicable()).isFalse();
+
+    // A different line at an indexed position is parsed again
+    myFilterModel.processingStarted();
+    assertThat(myFilterModel.processLine("2018-01-23 12:34:56.789 1234-5678/? I/DummyTag: line 2").isApplicable()).isTrue();
+  }
+
   private static class TestFilterModel extends AndroidLogFilterModel {
     @NotNull private LogLevel myMinimumLevel = LogLevel.VERBOSE; // Allow all messages by default
 
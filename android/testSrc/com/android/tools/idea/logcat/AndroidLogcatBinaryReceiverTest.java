@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.logcat;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.android.ddmlib.IDevice;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AndroidLogcatBinaryReceiverTest {
+  private AndroidLogcatService.LogcatListener myLogcatListener;
+  private AndroidLogcatBinaryReceiver myReceiver;
+
+  @Before
+  public void setUp() {
+    myLogcatListener = new TestFormattedLogcatReceiver();
+    IDevice device = AndroidLogcatReceiverTest.createMockDevice();
+    myReceiver = new AndroidLogcatBinaryReceiver(device, new AndroidLogcatReceiver(device, myLogcatListener));
+  }
+
+  /**
+   * Returns a logger_entry with the given header size (0 for version 1 entries) followed by the payload.
+   */
+  private static byte[] createEntry(int headerSize, int pid, int tid, int seconds, int nanos, int priority, String tag, String message) {
+    byte[] tagBytes = tag.getBytes(StandardCharsets.UTF_8);
+    byte[] messageBytes = message.getBytes(StandardCharsets.UTF_8);
+    int actualHeaderSize = headerSize == 0 ? 20 : headerSize;
+    int payloadLength = 1 + tagBytes.length + 1 + messageBytes.length + 1;
+    ByteBuffer buffer = ByteBuffer.allocate(actualHeaderSize + payloadLength).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putShort((short)payloadLength).putShort((short)headerSize).putInt(pid).putInt(tid).putInt(seconds).putInt(nanos);
+    buffer.position(actualHeaderSize);
+    buffer.put((byte)priority).put(tagBytes).put((byte)0).put(messageBytes).put((byte)0);
+    return buffer.array();
+  }
+
+  @Test
+  public void processesVersion1Entry() {
+    byte[] entry = createEntry(0, 1493, 1595, 1534635551, 439_000_000, 5, "EDMNativeHelper", "EDMNativeHelperService is published");
+    myReceiver.addOutput(entry, 0, entry.length);
+
+    String expected = "2018-08-18 16:39:11.439 1493-1595/dummy.client.name W/EDMNativeHelper: EDMNativeHelperService is published\n";
+    assertThat(myLogcatListener.toString()).isEqualTo(expected);
+  }
+
+  @Test
+  public void processesEntriesSplitAcrossChunks() {
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    byte[] entry1 = createEntry(28, 99, 99, 1516739696, 789_000_000, 2, "UnknownClient", "Line 1\nLine 2\n");
+    byte[] entry2 = createEntry(24, 99, 99, 1516741200, 0, 2, "UnknownClient", "Line 1");
+    stream.write(entry1, 0, entry1.length);
+    stream.write(entry2, 0, entry2.length);
+    byte[] data = stream.toByteArray();
+
+    // Feed the data in small chunks that do not match the entry boundaries
+    for (int i = 0; i < data.length; i += 7) {
+      myReceiver.addOutput(data, i, Math.min(7, data.length - i));
+    }
+
+    String expected = "2018-01-23 12:34:56.789 99-99/? V/UnknownClient: Line 1\n" +
+                      "+ Line 2\n" +
+                      "2018-01-23 13:00:00.000 99-99/? V/UnknownClient: Line 1\n";
+    assertThat(myLogcatListener.toString()).isEqualTo(expected);
+  }
+}
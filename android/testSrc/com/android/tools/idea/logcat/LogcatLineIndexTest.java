@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.logcat;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.android.ddmlib.Log.LogLevel;
+import com.android.ddmlib.logcat.LogCatHeader;
+import java.time.Instant;
+import java.util.regex.Pattern;
+import org.junit.Test;
+
+public class LogcatLineIndexTest {
+  private static final LogCatHeader HEADER =
+    new LogCatHeader(LogLevel.WARN, 1234, 5678, "com.example.app", "DummyTag", Instant.ofEpochSecond(1516710896, 789_000_000));
+
+  @Test
+  public void headersAreRestored() {
+    LogcatLineIndex index = new LogcatLineIndex(Integer.MAX_VALUE);
+    index.add(0, "header: message", LogcatLineIndex.KIND_MESSAGE, HEADER, 8);
+    index.add(1, "+ continuation", LogcatLineIndex.KIND_CONTINUATION, null, 2);
+
+    assertThat(index.size()).isEqualTo(2);
+    assertThat(index.isIndexed(0, "header: message")).isTrue();
+    assertThat(index.isIndexed(0, "other line")).isFalse();
+    assertThat(index.getKind(0)).isEqualTo(LogcatLineIndex.KIND_MESSAGE);
+    assertThat(index.getContentStart(0)).isEqualTo(8);
+    assertThat(index.getHeader(0).toString()).isEqualTo(HEADER.toString());
+    assertThat(index.getKind(1)).isEqualTo(LogcatLineIndex.KIND_CONTINUATION);
+  }
+
+  @Test
+  public void addingAtIndexedPositionDropsFollowingLines() {
+    LogcatLineIndex index = new LogcatLineIndex(Integer.MAX_VALUE);
+    index.add(0, "line 0", LogcatLineIndex.KIND_OTHER, null, 0);
+    index.add(1, "line 1", LogcatLineIndex.KIND_OTHER, null, 0);
+    index.add(2, "line 2", LogcatLineIndex.KIND_OTHER, null, 0);
+
+    index.add(1, "new line 1", LogcatLineIndex.KIND_OTHER, null, 0);
+
+    assertThat(index.size()).isEqualTo(2);
+    assertThat(index.isIndexed(1, "new line 1")).isTrue();
+
+    // Lines can not be added after a gap
+    index.add(5, "line 5", LogcatLineIndex.KIND_OTHER, null, 0);
+    assertThat(index.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void completeChunksRejectMissingText() {
+    LogcatLineIndex index = new LogcatLineIndex(Integer.MAX_VALUE);
+    for (int i = 0; i < 256; i++) {
+      index.add(i, "Dummy Message " + i, LogcatLineIndex.KIND_OTHER, null, 0);
+    }
+    index.add(256, "Interesting Message", LogcatLineIndex.KIND_OTHER, null, 0);
+
+    assertThat(index.mayContain(10, "dummy")).isTrue();
+    assertThat(index.mayContain(10, "interesting")).isFalse();
+    // The last chunk is not complete yet
+    assertThat(index.mayContain(256, "dummy")).isTrue();
+  }
+
+  @Test
+  public void linesWithTheSameStringHashAreDistinguished() {
+    LogcatLineIndex index = new LogcatLineIndex(Integer.MAX_VALUE);
+    // "Aa" and "BB" have the same String.hashCode()
+    index.add(0, "Aa", LogcatLineIndex.KIND_OTHER, null, 0);
+
+    assertThat(index.isIndexed(0, "Aa")).isTrue();
+    assertThat(index.isIndexed(0, "BB")).isFalse();
+  }
+
+  @Test
+  public void oldestChunksAreDroppedWhenOverMaxChars() {
+    LogcatLineIndex index = new LogcatLineIndex(400 * 10);
+    for (int i = 0; i < 520; i++) {
+      index.add(i, String.format("line %5d", i), LogcatLineIndex.KIND_OTHER, null, 0);
+    }
+
+    // The first chunk was dropped, the remaining lines keep their positions
+    assertThat(index.getFirstPosition()).isEqualTo(256);
+    assertThat(index.size()).isEqualTo(520 - 256);
+    assertThat(index.isIndexed(100, String.format("line %5d", 100))).isFalse();
+    assertThat(index.isIndexed(300, String.format("line %5d", 300))).isTrue();
+    assertThat(index.findPosition(String.format("line %5d", 300))).isEqualTo(300);
+    assertThat(index.mayContain(300, "line   300")).isTrue();
+    assertThat(index.mayContain(300, "line   100")).isFalse();
+
+    // Replaying the lines from the start restarts the index
+    index.add(0, String.format("line %5d", 0), LogcatLineIndex.KIND_OTHER, null, 0);
+    assertThat(index.getFirstPosition()).isEqualTo(0);
+    assertThat(index.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void getLowerCaseLiteral() {
+    assertThat(LogcatLineIndex.getLowerCaseLiteral(Pattern.compile("Dummy Tag"))).isEqualTo("dummy tag");
+    assertThat(LogcatLineIndex.getLowerCaseLiteral(Pattern.compile("Dummy.*"))).isNull();
+    assertThat(LogcatLineIndex.getLowerCaseLiteral(Pattern.compile("Dummy.*", Pattern.LITERAL))).isEqualTo("dummy.*");
+    assertThat(LogcatLineIndex.getLowerCaseLiteral(Pattern.compile("com\\.example\\.App"))).isEqualTo("com.example.app");
+    assertThat(LogcatLineIndex.getLowerCaseLiteral(Pattern.compile(Pattern.quote("Dummy (.*)")))).isEqualTo("dummy (.*)");
+    assertThat(LogcatLineIndex.getLowerCaseLiteral(Pattern.compile(Pattern.quote("a\\Eb")))).isEqualTo("a\\eb");
+    assertThat(LogcatLineIndex.getLowerCaseLiteral(Pattern.compile("Dummy\\d"))).isNull();
+    assertThat(LogcatLineIndex.getLowerCaseLiteral(Pattern.compile("Dummy Tag", Pattern.COMMENTS))).isNull();
+  }
+
+  @Test
+  public void findPositionSkipsLinesDroppedByTheConsole() {
+    // The console keeps the last 3 lines of 9 characters and their newlines
+    LogcatLineIndex index = new LogcatLineIndex(30);
+    index.add(0, "same line", LogcatLineIndex.KIND_OTHER, null, 0);
+    index.add(1, "line    1", LogcatLineIndex.KIND_OTHER, null, 0);
+    index.add(2, "same line", LogcatLineIndex.KIND_OTHER, null, 0);
+    index.add(3, "line    3", LogcatLineIndex.KIND_OTHER, null, 0);
+
+    // The first line was dropped by the console even if it is still indexed, so it is not the first line of the console
+    assertThat(index.getFirstPosition()).isEqualTo(0);
+    assertThat(index.findPosition("line    1")).isEqualTo(1);
+    assertThat(index.findPosition("same line")).isEqualTo(2);
+    assertThat(index.findPosition("other line")).isEqualTo(-1);
+  }
+}
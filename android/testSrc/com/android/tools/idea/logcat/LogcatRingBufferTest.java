@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.logcat;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.android.ddmlib.Log.LogLevel;
+import com.android.ddmlib.logcat.LogCatHeader;
+import com.android.ddmlib.logcat.LogCatMessage;
+import com.google.common.collect.ImmutableList;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.Test;
+
+public class LogcatRingBufferTest {
+  private static LogCatMessage createMessage(int index) {
+    LogCatHeader header = new LogCatHeader(LogLevel.INFO, 1000 + index, 2000, "com.example.app", "Tag" + (index % 3),
+                                           Instant.ofEpochSecond(1534635551L + index, 439_000_000));
+    return new LogCatMessage(header, "Message " + index);
+  }
+
+  private static List<String> getMessages(LogcatRingBuffer buffer) {
+    List<String> messages = new ArrayList<>();
+    buffer.iterator().forEachRemaining(message -> messages.add(message.getMessage()));
+    return messages;
+  }
+
+  @Test
+  public void messagesAreRestored() {
+    LogcatRingBuffer buffer = new LogcatRingBuffer(1024);
+    LogCatMessage message = createMessage(1);
+    buffer.addMessage(message);
+
+    Iterator<LogCatMessage> iterator = buffer.iterator();
+    LogCatMessage restored = iterator.next();
+    assertThat(iterator.hasNext()).isFalse();
+    assertThat(restored.getMessage()).isEqualTo("Message 1");
+    assertThat(restored.getHeader().getLogLevel()).isEqualTo(LogLevel.INFO);
+    assertThat(restored.getHeader().getPid()).isEqualTo(1001);
+    assertThat(restored.getHeader().getTid()).isEqualTo(2000);
+    assertThat(restored.getHeader().getAppName()).isEqualTo("com.example.app");
+    assertThat(restored.getHeader().getTag()).isEqualTo("Tag1");
+    assertThat(restored.getHeader().getTimestamp()).isEqualTo(message.getHeader().getTimestamp());
+  }
+
+  @Test
+  public void oldestMessagesAreDropped() {
+    // Each record is 33 bytes of header plus 9 or 10 bytes of text
+    LogcatRingBuffer buffer = new LogcatRingBuffer(150);
+    for (int i = 0; i < 20; i++) {
+      buffer.addMessage(createMessage(i));
+      List<String> messages = getMessages(buffer);
+      assertThat(messages).isNotEmpty();
+      assertThat(messages.get(messages.size() - 1)).isEqualTo("Message " + i);
+      assertThat(messages.size()).isEqualTo(buffer.size());
+    }
+
+    assertThat(getMessages(buffer)).isEqualTo(ImmutableList.of("Message 17", "Message 18", "Message 19"));
+  }
+
+  @Test
+  public void snapshotIsNotAffectedByNewMessages() {
+    LogcatRingBuffer buffer = new LogcatRingBuffer(100);
+    buffer.addMessage(createMessage(1));
+    Iterator<LogCatMessage> iterator = buffer.iterator();
+    for (int i = 2; i < 10; i++) {
+      buffer.addMessage(createMessage(i));
+    }
+
+    assertThat(iterator.next().getMessage()).isEqualTo("Message 1");
+    assertThat(iterator.hasNext()).isFalse();
+
+    buffer.clear();
+    assertThat(buffer.iterator().hasNext()).isFalse();
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.rendering;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import com.android.ide.common.rendering.api.Result;
+import com.android.ide.common.rendering.api.ViewInfo;
+import com.android.tools.idea.rendering.imagepool.ImagePoolFactory;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.intellij.openapi.module.Module;
+import com.intellij.psi.PsiFile;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+@SuppressWarnings("UndesirableClassUsage")
+public class RenderResultCacheTest {
+  private static final int IMAGE_BYTES = 50 * 50 * 4;
+
+  @Rule
+  public TemporaryFolder myTemporaryFolder = new TemporaryFolder();
+
+  private RenderResultCache myCache;
+
+  @Before
+  public void setUp() throws Exception {
+    File diskCacheDir = new File(myTemporaryFolder.getRoot(), "cache");
+    myCache = new RenderResultCache(IMAGE_BYTES * 2, diskCacheDir, IMAGE_BYTES * 100);
+  }
+
+  @After
+  public void tearDown() {
+    myCache.dispose();
+  }
+
+  @NotNull
+  private static RenderResult createResult(@NotNull Result result) {
+    return new RenderResult(mock(PsiFile.class),
+                            mock(Module.class),
+                            mock(RenderLogger.class),
+                            null,
+                            result,
+                            ImmutableList.of(new ViewInfo("LinearLayout", null, 0, 0, 50, 50)),
+                            ImmutableList.of(),
+                            ImagePoolFactory.getNonPooledPool().copyOf(new BufferedImage(50, 50, BufferedImage.TYPE_INT_ARGB)),
+                            ImmutableMap.of(),
+                            ImmutableMap.of());
+  }
+
+  @Test
+  public void testMemoryHit() {
+    assertNull(myCache.get("key1").join());
+    myCache.put("key1", createResult(Result.Status.SUCCESS.createResult()));
+
+    RenderResultCache.CachedRender cached = myCache.get("key1").join();
+    assertNotNull(cached);
+    assertEquals(50, cached.image.getWidth());
+    assertTrue(cached.result.isSuccess());
+
+    RenderResultCache.Stats stats = myCache.getStats();
+    assertEquals(1, stats.memoryHits());
+    assertEquals(1, stats.misses());
+    assertEquals(IMAGE_BYTES, stats.memoryBytes());
+  }
+
+  @Test
+  public void testErrorsAreNotCached() {
+    myCache.put("key1", createResult(Result.Status.ERROR_UNKNOWN.createResult()));
+    assertNull(myCache.get("key1").join());
+  }
+
+  @Test
+  public void testInvalidateAll() {
+    myCache.put("key1", createResult(Result.Status.SUCCESS.createResult()));
+    myCache.invalidateAll();
+    assertNull(myCache.get("key1").join());
+    assertEquals(0, myCache.getStats().memoryBytes());
+  }
+
+  @Test
+  public void testEvictedEntriesSpillToDisk() throws InterruptedException {
+    myCache.put("key1", createResult(Result.Status.SUCCESS.createResult()));
+    myCache.put("key2", createResult(Result.Status.SUCCESS.createResult()));
+    myCache.put("key3", createResult(Result.Status.SUCCESS.createResult()));
+
+    // Wait for the evicted entry to be written
+    long deadline = System.currentTimeMillis() + 5000;
+    while (myCache.getStats().diskBytes() == 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(50);
+    }
+
+    RenderResultCache.CachedRender cached = myCache.get("key1").join();
+    assertNotNull(cached);
+    assertEquals(50, cached.image.getHeight());
+    assertEquals(1, myCache.getStats().diskHits());
+  }
+}
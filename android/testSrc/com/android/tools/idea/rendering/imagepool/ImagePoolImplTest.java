@@ -153,6 +153,68 @@ public class ImagePoolImplTest {
     gc();
   }
 
+  @Test
+  public void testByteBudget() {
+    ImagePoolImpl pool = new ImagePoolImpl(new int[]{50, 500}, (w, h) -> (type) -> 10, 2 * 50 * 50 * 4);
+    try {
+      ImagePoolImpl.ImageImpl image1 = pool.create(49, 49, BufferedImage.TYPE_INT_ARGB, null);
+      ImagePoolImpl.ImageImpl image2 = pool.create(49, 49, BufferedImage.TYPE_INT_ARGB, null);
+      ImagePoolImpl.ImageImpl image3 = pool.create(49, 49, BufferedImage.TYPE_INT_ARGB, null);
+      BufferedImage buffer2 = image2.myBuffer;
+      BufferedImage buffer3 = image3.myBuffer;
+      ImagePool.Stats stats = pool.getStats();
+      assertEquals(3, stats.allocationCount());
+      assertEquals(3 * 50 * 50 * 4, stats.totalBytesInUse());
+
+      // Only two images fit in the budget, the least recently returned one is evicted
+      image1.dispose();
+      image2.dispose();
+      image3.dispose();
+      assertEquals(1, stats.evictionCount());
+      assertEquals(0, stats.totalBytesInUse());
+      assertEquals(2 * 50 * 50 * 4, stats.totalBytesAllocated());
+
+      // The most recently returned image is reused first
+      assertEquals(buffer3, pool.create(49, 49, BufferedImage.TYPE_INT_ARGB, null).myBuffer);
+      assertEquals(buffer2, pool.create(49, 49, BufferedImage.TYPE_INT_ARGB, null).myBuffer);
+      assertEquals(2, stats.reuseCount());
+      assertEquals(3, stats.allocationCount());
+
+      // Images larger than the budget are never pooled
+      pool.create(400, 400, BufferedImage.TYPE_INT_ARGB, null).dispose();
+      assertEquals(2, stats.evictionCount());
+    }
+    finally {
+      pool.dispose();
+    }
+  }
+
+  @Test
+  public void testReleaseFreeImages() {
+    ImagePoolImpl pool = new ImagePoolImpl(new int[]{50, 500}, (w, h) -> (type) -> 10, 2 * 50 * 50 * 4);
+    try {
+      ImagePoolImpl.ImageImpl image1 = pool.create(49, 49, BufferedImage.TYPE_INT_ARGB, null);
+      ImagePoolImpl.ImageImpl image2 = pool.create(49, 49, BufferedImage.TYPE_INT_ARGB, null);
+      BufferedImage buffer1 = image1.myBuffer;
+      image1.dispose();
+      image2.dispose();
+      ImagePool.Stats stats = pool.getStats();
+      assertEquals(2 * 50 * 50 * 4, stats.totalBytesAllocated());
+
+      // Called when the IDE is low on memory
+      pool.releaseFreeImages();
+      assertEquals(0, stats.totalBytesAllocated());
+      assertEquals(2, stats.evictionCount());
+
+      assertNotEquals(buffer1, pool.create(49, 49, BufferedImage.TYPE_INT_ARGB, null).myBuffer);
+      assertEquals(0, stats.reuseCount());
+      assertEquals(3, stats.allocationCount());
+    }
+    finally {
+      pool.dispose();
+    }
+  }
+
   @Test
   public void testDefaultPooling() throws InterruptedException {
     // Small images won't be pooled
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.android.inspections.lint;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public final class LintBatchAnalyzerTest {
+  @Test
+  public void partitionGroupsDependentItems() {
+    // app depends on lib, which depends on base; feature depends on base too; tool and other are independent.
+    Map<String, List<String>> dependencies = ImmutableMap.of(
+      "app", ImmutableList.of("lib"),
+      "lib", ImmutableList.of("base", "external"),
+      "feature", ImmutableList.of("base"));
+    List<String> items = Arrays.asList("tool", "app", "other", "feature", "lib", "base");
+
+    List<List<String>> groups =
+      LintBatchAnalyzer.partition(items, item -> dependencies.getOrDefault(item, Collections.emptyList()));
+
+    assertThat(groups).containsExactly(
+      ImmutableList.of("tool"),
+      ImmutableList.of("app", "feature", "lib", "base"),
+      ImmutableList.of("other")).inOrder();
+  }
+
+  @Test
+  public void partitionGroupsItemsSharingDependenciesOutsideItems() {
+    // a and b share the library c through d, which are not analyzed themselves; e only has its own library f.
+    Map<String, List<String>> dependencies = ImmutableMap.of(
+      "a", ImmutableList.of("c"),
+      "b", ImmutableList.of("d"),
+      "d", ImmutableList.of("c"),
+      "e", ImmutableList.of("f"));
+
+    List<List<String>> groups =
+      LintBatchAnalyzer.partition(Arrays.asList("a", "b", "e"), item -> dependencies.getOrDefault(item, Collections.emptyList()));
+
+    assertThat(groups).containsExactly(ImmutableList.of("a", "b"), ImmutableList.of("e")).inOrder();
+  }
+
+  @Test
+  public void partitionHandlesDependencyCycles() {
+    Map<String, List<String>> dependencies = ImmutableMap.of(
+      "a", ImmutableList.of("b"),
+      "b", ImmutableList.of("a"));
+
+    List<List<String>> groups =
+      LintBatchAnalyzer.partition(Arrays.asList("a", "b", "c"), item -> dependencies.getOrDefault(item, Collections.emptyList()));
+
+    assertThat(groups).containsExactly(ImmutableList.of("a", "b"), ImmutableList.of("c")).inOrder();
+  }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.apk.viewer.dex;
+
+import com.android.tools.apk.analyzer.dex.DexFileStats;
+import com.android.tools.apk.analyzer.dex.DexFiles;
+import com.android.tools.apk.analyzer.dex.DexReferences;
+import com.android.tools.apk.analyzer.dex.tree.DexElementNode;
+import com.android.tools.proguard.ProguardMap;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.ide.PooledThreadExecutor;
+import org.jf.dexlib2.dexbacked.DexBackedDexFile;
+import org.jf.dexlib2.iface.reference.Reference;
+
+/**
+ * Parsed dex files of an APK shown in a {@link DexFileViewer}, with the data derived from them.
+ * <p>
+ * Dex files are identified by the SHA-1 signature in their header, and parsed at most once while they are in use: rebuilding the
+ * class tree (e.g. when loading ProGuard mappings), showing the byte code of a class and finding references all use the same parsed
+ * files, also across viewers of the same APK. The inverted reference index used by {@link ShowReferencesAction} is built in the
+ * background as soon as the dex files are parsed, and the disassembled byte code is kept per class and method.
+ */
+final class DexFileIndex {
+  /** Parsed dex files, by signature, as long as they are referenced by an index */
+  private static final Cache<DexKey, DexBackedDexFile> ourDexFiles = CacheBuilder.newBuilder().softValues().build();
+  /** Reference indexes of the APKs, by the signatures of their dex files */
+  private static final Cache<List<DexKey>, DexReferences> ourReferences = CacheBuilder.newBuilder().softValues().build();
+
+  @NotNull private final Path[] myDexPaths;
+  @NotNull private final ListeningExecutorService myExecutor = MoreExecutors.listeningDecorator(PooledThreadExecutor.INSTANCE);
+  @NotNull private final ListenableFuture<List<DexKey>> myKeys;
+  @NotNull private final ListenableFuture<Map<Path, DexBackedDexFile>> myDexFiles;
+  @NotNull private final Map<ByteCodeKey, String> myByteCode = new ConcurrentHashMap<>();
+
+  private ListenableFuture<DexReferences> myReferences;
+  private ListenableFuture<DexFileStats> myStats;
+
+  DexFileIndex(@NotNull Path[] dexPaths) {
+    myDexPaths = dexPaths;
+    myKeys = myExecutor.submit(() -> {
+      ImmutableList.Builder<DexKey> keys = ImmutableList.builder();
+      for (Path path : myDexPaths) {
+        keys.add(DexKey.read(path));
+      }
+      return keys.build();
+    });
+    myDexFiles = Futures.transform(myKeys, keys -> {
+      Map<Path, DexBackedDexFile> dexFiles = Maps.newHashMapWithExpectedSize(myDexPaths.length);
+      for (int i = 0; i < myDexPaths.length; i++) {
+        Path path = myDexPaths[i];
+        dexFiles.put(path, get(ourDexFiles, keys.get(i), () -> DexFiles.getDexFile(path)));
+      }
+      return Collections.unmodifiableMap(dexFiles);
+    }, myExecutor);
+  }
+
+  @NotNull
+  ListenableFuture<Map<Path, DexBackedDexFile>> getDexFiles() {
+    return myDexFiles;
+  }
+
+  @NotNull
+  ListenableFuture<DexBackedDexFile> getDexFile(@NotNull Path path) {
+    return Futures.transform(myDexFiles, dexFiles -> {
+      DexBackedDexFile dexFile = dexFiles.get(path);
+      if (dexFile == null) {
+        throw new IllegalArgumentException(path + " is not one of the indexed dex files");
+      }
+      return dexFile;
+    }, MoreExecutors.directExecutor());
+  }
+
+  @NotNull
+  synchronized ListenableFuture<DexFileStats> getStats() {
+    if (myStats == null) {
+      myStats = Futures.transform(myDexFiles, dexFiles -> DexFileStats.create(dexFiles.values()), myExecutor);
+    }
+    return myStats;
+  }
+
+  /**
+   * Returns the inverted index of the references between the classes, methods and fields of all the dex files.
+   */
+  @NotNull
+  synchronized ListenableFuture<DexReferences> getReferences() {
+    if (myReferences == null) {
+      myReferences = Futures.transform(myDexFiles, dexFiles -> {
+        List<DexKey> keys = Futures.getUnchecked(myKeys);
+        return get(ourReferences, keys, () -> {
+          DexBackedDexFile[] files = new DexBackedDexFile[myDexPaths.length];
+          for (int i = 0; i < files.length; i++) {
+            files[i] = dexFiles.get(myDexPaths[i]);
+          }
+          return new DexReferences(files);
+        });
+      }, myExecutor);
+    }
+    return myReferences;
+  }
+
+  /**
+   * Returns the byte code of the given class or method node, disassembling it only the first time.
+   */
+  @NotNull
+  String getByteCode(@NotNull DexBackedDexFile dexFile,
+                     @NotNull Path dexPath,
+                     @NotNull DexElementNode node,
+                     @Nullable ProguardMap proguardMap) {
+    ByteCodeKey key = new ByteCodeKey(dexPath, node.getReference(), proguardMap);
+    return myByteCode.computeIfAbsent(key, k -> ShowDisassemblyAction.getByteCode(dexFile, node, proguardMap));
+  }
+
+  @NotNull
+  private static <K, V> V get(@NotNull Cache<K, V> cache, @NotNull K key, @NotNull Callable<V> loader) {
+    try {
+      return cache.get(key, loader);
+    }
+    catch (ExecutionException e) {
+      throw new UncheckedExecutionException(e.getCause());
+    }
+  }
+
+  /**
+   * Identifies the contents of a dex file by the SHA-1 signature stored in its header, like {@code DexFileDisassembler} does. The Adler-32
+   * checksum is too weak to tell different dex files of the same size apart.
+   */
+  private static final class DexKey {
+    private static final int SIGNATURE_OFFSET = 0x0C;
+    private static final int SIGNATURE_SIZE = 20;
+
+    @NotNull private final byte[] mySignature;
+
+    private DexKey(@NotNull byte[] signature) {
+      mySignature = signature;
+    }
+
+    @NotNull
+    static DexKey read(@NotNull Path path) throws IOException {
+      byte[] header = new byte[SIGNATURE_OFFSET + SIGNATURE_SIZE];
+      try (InputStream stream = Files.newInputStream(path)) {
+        int read = 0;
+        while (read < header.length) {
+          int count = stream.read(header, read, header.length - read);
+          if (count < 0) {
+            throw new IOException(path + " is not a dex file");
+          }
+          read += count;
+        }
+      }
+      return new DexKey(Arrays.copyOfRange(header, SIGNATURE_OFFSET, header.length));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof DexKey)) {
+        return false;
+      }
+      return Arrays.equals(mySignature, ((DexKey)o).mySignature);
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(mySignature);
+    }
+  }
+
+  private static final class ByteCodeKey {
+    @NotNull private final Path myDexPath;
+    @Nullable private final Reference myReference;
+    @Nullable private final ProguardMap myProguardMap;
+
+    private ByteCodeKey(@NotNull Path dexPath, @Nullable Reference reference, @Nullable ProguardMap proguardMap) {
+      myDexPath = dexPath;
+      myReference = reference;
+      myProguardMap = proguardMap;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof ByteCodeKey)) {
+        return false;
+      }
+      ByteCodeKey key = (ByteCodeKey)o;
+      // ProGuard maps are compared by identity, a new map is created every time the mappings are loaded
+      return myDexPath.equals(key.myDexPath) && Objects.equals(myReference, key.myReference) && myProguardMap == key.myProguardMap;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(myDexPath, myReference, System.identityHashCode(myProguardMap));
+    }
+  }
+}
@@ -28,7 +28,6 @@ import com.android.tools.proguard.ProguardSeedsMap;
 import com.android.tools.proguard.ProguardUsagesMap;
 import com.google.common.base.Charsets;
 import com.google.common.base.Function;
-import com.google.common.collect.Maps;
 import com.google.common.util.concurrent.*;
 import com.intellij.icons.AllIcons;
 import com.intellij.notification.NotificationGroup;
@@ -78,11 +77,11 @@ public class DexFileViewer implements ApkFileEditorComponent {
   @NotNull private final Project myProject;
   @NotNull private final VirtualFile myApkFolder;
   @NotNull private final DexViewFilters myDexFilters;
+  @NotNull private final DexFileIndex myDexFileIndex;
   private final DexTreeNodeRenderer myDexTreeRenderer;
 
   @Nullable private ProguardMappings myProguardMappings;
   private boolean myDeobfuscateNames;
-  private ListenableFuture<DexReferences> myDexReferences;
 
   @NotNull public static final NotificationGroup LOGGING_NOTIFICATION = NotificationGroup.logOnlyGroup("APK Analyzer (Info)");
   @NotNull public static final NotificationGroup BALLOON_NOTIFICATION = NotificationGroup.balloonGroup("APK Analyzer (Important)");
@@ -91,6 +90,7 @@ public class DexFileViewer implements ApkFileEditorComponent {
     myDexFiles = dexFiles;
     myProject = project;
     myApkFolder = apkFolder;
+    myDexFileIndex = new DexFileIndex(dexFiles);
 
     //noinspection Convert2Lambda // we need a new instance of this disposable every time, not just a lambda method
     //noinspection AnonymousInnerClassMayBeStatic
@@ -192,7 +192,7 @@ public class DexFileViewer implements ApkFileEditorComponent {
   @NotNull
   private ActionGroup createPopupActionGroup(@NotNull Tree tree) {
     final DefaultActionGroup group = new DefaultActionGroup();
-    group.add(new ShowDisassemblyAction(tree, () -> {
+    group.add(new ShowDisassemblyAction(tree, myDexFileIndex, () -> {
       if (myDeobfuscateNames && myProguardMappings != null) {
         return myProguardMappings.map;
       } else {
@@ -282,14 +282,9 @@ public class DexFileViewer implements ApkFileEditorComponent {
   }
 
   public void initDex() {
+    // The dex files are only parsed the first time, rebuilding the tree (e.g. with new ProGuard mappings) reuses them
     ListeningExecutorService pooledThreadExecutor = MoreExecutors.listeningDecorator(PooledThreadExecutor.INSTANCE);
-    ListenableFuture<Map<Path, DexBackedDexFile>> dexFileFuture = pooledThreadExecutor.submit(() -> {
-      Map<Path, DexBackedDexFile> dexFiles = Maps.newHashMapWithExpectedSize(myDexFiles.length);
-      for (int i = 0; i < myDexFiles.length; i++) {
-        dexFiles.put(myDexFiles[i], DexFiles.getDexFile(myDexFiles[i]));
-      }
-      return dexFiles;
-    });
+    ListenableFuture<Map<Path, DexBackedDexFile>> dexFileFuture = myDexFileIndex.getDexFiles();
 
     ListenableFuture<DexPackageNode> treeNodeFuture =
       Futures.transform(dexFileFuture, new Function<Map<Path, DexBackedDexFile>, DexPackageNode>() {
@@ -328,6 +323,9 @@ public class DexFileViewer implements ApkFileEditorComponent {
             });
           }
         });
+
+        // Build the reference index in the background, so finding references does not have to wait for it
+        myDexFileIndex.getReferences();
       }
 
       @Override
@@ -336,15 +334,7 @@ public class DexFileViewer implements ApkFileEditorComponent {
       }
     }, EdtExecutorService.getInstance());
 
-    ListenableFuture<DexFileStats> dexStatsFuture =
-      Futures.transform(dexFileFuture, new Function<Map<Path, DexBackedDexFile>, DexFileStats>() {
-        @NotNull
-        @Override
-        public DexFileStats apply(@Nullable Map<Path, DexBackedDexFile> input) {
-          assert input != null;
-          return DexFileStats.create(input.values());
-        }
-      }, pooledThreadExecutor);
+    ListenableFuture<DexFileStats> dexStatsFuture = myDexFileIndex.getStats();
 
     //this will never change for a given dex file, regardless of proguard mappings
     //so it doesn't make sense to recompute every time
@@ -400,25 +390,7 @@ public class DexFileViewer implements ApkFileEditorComponent {
 
   @Nullable
   ListenableFuture<DexReferences> getDexReferences() {
-    if (myDexReferences == null) {
-      ListeningExecutorService pooledThreadExecutor = MoreExecutors.listeningDecorator(PooledThreadExecutor.INSTANCE);
-      ListenableFuture<DexBackedDexFile[]> dexFileFuture = pooledThreadExecutor.submit(() -> {
-        DexBackedDexFile[] files = new DexBackedDexFile[myDexFiles.length];
-        for (int i = 0; i < files.length; i++) {
-          files[i] = DexFiles.getDexFile(myDexFiles[i]);
-        }
-        return files;
-      });
-      myDexReferences = Futures.transform(dexFileFuture, new Function<DexBackedDexFile[], DexReferences>() {
-        @Override
-        public DexReferences apply(@Nullable DexBackedDexFile[] inputs) {
-          assert inputs != null;
-          return new DexReferences(inputs);
-        }
-      }, pooledThreadExecutor);
-    }
-
-    return myDexReferences;
+    return myDexFileIndex.getReferences();
   }
 
   private static class DexTreeNodeRenderer extends ColoredTreeCellRenderer {
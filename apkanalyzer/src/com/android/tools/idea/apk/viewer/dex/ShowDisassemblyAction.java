@@ -16,7 +16,6 @@
 package com.android.tools.idea.apk.viewer.dex;
 
 import com.android.tools.apk.analyzer.dex.DexDisassembler;
-import com.android.tools.apk.analyzer.dex.DexFiles;
 import com.android.tools.apk.analyzer.dex.tree.DexClassNode;
 import com.android.tools.apk.analyzer.dex.tree.DexElementNode;
 import com.android.tools.apk.analyzer.dex.tree.DexMethodNode;
@@ -26,8 +25,6 @@ import com.google.common.base.Supplier;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
-import com.google.common.util.concurrent.ListeningExecutorService;
-import com.google.common.util.concurrent.MoreExecutors;
 import com.intellij.debugger.impl.DebuggerUtilsEx;
 import com.intellij.icons.AllIcons;
 import com.intellij.openapi.actionSystem.AnAction;
@@ -47,17 +44,18 @@ import java.nio.file.Path;
 import javax.swing.tree.TreePath;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import org.jetbrains.ide.PooledThreadExecutor;
 import org.jf.dexlib2.dexbacked.DexBackedDexFile;
 import org.jf.dexlib2.iface.reference.MethodReference;
 
 public class ShowDisassemblyAction extends AnAction implements DumbAware {
   @NotNull private final Tree myTree;
+  @NotNull private final DexFileIndex myDexFileIndex;
   @NotNull private final Supplier<ProguardMap> myProguardMapSupplier;
 
-  public ShowDisassemblyAction(@NotNull Tree tree, @NotNull Supplier<ProguardMap> proguardMapSupplier) {
+  ShowDisassemblyAction(@NotNull Tree tree, @NotNull DexFileIndex dexFileIndex, @NotNull Supplier<ProguardMap> proguardMapSupplier) {
     super("Show Bytecode", "Show Bytecode", AllIcons.Toolwindows.Documentation);
     myTree = tree;
+    myDexFileIndex = dexFileIndex;
     myProguardMapSupplier = proguardMapSupplier;
   }
 
@@ -109,9 +107,8 @@ public class ShowDisassemblyAction extends AnAction implements DumbAware {
 
     Project project = getEventProject(e);
     assert project != null;
-    ListeningExecutorService pooledThreadExecutor = MoreExecutors.listeningDecorator(PooledThreadExecutor.INSTANCE);
     Path dexPath = (Path)node.getUserObject();
-    ListenableFuture<DexBackedDexFile> dexFileFuture = pooledThreadExecutor.submit(() -> DexFiles.getDexFile(dexPath));
+    ListenableFuture<DexBackedDexFile> dexFileFuture = myDexFileIndex.getDexFile(dexPath);
     Futures.addCallback(dexFileFuture, new FutureCallback<DexBackedDexFile>() {
       @Override
       public void onSuccess(@Nullable DexBackedDexFile dexBackedDexFile) {
@@ -119,7 +116,7 @@ public class ShowDisassemblyAction extends AnAction implements DumbAware {
 
         String byteCode;
         try {
-          byteCode = getByteCode(dexBackedDexFile, node, myProguardMapSupplier.get());
+          byteCode = myDexFileIndex.getByteCode(dexBackedDexFile, dexPath, node, myProguardMapSupplier.get());
         } catch (Exception ex) {
           Messages.showErrorDialog(project, "Unable to get byte code: " + ex.getMessage(), "View Dex Bytecode");
           return;
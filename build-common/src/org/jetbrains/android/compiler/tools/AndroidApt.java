@@ -344,6 +344,7 @@ public final class AndroidApt {
                                                                                @NotNull String outputPath,
                                                                                @Nullable String configFilter,
                                                                                boolean debugMode,
+                                                                               boolean update,
                                                                                int versionCode,
                                                                                @Nullable String customManifestPackage,
                                                                                @Nullable String additionalParameters,
@@ -384,6 +385,11 @@ public final class AndroidApt {
 
     args.add("-f");
 
+    if (update) {
+      // Only the entries whose source files are newer than the ones in the existing package are compressed again
+      args.add("-u");
+    }
+
     if (platformToolsRevision < 0 || platformToolsRevision > 7) {
       args.add("--no-crunch");
     }
@@ -40,6 +40,16 @@ interface NlDiagnosticsRead {
    * Returns the last render image size in bytes
    */
   fun lastRenderImageSize(): Long
+
+  /**
+   * Returns the number of renders served from the render result cache
+   */
+  fun renderCacheHits(): Long
+
+  /**
+   * Returns the number of renders that could not be served from the render result cache
+   */
+  fun renderCacheMisses(): Long
 }
 
 /**
@@ -50,6 +60,11 @@ interface NlDiagnosticsWrite {
    * Record a render action with the time and the size of the generated image
    */
   fun recordRender(timeMs: Long, lastRenderSizeBytes: Long)
+
+  /**
+   * Record whether a render was served from the render result cache
+   */
+  fun recordRenderCacheLookup(hit: Boolean)
 }
 
 /**
@@ -61,22 +76,34 @@ object NopNlDiagnosticsImpl : NlDiagnosticsRead, NlDiagnosticsWrite {
   override fun renderTime(percentile: Int): Long = -1
   override fun recordRender(timeMs: Long, lastRenderSizeBytes: Long) {}
   override fun lastRenders(): List<Long> = emptyList()
+  override fun renderCacheHits(): Long = -1
+  override fun renderCacheMisses(): Long = -1
+  override fun recordRenderCacheLookup(hit: Boolean) {}
 }
 
 private class NlDiagnosticsImpl : NlDiagnosticsRead, NlDiagnosticsWrite {
   private val lastRenderTimes = EvictingQueue.create<Long>(100)
   private var lastRenderImageBytes = -1L
+  private var renderCacheHits = 0L
+  private var renderCacheMisses = 0L
 
   override fun lastRenders(): List<Long> = lastRenderTimes.toList()
 
   override fun lastRenderImageSize(): Long = lastRenderImageBytes
 
+  override fun renderCacheHits(): Long = renderCacheHits
+
+  override fun renderCacheMisses(): Long = renderCacheMisses
 
   override fun recordRender(timeMs: Long, lastRenderSizeBytes: Long) {
     lastRenderTimes.add(timeMs)
     lastRenderImageBytes = lastRenderSizeBytes
   }
 
+  override fun recordRenderCacheLookup(hit: Boolean) {
+    if (hit) renderCacheHits++ else renderCacheMisses++
+  }
+
   override fun renderTime(percentile: Int): Long = if (lastRenderTimes.size > 0)
     Quantiles.percentiles().index(percentile).compute(lastRenderTimes).toLong()
   else -1
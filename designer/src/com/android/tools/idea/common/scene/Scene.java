@@ -139,10 +139,11 @@ public class Scene implements SelectionListener, Disposable {
     mySceneManager = sceneManager;
 
     SelectionModel selectionModel = myDesignSurface.getSelectionModel();
-    myHoverListener = new SceneHitListener(selectionModel);
+    // The hover listeners run on every mouse move so they keep their hit regions while the display list does not change
+    myHoverListener = new SceneHitListener(selectionModel, true);
     myHitListener = new SceneHitListener(selectionModel);
     myFindListener = new SceneHitListener(selectionModel);
-    mySnapListener = new SceneHitListener(selectionModel);
+    mySnapListener = new SceneHitListener(selectionModel, true);
     selectionModel.addListener(this);
 
     myHoverListener.setTargetFilter(target -> {
@@ -358,6 +359,7 @@ public class Scene implements SelectionListener, Disposable {
 
   @Override
   public void selectionChanged(@NotNull SelectionModel model, @NotNull List<NlComponent> selection) {
+    invalidateHoverPickers();
     if (myRoot != null) {
       markSelection(myRoot, model);
     }
@@ -799,6 +801,7 @@ public class Scene implements SelectionListener, Disposable {
                         @JdkConstants.InputEventMask int modifiersEx) {
     myPressedMouseX = x;
     myPressedMouseY = y;
+    invalidateHoverPickers();
 
     mNeedsLayout = NO_LAYOUT;
     myLastMouseX = x;
@@ -960,6 +963,7 @@ public class Scene implements SelectionListener, Disposable {
                            @JdkConstants.InputEventMask int modifiersEx) {
     myLastMouseX = x;
     myLastMouseY = y;
+    invalidateHoverPickers();
 
     SceneComponent closestComponent = myHitListener.getClosestComponent();
     if (myHitTarget != null) {
@@ -1000,6 +1004,7 @@ public class Scene implements SelectionListener, Disposable {
   }
 
   public void mouseCancel() {
+    invalidateHoverPickers();
     if (myHitTarget != null) {
       myHitTarget.mouseCancel();
       myHitTarget.getComponent().setDragging(false);
@@ -1051,6 +1056,15 @@ public class Scene implements SelectionListener, Disposable {
     mNeedsLayout = type;
   }
 
+  /**
+   * Discards the hit regions kept by the hover listeners. Needed when the state of the targets changes without a display list change,
+   * like when a mouse interaction starts or ends or when the selection changes.
+   */
+  private void invalidateHoverPickers() {
+    myHoverListener.invalidatePicker();
+    mySnapListener.invalidatePicker();
+  }
+
   public long getDisplayListVersion() {
     return myDisplayListVersion;
   }
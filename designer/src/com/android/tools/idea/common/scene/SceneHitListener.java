@@ -15,6 +15,7 @@
  */
 package com.android.tools.idea.common.scene;
 
+import com.android.tools.adtui.common.SwingCoordinate;
 import com.android.tools.idea.common.model.AndroidDpCoordinate;
 import com.android.tools.idea.common.model.NlComponent;
 import com.android.tools.idea.common.model.SelectionModel;
@@ -41,8 +42,26 @@ class SceneHitListener {
   @NotNull final ArrayList<Target> myHitTargets = new ArrayList<>();
   private Predicate<Target> myTargertFilter = it -> true;
 
+  private final boolean myReusePicker;
+  @Nullable private SceneComponent myPickerRoot;
+  @Nullable private SceneContext myPickerContext;
+  private long myPickerVersion = -1;
+  private double myPickerScale;
+  @SwingCoordinate private int myPickerOriginX;
+  @SwingCoordinate private int myPickerOriginY;
+
   public SceneHitListener(@NotNull SelectionModel selectionModel) {
+    this(selectionModel, false);
+  }
+
+  /**
+   * @param reusePicker if true, the hit regions added to the {@link ScenePicker} are kept between {@link #find} calls as long as the root,
+   *                    the transform and the {@link Scene#getDisplayListVersion()} do not change. This avoids rebuilding the picker on
+   *                    every mouse move.
+   */
+  public SceneHitListener(@NotNull SelectionModel selectionModel, boolean reusePicker) {
     mySelectionModel = selectionModel;
+    myReusePicker = reusePicker;
     myPicker.setSelectListener((a, b) -> over(a, b));
   }
 
@@ -58,11 +77,40 @@ class SceneHitListener {
     myHitTargets.clear();
     myClosestComponentDistance = Double.MAX_VALUE;
     myClosestTargetDistance = Double.MAX_VALUE;
-    myPicker.reset();
-    root.addHit(transform, myPicker);
+    if (!canReusePicker(transform, root)) {
+      myPicker.reset();
+      root.addHit(transform, myPicker);
+      myPickerRoot = root;
+      myPickerContext = transform;
+      myPickerVersion = root.getScene().getDisplayListVersion();
+      myPickerScale = transform.getScale();
+      myPickerOriginX = transform.getSwingXDip(0);
+      myPickerOriginY = transform.getSwingYDip(0);
+    }
     myPicker.find(transform.getSwingXDip(x), transform.getSwingYDip(y));
   }
 
+  @SuppressWarnings("FloatingPointEquality")  // The scale is only compared with a previously stored value
+  private boolean canReusePicker(@NotNull SceneContext transform, @NotNull SceneComponent root) {
+    return myReusePicker &&
+           myPickerRoot == root &&
+           myPickerContext == transform &&
+           myPickerVersion == root.getScene().getDisplayListVersion() &&
+           myPickerScale == transform.getScale() &&
+           myPickerOriginX == transform.getSwingXDip(0) &&
+           myPickerOriginY == transform.getSwingYDip(0);
+  }
+
+  /**
+   * Forces the next {@link #find} call to rebuild the hit regions. Used when the state of the targets changes without a display list
+   * change (e.g. when a mouse interaction starts or ends).
+   */
+  public void invalidatePicker() {
+    myPickerVersion = -1;
+    myPickerRoot = null;
+    myPickerContext = null;
+  }
+
   @SuppressWarnings("FloatingPointEquality")  // The values are directly assigned with no math, so this should be fine.
   public void over(Object over, double dist) {
     if (over instanceof Target) {
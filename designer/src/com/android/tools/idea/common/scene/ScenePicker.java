@@ -15,11 +15,16 @@
  */
 package com.android.tools.idea.common.scene;
 
+import gnu.trove.TIntArrayList;
+import gnu.trove.TLongObjectHashMap;
 import java.util.Arrays;
 import java.util.function.Consumer;
 
 /**
- * This class provides efficient detection of many objects
+ * This class provides efficient detection of many objects.
+ * <p>
+ * The bounding rectangles of the objects are indexed in a uniform grid so {@link #find(int, int)} only tests the objects whose
+ * bounds overlap the grid cell containing the point. The grid is updated incrementally as objects are added.
  */
 public class ScenePicker {
   private final static int MAX_DATA_SIZE = 10;
@@ -33,6 +38,15 @@ public class ScenePicker {
   private Object[] mObjects = new Object[INITAL_OBJECT_STORE];
   HitElementListener mHitElementListener;
 
+  /** Size, in swing pixels, of the cells of the spatial index */
+  private final static int GRID_CELL_SIZE = 64;
+  /** Objects covering more cells than this are not indexed and always tested. Usually the big container components. */
+  private final static int MAX_INDEXED_CELLS = 64;
+  /** Grid cell key to the indexes of the objects overlapping that cell, in insertion order */
+  private final TLongObjectHashMap<TIntArrayList> mGrid = new TLongObjectHashMap<>();
+  /** Indexes of the objects too large to be indexed, in insertion order */
+  private final TIntArrayList mUnindexedObjects = new TIntArrayList();
+
   private int mObjectCount = 0;
   private final static int OBJECT_LINE = 0;
   private final static int OBJECT_POINT = 1;
@@ -70,17 +84,74 @@ public class ScenePicker {
    * @param y location y
    */
   public void find(int x, int y) {
-    for (int i = 0; i < mObjectCount; i++) {
-      int p = i * 4;
-      int x1 = mRect[p++];
-      int y1 = mRect[p++];
-      int x2 = mRect[p++];
-      int y2 = mRect[p];
-      if (inRect(x, y, x1, y1, x2, y2)) {
-        SelectionEngine selector = myEngines[mTypes[i]];
-        if (selector.inRange(i, x, y)) {
-          mHitElementListener.over(mObjects[i], selector.distance());
+    TIntArrayList cell = mGrid.get(cellKey(Math.floorDiv(x, GRID_CELL_SIZE), Math.floorDiv(y, GRID_CELL_SIZE)));
+    int cellCount = cell != null ? cell.size() : 0;
+    int unindexedCount = mUnindexedObjects.size();
+
+    // Merge both candidate lists so the listener is notified in the same order the objects were added
+    int cellPos = 0;
+    int unindexedPos = 0;
+    while (cellPos < cellCount || unindexedPos < unindexedCount) {
+      int i;
+      if (unindexedPos >= unindexedCount || (cellPos < cellCount && cell.getQuick(cellPos) < mUnindexedObjects.getQuick(unindexedPos))) {
+        i = cell.getQuick(cellPos++);
+      }
+      else {
+        i = mUnindexedObjects.getQuick(unindexedPos++);
+      }
+      testObject(i, x, y);
+    }
+  }
+
+  private void testObject(int i, int x, int y) {
+    int p = i * 4;
+    int x1 = mRect[p++];
+    int y1 = mRect[p++];
+    int x2 = mRect[p++];
+    int y2 = mRect[p];
+    if (inRect(x, y, x1, y1, x2, y2)) {
+      SelectionEngine selector = myEngines[mTypes[i]];
+      if (selector.inRange(i, x, y)) {
+        mHitElementListener.over(mObjects[i], selector.distance());
+      }
+    }
+  }
+
+  /**
+   * Returns the number of objects currently added to the picker
+   */
+  public int getObjectCount() {
+    return mObjectCount;
+  }
+
+  private static long cellKey(int cellX, int cellY) {
+    return ((long)cellX << 32) | (cellY & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Adds the object with the given index to the spatial index using the bounding rectangle stored in {@link #mRect}
+   */
+  private void indexObject(int object) {
+    int p = object * 4;
+    int cellX1 = Math.floorDiv(mRect[p], GRID_CELL_SIZE);
+    int cellY1 = Math.floorDiv(mRect[p + 1], GRID_CELL_SIZE);
+    int cellX2 = Math.floorDiv(mRect[p + 2], GRID_CELL_SIZE);
+    int cellY2 = Math.floorDiv(mRect[p + 3], GRID_CELL_SIZE);
+
+    if ((long)(cellX2 - cellX1 + 1) * (cellY2 - cellY1 + 1) > MAX_INDEXED_CELLS) {
+      mUnindexedObjects.add(object);
+      return;
+    }
+
+    for (int cellX = cellX1; cellX <= cellX2; cellX++) {
+      for (int cellY = cellY1; cellY <= cellY2; cellY++) {
+        long key = cellKey(cellX, cellY);
+        TIntArrayList cell = mGrid.get(key);
+        if (cell == null) {
+          cell = new TIntArrayList();
+          mGrid.put(key, cell);
         }
+        cell.add(object);
       }
     }
   }
@@ -125,6 +196,8 @@ public class ScenePicker {
     mObjectCount = 0;
     mObjectDataUsed = 0;
     Arrays.fill(mObjects, null);// delete references
+    mGrid.clear();
+    mUnindexedObjects.clear();
   }
 
   /**
@@ -234,6 +307,7 @@ public class ScenePicker {
       mRect[off++] = y1;
       mRect[off++] = x2;
       mRect[off] = y2;
+      indexObject(mObjectCount);
     }
 
     boolean inRange(int object, int x, int y) {
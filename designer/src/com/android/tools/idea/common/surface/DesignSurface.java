@@ -427,6 +427,23 @@ public abstract class DesignSurface extends EditorDesignSurface implements Dispo
       }, EdtExecutorService.getInstance());
   }
 
+  /**
+   * Add an {@link NlModel} to DesignSurface without rendering it. This allows callers with many models to decide which ones to render
+   * and when, by calling {@link SceneManager#requestRender()} on the returned {@link SceneManager}.
+   * If the model was already part of the surface, the existing {@link SceneManager} is returned.
+   *
+   * @param model the added {@link NlModel}
+   */
+  @NotNull
+  public SceneManager addModelWithoutRender(@NotNull NlModel model) {
+    SceneManager manager = addModelImpl(model);
+    reactivateInteractionManager();
+    for (DesignSurfaceListener listener : ImmutableList.copyOf(myListeners)) {
+      listener.modelChanged(this, model);
+    }
+    return manager;
+  }
+
   /**
    * Remove an {@link NlModel} from DesignSurface. If it had not been added before then nothing happens.
    *
@@ -45,6 +45,7 @@ import com.android.tools.idea.common.surface.SceneView;
 import com.android.tools.idea.common.type.DesignerEditorFileType;
 import com.android.tools.idea.configurations.Configuration;
 import com.android.tools.idea.configurations.ConfigurationListener;
+import com.android.tools.idea.flags.StudioFlags;
 import com.android.tools.idea.rendering.Locale;
 import com.android.tools.idea.rendering.RenderResult;
 import com.android.tools.idea.rendering.RenderService;
@@ -84,12 +85,14 @@ import com.intellij.util.ui.UIUtil;
 import com.intellij.util.ui.update.MergingUpdateQueue;
 import com.intellij.util.ui.update.Update;
 import java.awt.Rectangle;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
@@ -147,8 +150,17 @@ public class LayoutlibSceneManager extends SceneManager {
   private String myPreviousTheme;
   @AndroidCoordinate private static final int VISUAL_EMPTY_COMPONENT_SIZE = 1;
   private long myElapsedFrameTimeMs = -1;
+  @Nullable private Float myQualityOverride = null;
+  /** The quality override applied to {@link #myRenderTask}, null if it uses the default quality. Guarded by {@link #myRenderingTaskLock}. */
+  @Nullable private Float myAppliedQualityOverride = null;
   private final LinkedList<CompletableFuture<Void>> myRenderFutures = new LinkedList<>();
   private final Semaphore myUpdateHierarchyLock = new Semaphore(1);
+  /** Snapshot of the {@link NlComponent} hierarchy taken after the last hierarchy update. Guarded by {@link #myUpdateHierarchyLock}. */
+  @Nullable private SceneHierarchyDiff.Snapshot myLastHierarchySnapshot;
+  private final Object myPendingHierarchyDiffLock = new Object();
+  /** Changes in the {@link NlComponent} hierarchy not yet applied to the Scene. A null value means the Scene is up to date. */
+  @GuardedBy("myPendingHierarchyDiffLock")
+  @Nullable private SceneHierarchyDiff myPendingHierarchyDiff;
   @NotNull private final ViewEditor myViewEditor;
   private final ListenerCollection<RenderListener> myRenderListeners = ListenerCollection.createWithDirectExecutor();
   /**
@@ -440,6 +452,7 @@ public class LayoutlibSceneManager extends SceneManager {
 
     @Override
     public void modelChanged(@NotNull NlModel model) {
+      markHierarchyChanged();
       requestModelUpdate();
       ApplicationManager.getApplication().invokeLater(() -> {
         if (!Disposer.isDisposed(LayoutlibSceneManager.this)) {
@@ -455,7 +468,7 @@ public class LayoutlibSceneManager extends SceneManager {
         if (!Disposer.isDisposed(LayoutlibSceneManager.this)) {
           boolean previous = getScene().isAnimated();
           getScene().setAnimated(animate);
-          update();
+          updateFromLayout();
           getScene().setAnimated(previous);
         }
       });
@@ -463,6 +476,11 @@ public class LayoutlibSceneManager extends SceneManager {
 
     @Override
     public void modelActivated(@NotNull NlModel model) {
+      if (myRenderedVersion == null) {
+        // The model has never been inflated: its first render is requested by whoever added it to the surface, e.g. only once it is
+        // visible for the models added with DesignSurface#addModelWithoutRender.
+        return;
+      }
       ResourceNotificationManager manager = ResourceNotificationManager.getInstance(getModel().getProject());
       ResourceNotificationManager.ResourceVersion version =
         manager.getCurrentVersion(getModel().getFacet(), getModel().getFile(), getModel().getConfiguration());
@@ -553,6 +571,7 @@ public class LayoutlibSceneManager extends SceneManager {
         if (myDpi != newDpi) {
           myDpi = newDpi;
           // Update from the model to update the dpi
+          markHierarchyChanged();
           LayoutlibSceneManager.this.update();
         }
       }
@@ -746,6 +765,7 @@ public class LayoutlibSceneManager extends SceneManager {
         else {
           updateHierarchy(getRootViews(result), getModel());
         }
+        recordHierarchyDiff();
       } finally {
         myUpdateHierarchyLock.release();
       }
@@ -755,6 +775,93 @@ public class LayoutlibSceneManager extends SceneManager {
     }
   }
 
+  /**
+   * Takes a new snapshot of the {@link NlComponent} hierarchy and adds the differences with the previous one to the pending diff.
+   * This runs on the render thread so the UI thread only needs to apply the changes, see {@link #updateFromLayout()}.
+   */
+  @GuardedBy("myUpdateHierarchyLock")
+  private void recordHierarchyDiff() {
+    List<NlComponent> components = getModel().getComponents();
+    SceneHierarchyDiff.Snapshot snapshot = SceneHierarchyDiff.Snapshot.create(components.isEmpty() ? null : components.get(0).getRoot());
+    SceneHierarchyDiff diff = SceneHierarchyDiff.compute(myLastHierarchySnapshot, snapshot);
+    myLastHierarchySnapshot = snapshot;
+    synchronized (myPendingHierarchyDiffLock) {
+      myPendingHierarchyDiff = diff.merge(myPendingHierarchyDiff);
+    }
+  }
+
+  /**
+   * Forces the next {@link #updateFromLayout()} to rebuild the whole Scene.
+   */
+  private void markHierarchyChanged() {
+    synchronized (myPendingHierarchyDiffLock) {
+      myPendingHierarchyDiff = SceneHierarchyDiff.STRUCTURE_CHANGED;
+    }
+  }
+
+  @Override
+  public void update() {
+    synchronized (myPendingHierarchyDiffLock) {
+      // The full update will pick any pending change
+      myPendingHierarchyDiff = null;
+    }
+    super.update();
+  }
+
+  /**
+   * Updates the Scene after a layout or a render. If only the bounds of some components have changed since the last update, only
+   * the corresponding {@link SceneComponent}s are updated (and animated). Otherwise, this falls back to {@link #update()}.
+   * This method needs to be called in the dispatch thread.
+   */
+  private void updateFromLayout() {
+    SceneHierarchyDiff diff;
+    synchronized (myPendingHierarchyDiffLock) {
+      diff = myPendingHierarchyDiff;
+    }
+    if (diff == null || diff.isStructureChanged() || !updateChangedComponents(diff.getChangedComponents())) {
+      update();
+      return;
+    }
+
+    synchronized (myPendingHierarchyDiffLock) {
+      // If new changes were recorded while applying this diff, they will be applied by the next update
+      if (myPendingHierarchyDiff == diff) {
+        myPendingHierarchyDiff = null;
+      }
+    }
+  }
+
+  /**
+   * Updates the {@link SceneComponent}s of the given {@link NlComponent}s. Returns false if the Scene does not match the
+   * hierarchy anymore and needs a full update.
+   */
+  private boolean updateChangedComponents(@NotNull Set<NlComponent> changedComponents) {
+    Scene scene = getScene();
+    List<NlComponent> components = getModel().getComponents();
+    SceneComponent root = scene.getRoot();
+    if (components.isEmpty() || root == null || root.getNlComponent() != getRoot()) {
+      return false;
+    }
+
+    List<SceneComponent> sceneComponents = new ArrayList<>(changedComponents.size());
+    for (NlComponent component : changedComponents) {
+      SceneComponent sceneComponent = scene.getSceneComponent(component);
+      if (sceneComponent == null) {
+        return false;
+      }
+      sceneComponents.add(sceneComponent);
+    }
+
+    for (SceneComponent sceneComponent : sceneComponents) {
+      updateFromComponent(sceneComponent);
+      postUpdateFromComponent(sceneComponent);
+    }
+    if (!sceneComponents.isEmpty()) {
+      scene.needsRebuildList();
+    }
+    return true;
+  }
+
   @NotNull
   private List<ViewInfo> getRootViews(@NotNull RenderResult result) {
     return getModel().getType() == MenuFileType.INSTANCE ? result.getSystemRootViews() : result.getRootViews();
@@ -840,6 +947,7 @@ public class LayoutlibSceneManager extends SceneManager {
                   myRenderTask.dispose();
                 }
                 myRenderTask = newTask;
+                myAppliedQualityOverride = null;
               }
             }
           })
@@ -986,6 +1094,9 @@ public class LayoutlibSceneManager extends SceneManager {
             long renderTimeMs = System.currentTimeMillis() - renderStartTimeMs;
             NlDiagnosticsManager.getWriteInstance(surface).recordRender(renderTimeMs,
                                                                         myRenderResult.getRenderedImage().getWidth() * myRenderResult.getRenderedImage().getHeight() * 4);
+            if (StudioFlags.NELE_RENDER_CACHE.get()) {
+              NlDiagnosticsManager.getWriteInstance(surface).recordRenderCacheLookup(myRenderResult.isFromCache());
+            }
             CommonUsageTracker.Companion.getInstance(surface).logRenderResult(trigger, myRenderResult, renderTimeMs);
           }
           finally {
@@ -994,7 +1105,7 @@ public class LayoutlibSceneManager extends SceneManager {
 
           UIUtil.invokeLaterIfNeeded(() -> {
             if (!Disposer.isDisposed(this)) {
-              update();
+              updateFromLayout();
             }
           });
           fireRenderListeners();
@@ -1046,6 +1157,17 @@ public class LayoutlibSceneManager extends SceneManager {
           if (elapsedFrameTimeMs != -1) {
             myRenderTask.setElapsedFrameTimeNanos(TimeUnit.MILLISECONDS.toNanos(elapsedFrameTimeMs));
           }
+          // Changing the quality re-creates the image factory of the task, so only do it when the override changes
+          Float qualityOverride = myQualityOverride;
+          if (!Objects.equals(qualityOverride, myAppliedQualityOverride)) {
+            if (qualityOverride != null) {
+              myRenderTask.setQuality(qualityOverride);
+            }
+            else {
+              myRenderTask.restoreDefaultQuality();
+            }
+            myAppliedQualityOverride = qualityOverride;
+          }
           return myRenderTask.render().thenApply(result -> {
             // When the layout was inflated in this same call, we do not have to update the hierarchy again
             if (result != null && !inflated) {
@@ -1062,6 +1184,16 @@ public class LayoutlibSceneManager extends SceneManager {
     myElapsedFrameTimeMs = ms;
   }
 
+  /**
+   * Overrides the quality used by the following renders. See {@link RenderTask#setQuality(float)}. This allows producing a cheaper,
+   * low resolution, render first and a full quality one afterwards.
+   *
+   * @param quality the quality to use or null to use the one from the {@link RenderSettings}
+   */
+  public void setQualityOverride(@Nullable Float quality) {
+    myQualityOverride = quality;
+  }
+
   /**
    * Updates the saved values that are used to log user changes to the configuration toolbar.
    */
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.uibuilder.scene;
+
+import com.android.tools.idea.common.model.NlComponent;
+import com.android.tools.idea.uibuilder.model.NlComponentHelperKt;
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Difference between two {@link Snapshot}s of an {@link NlComponent} hierarchy.
+ * <p/>
+ * The diff is computed on the render thread, right after the {@link NlComponent}s have been updated from the layoutlib view hierarchy,
+ * so the UI thread only needs to update the {@link com.android.tools.idea.common.scene.SceneComponent}s whose bounds have changed
+ * instead of rebuilding the whole Scene. If the structure of the hierarchy has changed (components added, removed or moved), the
+ * diff is marked as structural and the Scene has to be rebuilt.
+ */
+final class SceneHierarchyDiff {
+  /**
+   * Diff that requires a full rebuild of the Scene.
+   */
+  static final SceneHierarchyDiff STRUCTURE_CHANGED = new SceneHierarchyDiff(true, ImmutableSet.of());
+
+  private final boolean myStructureChanged;
+  @NotNull private final Set<NlComponent> myChangedComponents;
+
+  private SceneHierarchyDiff(boolean structureChanged, @NotNull Set<NlComponent> changedComponents) {
+    myStructureChanged = structureChanged;
+    myChangedComponents = changedComponents;
+  }
+
+  /**
+   * Returns true if components were added, removed or moved between the two snapshots.
+   */
+  boolean isStructureChanged() {
+    return myStructureChanged;
+  }
+
+  /**
+   * Returns the components whose bounds have changed. Only meaningful when {@link #isStructureChanged()} is false.
+   */
+  @NotNull
+  Set<NlComponent> getChangedComponents() {
+    return myChangedComponents;
+  }
+
+  /**
+   * Returns a diff that contains the changes of this diff and the given one.
+   */
+  @NotNull
+  SceneHierarchyDiff merge(@Nullable SceneHierarchyDiff other) {
+    if (other == null || other.myChangedComponents.isEmpty() && !other.myStructureChanged) {
+      return this;
+    }
+    if (myStructureChanged || other.myStructureChanged) {
+      return STRUCTURE_CHANGED;
+    }
+    Set<NlComponent> changed = Collections.newSetFromMap(new IdentityHashMap<>());
+    changed.addAll(myChangedComponents);
+    changed.addAll(other.myChangedComponents);
+    return new SceneHierarchyDiff(false, changed);
+  }
+
+  /**
+   * Computes the difference between two snapshots. If there is no previous snapshot, the diff is structural.
+   */
+  @NotNull
+  static SceneHierarchyDiff compute(@Nullable Snapshot previous, @NotNull Snapshot current) {
+    if (previous == null || previous.myRoot != current.myRoot || previous.myNodes.size() != current.myNodes.size()) {
+      return STRUCTURE_CHANGED;
+    }
+
+    Set<NlComponent> changed = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (Map.Entry<NlComponent, Node> entry : current.myNodes.entrySet()) {
+      Node previousNode = previous.myNodes.get(entry.getKey());
+      Node currentNode = entry.getValue();
+      if (previousNode == null || !previousNode.hasSameStructure(currentNode)) {
+        return STRUCTURE_CHANGED;
+      }
+      if (!previousNode.hasSameBounds(currentNode)) {
+        changed.add(entry.getKey());
+      }
+    }
+    return new SceneHierarchyDiff(false, changed);
+  }
+
+  /**
+   * Immutable copy of the structure and bounds of an {@link NlComponent} hierarchy.
+   */
+  static final class Snapshot {
+    @Nullable private final NlComponent myRoot;
+    @NotNull private final Map<NlComponent, Node> myNodes;
+
+    private Snapshot(@Nullable NlComponent root, @NotNull Map<NlComponent, Node> nodes) {
+      myRoot = root;
+      myNodes = nodes;
+    }
+
+    @NotNull
+    static Snapshot create(@Nullable NlComponent root) {
+      Map<NlComponent, Node> nodes = new IdentityHashMap<>();
+      if (root != null) {
+        Deque<NlComponent> pending = new ArrayDeque<>();
+        pending.add(root);
+        while (!pending.isEmpty()) {
+          NlComponent component = pending.poll();
+          List<NlComponent> children = component.getChildren();
+          nodes.put(component, new Node(component.getParent(),
+                                        children,
+                                        NlComponentHelperKt.getX(component),
+                                        NlComponentHelperKt.getY(component),
+                                        NlComponentHelperKt.getW(component),
+                                        NlComponentHelperKt.getH(component)));
+          pending.addAll(children);
+        }
+      }
+      return new Snapshot(root, nodes);
+    }
+  }
+
+  private static final class Node {
+    @Nullable private final NlComponent myParent;
+    @NotNull private final List<NlComponent> myChildren;
+    private final int myX;
+    private final int myY;
+    private final int myW;
+    private final int myH;
+
+    private Node(@Nullable NlComponent parent, @NotNull List<NlComponent> children, int x, int y, int w, int h) {
+      myParent = parent;
+      myChildren = children;
+      myX = x;
+      myY = y;
+      myW = w;
+      myH = h;
+    }
+
+    private boolean hasSameStructure(@NotNull Node other) {
+      if (myParent != other.myParent || myChildren.size() != other.myChildren.size()) {
+        return false;
+      }
+      for (int i = 0; i < myChildren.size(); i++) {
+        if (myChildren.get(i) != other.myChildren.get(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private boolean hasSameBounds(@NotNull Node other) {
+      return myX == other.myX && myY == other.myY && myW == other.myW && myH == other.myH;
+    }
+  }
+}
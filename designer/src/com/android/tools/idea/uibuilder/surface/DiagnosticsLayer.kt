@@ -64,6 +64,7 @@ class DiagnosticsLayer(val surface: DesignSurface) : Layer() {
     val freeMemPct = runtime.freeMemory().toDouble() / runtime.totalMemory() * 100
     val lastRenderMs = diagnostics.lastRenders().takeLast(1).firstOrNull() ?: -1
     val poolStats = RenderService.getInstance(surface.project).sharedImagePool.stats
+    val cacheStats = RenderService.getInstance(surface.project).renderResultCache.stats
 
     return """
       |General
@@ -75,6 +76,13 @@ class DiagnosticsLayer(val surface: DesignSurface) : Layer() {
       | Allocated     ${(poolStats?.totalBytesAllocated() ?: -1) / MB}MB
       | In use        ${(poolStats?.totalBytesInUse() ?: -1)  / MB}MB
       | Free          ${((poolStats?.totalBytesAllocated() ?: -1) - (poolStats?.totalBytesInUse() ?: 0)) / MB}MB
+      | Alloc/reuse   ${poolStats?.allocationCount() ?: -1}/${poolStats?.reuseCount() ?: -1}
+      | Evictions     ${poolStats?.evictionCount() ?: -1}
+      |
+      |Render cache
+      | Hits/misses   ${diagnostics.renderCacheHits()}/${diagnostics.renderCacheMisses()}
+      | Memory        ${cacheStats.memoryHits()} hits ${cacheStats.memoryBytes() / MB}MB
+      | Disk          ${cacheStats.diskHits()} hits ${cacheStats.diskBytes() / MB}MB
     """.trimMargin()
   }
 
@@ -29,13 +29,16 @@ import com.android.tools.adtui.workbench.WorkBench;
 import com.android.tools.idea.common.error.IssuePanelSplitter;
 import com.android.tools.idea.common.model.NlComponent;
 import com.android.tools.idea.common.model.NlModel;
+import com.android.tools.idea.common.scene.SceneManager;
 import com.android.tools.idea.common.surface.DesignSurface;
+import com.android.tools.idea.common.surface.SceneView;
 import com.android.tools.idea.configurations.Configuration;
 import com.android.tools.idea.configurations.ConfigurationManager;
 import com.android.tools.idea.res.ResourceHelper;
 import com.android.tools.idea.startup.ClearResourceCacheAfterFirstBuild;
 import com.android.tools.idea.uibuilder.analytics.NlAnalyticsManager;
 import com.android.tools.idea.uibuilder.editor.NlPreviewForm;
+import com.android.tools.idea.uibuilder.scene.LayoutlibSceneManager;
 import com.android.tools.idea.uibuilder.surface.GridSurfaceLayoutManager;
 import com.android.tools.idea.uibuilder.surface.NlDesignSurface;
 import com.android.tools.idea.uibuilder.surface.SceneMode;
@@ -63,8 +66,11 @@ import com.intellij.util.concurrency.EdtExecutorService;
 import com.intellij.util.ui.EmptyIcon;
 import java.awt.BorderLayout;
 import java.awt.Dimension;
+import java.awt.Rectangle;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
@@ -104,6 +110,12 @@ public class VisualizationForm implements Disposable {
   private static final List<String> DEVICES_TO_DISPLAY =
     ImmutableList.of("Pixel 3", "Pixel 3 XL", "Pixel 3a", "Pixel 3a XL", "Pixel 2", "Pixel 2 XL", "Pixel", "Pixel XL", "Pixel C");
 
+  /**
+   * Quality used for the first render of every preview. A low resolution image is displayed quickly and then replaced by the full
+   * quality one.
+   */
+  private static final float THUMBNAIL_QUALITY = 0f;
+
   private final VisualizationManager myManager;
   private final Project myProject;
   private final NlDesignSurface mySurface;
@@ -114,10 +126,13 @@ public class VisualizationForm implements Disposable {
   private JComponent myContentPanel;
   private JLabel myFileNameLabel;
 
-  @Nullable private Runnable myCancelPreviousAddModelsRequestTask = null;
-
   @Nullable private List<NlModel> myModels = null;
 
+  /**
+   * Models of {@link #myModels} whose render has already been requested. Only the previews visible in the viewport are rendered.
+   */
+  private final Set<NlModel> myRequestedModels = new HashSet<>();
+
   /**
    * Contains the editor that is currently being loaded.
    * Once the file is loaded, myPendingEditor will be null.
@@ -147,6 +162,8 @@ public class VisualizationForm implements Disposable {
     Disposer.register(this, mySurface);
     mySurface.setCentered(true);
     mySurface.setName(VISUALIZATION_DESIGN_SURFACE);
+    // Previews that become visible when scrolling or zooming are rendered on demand
+    mySurface.getScrollPane().getViewport().addChangeListener(e -> renderVisibleModels());
 
     myWorkBench = new WorkBench<>(myProject, "Visualization", null, this);
     myWorkBench.setLoadingText(CommonBundle.getLoadingTreeNodeText());
@@ -212,6 +229,7 @@ public class VisualizationForm implements Disposable {
 
   private void removeAndDisposeModels(@NotNull List<NlModel> models) {
     for (NlModel model : models) {
+      myRequestedModels.remove(model);
       model.deactivate(this);
       mySurface.removeModel(model);
       Disposer.dispose(model);
@@ -290,11 +308,6 @@ public class VisualizationForm implements Disposable {
   private void initNeleModelWhenSmart() {
     setNoActiveModel();
 
-    if (myCancelPreviousAddModelsRequestTask != null) {
-      myCancelPreviousAddModelsRequestTask.run();
-      myCancelPreviousAddModelsRequestTask = null;
-    }
-
     if (myFile == null) {
       return;
     }
@@ -349,38 +362,73 @@ public class VisualizationForm implements Disposable {
           return;
         }
 
-        if (myCancelPreviousAddModelsRequestTask != null) {
-          myCancelPreviousAddModelsRequestTask.run();
+        // The models are added without rendering them. Once the layout of the surface is known, only the previews visible in the
+        // viewport are rendered, see renderVisibleModels.
+        for (NlModel model : models) {
+          mySurface.addModelWithoutRender(model);
         }
 
-        AtomicBoolean isAddingModelCanceled = new AtomicBoolean(false);
-        // We want to add model sequentially so we can interrupt them if needed.
-        // When adding a model the render request is triggered. Stop adding remaining models avoids unnecessary render requests.
-        CompletableFuture<Void> addModelFuture = CompletableFuture.completedFuture(null);
-        for (NlModel model : models) {
-          addModelFuture = addModelFuture.thenCompose(it -> {
-            if (isAddingModelCanceled.get()) {
-              return CompletableFuture.completedFuture(null);
-            }
-            else {
-              return mySurface.addModel(model, false);
-            }
-          });
+        if (!isRequestCancelled.get() && !facet.isDisposed()) {
+          activeModels(models);
+          mySurface.setScale(0.25 / mySurface.getScreenScalingFactor());
+          myWorkBench.showContent();
+          renderVisibleModels();
+        }
+        else {
+          removeAndDisposeModels(models);
         }
+      }, EdtExecutorService.getInstance());
+  }
+
+  /**
+   * Requests the render of the previews that are visible in the viewport and have not been rendered yet. The previews are first
+   * rendered with {@link #THUMBNAIL_QUALITY} so all the visible previews appear quickly, and then re-rendered with the default quality.
+   */
+  @UiThread
+  private void renderVisibleModels() {
+    List<NlModel> models = myModels;
+    if (models == null || models.isEmpty()) {
+      return;
+    }
 
-        myCancelPreviousAddModelsRequestTask = () -> isAddingModelCanceled.set(true);
+    Rectangle viewRect = mySurface.getScrollPane().getViewport().getViewRect();
+    List<LayoutlibSceneManager> managers = new ArrayList<>();
+    for (NlModel model : models) {
+      if (myRequestedModels.contains(model)) {
+        continue;
+      }
+      SceneManager manager = mySurface.getSceneManager(model);
+      if (!(manager instanceof LayoutlibSceneManager)) {
+        continue;
+      }
+      SceneView sceneView = manager.getSceneView();
+      Dimension size = sceneView.getSize();
+      if (viewRect.intersects(new Rectangle(sceneView.getX(), sceneView.getY(), size.width, size.height))) {
+        myRequestedModels.add(model);
+        model.activate(this);
+        managers.add((LayoutlibSceneManager)manager);
+      }
+    }
 
-        addModelFuture.thenRunAsync(() -> {
-          if (!isRequestCancelled.get() && !facet.isDisposed() && !isAddingModelCanceled.get()) {
-            activeModels(models);
-            mySurface.setScale(0.25 / mySurface.getScreenScalingFactor());
-            myWorkBench.showContent();
-          }
-          else {
-            removeAndDisposeModels(models);
-          }
-        }, EdtExecutorService.getInstance());
-      }, EdtExecutorService.getInstance());
+    if (managers.isEmpty()) {
+      return;
+    }
+
+    CompletableFuture<?>[] thumbnailRenders = new CompletableFuture<?>[managers.size()];
+    for (int i = 0; i < managers.size(); i++) {
+      LayoutlibSceneManager manager = managers.get(i);
+      manager.setQualityOverride(THUMBNAIL_QUALITY);
+      thumbnailRenders[i] = manager.requestRender();
+    }
+
+    CompletableFuture.allOf(thumbnailRenders).whenCompleteAsync((result, ex) -> {
+      for (LayoutlibSceneManager manager : managers) {
+        manager.setQualityOverride(null);
+        if (!Disposer.isDisposed(manager.getModel())) {
+          manager.requestRender();
+        }
+      }
+    }, EdtExecutorService.getInstance());
   }
 
   // A file editor was closed. If our editor no longer exists, cleanup our state.
@@ -421,9 +469,7 @@ public class VisualizationForm implements Disposable {
       setEditor(myPendingEditor);
       myPendingEditor = null;
 
-      for (NlModel model : models) {
-        model.activate(this);
-      }
+      // The models are activated by renderVisibleModels once they are visible, so that the off-screen ones are not updated
       myWorkBench.setFileEditor(myEditor);
     }
     myModels = models;
@@ -66,4 +66,20 @@ class NlDiagnosticsTest {
     assertEquals(100, read.lastRenders()[0])
     assertEquals(101, read.lastRenders()[1])
   }
+
+  @Test
+  fun testRenderCacheRecording() {
+    val surface = mock(DesignSurface::class.java)
+    val write = NlDiagnosticsManager.getWriteInstance(surface)
+    val read = NlDiagnosticsManager.getReadInstance(surface)
+
+    assertEquals(0, read.renderCacheHits())
+    assertEquals(0, read.renderCacheMisses())
+
+    write.recordRenderCacheLookup(false)
+    write.recordRenderCacheLookup(true)
+    write.recordRenderCacheLookup(true)
+    assertEquals(2, read.renderCacheHits())
+    assertEquals(1, read.renderCacheMisses())
+  }
 }
\ No newline at end of file
@@ -19,6 +19,9 @@ import junit.framework.TestCase;
 
 import java.awt.*;
 import java.awt.geom.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Test ScenePicker
@@ -378,4 +381,41 @@ public class ScenePickerTest extends TestCase {
       scenePicker.find((int)x, (int)y);
     }
   }
+
+  public void testSpatialIndex() {
+    ScenePicker scenePicker = new ScenePicker();
+    scenePicker.reset();
+    // A large object that covers all the grid and a lot of small ones, some of them in negative coordinates
+    scenePicker.addRect("background", 0, -5000, -5000, 5000, 5000);
+    for (int i = 0; i < 100; i++) {
+      scenePicker.addRect(i, 0, i * 100 - 5000, i * 100 - 5000, i * 100 - 4990, i * 100 - 4990);
+    }
+    scenePicker.addPoint("last", 5, -4495, -4495);
+    assertEquals(102, scenePicker.getObjectCount());
+
+    List<Object> found = new ArrayList<>();
+    scenePicker.setSelectListener((obj, dist) -> found.add(obj));
+
+    scenePicker.find(-4495, -4495);
+    // The objects must be reported in the same order they were added
+    assertEquals(Arrays.asList("background", 5, "last"), found);
+
+    found.clear();
+    scenePicker.find(4950, 4950);
+    assertEquals(Arrays.asList("background"), found);
+
+    found.clear();
+    scenePicker.find(6000, 6000);
+    assertTrue(found.isEmpty());
+
+    // Objects added after a find are also found
+    scenePicker.addCircle("circle", 0, 6000, 6000, 10);
+    scenePicker.find(6000, 6000);
+    assertEquals(Arrays.asList("circle"), found);
+
+    found.clear();
+    scenePicker.reset();
+    scenePicker.find(-4495, -4495);
+    assertTrue(found.isEmpty());
+  }
 }
@@ -16,11 +16,13 @@
 package com.android.tools.idea.uibuilder.scene
 
 import com.android.SdkConstants
+import com.android.tools.idea.common.SyncNlModel
 import com.android.tools.idea.common.fixtures.ModelBuilder
 import com.android.tools.idea.common.type.DesignerTypeRegistrar
 import com.android.tools.idea.uibuilder.surface.NlDesignSurface
 import com.android.tools.idea.uibuilder.surface.SceneMode
 import com.android.tools.idea.uibuilder.type.PreferenceScreenFileType
+import com.intellij.openapi.util.Disposer
 import org.mockito.Mockito
 
 class LayoutlibSceneManagerTest: SceneTest() {
@@ -52,6 +54,29 @@ class LayoutlibSceneManagerTest: SceneTest() {
     assertNotNull(sceneManager.secondarySceneView)
   }
 
+  fun testActivatingModelWhichWasNeverRenderedDoesNotInflateIt() {
+    // The previews of the visualization tool are added without being rendered, and only the visible ones are rendered
+    val surface = NlDesignSurface.build(project, testRootDisposable)
+    val xmlFile = myFixture.addFileToProject("res/layout/offscreen.xml", "<LinearLayout/>")
+    val model = SyncNlModel.create(surface, testRootDisposable, myFacet, xmlFile.virtualFile)
+    var modelUpdateCount = 0
+    val sceneManager = object : SyncLayoutlibSceneManager(model) {
+      override fun requestModelUpdate() {
+        modelUpdateCount++
+      }
+    }
+    Disposer.register(testRootDisposable, sceneManager)
+
+    model.activate(this)
+    try {
+      assertEquals(0, modelUpdateCount)
+      assertNull(sceneManager.renderResult)
+    }
+    finally {
+      model.deactivate(this)
+    }
+  }
+
   override fun createModel(): ModelBuilder {
     return model(SdkConstants.FD_RES_XML, "preference.xml",
                  component(SdkConstants.TAG_PREFERENCE_SCREEN)
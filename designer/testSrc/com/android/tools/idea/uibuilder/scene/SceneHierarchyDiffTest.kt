@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2019 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.uibuilder.scene
+
+import com.android.SdkConstants
+import com.android.tools.idea.common.fixtures.ModelBuilder
+import com.android.tools.idea.uibuilder.model.setBounds
+
+class SceneHierarchyDiffTest : SceneTest() {
+
+  fun testNoChanges() {
+    val root = myModel.find("root")!!
+    val diff = SceneHierarchyDiff.compute(SceneHierarchyDiff.Snapshot.create(root), SceneHierarchyDiff.Snapshot.create(root))
+    assertFalse(diff.isStructureChanged)
+    assertTrue(diff.changedComponents.isEmpty())
+  }
+
+  fun testNoPreviousSnapshot() {
+    val root = myModel.find("root")!!
+    assertTrue(SceneHierarchyDiff.compute(null, SceneHierarchyDiff.Snapshot.create(root)).isStructureChanged)
+  }
+
+  fun testBoundsChanged() {
+    val root = myModel.find("root")!!
+    val button = myModel.find("button")!!
+    val previous = SceneHierarchyDiff.Snapshot.create(root)
+
+    button.setBounds(500, 800, 200, 40)
+
+    val diff = SceneHierarchyDiff.compute(previous, SceneHierarchyDiff.Snapshot.create(root))
+    assertFalse(diff.isStructureChanged)
+    assertEquals(setOf(button), diff.changedComponents)
+  }
+
+  fun testComponentRemoved() {
+    val root = myModel.find("root")!!
+    val previous = SceneHierarchyDiff.Snapshot.create(root)
+
+    root.removeChild(myModel.find("textView")!!)
+
+    assertTrue(SceneHierarchyDiff.compute(previous, SceneHierarchyDiff.Snapshot.create(root)).isStructureChanged)
+  }
+
+  fun testMerge() {
+    val root = myModel.find("root")!!
+    val textView = myModel.find("textView")!!
+    val button = myModel.find("button")!!
+
+    val snapshot0 = SceneHierarchyDiff.Snapshot.create(root)
+    textView.setBounds(0, 0, 10, 10)
+    val snapshot1 = SceneHierarchyDiff.Snapshot.create(root)
+    button.setBounds(0, 0, 10, 10)
+    val snapshot2 = SceneHierarchyDiff.Snapshot.create(root)
+
+    val merged = SceneHierarchyDiff.compute(snapshot1, snapshot2).merge(SceneHierarchyDiff.compute(snapshot0, snapshot1))
+    assertFalse(merged.isStructureChanged)
+    assertEquals(setOf(textView, button), merged.changedComponents)
+    assertTrue(merged.merge(SceneHierarchyDiff.STRUCTURE_CHANGED).isStructureChanged)
+  }
+
+  override fun createModel(): ModelBuilder {
+    return model("constraint.xml",
+                 component(SdkConstants.CONSTRAINT_LAYOUT.defaultName())
+                   .id("@+id/root")
+                   .withBounds(0, 0, 2000, 2000)
+                   .width("1000dp")
+                   .height("1000dp")
+                   .children(
+                     component(SdkConstants.TEXT_VIEW)
+                       .id("@+id/textView")
+                       .withBounds(200, 400, 200, 40)
+                       .width("100dp")
+                       .height("20dp"),
+                     component(SdkConstants.BUTTON)
+                       .id("@+id/button")
+                       .withBounds(400, 800, 200, 40)
+                       .width("100dp")
+                       .height("20dp")
+                   )
+    )
+  }
+}
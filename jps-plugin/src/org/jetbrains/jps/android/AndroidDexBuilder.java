@@ -293,19 +293,11 @@ public class AndroidDexBuilder extends AndroidTargetBuilder<BuildRootDescriptor,
       if (!AndroidBuildCommonUtils.hasXmxParam(vmOptions)) {
         vmOptions.add("-Xmx" + configuration.getMaxHeapSize() + "M");
       }
-      programParamList.addAll(Arrays.asList("--optimize", Boolean.toString(configuration.isOptimize())));
-
-      if (configuration.isForceJumbo()) {
-        programParamList.addAll(Arrays.asList("--forceJumbo", Boolean.TRUE.toString()));
-      }
-
-      if (configuration.isCoreLibrary()) {
-        programParamList.add("--coreLibrary");
-      }
     }
     else {
       vmOptions = Collections.singletonList("-Xmx1024M");
     }
+    programParamList.addAll(getDexOptions(project));
     if (multiDex) {
       JpsAndroidModuleExtension extension = AndroidJpsUtil.getExtension(module);
       if (extension != null) {
@@ -388,6 +380,29 @@ public class AndroidDexBuilder extends AndroidTargetBuilder<BuildRootDescriptor,
     return success;
   }
 
+  /**
+   * Returns the options passed to dx, other than the input and output files, as configured for the given project.
+   */
+  @NotNull
+  static List<String> getDexOptions(@NotNull JpsProject project) {
+    final JpsAndroidDexCompilerConfiguration configuration =
+      JpsAndroidExtensionService.getInstance().getDexCompilerConfiguration(project);
+    final List<String> options = new ArrayList<String>();
+
+    if (configuration != null) {
+      options.addAll(Arrays.asList("--optimize", Boolean.toString(configuration.isOptimize())));
+
+      if (configuration.isForceJumbo()) {
+        options.addAll(Arrays.asList("--forceJumbo", Boolean.TRUE.toString()));
+      }
+
+      if (configuration.isCoreLibrary()) {
+        options.add("--coreLibrary");
+      }
+    }
+    return options;
+  }
+
   @Nullable
   private static String getJavaExecutable(@NotNull AndroidPlatform platform, @NotNull CompileContext context, @NotNull String builderName) {
     final JpsSdk<JpsSimpleElement<JpsAndroidSdkProperties>> sdk = platform.getSdk();
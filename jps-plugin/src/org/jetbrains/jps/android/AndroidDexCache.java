@@ -0,0 +1,204 @@
+// Copyright 2000-2019 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package org.jetbrains.jps.android;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import org.jetbrains.android.util.AndroidBuildTestingManager;
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jps.incremental.Utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A machine-wide cache of pre-dexed jars, shared by the builds of all projects. Entries are keyed by the contents of the jar and by the
+ * dx options it was dexed with, so the same library used by several projects, or by the same project in several locations, is only
+ * dexed once.
+ * <p>
+ * The size of the cache is bounded: when it grows over the limit, the least recently used entries are evicted. Entries are written to a
+ * temporary file and moved into place, so several build processes can use the cache at the same time.
+ */
+public class AndroidDexCache {
+  private static final Logger LOG = Logger.getInstance("#org.jetbrains.jps.android.AndroidDexCache");
+
+  /** The directory of the cache, by default "android-dex-cache" in the system directory of the build process */
+  @NonNls private static final String CACHE_DIR_PROPERTY = "android.jps.dex.cache.dir";
+  /** The maximum size of the cache in megabytes; the cache is disabled if it is 0 */
+  @NonNls private static final String MAX_SIZE_PROPERTY = "android.jps.dex.cache.max.size.mb";
+  @NonNls private static final String CACHE_DIR_NAME = "android-dex-cache";
+  @NonNls private static final String ENTRY_EXTENSION = ".jar";
+  private static final long DEFAULT_MAX_SIZE_MB = 1024;
+
+  private final File myCacheDir;
+  private final long myMaxSize;
+  private int myHitCount;
+  private int myMissCount;
+
+  @VisibleForTesting
+  AndroidDexCache(@NotNull File cacheDir, long maxSize) {
+    myCacheDir = cacheDir;
+    myMaxSize = maxSize;
+  }
+
+  /**
+   * Returns the cache to use for this build, or {@code null} if it is disabled.
+   */
+  @Nullable
+  public static AndroidDexCache getInstance() {
+    // Tests check the commands run by the build, which must not depend on the dex outputs of previous builds.
+    if (AndroidBuildTestingManager.getTestingManager() != null) {
+      return null;
+    }
+    final long maxSizeMb = Long.getLong(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE_MB);
+    if (maxSizeMb <= 0) {
+      return null;
+    }
+    final String cacheDirPath = System.getProperty(CACHE_DIR_PROPERTY);
+    final File cacheDir = cacheDirPath != null ? new File(cacheDirPath) : new File(Utils.getSystemRoot(), CACHE_DIR_NAME);
+    return new AndroidDexCache(cacheDir, maxSizeMb * 1024 * 1024);
+  }
+
+  /**
+   * Computes the key of the dex output of the given jar, dexed with the given options.
+   */
+  @NotNull
+  public static String computeKey(@NotNull File jarFile, @NotNull List<String> dexOptions) throws IOException {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new IOException(e);
+    }
+    for (String option : dexOptions) {
+      digest.update(option.getBytes(StandardCharsets.UTF_8));
+      digest.update((byte)0);
+    }
+    final byte[] buffer = new byte[64 * 1024];
+    final InputStream in = new FileInputStream(jarFile);
+    try {
+      int count;
+      while ((count = in.read(buffer)) > 0) {
+        digest.update(buffer, 0, count);
+      }
+    }
+    finally {
+      in.close();
+    }
+    return StringUtil.toHexString(digest.digest());
+  }
+
+  /**
+   * Copies the cached dex output with the given key to the given file.
+   *
+   * @return true if the output was found in the cache.
+   */
+  public boolean restore(@NotNull String key, @NotNull File outputFile) {
+    final File entry = getEntry(key);
+    if (entry.isFile()) {
+      try {
+        FileUtil.copy(entry, outputFile);
+        // The timestamp of an entry is the time it was last used, which is what entries are evicted by.
+        //noinspection ResultOfMethodCallIgnored
+        entry.setLastModified(System.currentTimeMillis());
+        myHitCount++;
+        // dx is not run for a cached output, so the warnings it reported when the output was stored are not reported again.
+        LOG.info("Restored " + outputFile.getPath() + " from the dex cache entry " + entry.getName());
+        return true;
+      }
+      catch (IOException e) {
+        // The entry may have been evicted by another build in the meantime
+        LOG.info("Cannot restore " + outputFile.getPath() + " from the dex cache", e);
+      }
+    }
+    myMissCount++;
+    return false;
+  }
+
+  /**
+   * Stores the given dex output in the cache, with the given key, and evicts the least recently used entries if the cache is too large.
+   */
+  public void store(@NotNull String key, @NotNull File outputFile) {
+    final File entry = getEntry(key);
+    try {
+      FileUtil.createDirectory(myCacheDir);
+      final File tmpFile = FileUtil.createTempFile(myCacheDir, key, ".tmp", true, false);
+      try {
+        FileUtil.copy(outputFile, tmpFile);
+        try {
+          Files.move(tmpFile.toPath(), entry.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (AtomicMoveNotSupportedException e) {
+          Files.move(tmpFile.toPath(), entry.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+      }
+      finally {
+        FileUtil.delete(tmpFile);
+      }
+      evictIfNecessary();
+    }
+    catch (IOException e) {
+      LOG.info("Cannot store " + outputFile.getPath() + " in the dex cache", e);
+    }
+  }
+
+  private void evictIfNecessary() {
+    final File[] entries = myCacheDir.listFiles(file -> file.isFile() && file.getName().endsWith(ENTRY_EXTENSION));
+    if (entries == null) {
+      return;
+    }
+    long size = 0;
+    for (File entry : entries) {
+      size += entry.length();
+    }
+    if (size <= myMaxSize) {
+      return;
+    }
+    final List<File> entriesByLastUse = new ArrayList<File>(Arrays.asList(entries));
+    Collections.sort(entriesByLastUse, Comparator.comparingLong(File::lastModified));
+
+    for (File entry : entriesByLastUse) {
+      if (size <= myMaxSize) {
+        break;
+      }
+      final long length = entry.length();
+      if (FileUtil.delete(entry)) {
+        size -= length;
+      }
+    }
+  }
+
+  @VisibleForTesting
+  @NotNull
+  File getEntry(@NotNull String key) {
+    return new File(myCacheDir, key + ENTRY_EXTENSION);
+  }
+
+  /**
+   * Logs the hits and misses of this cache since it was obtained.
+   */
+  public void logStatistics() {
+    final int total = myHitCount + myMissCount;
+    if (total > 0) {
+      LOG.info("Android dex cache: " + myHitCount + " hit(s), " + myMissCount + " miss(es), hit rate " +
+               (myHitCount * 100 / total) + "%");
+    }
+  }
+}
@@ -0,0 +1,70 @@
+// Copyright 2000-2019 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package org.jetbrains.jps.android;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jps.incremental.storage.ValidityState;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The digest of the inputs (the source file, the files it imports and the tool configuration) of a source file compiled by an Android
+ * source generator, together with the files generated from it.
+ */
+public class AndroidGeneratedSourceState implements ValidityState {
+  private final byte[] myInputsDigest;
+  private final List<String> myOutputs;
+
+  public AndroidGeneratedSourceState(@NotNull byte[] inputsDigest, @NotNull Collection<String> outputs) {
+    myInputsDigest = inputsDigest;
+    myOutputs = Collections.unmodifiableList(new ArrayList<String>(outputs));
+  }
+
+  public AndroidGeneratedSourceState(@NotNull DataInput in) throws IOException {
+    myInputsDigest = new byte[in.readInt()];
+    in.readFully(myInputsDigest);
+
+    final int outputCount = in.readInt();
+    final List<String> outputs = new ArrayList<String>(outputCount);
+    for (int i = 0; i < outputCount; i++) {
+      outputs.add(in.readUTF());
+    }
+    myOutputs = Collections.unmodifiableList(outputs);
+  }
+
+  @NotNull
+  public List<String> getOutputs() {
+    return myOutputs;
+  }
+
+  @NotNull
+  public byte[] getInputsDigest() {
+    return myInputsDigest;
+  }
+
+  @Override
+  public boolean equalsTo(ValidityState otherState) {
+    if (!(otherState instanceof AndroidGeneratedSourceState)) {
+      return false;
+    }
+    final AndroidGeneratedSourceState otherState1 = (AndroidGeneratedSourceState)otherState;
+    return Arrays.equals(otherState1.myInputsDigest, myInputsDigest) &&
+           otherState1.myOutputs.equals(myOutputs);
+  }
+
+  @Override
+  public void save(DataOutput out) throws IOException {
+    out.writeInt(myInputsDigest.length);
+    out.write(myInputsDigest);
+    out.writeInt(myOutputs.size());
+    for (String output : myOutputs) {
+      out.writeUTF(output);
+    }
+  }
+}
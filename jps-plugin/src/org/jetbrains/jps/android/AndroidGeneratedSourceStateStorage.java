@@ -0,0 +1,151 @@
+// Copyright 2000-2019 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package org.jetbrains.jps.android;
+
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jps.builders.storage.StorageProvider;
+import org.jetbrains.jps.incremental.storage.AbstractStateStorage;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Stores the {@link AndroidGeneratedSourceState} of the AIDL and RenderScript files of a module, by source file path, together with a
+ * copy of the files generated from them. When a source file is compiled again from the same inputs, e.g. after it was touched or reverted,
+ * the generated files are restored from these copies instead of running the tool.
+ */
+public class AndroidGeneratedSourceStateStorage extends AbstractStateStorage<String, AndroidGeneratedSourceState> {
+
+  public static final StorageProvider<AndroidGeneratedSourceStateStorage> PROVIDER =
+    new StorageProvider<AndroidGeneratedSourceStateStorage>() {
+      @NotNull
+      @Override
+      public AndroidGeneratedSourceStateStorage createStorage(File targetDataDir) throws IOException {
+        final AndroidGeneratedSourceStateStorage storage = new AndroidGeneratedSourceStateStorage(targetDataDir);
+        storage.removeOrphanedCopies();
+        return storage;
+      }
+    };
+
+  @NonNls private static final String GENERATED_SOURCES_STORAGE = "generated_sources";
+  @NonNls private static final String OUTPUTS_DIR_NAME = "outputs";
+
+  private final File myOutputsDir;
+
+  private AndroidGeneratedSourceStateStorage(@NotNull File dataStorageRoot) throws IOException {
+    super(AndroidJpsUtil.getStorageFile(dataStorageRoot, GENERATED_SOURCES_STORAGE), EnumeratorStringDescriptor.INSTANCE,
+          new MyDataExternalizer());
+    myOutputsDir = new File(AndroidJpsUtil.getStorageDir(dataStorageRoot, GENERATED_SOURCES_STORAGE), OUTPUTS_DIR_NAME);
+  }
+
+  /**
+   * Restores the files generated from the given source file, if it was last compiled from inputs with the given digest.
+   *
+   * @return the restored files, or {@code null} if the source file needs to be compiled.
+   */
+  @Nullable
+  public List<File> restoreOutputs(@NotNull String sourcePath, @NotNull byte[] inputsDigest) throws IOException {
+    final AndroidGeneratedSourceState state = getState(sourcePath);
+    if (state == null || !Arrays.equals(state.getInputsDigest(), inputsDigest)) {
+      return null;
+    }
+    final File copiesDir = getCopiesDir(state.getInputsDigest());
+    final List<String> outputs = state.getOutputs();
+
+    for (int i = 0; i < outputs.size(); i++) {
+      if (!new File(copiesDir, Integer.toString(i)).isFile()) {
+        return null;
+      }
+    }
+    final List<File> outputFiles = new ArrayList<File>(outputs.size());
+    for (int i = 0; i < outputs.size(); i++) {
+      final File outputFile = new File(outputs.get(i));
+      FileUtil.copy(new File(copiesDir, Integer.toString(i)), outputFile);
+      outputFiles.add(outputFile);
+    }
+    return outputFiles;
+  }
+
+  /**
+   * Records that the given files were generated from the given source file, compiled from inputs with the given digest.
+   */
+  public void saveOutputs(@NotNull String sourcePath, @NotNull byte[] inputsDigest, @NotNull List<File> outputFiles) throws IOException {
+    removeOutputs(sourcePath);
+
+    final File copiesDir = getCopiesDir(inputsDigest);
+    final List<String> outputs = new ArrayList<String>(outputFiles.size());
+    for (int i = 0; i < outputFiles.size(); i++) {
+      final File outputFile = outputFiles.get(i);
+      FileUtil.copy(outputFile, new File(copiesDir, Integer.toString(i)));
+      outputs.add(outputFile.getPath());
+    }
+    update(sourcePath, new AndroidGeneratedSourceState(inputsDigest, outputs));
+  }
+
+  public void removeOutputs(@NotNull String sourcePath) throws IOException {
+    final AndroidGeneratedSourceState state = getState(sourcePath);
+    if (state != null) {
+      FileUtil.delete(getCopiesDir(state.getInputsDigest()));
+      remove(sourcePath);
+    }
+  }
+
+  /**
+   * Deletes the copies of generated files which no state refers to, e.g. if a build was interrupted after copying the files of a source
+   * file but before saving its state.
+   */
+  void removeOrphanedCopies() throws IOException {
+    final File[] copiesDirs = myOutputsDir.listFiles();
+    if (copiesDirs == null || copiesDirs.length == 0) {
+      return;
+    }
+    final Set<String> usedDirNames = new HashSet<String>();
+    for (String sourcePath : getKeys()) {
+      final AndroidGeneratedSourceState state = getState(sourcePath);
+      if (state != null) {
+        usedDirNames.add(StringUtil.toHexString(state.getInputsDigest()));
+      }
+    }
+    for (File copiesDir : copiesDirs) {
+      if (!usedDirNames.contains(copiesDir.getName())) {
+        FileUtil.delete(copiesDir);
+      }
+    }
+  }
+
+  @NotNull
+  private File getCopiesDir(@NotNull byte[] inputsDigest) {
+    return new File(myOutputsDir, StringUtil.toHexString(inputsDigest));
+  }
+
+  @Override
+  public void clean() throws IOException {
+    super.clean();
+    FileUtil.delete(myOutputsDir);
+  }
+
+  private static class MyDataExternalizer implements DataExternalizer<AndroidGeneratedSourceState> {
+
+    @Override
+    public void save(@NotNull DataOutput out, AndroidGeneratedSourceState value) throws IOException {
+      value.save(out);
+    }
+
+    @Override
+    public AndroidGeneratedSourceState read(@NotNull DataInput in) throws IOException {
+      return new AndroidGeneratedSourceState(in);
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package org.jetbrains.jps.android;
 
+import com.android.sdklib.BuildToolInfo;
 import com.android.tools.idea.jps.AndroidTargetBuilder;
 import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.util.io.FileUtil;
@@ -93,38 +94,67 @@ public class AndroidPreDexBuilder extends AndroidTargetBuilder<AndroidPreDexBuil
     }
     if (!filesToPreDex.isEmpty()) {
       final File outputDir = target.getOutputFile(context);
+      final AndroidDexCache dexCache = AndroidDexCache.getInstance();
+      final List<String> dexCacheOptions = new ArrayList<String>();
 
-      for (Pair<File, String> pair : filesToPreDex) {
-        context.checkCanceled();
+      if (dexCache != null) {
+        final BuildToolInfo buildToolInfo = platform.getTarget().getBuildToolInfo();
+        dexCacheOptions.add(buildToolInfo != null ? buildToolInfo.getRevision().toString() : "");
+        dexCacheOptions.addAll(AndroidDexBuilder.getDexOptions(project));
+      }
 
-        final File srcFile = pair.getFirst();
-        final String moduleName = pair.getSecond();
-        final String srcFilePath = srcFile.getAbsolutePath();
-        final File outputFile;
+      try {
+        for (Pair<File, String> pair : filesToPreDex) {
+          context.checkCanceled();
 
-        if (moduleName != null) {
-          context.processMessage(new ProgressMessage("Pre-dex [" + moduleName + "]"));
-          outputFile = new File(new File(outputDir, moduleName), srcFile.getName());
-        }
-        else {
-          context.processMessage(new ProgressMessage("Pre-dex: " + srcFile.getName()));
-          final String outputFileName = getOutputFileNameForExternalJar(srcFile);
+          final File srcFile = pair.getFirst();
+          final String moduleName = pair.getSecond();
+          final String srcFilePath = srcFile.getAbsolutePath();
+          final File outputFile;
+
+          if (moduleName != null) {
+            context.processMessage(new ProgressMessage("Pre-dex [" + moduleName + "]"));
+            outputFile = new File(new File(outputDir, moduleName), srcFile.getName());
+          }
+          else {
+            context.processMessage(new ProgressMessage("Pre-dex: " + srcFile.getName()));
+            final String outputFileName = getOutputFileNameForExternalJar(srcFile);
+
+            if (outputFileName == null) {
+              context.processMessage(new CompilerMessage(BUILDER_NAME, BuildMessage.Kind.ERROR,
+                                                         "Cannot pre-dex file " + srcFilePath + ": incorrect path", srcFilePath));
+              return false;
+            }
+            outputFile = new File(outputDir, outputFileName);
+          }
 
-          if (outputFileName == null) {
-            context.processMessage(new CompilerMessage(BUILDER_NAME, BuildMessage.Kind.ERROR,
-                                                       "Cannot pre-dex file " + srcFilePath + ": incorrect path", srcFilePath));
+          if (AndroidJpsUtil.createDirIfNotExist(outputFile.getParentFile(), context, BUILDER_NAME) == null) {
             return false;
           }
-          outputFile = new File(outputDir, outputFileName);
-        }
+          String dexCacheKey = null;
 
-        if (AndroidJpsUtil.createDirIfNotExist(outputFile.getParentFile(), context, BUILDER_NAME) == null) {
-          return false;
-        }
+          if (dexCache != null) {
+            dexCacheKey = AndroidDexCache.computeKey(srcFile, dexCacheOptions);
 
-        if (!AndroidDexBuilder.runDex(platform, outputFile.getPath(), new String[]{srcFilePath}, context,
-          project, outputConsumer, BUILDER_NAME, srcFile.getName(), null)) {
-          return false;
+            if (dexCache.restore(dexCacheKey, outputFile)) {
+              outputConsumer.registerOutputFile(outputFile, Collections.singletonList(srcFilePath));
+              continue;
+            }
+          }
+
+          if (!AndroidDexBuilder.runDex(platform, outputFile.getPath(), new String[]{srcFilePath}, context,
+            project, outputConsumer, BUILDER_NAME, srcFile.getName(), null)) {
+            return false;
+          }
+
+          if (dexCacheKey != null) {
+            dexCache.store(dexCacheKey, outputFile);
+          }
+        }
+      }
+      finally {
+        if (dexCache != null) {
+          dexCache.logStatistics();
         }
       }
     }
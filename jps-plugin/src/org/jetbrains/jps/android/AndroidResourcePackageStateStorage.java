@@ -0,0 +1,178 @@
+// Copyright 2000-2019 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package org.jetbrains.jps.android;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jps.builders.storage.StorageProvider;
+import org.jetbrains.jps.incremental.storage.StorageOwner;
+
+import java.io.*;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Stores the aapt configuration a resource package was last built with, and the digests of its entries, so that the next build can
+ * update the package in place instead of creating it again.
+ */
+public class AndroidResourcePackageStateStorage implements StorageOwner {
+  private static final Logger LOG = Logger.getInstance("#org.jetbrains.jps.android.AndroidResourcePackageStateStorage");
+
+  private final File myFile;
+
+  private AndroidResourcePackageStateStorage(@NotNull File file) {
+    myFile = file;
+  }
+
+  @Override
+  public void flush(boolean memoryCachesOnly) {
+  }
+
+  @Override
+  public void clean() throws IOException {
+    FileUtil.delete(myFile);
+  }
+
+  @Override
+  public void close() throws IOException {
+  }
+
+  @Nullable
+  public MyState read() {
+    try {
+      final DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(myFile)));
+      try {
+        final String configuration = input.readUTF();
+        final int entryCount = input.readInt();
+        final Map<String, EntryDigest> entryDigests = new HashMap<String, EntryDigest>(entryCount);
+
+        for (int i = 0; i < entryCount; i++) {
+          final String name = input.readUTF();
+          entryDigests.put(name, new EntryDigest(input.readLong(), input.readLong()));
+        }
+        return new MyState(configuration, entryDigests);
+      }
+      finally {
+        input.close();
+      }
+    }
+    catch (FileNotFoundException ignored) {
+    }
+    catch (IOException e) {
+      LOG.info(e);
+    }
+    return null;
+  }
+
+  public void saveState(@NotNull MyState state) {
+    FileUtil.createParentDirs(myFile);
+    try {
+      final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(myFile)));
+      try {
+        output.writeUTF(state.myConfiguration);
+        output.writeInt(state.myEntryDigests.size());
+
+        for (Map.Entry<String, EntryDigest> entry : state.myEntryDigests.entrySet()) {
+          output.writeUTF(entry.getKey());
+          output.writeLong(entry.getValue().myCrc);
+          output.writeLong(entry.getValue().mySize);
+        }
+      }
+      finally {
+        output.close();
+      }
+    }
+    catch (IOException e) {
+      LOG.info(e);
+    }
+  }
+
+  /**
+   * Reads the digests of the entries of the given package from its central directory, without decompressing them.
+   */
+  @NotNull
+  public static Map<String, EntryDigest> readEntryDigests(@NotNull File packageFile) throws IOException {
+    final Map<String, EntryDigest> result = new HashMap<String, EntryDigest>();
+    final ZipFile zipFile = new ZipFile(packageFile);
+    try {
+      final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+
+      while (entries.hasMoreElements()) {
+        final ZipEntry entry = entries.nextElement();
+
+        if (!entry.isDirectory()) {
+          result.put(entry.getName(), new EntryDigest(entry.getCrc(), entry.getSize()));
+        }
+      }
+    }
+    finally {
+      zipFile.close();
+    }
+    return result;
+  }
+
+  public static class MyState {
+    private final String myConfiguration;
+    private final Map<String, EntryDigest> myEntryDigests;
+
+    public MyState(@NotNull String configuration, @NotNull Map<String, EntryDigest> entryDigests) {
+      myConfiguration = configuration;
+      myEntryDigests = Collections.unmodifiableMap(new HashMap<String, EntryDigest>(entryDigests));
+    }
+
+    @NotNull
+    public String getConfiguration() {
+      return myConfiguration;
+    }
+
+    @NotNull
+    public Map<String, EntryDigest> getEntryDigests() {
+      return myEntryDigests;
+    }
+  }
+
+  /**
+   * The CRC-32 and the uncompressed size of a package entry.
+   */
+  public static class EntryDigest {
+    private final long myCrc;
+    private final long mySize;
+
+    public EntryDigest(long crc, long size) {
+      myCrc = crc;
+      mySize = size;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+
+      final EntryDigest digest = (EntryDigest)o;
+      return myCrc == digest.myCrc && mySize == digest.mySize;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (int)(myCrc ^ (myCrc >>> 32)) + (int)(mySize ^ (mySize >>> 32));
+    }
+  }
+
+  public static class Provider extends StorageProvider<AndroidResourcePackageStateStorage> {
+    public static final Provider INSTANCE = new Provider();
+
+    private Provider() {
+    }
+
+    @NotNull
+    @Override
+    public AndroidResourcePackageStateStorage createStorage(File targetDataDir) throws IOException {
+      return new AndroidResourcePackageStateStorage(new File(targetDataDir, "android_resource_package" + File.separator + "data"));
+    }
+  }
+}
@@ -1,12 +1,18 @@
 package org.jetbrains.jps.android;
 
+import com.android.resources.ResourceFolderType;
+import com.android.sdklib.BuildToolInfo;
 import com.android.sdklib.IAndroidTarget;
 import com.android.tools.idea.jps.AndroidTargetBuilder;
+import com.google.common.annotations.VisibleForTesting;
+import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.util.ArrayUtil;
 import com.intellij.util.PathUtilRt;
 import com.intellij.util.Processor;
 import org.jetbrains.android.compiler.tools.AndroidApt;
+import org.jetbrains.android.util.AndroidBuildTestingManager;
 import org.jetbrains.android.util.AndroidCompilerMessageKind;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
@@ -16,12 +22,14 @@ import org.jetbrains.jps.android.model.JpsAndroidModuleExtension;
 import org.jetbrains.jps.builders.BuildOutputConsumer;
 import org.jetbrains.jps.builders.BuildRootDescriptor;
 import org.jetbrains.jps.builders.DirtyFilesHolder;
+import org.jetbrains.jps.builders.FileProcessor;
 import org.jetbrains.jps.incremental.CompileContext;
 import org.jetbrains.jps.incremental.ProjectBuildException;
 import org.jetbrains.jps.incremental.StopBuildException;
 import org.jetbrains.jps.incremental.messages.BuildMessage;
 import org.jetbrains.jps.incremental.messages.CompilerMessage;
 import org.jetbrains.jps.incremental.messages.ProgressMessage;
+import org.jetbrains.jps.incremental.storage.BuildDataManager;
 import org.jetbrains.jps.indices.IgnoredFileIndex;
 import org.jetbrains.jps.model.module.JpsModule;
 
@@ -29,6 +37,7 @@ import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -37,7 +46,11 @@ import java.util.Map;
  * @author Eugene.Kudelevsky
  */
 public class AndroidResourcePackagingBuilder extends AndroidTargetBuilder<BuildRootDescriptor, AndroidResourcePackagingBuildTarget> {
+  private static final Logger LOG = Logger.getInstance("#org.jetbrains.jps.android.AndroidResourcePackagingBuilder");
   @NonNls private static final String BUILDER_NAME = "Android Resource Packaging";
+  @NonNls private static final String RESOURCE_TABLE_ENTRY_NAME = "resources.arsc";
+  /** The resolution of the modification times stored in zip entries, which aapt compares to those of the files in update mode */
+  private static final long ZIP_TIME_RESOLUTION_MS = 2000;
 
   protected AndroidResourcePackagingBuilder() {
     super(Collections.singletonList(AndroidResourcePackagingBuildTarget.MyTargetType.INSTANCE));
@@ -49,8 +62,9 @@ public class AndroidResourcePackagingBuilder extends AndroidTargetBuilder<BuildR
                              @NotNull BuildOutputConsumer outputConsumer,
                              @NotNull CompileContext context) throws ProjectBuildException, IOException {
     final boolean releaseBuild = AndroidJpsUtil.isReleaseBuild(context);
+    final BuildDataManager dataManager = context.getProjectDescriptor().dataManager;
     final AndroidPackagingStateStorage packagingStateStorage =
-      context.getProjectDescriptor().dataManager.getStorage(target, AndroidPackagingStateStorage.Provider.INSTANCE);
+      dataManager.getStorage(target, AndroidPackagingStateStorage.Provider.INSTANCE);
 
     if (!holder.hasDirtyFiles() && !holder.hasRemovedFiles()) {
       final AndroidPackagingStateStorage.MyState savedState = packagingStateStorage.read();
@@ -61,7 +75,11 @@ public class AndroidResourcePackagingBuilder extends AndroidTargetBuilder<BuildR
     }
     assert !AndroidJpsUtil.isLightBuild(context);
 
-    if (!packageResources(target, context, outputConsumer, releaseBuild)) {
+    final AndroidResourcePackageStateStorage packageStateStorage =
+      dataManager.getStorage(target, AndroidResourcePackageStateStorage.Provider.INSTANCE);
+
+    if (!packageResources(target, context, outputConsumer, releaseBuild, canUpdatePackage(holder, target.getOutputFile(context)),
+                          packageStateStorage)) {
       throw new StopBuildException();
     }
     packagingStateStorage.saveState(new AndroidPackagingStateStorage.MyState(releaseBuild));
@@ -73,10 +91,57 @@ public class AndroidResourcePackagingBuilder extends AndroidTargetBuilder<BuildR
     return BUILDER_NAME;
   }
 
+  /**
+   * Returns false if files were removed or value resources changed, in which case the resource ids are likely to change, or if aapt may
+   * not see that a file changed, in which case the package is created again rather than updated.
+   */
+  private static boolean canUpdatePackage(@NotNull DirtyFilesHolder<BuildRootDescriptor, AndroidResourcePackagingBuildTarget> holder,
+                                          @NotNull File packageFile) throws IOException {
+    if (holder.hasRemovedFiles()) {
+      return false;
+    }
+    final List<File> dirtyFiles = new ArrayList<File>();
+
+    holder.processDirtyFiles(new FileProcessor<BuildRootDescriptor, AndroidResourcePackagingBuildTarget>() {
+      @Override
+      public boolean apply(AndroidResourcePackagingBuildTarget target, File file, BuildRootDescriptor root) throws IOException {
+        dirtyFiles.add(file);
+        return true;
+      }
+    });
+    return canUpdatePackage(dirtyFiles, packageFile);
+  }
+
+  /**
+   * In update mode aapt only replaces the entries whose files are newer than the entries, so a changed file must be newer than the
+   * previous package by more than the resolution of the zip entry times. This is not the case e.g. for files copied or extracted with
+   * their original times, or changed right after the previous build.
+   */
+  @VisibleForTesting
+  static boolean canUpdatePackage(@NotNull Collection<File> dirtyFiles, @NotNull File packageFile) {
+    final long packageTimestamp = packageFile.lastModified();
+
+    for (File file : dirtyFiles) {
+      final File parent = file.getParentFile();
+
+      if (parent != null && ResourceFolderType.getFolderType(parent.getName()) == ResourceFolderType.VALUES) {
+        return false;
+      }
+      if (file.lastModified() <= packageTimestamp + ZIP_TIME_RESOLUTION_MS) {
+        LOG.info(file.getPath() + " is not newer than the resource package " + packageFile.getPath() +
+                 ", creating the resource package again");
+        return false;
+      }
+    }
+    return true;
+  }
+
   private static boolean packageResources(@NotNull AndroidResourcePackagingBuildTarget target,
                                           @NotNull CompileContext context,
                                           @NotNull BuildOutputConsumer outputConsumer,
-                                          boolean releaseBuild) {
+                                          boolean releaseBuild,
+                                          boolean canUpdate,
+                                          @NotNull AndroidResourcePackageStateStorage packageStateStorage) {
     final JpsModule module = target.getModule();
     final JpsAndroidModuleExtension extension = AndroidJpsUtil.getExtension(module);
     assert extension != null && !extension.isLibrary();
@@ -115,9 +180,21 @@ public class AndroidResourcePackagingBuilder extends AndroidTargetBuilder<BuildR
                                          ? extension.getCustomManifestPackage()
                                          : null;
     final String additionalParameters = extension.getAdditionalPackagingCommandLineParameters();
+    final BuildToolInfo buildToolInfo = androidTarget.getBuildToolInfo();
+
+    final String configuration = StringUtil.join(new String[]{
+      Boolean.toString(releaseBuild),
+      manifestFile.getPath(),
+      androidTarget.hashString(),
+      buildToolInfo != null ? buildToolInfo.getRevision().toString() : "",
+      StringUtil.join(resourceDirPaths, File.pathSeparator),
+      StringUtil.join(assetsDirPaths, File.pathSeparator),
+      StringUtil.notNullize(customManifestPackage),
+      StringUtil.notNullize(additionalParameters)}, "\n");
 
     return doPackageResources(context, manifestFile, androidTarget, resourceDirPaths, ArrayUtil.toStringArray(assetsDirPaths),
-                              outputFilePath, releaseBuild, module.getName(), outputConsumer, customManifestPackage, additionalParameters);
+                              outputFilePath, releaseBuild, module.getName(), outputConsumer, customManifestPackage, additionalParameters,
+                              configuration, canUpdate, packageStateStorage);
   }
 
   private static boolean doPackageResources(@NotNull final CompileContext context,
@@ -130,21 +207,47 @@ public class AndroidResourcePackagingBuilder extends AndroidTargetBuilder<BuildR
                                             @NotNull String moduleName,
                                             @NotNull BuildOutputConsumer outputConsumer,
                                             @Nullable String customManifestPackage,
-                                            @Nullable String additionalParameters) {
+                                            @Nullable String additionalParameters,
+                                            @NotNull String configuration,
+                                            boolean canUpdate,
+                                            @NotNull AndroidResourcePackageStateStorage packageStateStorage) {
     try {
-      final IgnoredFileIndex ignoredFileIndex = context.getProjectDescriptor().getIgnoredFileIndex();
-
-      final Map<AndroidCompilerMessageKind, List<String>> messages = AndroidApt
-        .packageResources(target, -1, manifestFile.getPath(), resourceDirPaths, assetsDirPaths, outputPath, null,
-                          !releasePackage, 0, customManifestPackage, additionalParameters, new FileFilter() {
-          @Override
-          public boolean accept(File pathname) {
-            return !ignoredFileIndex.isIgnored(PathUtilRt.getFileName(pathname.getPath()));
-          }
-        });
+      final File outputFile = new File(outputPath);
+      final AndroidResourcePackageStateStorage.MyState previousState = packageStateStorage.read();
+      final Map<String, AndroidResourcePackageStateStorage.EntryDigest> previousEntryDigests =
+        previousState != null ? previousState.getEntryDigests() : Collections.<String, AndroidResourcePackageStateStorage.EntryDigest>emptyMap();
+
+      // The commands run by the build are compared to the expected ones in tests, so the package is always created again there.
+      final boolean update = canUpdate &&
+                             previousState != null &&
+                             previousState.getConfiguration().equals(configuration) &&
+                             outputFile.isFile() &&
+                             AndroidBuildTestingManager.getTestingManager() == null;
 
+      Map<AndroidCompilerMessageKind, List<String>> messages =
+        runAapt(context, manifestFile, target, resourceDirPaths, assetsDirPaths, outputPath, releasePackage, update,
+                customManifestPackage, additionalParameters);
+      boolean success = messages.get(AndroidCompilerMessageKind.ERROR).isEmpty();
+      boolean updated = update;
+      Map<String, AndroidResourcePackageStateStorage.EntryDigest> entryDigests =
+        success ? AndroidResourcePackageStateStorage.readEntryDigests(outputFile) : null;
+
+      if (update && success) {
+        final AndroidResourcePackageStateStorage.EntryDigest resourceTableDigest = previousEntryDigests.get(RESOURCE_TABLE_ENTRY_NAME);
+
+        if (resourceTableDigest == null || !resourceTableDigest.equals(entryDigests.get(RESOURCE_TABLE_ENTRY_NAME))) {
+          // The resource ids may have changed, and the compiled XML files kept from the previous package may refer to the old ones
+          LOG.info("Resource table of module " + moduleName + " changed, creating the resource package again");
+          FileUtil.delete(outputFile);
+
+          messages = runAapt(context, manifestFile, target, resourceDirPaths, assetsDirPaths, outputPath, releasePackage, false,
+                             customManifestPackage, additionalParameters);
+          success = messages.get(AndroidCompilerMessageKind.ERROR).isEmpty();
+          updated = false;
+          entryDigests = success ? AndroidResourcePackageStateStorage.readEntryDigests(outputFile) : null;
+        }
+      }
       AndroidJpsUtil.addMessages(context, messages, BUILDER_NAME, moduleName);
-      final boolean success = messages.get(AndroidCompilerMessageKind.ERROR).isEmpty();
 
       if (success) {
         final List<String> srcFiles = new ArrayList<String>();
@@ -152,7 +255,22 @@ public class AndroidResourcePackagingBuilder extends AndroidTargetBuilder<BuildR
         fillRecursively(resourceDirPaths, srcFiles);
         fillRecursively(assetsDirPaths, srcFiles);
 
-        outputConsumer.registerOutputFile(new File(outputPath), srcFiles);
+        outputConsumer.registerOutputFile(outputFile, srcFiles);
+
+        assert entryDigests != null;
+        int changedEntryCount = 0;
+
+        for (Map.Entry<String, AndroidResourcePackageStateStorage.EntryDigest> entry : entryDigests.entrySet()) {
+          if (!entry.getValue().equals(previousEntryDigests.get(entry.getKey()))) {
+            changedEntryCount++;
+          }
+        }
+        LOG.info("Resource package of module " + moduleName + (updated ? " updated: " : " created: ") +
+                 changedEntryCount + " of " + entryDigests.size() + " entries changed");
+        packageStateStorage.saveState(new AndroidResourcePackageStateStorage.MyState(configuration, entryDigests));
+      }
+      else {
+        packageStateStorage.clean();
       }
       return success;
     }
@@ -162,6 +280,29 @@ public class AndroidResourcePackagingBuilder extends AndroidTargetBuilder<BuildR
     }
   }
 
+  @NotNull
+  private static Map<AndroidCompilerMessageKind, List<String>> runAapt(@NotNull CompileContext context,
+                                                                       @NotNull File manifestFile,
+                                                                       @NotNull IAndroidTarget target,
+                                                                       @NotNull String[] resourceDirPaths,
+                                                                       @NotNull String[] assetsDirPaths,
+                                                                       @NotNull String outputPath,
+                                                                       boolean releasePackage,
+                                                                       boolean update,
+                                                                       @Nullable String customManifestPackage,
+                                                                       @Nullable String additionalParameters) throws IOException {
+    final IgnoredFileIndex ignoredFileIndex = context.getProjectDescriptor().getIgnoredFileIndex();
+
+    return AndroidApt
+      .packageResources(target, -1, manifestFile.getPath(), resourceDirPaths, assetsDirPaths, outputPath, null,
+                        !releasePackage, update, 0, customManifestPackage, additionalParameters, new FileFilter() {
+        @Override
+        public boolean accept(File pathname) {
+          return !ignoredFileIndex.isIgnored(PathUtilRt.getFileName(pathname.getPath()));
+        }
+      });
+  }
+
   private static void fillRecursively(String[] roots, final List<String> result) {
     for (String root : roots) {
       FileUtil.processFilesRecursively(new File(root), new Processor<File>() {
@@ -4,8 +4,10 @@ package org.jetbrains.jps.android;
 import com.android.SdkConstants;
 import com.android.resources.FolderTypeRelationship;
 import com.android.resources.ResourceFolderType;
+import com.android.sdklib.BuildToolInfo;
 import com.android.sdklib.IAndroidTarget;
 import com.android.sdklib.internal.build.BuildConfigGenerator;
+import com.google.common.annotations.VisibleForTesting;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.util.Condition;
 import com.intellij.openapi.util.Key;
@@ -24,16 +26,24 @@ import java.io.FileFilter;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import org.jetbrains.android.compiler.artifact.AndroidArtifactSigningMode;
 import org.jetbrains.android.compiler.tools.AndroidApt;
 import org.jetbrains.android.compiler.tools.AndroidIdl;
@@ -99,6 +109,9 @@ public class AndroidSourceGeneratingBuilder extends ModuleLevelBuilder {
   @NonNls private static final String PERMISSION_GROUP_TAG = "permission-group";
   @NonNls private static final String NAME_ATTRIBUTE = "name";
 
+  private static final Pattern AIDL_IMPORT_PATTERN = Pattern.compile("^\\s*import\\s+([\\w.]+)\\s*;", Pattern.MULTILINE);
+  private static final Pattern RENDERSCRIPT_INCLUDE_PATTERN = Pattern.compile("^\\s*#include\\s+[\"<]([^\">]+)[\">]", Pattern.MULTILINE);
+
   private static final int MIN_PLATFORM_TOOLS_REVISION = 11;
   private static final int MIN_SDK_TOOLS_REVISION = 19;
 
@@ -191,6 +204,7 @@ public class AndroidSourceGeneratingBuilder extends ModuleLevelBuilder {
         return true;
       }
     });
+    removeStatesOfDeletedFiles(context, chunk, dirtyFilesHolder);
     boolean success = true;
 
     final BuildDataManager dataManager = context.getProjectDescriptor().dataManager;
@@ -704,14 +718,16 @@ public class AndroidSourceGeneratingBuilder extends ModuleLevelBuilder {
 
   private static boolean runAidlCompiler(@NotNull final CompileContext context,
                                          @NotNull Map<File, ModuleBuildTarget> files,
-                                         @NotNull Map<JpsModule, MyModuleData> moduleDataMap) {
+                                         @NotNull Map<JpsModule, MyModuleData> moduleDataMap) throws IOException {
     if (!files.isEmpty()) {
       context.processMessage(new ProgressMessage(AndroidJpsBundle.message("android.jps.progress.aidl")));
     }
 
     boolean success = true;
+    final BuildDataManager dataManager = context.getProjectDescriptor().dataManager;
+    final List<GeneratorInvocation> invocations = new ArrayList<GeneratorInvocation>();
 
-    for (Map.Entry<File, ModuleBuildTarget> entry : files.entrySet()) {
+    for (Map.Entry<File, ModuleBuildTarget> entry : sortByPath(files)) {
       final File file = entry.getKey();
       final ModuleBuildTarget buildTarget = entry.getValue();
       final String filePath = file.getPath();
@@ -724,8 +740,7 @@ public class AndroidSourceGeneratingBuilder extends ModuleLevelBuilder {
         success = false;
         continue;
       }
-      final File generatedSourcesDir =
-        AndroidJpsUtil.getGeneratedSourcesStorage(buildTarget.getModule(), context.getProjectDescriptor().dataManager);
+      final File generatedSourcesDir = AndroidJpsUtil.getGeneratedSourcesStorage(buildTarget.getModule(), dataManager);
       final File aidlOutputDirectory = new File(generatedSourcesDir, AndroidJpsUtil.AIDL_GENERATED_SOURCE_ROOT_NAME);
 
       if (!aidlOutputDirectory.exists() && !aidlOutputDirectory.mkdirs()) {
@@ -753,8 +768,64 @@ public class AndroidSourceGeneratingBuilder extends ModuleLevelBuilder {
         final File outputFile = new File(aidlOutputDirectory, packageName.replace('.', File.separatorChar) +
                                                               File.separator + FileUtil.getNameWithoutExtension(file) + ".java");
         final String outputFilePath = outputFile.getPath();
-        final Map<AndroidCompilerMessageKind, List<String>> messages =
-          AndroidIdl.execute(target, filePath, outputFilePath, sourceRootPaths);
+
+        final String frameworkAidlPath = target.getPath(IAndroidTarget.ANDROID_AIDL);
+        final List<String> configuration = new ArrayList<String>();
+        configuration.add(filePath);
+        configuration.add(target.hashString());
+        configuration.add(getBuildToolsRevision(target));
+        configuration.add(frameworkAidlPath);
+        configuration.add(outputFilePath);
+        configuration.addAll(Arrays.asList(sourceRootPaths));
+
+        // The framework declarations are preprocessed into a single file, which the interface can use without importing it.
+        final List<File> dependencies = findAidlImports(file, sourceRoots);
+        final File frameworkAidlFile = new File(frameworkAidlPath);
+        if (frameworkAidlFile.isFile()) {
+          dependencies.add(frameworkAidlFile);
+        }
+        final byte[] inputsDigest = computeInputsDigest(file, dependencies, configuration);
+
+        final AndroidGeneratedSourceStateStorage storage = dataManager.getStorage(buildTarget, AndroidGeneratedSourceStateStorage.PROVIDER);
+        final List<File> restoredFiles = storage.restoreOutputs(filePath, inputsDigest);
+
+        if (restoredFiles != null) {
+          // Neither the interface nor the files it imports changed since it was last compiled.
+          registerOutputs(context, buildTarget, filePath, restoredFiles);
+          continue;
+        }
+        invocations.add(new GeneratorInvocation(file, buildTarget, inputsDigest, outputFile, null) {
+          @NotNull
+          @Override
+          public Map<AndroidCompilerMessageKind, List<String>> execute() throws IOException {
+            return AndroidIdl.execute(target, filePath, outputFilePath, sourceRootPaths);
+          }
+        });
+      }
+      catch (final IOException e) {
+        AndroidJpsUtil.reportExceptionError(context, filePath, e, ANDROID_IDL_COMPILER);
+        success = false;
+      }
+    }
+
+    final List<AndroidToolProcessPool.Result> results = AndroidToolProcessPool.execute(invocations);
+
+    for (int i = 0; i < invocations.size(); i++) {
+      final GeneratorInvocation invocation = invocations.get(i);
+      final AndroidToolProcessPool.Result result = results.get(i);
+      final String filePath = invocation.myFile.getPath();
+      final File outputFile = invocation.myOutputFile;
+
+      try {
+        final AndroidGeneratedSourceStateStorage storage =
+          dataManager.getStorage(invocation.myBuildTarget, AndroidGeneratedSourceStateStorage.PROVIDER);
+        storage.removeOutputs(filePath);
+
+        if (result.getException() != null) {
+          throw result.getException();
+        }
+        final Map<AndroidCompilerMessageKind, List<String>> messages = result.getMessages();
+        assert messages != null;
 
         addMessages(context, messages, filePath, ANDROID_IDL_COMPILER);
 
@@ -762,9 +833,9 @@ public class AndroidSourceGeneratingBuilder extends ModuleLevelBuilder {
           success = false;
         }
         else if (outputFile.exists()) {
-          final SourceToOutputMapping sourceToOutputMap = context.getProjectDescriptor().dataManager.getSourceToOutputMap(buildTarget);
-          sourceToOutputMap.setOutput(filePath, outputFilePath);
-          FSOperations.markDirty(context, CompilationRound.CURRENT, outputFile);
+          final List<File> outputFiles = Collections.singletonList(outputFile);
+          registerOutputs(context, invocation.myBuildTarget, filePath, outputFiles);
+          storage.saveOutputs(filePath, invocation.myInputsDigest, outputFiles);
         }
       }
       catch (final IOException e) {
@@ -777,93 +848,316 @@ public class AndroidSourceGeneratingBuilder extends ModuleLevelBuilder {
 
   private static boolean runRenderscriptCompiler(@NotNull final CompileContext context,
                                                  @NotNull Map<File, ModuleBuildTarget> files,
-                                                 @NotNull Map<JpsModule, MyModuleData> moduleDataMap) {
+                                                 @NotNull Map<JpsModule, MyModuleData> moduleDataMap) throws IOException {
     if (!files.isEmpty()) {
       context.processMessage(new ProgressMessage(AndroidJpsBundle.message("android.jps.progress.renderscript")));
     }
 
     boolean success = true;
+    final BuildDataManager dataManager = context.getProjectDescriptor().dataManager;
+    final List<GeneratorInvocation> invocations = new ArrayList<GeneratorInvocation>();
 
-    for (Map.Entry<File, ModuleBuildTarget> entry : files.entrySet()) {
-      final File file = entry.getKey();
-      final ModuleBuildTarget buildTarget = entry.getValue();
+    try {
+      for (Map.Entry<File, ModuleBuildTarget> entry : sortByPath(files)) {
+        final File file = entry.getKey();
+        final ModuleBuildTarget buildTarget = entry.getValue();
+
+        final MyModuleData moduleData = moduleDataMap.get(buildTarget.getModule());
+        if (!LOG.assertTrue(moduleData != null)) {
+          context.processMessage(new CompilerMessage(ANDROID_RENDERSCRIPT_COMPILER, BuildMessage.Kind.ERROR,
+                                                     AndroidJpsBundle.message("android.jps.internal.error")));
+          success = false;
+          continue;
+        }
 
-      final MyModuleData moduleData = moduleDataMap.get(buildTarget.getModule());
-      if (!LOG.assertTrue(moduleData != null)) {
-        context.processMessage(new CompilerMessage(ANDROID_RENDERSCRIPT_COMPILER, BuildMessage.Kind.ERROR,
-                                                   AndroidJpsBundle.message("android.jps.internal.error")));
-        success = false;
-        continue;
-      }
+        final File generatedSourcesDir = AndroidJpsUtil.getGeneratedSourcesStorage(buildTarget.getModule(), dataManager);
+        final File rsOutputDirectory = new File(generatedSourcesDir, AndroidJpsUtil.RENDERSCRIPT_GENERATED_SOURCE_ROOT_NAME);
+        if (!rsOutputDirectory.exists() && !rsOutputDirectory.mkdirs()) {
+          context.processMessage(new CompilerMessage(ANDROID_RENDERSCRIPT_COMPILER, BuildMessage.Kind.ERROR, AndroidJpsBundle
+            .message("android.jps.cannot.create.directory", rsOutputDirectory.getPath())));
+          success = false;
+          continue;
+        }
 
-      final BuildDataManager dataManager = context.getProjectDescriptor().dataManager;
-      final File generatedSourcesDir = AndroidJpsUtil.getGeneratedSourcesStorage(buildTarget.getModule(), dataManager);
-      final File rsOutputDirectory = new File(generatedSourcesDir, AndroidJpsUtil.RENDERSCRIPT_GENERATED_SOURCE_ROOT_NAME);
-      if (!rsOutputDirectory.exists() && !rsOutputDirectory.mkdirs()) {
-        context.processMessage(new CompilerMessage(ANDROID_RENDERSCRIPT_COMPILER, BuildMessage.Kind.ERROR, AndroidJpsBundle
-          .message("android.jps.cannot.create.directory", rsOutputDirectory.getPath())));
-        success = false;
-        continue;
-      }
+        final File generatedResourcesDir = AndroidJpsUtil.getGeneratedResourcesStorage(buildTarget.getModule(), dataManager);
+        final File rawDir = new File(generatedResourcesDir, "raw");
+
+        if (!rawDir.exists() && !rawDir.mkdirs()) {
+          context.processMessage(new CompilerMessage(ANDROID_RENDERSCRIPT_COMPILER, BuildMessage.Kind.ERROR,
+                                                     AndroidJpsBundle.message("android.jps.cannot.create.directory", rawDir.getPath())));
+          success = false;
+          continue;
+        }
 
-      final File generatedResourcesDir = AndroidJpsUtil.getGeneratedResourcesStorage(buildTarget.getModule(), dataManager);
-      final File rawDir = new File(generatedResourcesDir, "raw");
+        final AndroidPlatform platform = moduleData.getPlatform();
+        final IAndroidTarget target = platform.getTarget();
+        final String sdkLocation = platform.getSdk().getHomePath();
+        final String filePath = file.getPath();
 
-      if (!rawDir.exists() && !rawDir.mkdirs()) {
-        context.processMessage(new CompilerMessage(ANDROID_RENDERSCRIPT_COMPILER, BuildMessage.Kind.ERROR,
-                                                   AndroidJpsBundle.message("android.jps.cannot.create.directory", rawDir.getPath())));
-        success = false;
-        continue;
+        try {
+          final File[] includeDirs = getRenderscriptIncludeDirs(target);
+          final List<String> configuration = new ArrayList<String>();
+          configuration.add(filePath);
+          configuration.add(sdkLocation);
+          configuration.add(target.hashString());
+          configuration.add(getBuildToolsRevision(target));
+          configuration.add(rsOutputDirectory.getPath());
+          configuration.add(rawDir.getPath());
+          configuration.addAll(Arrays.asList(AndroidJpsUtil.toPaths(includeDirs)));
+          final byte[] inputsDigest = computeInputsDigest(file, findRenderscriptIncludes(file, includeDirs), configuration);
+
+          final AndroidGeneratedSourceStateStorage storage =
+            dataManager.getStorage(buildTarget, AndroidGeneratedSourceStateStorage.PROVIDER);
+          final List<File> restoredFiles = storage.restoreOutputs(filePath, inputsDigest);
+
+          if (restoredFiles != null) {
+            // Neither the script nor the files it includes changed since it was last compiled.
+            registerOutputs(context, buildTarget, filePath, restoredFiles);
+            continue;
+          }
+          final File tmpOutputDirectory = FileUtil.createTempDirectory("generated-rs-temp", null);
+          final String depFolderPath = getDependencyFolder(context, file, tmpOutputDirectory);
+
+          invocations.add(new GeneratorInvocation(file, buildTarget, inputsDigest, rsOutputDirectory, tmpOutputDirectory) {
+            @NotNull
+            @Override
+            public Map<AndroidCompilerMessageKind, List<String>> execute() throws IOException {
+              return AndroidRenderscript.execute(sdkLocation, target, filePath, tmpOutputDirectory.getPath(), depFolderPath,
+                                                 rawDir.getPath());
+            }
+          });
+        }
+        catch (IOException e) {
+          AndroidJpsUtil.reportExceptionError(context, filePath, e, ANDROID_RENDERSCRIPT_COMPILER);
+          success = false;
+        }
       }
 
-      final AndroidPlatform platform = moduleData.getPlatform();
-      final IAndroidTarget target = platform.getTarget();
-      final String sdkLocation = platform.getSdk().getHomePath();
-      final String filePath = file.getPath();
+      final List<AndroidToolProcessPool.Result> results = AndroidToolProcessPool.execute(invocations);
 
-      File tmpOutputDirectory = null;
+      for (int i = 0; i < invocations.size(); i++) {
+        final GeneratorInvocation invocation = invocations.get(i);
+        final AndroidToolProcessPool.Result result = results.get(i);
+        final File file = invocation.myFile;
+        final String filePath = file.getPath();
+        final ModuleBuildTarget buildTarget = invocation.myBuildTarget;
 
-      try {
-        tmpOutputDirectory = FileUtil.createTempDirectory("generated-rs-temp", null);
-        final String depFolderPath = getDependencyFolder(context, file, tmpOutputDirectory);
+        try {
+          final AndroidGeneratedSourceStateStorage storage = dataManager.getStorage(buildTarget, AndroidGeneratedSourceStateStorage.PROVIDER);
+          storage.removeOutputs(filePath);
 
-        final Map<AndroidCompilerMessageKind, List<String>> messages =
-          AndroidRenderscript.execute(sdkLocation, target, filePath, tmpOutputDirectory.getPath(), depFolderPath, rawDir.getPath());
+          if (result.getException() != null) {
+            throw result.getException();
+          }
+          final Map<AndroidCompilerMessageKind, List<String>> messages = result.getMessages();
+          assert messages != null;
 
-        addMessages(context, messages, filePath, ANDROID_RENDERSCRIPT_COMPILER);
+          addMessages(context, messages, filePath, ANDROID_RENDERSCRIPT_COMPILER);
 
-        if (!messages.get(AndroidCompilerMessageKind.ERROR).isEmpty()) {
+          if (!messages.get(AndroidCompilerMessageKind.ERROR).isEmpty()) {
+            success = false;
+          }
+          else {
+            final List<File> newFiles = new ArrayList<File>();
+            AndroidBuildCommonUtils.moveAllFiles(invocation.myTmpOutputDirectory, invocation.myOutputFile, newFiles);
+
+            final File rawDir = new File(AndroidJpsUtil.getGeneratedResourcesStorage(buildTarget.getModule(), dataManager), "raw");
+            final File bcFile = new File(rawDir, FileUtil.getNameWithoutExtension(file) + ".bc");
+            if (bcFile.exists()) {
+              newFiles.add(bcFile);
+            }
+            registerOutputs(context, buildTarget, filePath, newFiles);
+            storage.saveOutputs(filePath, invocation.myInputsDigest, newFiles);
+          }
+        }
+        catch (IOException e) {
+          AndroidJpsUtil.reportExceptionError(context, filePath, e, ANDROID_RENDERSCRIPT_COMPILER);
           success = false;
         }
-        else {
-          final List<File> newFiles = new ArrayList<File>();
-          AndroidBuildCommonUtils.moveAllFiles(tmpOutputDirectory, rsOutputDirectory, newFiles);
+      }
+    }
+    finally {
+      for (GeneratorInvocation invocation : invocations) {
+        if (invocation.myTmpOutputDirectory != null) {
+          FileUtil.delete(invocation.myTmpOutputDirectory);
+        }
+      }
+    }
+    return success;
+  }
 
-          final File bcFile = new File(rawDir, FileUtil.getNameWithoutExtension(file) + ".bc");
-          if (bcFile.exists()) {
-            newFiles.add(bcFile);
-          }
-          final List<String> newFilePaths = Arrays.asList(AndroidJpsUtil.toPaths(newFiles.toArray(new File[newFiles.size()])));
+  private static void registerOutputs(@NotNull CompileContext context,
+                                      @NotNull ModuleBuildTarget buildTarget,
+                                      @NotNull String sourcePath,
+                                      @NotNull List<File> outputFiles) throws IOException {
+    final List<String> outputPaths = Arrays.asList(AndroidJpsUtil.toPaths(outputFiles.toArray(new File[outputFiles.size()])));
+    final SourceToOutputMapping sourceToOutputMap = context.getProjectDescriptor().dataManager.getSourceToOutputMap(buildTarget);
+    sourceToOutputMap.setOutputs(sourcePath, outputPaths);
 
-          final SourceToOutputMapping sourceToOutputMap = dataManager.getSourceToOutputMap(buildTarget);
-          sourceToOutputMap.setOutputs(filePath, newFilePaths);
+    for (File outputFile : outputFiles) {
+      FSOperations.markDirty(context, CompilationRound.CURRENT, outputFile);
+    }
+  }
 
-          for (File newFile : newFiles) {
-            FSOperations.markDirty(context, CompilationRound.CURRENT, newFile);
-          }
+  /**
+   * Returns the given files sorted by path, so that they are compiled, and their messages reported, in a deterministic order.
+   */
+  @NotNull
+  private static List<Map.Entry<File, ModuleBuildTarget>> sortByPath(@NotNull Map<File, ModuleBuildTarget> files) {
+    final List<Map.Entry<File, ModuleBuildTarget>> entries = new ArrayList<Map.Entry<File, ModuleBuildTarget>>(files.entrySet());
+    Collections.sort(entries, (entry1, entry2) -> FileUtil.comparePaths(entry1.getKey().getPath(), entry2.getKey().getPath()));
+    return entries;
+  }
+
+  @NotNull
+  private static String getBuildToolsRevision(@NotNull IAndroidTarget target) {
+    final BuildToolInfo buildToolInfo = target.getBuildToolInfo();
+    return buildToolInfo != null ? buildToolInfo.getRevision().toString() : "";
+  }
+
+  /**
+   * Removes the states, and the copies of the generated files, of the AIDL and RenderScript files deleted since the previous build.
+   */
+  private static void removeStatesOfDeletedFiles(@NotNull CompileContext context,
+                                                 @NotNull ModuleChunk chunk,
+                                                 @NotNull DirtyFilesHolder<JavaSourceRootDescriptor, ModuleBuildTarget> dirtyFilesHolder)
+    throws IOException {
+    final BuildDataManager dataManager = context.getProjectDescriptor().dataManager;
+
+    for (ModuleBuildTarget target : chunk.getTargets()) {
+      for (String path : dirtyFilesHolder.getRemovedFiles(target)) {
+        if (FileUtilRt.extensionEquals(path, AIDL_EXTENSION) || FileUtilRt.extensionEquals(path, RENDERSCRIPT_EXTENSION)) {
+          dataManager.getStorage(target, AndroidGeneratedSourceStateStorage.PROVIDER).removeOutputs(path);
         }
       }
-      catch (IOException e) {
-        AndroidJpsUtil.reportExceptionError(context, filePath, e, ANDROID_RENDERSCRIPT_COMPILER);
-        success = false;
+    }
+  }
+
+  /**
+   * Returns the AIDL files imported, directly or through other imported files, by the given AIDL file, which can be found in the given
+   * source roots.
+   */
+  @VisibleForTesting
+  @NotNull
+  static List<File> findAidlImports(@NotNull File file, @NotNull File[] sourceRoots) throws IOException {
+    final Set<File> imports = new LinkedHashSet<File>();
+    final Deque<File> filesToScan = new ArrayDeque<File>();
+    filesToScan.add(file);
+
+    while (!filesToScan.isEmpty()) {
+      final Matcher matcher = AIDL_IMPORT_PATTERN.matcher(FileUtil.loadFile(filesToScan.poll()));
+      while (matcher.find()) {
+        final String relativePath = matcher.group(1).replace('.', File.separatorChar) + '.' + AIDL_EXTENSION;
+        for (File sourceRoot : sourceRoots) {
+          final File importedFile = new File(sourceRoot, relativePath);
+          if (importedFile.isFile()) {
+            if (!importedFile.equals(file) && imports.add(importedFile)) {
+              filesToScan.add(importedFile);
+            }
+            break;
+          }
+        }
       }
-      finally {
-        if (tmpOutputDirectory != null) {
-          FileUtil.delete(tmpOutputDirectory);
+    }
+    return new ArrayList<File>(imports);
+  }
+
+  /**
+   * Returns the files included, directly or through other included files, by the given RenderScript file. An include is resolved
+   * against the directory of the including file first, then against the given include directories.
+   */
+  @VisibleForTesting
+  @NotNull
+  static List<File> findRenderscriptIncludes(@NotNull File file, @NotNull File[] includeDirs) throws IOException {
+    final Set<File> includes = new LinkedHashSet<File>();
+    final Deque<File> filesToScan = new ArrayDeque<File>();
+    filesToScan.add(file);
+
+    while (!filesToScan.isEmpty()) {
+      final File fileToScan = filesToScan.poll();
+      final Matcher matcher = RENDERSCRIPT_INCLUDE_PATTERN.matcher(FileUtil.loadFile(fileToScan));
+      while (matcher.find()) {
+        final String relativePath = FileUtil.toSystemDependentName(matcher.group(1));
+        File includedFile = new File(fileToScan.getParentFile(), relativePath);
+
+        for (int i = 0; !includedFile.isFile() && i < includeDirs.length; i++) {
+          includedFile = new File(includeDirs[i], relativePath);
+        }
+        if (includedFile.isFile() && !includedFile.equals(file) && includes.add(includedFile)) {
+          filesToScan.add(includedFile);
         }
       }
     }
-    return success;
+    return new ArrayList<File>(includes);
+  }
+
+  /**
+   * Returns the include directories of the SDK which llvm-rs-cc is run with.
+   */
+  @NotNull
+  private static File[] getRenderscriptIncludeDirs(@NotNull IAndroidTarget target) {
+    final BuildToolInfo buildToolInfo = target.getBuildToolInfo();
+    if (buildToolInfo == null) {
+      return new File[0];
+    }
+    return new File[]{
+      new File(buildToolInfo.getPath(BuildToolInfo.PathId.ANDROID_RS_CLANG)),
+      new File(buildToolInfo.getPath(BuildToolInfo.PathId.ANDROID_RS))
+    };
+  }
+
+  /**
+   * Computes a digest of the contents of the given source file and of the files it depends on, and of the configuration of the tool
+   * compiling it.
+   */
+  @VisibleForTesting
+  @NotNull
+  static byte[] computeInputsDigest(@NotNull File file, @NotNull List<File> dependencies, @NotNull List<String> configuration)
+    throws IOException {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new IOException(e);
+    }
+    for (String value : configuration) {
+      digest.update(value.getBytes(StandardCharsets.UTF_8));
+      digest.update((byte)0);
+    }
+    digest.update(FileUtil.loadFileBytes(file));
+    for (File dependency : dependencies) {
+      digest.update((byte)0);
+      digest.update(dependency.getPath().getBytes(StandardCharsets.UTF_8));
+      digest.update((byte)0);
+      digest.update(FileUtil.loadFileBytes(dependency));
+    }
+    return digest.digest();
+  }
+
+  /**
+   * An invocation of an Android source generator on a source file, with what is needed to process its results.
+   */
+  private abstract static class GeneratorInvocation implements AndroidToolProcessPool.Invocation {
+    final File myFile;
+    final ModuleBuildTarget myBuildTarget;
+    final byte[] myInputsDigest;
+    /** The generated file for AIDL, or the output directory for RenderScript */
+    final File myOutputFile;
+    /** The directory in which RenderScript files are generated, before being moved to the output directory */
+    final File myTmpOutputDirectory;
+
+    GeneratorInvocation(@NotNull File file,
+                        @NotNull ModuleBuildTarget buildTarget,
+                        @NotNull byte[] inputsDigest,
+                        @NotNull File outputFile,
+                        @Nullable File tmpOutputDirectory) {
+      myFile = file;
+      myBuildTarget = buildTarget;
+      myInputsDigest = inputsDigest;
+      myOutputFile = outputFile;
+      myTmpOutputDirectory = tmpOutputDirectory;
+    }
   }
 
   private static MyExitStatus runAaptCompiler(@NotNull final CompileContext context,
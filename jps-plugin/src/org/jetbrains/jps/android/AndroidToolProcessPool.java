@@ -0,0 +1,129 @@
+// Copyright 2000-2019 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package org.jetbrains.jps.android;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.jetbrains.android.util.AndroidBuildTestingManager;
+import org.jetbrains.android.util.AndroidCompilerMessageKind;
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Runs Android tools (e.g. aidl or llvm-rs-cc) on independent source files, in parallel on a bounded number of threads.
+ * <p>
+ * The results are returned in the order of the invocations, so that the messages and outputs of the tools are processed in the same order
+ * as when they are run one at a time. Only the tool processes run in parallel: the results are meant to be processed, and reported to the
+ * compile context, on the calling thread.
+ */
+public class AndroidToolProcessPool {
+  /** The maximum number of tool processes run at the same time, by default the number of available processors */
+  @NonNls private static final String MAX_PROCESSES_PROPERTY = "android.jps.tool.max.processes";
+
+  // The threads only wait for tool processes, so they must not keep the build process alive.
+  private static final ThreadFactory THREAD_FACTORY =
+    new ThreadFactoryBuilder().setNameFormat("android-tool-process-%d").setDaemon(true).build();
+
+  private AndroidToolProcessPool() {
+  }
+
+  public interface Invocation {
+    @NotNull
+    Map<AndroidCompilerMessageKind, List<String>> execute() throws IOException;
+  }
+
+  public static class Result {
+    private final Map<AndroidCompilerMessageKind, List<String>> myMessages;
+    private final IOException myException;
+
+    private Result(@Nullable Map<AndroidCompilerMessageKind, List<String>> messages, @Nullable IOException exception) {
+      myMessages = messages;
+      myException = exception;
+    }
+
+    /**
+     * Returns the messages reported by the tool, or {@code null} if it could not be run.
+     */
+    @Nullable
+    public Map<AndroidCompilerMessageKind, List<String>> getMessages() {
+      return myMessages;
+    }
+
+    @Nullable
+    public IOException getException() {
+      return myException;
+    }
+  }
+
+  @NotNull
+  public static List<Result> execute(@NotNull List<? extends Invocation> invocations) throws IOException {
+    final int processCount = Math.min(getMaxProcessCount(), invocations.size());
+    final List<Result> results = new ArrayList<Result>(invocations.size());
+
+    if (processCount <= 1) {
+      for (Invocation invocation : invocations) {
+        results.add(run(invocation));
+      }
+      return results;
+    }
+    final ExecutorService executor = Executors.newFixedThreadPool(processCount, THREAD_FACTORY);
+    try {
+      final List<Future<Result>> futures = new ArrayList<Future<Result>>(invocations.size());
+      for (final Invocation invocation : invocations) {
+        futures.add(executor.submit(() -> run(invocation)));
+      }
+      for (Future<Result> future : futures) {
+        results.add(future.get());
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      final InterruptedIOException exception = new InterruptedIOException("Interrupted while waiting for Android tools");
+      exception.initCause(e);
+      throw exception;
+    }
+    catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException)cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error)cause;
+      }
+      throw new IOException(cause);
+    }
+    finally {
+      executor.shutdownNow();
+    }
+    return results;
+  }
+
+  @NotNull
+  private static Result run(@NotNull Invocation invocation) {
+    try {
+      return new Result(invocation.execute(), null);
+    }
+    catch (IOException e) {
+      return new Result(null, e);
+    }
+  }
+
+  private static int getMaxProcessCount() {
+    // The commands run by the tools are logged when testing, so keep them in order.
+    if (AndroidBuildTestingManager.getTestingManager() != null) {
+      return 1;
+    }
+    final int maxProcessCount = Integer.getInteger(MAX_PROCESSES_PROPERTY, 0);
+    return maxProcessCount > 0 ? maxProcessCount : Runtime.getRuntime().availableProcessors();
+  }
+}
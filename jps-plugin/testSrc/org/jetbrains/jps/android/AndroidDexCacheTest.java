@@ -0,0 +1,101 @@
+// Copyright 2000-2019 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package org.jetbrains.jps.android;
+
+import com.intellij.openapi.util.io.FileUtil;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class AndroidDexCacheTest extends TestCase {
+  private File myCacheDir;
+  private File myWorkDir;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myCacheDir = FileUtil.createTempDirectory("android-dex-cache", null);
+    myWorkDir = FileUtil.createTempDirectory("android-dex-cache-work", null);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    try {
+      FileUtil.delete(myCacheDir);
+      FileUtil.delete(myWorkDir);
+    }
+    finally {
+      super.tearDown();
+    }
+  }
+
+  public void testGetInstanceUsesCacheDirProperty() {
+    final String oldValue = System.getProperty("android.jps.dex.cache.dir");
+    System.setProperty("android.jps.dex.cache.dir", myCacheDir.getPath());
+    try {
+      final AndroidDexCache cache = AndroidDexCache.getInstance();
+      assertNotNull(cache);
+      assertEquals(myCacheDir, cache.getEntry("key").getParentFile());
+    }
+    finally {
+      if (oldValue != null) {
+        System.setProperty("android.jps.dex.cache.dir", oldValue);
+      }
+      else {
+        System.clearProperty("android.jps.dex.cache.dir");
+      }
+    }
+  }
+
+  public void testComputeKey() throws Exception {
+    final File jar = createFile("lib.jar", "classes");
+    final File copy = createFile("copy/lib.jar", "classes");
+    final File otherJar = createFile("other.jar", "other classes");
+
+    final String key = AndroidDexCache.computeKey(jar, Arrays.asList("28.0.3", "--force-jumbo"));
+    assertEquals(key, AndroidDexCache.computeKey(copy, Arrays.asList("28.0.3", "--force-jumbo")));
+    assertFalse(key.equals(AndroidDexCache.computeKey(otherJar, Arrays.asList("28.0.3", "--force-jumbo"))));
+    assertFalse(key.equals(AndroidDexCache.computeKey(jar, Arrays.asList("29.0.0", "--force-jumbo"))));
+    assertFalse(key.equals(AndroidDexCache.computeKey(jar, Collections.singletonList("28.0.3--force-jumbo"))));
+  }
+
+  public void testStoreAndRestore() throws Exception {
+    final AndroidDexCache cache = new AndroidDexCache(myCacheDir, 1024);
+    final File output = createFile("out/lib.jar", "dex");
+    final File restored = new File(myWorkDir, "restored/lib.jar");
+
+    assertFalse(cache.restore("key", restored));
+    assertFalse(restored.exists());
+
+    cache.store("key", output);
+    assertTrue(cache.getEntry("key").isFile());
+    assertTrue(cache.restore("key", restored));
+    assertEquals("dex", FileUtil.loadFile(restored));
+    assertFalse(cache.restore("other", restored));
+  }
+
+  public void testLeastRecentlyUsedEntriesAreEvicted() throws Exception {
+    final AndroidDexCache cache = new AndroidDexCache(myCacheDir, 25);
+    cache.store("a", createFile("a.jar", "0123456789"));
+    cache.store("b", createFile("b.jar", "0123456789"));
+
+    final long now = System.currentTimeMillis();
+    assertTrue(cache.getEntry("a").setLastModified(now - 20000));
+    assertTrue(cache.getEntry("b").setLastModified(now - 10000));
+    // Using an entry makes it the most recently used one.
+    assertTrue(cache.restore("a", new File(myWorkDir, "restored/a.jar")));
+
+    cache.store("c", createFile("c.jar", "0123456789"));
+    assertTrue(cache.getEntry("a").isFile());
+    assertFalse(cache.getEntry("b").exists());
+    assertTrue(cache.getEntry("c").isFile());
+  }
+
+  private File createFile(String relativePath, String content) throws IOException {
+    final File file = new File(myWorkDir, FileUtil.toSystemDependentName(relativePath));
+    FileUtil.writeToFile(file, content);
+    return file;
+  }
+}
@@ -0,0 +1,147 @@
+// Copyright 2000-2019 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package org.jetbrains.jps.android;
+
+import com.intellij.openapi.util.io.FileUtil;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class AndroidGeneratedSourceStateStorageTest extends TestCase {
+  private static final byte[] DIGEST = {1, 2, 3};
+  private static final byte[] OTHER_DIGEST = {4, 5, 6};
+
+  private File myDataDir;
+  private File myOutputDir;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myDataDir = FileUtil.createTempDirectory("android-generated-source-state", null);
+    myOutputDir = FileUtil.createTempDirectory("android-generated-source-output", null);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    try {
+      FileUtil.delete(myDataDir);
+      FileUtil.delete(myOutputDir);
+    }
+    finally {
+      super.tearDown();
+    }
+  }
+
+  public void testRestoreOutputs() throws Exception {
+    final File outputFile = createOutputFile("IService.java", "generated");
+    final AndroidGeneratedSourceStateStorage storage = createStorage();
+    try {
+      storage.saveOutputs("IService.aidl", DIGEST, Collections.singletonList(outputFile));
+      FileUtil.delete(outputFile);
+
+      assertNull(storage.restoreOutputs("IService.aidl", OTHER_DIGEST));
+      assertNull(storage.restoreOutputs("IOther.aidl", DIGEST));
+      assertFalse(outputFile.exists());
+
+      final List<File> restoredFiles = storage.restoreOutputs("IService.aidl", DIGEST);
+      assertEquals(Collections.singletonList(outputFile), restoredFiles);
+      assertEquals("generated", FileUtil.loadFile(outputFile));
+    }
+    finally {
+      storage.close();
+    }
+  }
+
+  public void testRestoreOutputsWithoutCopies() throws Exception {
+    final File outputFile = createOutputFile("script.bc", "bitcode");
+    final AndroidGeneratedSourceStateStorage storage = createStorage();
+    try {
+      storage.saveOutputs("script.rs", DIGEST, Collections.singletonList(outputFile));
+      FileUtil.delete(getOutputsDir());
+
+      assertNull(storage.restoreOutputs("script.rs", DIGEST));
+    }
+    finally {
+      storage.close();
+    }
+  }
+
+  public void testRemoveOutputs() throws Exception {
+    final File outputFile = createOutputFile("IService.java", "generated");
+    final AndroidGeneratedSourceStateStorage storage = createStorage();
+    try {
+      storage.saveOutputs("IService.aidl", DIGEST, Collections.singletonList(outputFile));
+      assertEquals(1, listCopiesDirs().size());
+
+      storage.removeOutputs("IService.aidl");
+      assertNull(storage.getState("IService.aidl"));
+      assertTrue(listCopiesDirs().isEmpty());
+    }
+    finally {
+      storage.close();
+    }
+  }
+
+  public void testSaveOutputsReplacesPreviousCopies() throws Exception {
+    final File outputFile = createOutputFile("IService.java", "generated");
+    final AndroidGeneratedSourceStateStorage storage = createStorage();
+    try {
+      storage.saveOutputs("IService.aidl", DIGEST, Collections.singletonList(outputFile));
+      storage.saveOutputs("IService.aidl", OTHER_DIGEST, Collections.singletonList(outputFile));
+
+      assertEquals(Collections.singletonList("040506"), listCopiesDirs());
+    }
+    finally {
+      storage.close();
+    }
+  }
+
+  public void testOrphanedCopiesAreRemoved() throws Exception {
+    final File outputFile = createOutputFile("IService.java", "generated");
+    AndroidGeneratedSourceStateStorage storage = createStorage();
+    try {
+      storage.saveOutputs("IService.aidl", DIGEST, Collections.singletonList(outputFile));
+    }
+    finally {
+      storage.close();
+    }
+    // The copies of a build interrupted before the state of the source file was saved.
+    final File orphanedCopy = new File(getOutputsDir(), "040506" + File.separator + "0");
+    FileUtil.writeToFile(orphanedCopy, "orphaned");
+
+    storage = createStorage();
+    try {
+      assertEquals(Collections.singletonList("010203"), listCopiesDirs());
+      assertNotNull(storage.restoreOutputs("IService.aidl", DIGEST));
+    }
+    finally {
+      storage.close();
+    }
+  }
+
+  private AndroidGeneratedSourceStateStorage createStorage() throws IOException {
+    return AndroidGeneratedSourceStateStorage.PROVIDER.createStorage(myDataDir);
+  }
+
+  private File createOutputFile(String name, String content) throws IOException {
+    final File file = new File(myOutputDir, name);
+    FileUtil.writeToFile(file, content);
+    return file;
+  }
+
+  private File getOutputsDir() {
+    return new File(AndroidJpsUtil.getStorageDir(myDataDir, "generated_sources"), "outputs");
+  }
+
+  private List<String> listCopiesDirs() {
+    final String[] names = getOutputsDir().list();
+    if (names == null) {
+      return Collections.emptyList();
+    }
+    Arrays.sort(names);
+    return Arrays.asList(names);
+  }
+}
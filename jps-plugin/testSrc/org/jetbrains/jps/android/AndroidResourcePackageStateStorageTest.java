@@ -0,0 +1,75 @@
+// Copyright 2000-2019 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package org.jetbrains.jps.android;
+
+import com.intellij.openapi.util.io.FileUtil;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class AndroidResourcePackageStateStorageTest extends TestCase {
+  private File myRoot;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myRoot = FileUtil.createTempDirectory("android-resource-package-state", null);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    try {
+      FileUtil.delete(myRoot);
+    }
+    finally {
+      super.tearDown();
+    }
+  }
+
+  public void testReadEntryDigests() throws Exception {
+    final File packageFile = new File(myRoot, "app.apk.res");
+    final ZipOutputStream out = new ZipOutputStream(new FileOutputStream(packageFile));
+    try {
+      out.putNextEntry(new ZipEntry("res/"));
+      out.closeEntry();
+      out.putNextEntry(new ZipEntry("res/layout/main.xml"));
+      out.write("layout".getBytes(StandardCharsets.UTF_8));
+      out.closeEntry();
+    }
+    finally {
+      out.close();
+    }
+    final CRC32 crc = new CRC32();
+    crc.update("layout".getBytes(StandardCharsets.UTF_8));
+
+    final Map<String, AndroidResourcePackageStateStorage.EntryDigest> digests =
+      AndroidResourcePackageStateStorage.readEntryDigests(packageFile);
+    assertEquals(1, digests.size());
+    assertEquals(new AndroidResourcePackageStateStorage.EntryDigest(crc.getValue(), 6), digests.get("res/layout/main.xml"));
+  }
+
+  public void testSaveAndReadState() throws Exception {
+    final AndroidResourcePackageStateStorage storage = AndroidResourcePackageStateStorage.Provider.INSTANCE.createStorage(myRoot);
+    assertNull(storage.read());
+
+    final Map<String, AndroidResourcePackageStateStorage.EntryDigest> digests =
+      new HashMap<String, AndroidResourcePackageStateStorage.EntryDigest>();
+    digests.put("resources.arsc", new AndroidResourcePackageStateStorage.EntryDigest(42, 1024));
+    digests.put("res/layout/main.xml", new AndroidResourcePackageStateStorage.EntryDigest(7, 6));
+    storage.saveState(new AndroidResourcePackageStateStorage.MyState("configuration", digests));
+
+    final AndroidResourcePackageStateStorage.MyState state = storage.read();
+    assertNotNull(state);
+    assertEquals("configuration", state.getConfiguration());
+    assertEquals(digests, state.getEntryDigests());
+
+    storage.clean();
+    assertNull(storage.read());
+  }
+}
@@ -0,0 +1,77 @@
+// Copyright 2000-2019 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package org.jetbrains.jps.android;
+
+import com.intellij.openapi.util.io.FileUtil;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Tests when the resource package is updated with aapt -u, which {@link AndroidBuilderTest} does not cover since the package is always
+ * created again when testing.
+ */
+public class AndroidResourcePackagingBuilderTest extends TestCase {
+  private File myRoot;
+  private File myPackageFile;
+  private long myPackageTimestamp;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myRoot = FileUtil.createTempDirectory("android-resource-packaging", null);
+    myPackageFile = createFile("out/app.apk.res", 0);
+    myPackageTimestamp = myPackageFile.lastModified();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    try {
+      FileUtil.delete(myRoot);
+    }
+    finally {
+      super.tearDown();
+    }
+  }
+
+  public void testNewerFilesAreUpdated() throws Exception {
+    final File drawable = createFile("res/drawable/icon.png", 10000);
+    final File layout = createFile("res/layout/main.xml", 3000);
+
+    assertTrue(AndroidResourcePackagingBuilder.canUpdatePackage(Arrays.asList(drawable, layout), myPackageFile));
+    assertTrue(AndroidResourcePackagingBuilder.canUpdatePackage(Collections.<File>emptyList(), myPackageFile));
+  }
+
+  public void testChangedValuesAreNotUpdated() throws Exception {
+    final File drawable = createFile("res/drawable/icon.png", 10000);
+    final File values = createFile("res/values/strings.xml", 10000);
+
+    assertFalse(AndroidResourcePackagingBuilder.canUpdatePackage(Arrays.asList(drawable, values), myPackageFile));
+  }
+
+  public void testFilesWithOlderTimesAreNotUpdated() throws Exception {
+    // E.g. a file copied with its original time, or extracted from an archive.
+    final File drawable = createFile("res/drawable/icon.png", -60000);
+
+    assertFalse(AndroidResourcePackagingBuilder.canUpdatePackage(Collections.singletonList(drawable), myPackageFile));
+  }
+
+  public void testFilesChangedWithinZipTimeResolutionAreNotUpdated() throws Exception {
+    final File drawable = createFile("res/drawable/icon.png", 1000);
+    final File layout = createFile("res/layout/main.xml", 2000);
+
+    assertFalse(AndroidResourcePackagingBuilder.canUpdatePackage(Collections.singletonList(drawable), myPackageFile));
+    assertFalse(AndroidResourcePackagingBuilder.canUpdatePackage(Collections.singletonList(layout), myPackageFile));
+  }
+
+  private File createFile(String relativePath, long timeOffset) throws IOException {
+    final File file = new File(myRoot, FileUtil.toSystemDependentName(relativePath));
+    FileUtil.writeToFile(file, relativePath);
+    if (timeOffset != 0) {
+      assertTrue(file.setLastModified(myPackageTimestamp + timeOffset));
+    }
+    return file;
+  }
+}
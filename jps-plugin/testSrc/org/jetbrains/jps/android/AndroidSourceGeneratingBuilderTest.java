@@ -0,0 +1,83 @@
+// Copyright 2000-2019 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package org.jetbrains.jps.android;
+
+import com.intellij.openapi.util.io.FileUtil;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests the inputs which the outputs of the AIDL and RenderScript compilers are reused by.
+ */
+public class AndroidSourceGeneratingBuilderTest extends TestCase {
+  private File myRoot;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myRoot = FileUtil.createTempDirectory("android-source-generating", null);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    try {
+      FileUtil.delete(myRoot);
+    }
+    finally {
+      super.tearDown();
+    }
+  }
+
+  public void testAidlImportsAreFoundInAllSourceRoots() throws Exception {
+    final File appRoot = new File(myRoot, "app/src");
+    final File libRoot = new File(myRoot, "lib/src");
+    final File service = createFile(appRoot, "com/example/IService.aidl",
+                                    "package com.example;\nimport com.example.lib.Data;\ninterface IService { void f(in Data d); }");
+    final File data = createFile(libRoot, "com/example/lib/Data.aidl",
+                                 "package com.example.lib;\nimport com.example.lib.Nested;\nparcelable Data;");
+    final File nested = createFile(libRoot, "com/example/lib/Nested.aidl", "package com.example.lib;\nparcelable Nested;");
+
+    final List<File> imports = AndroidSourceGeneratingBuilder.findAidlImports(service, new File[]{appRoot, libRoot});
+    assertEquals(Arrays.asList(data, nested), imports);
+  }
+
+  public void testRenderscriptIncludesAreFoundInIncludeDirs() throws Exception {
+    final File sourceDir = new File(myRoot, "src");
+    final File includeDir = new File(myRoot, "sdk/renderscript/include");
+    final File script = createFile(sourceDir, "script.rs", "#pragma version(1)\n#include \"util.rsh\"\n#include <rs_core.rsh>\n");
+    final File util = createFile(sourceDir, "util.rsh", "#include \"rs_types.rsh\"\n");
+    final File core = createFile(includeDir, "rs_core.rsh", "#include \"rs_types.rsh\"\n");
+    final File types = createFile(includeDir, "rs_types.rsh", "typedef int int32_t;\n");
+
+    final List<File> includes = AndroidSourceGeneratingBuilder.findRenderscriptIncludes(script, new File[]{includeDir});
+    assertEquals(Arrays.asList(util, core, types), includes);
+  }
+
+  public void testInputsDigestDependsOnDependencies() throws Exception {
+    final File service = createFile(myRoot, "IService.aidl", "interface IService {}");
+    final File framework = createFile(myRoot, "framework.aidl", "parcelable android.os.Bundle;");
+    final List<String> configuration = Collections.singletonList("android-28");
+
+    final byte[] digest = AndroidSourceGeneratingBuilder.computeInputsDigest(service, Collections.singletonList(framework), configuration);
+    assertTrue(Arrays.equals(digest, AndroidSourceGeneratingBuilder.computeInputsDigest(
+      service, Collections.singletonList(framework), configuration)));
+    assertFalse(Arrays.equals(digest, AndroidSourceGeneratingBuilder.computeInputsDigest(
+      service, Collections.emptyList(), configuration)));
+    assertFalse(Arrays.equals(digest, AndroidSourceGeneratingBuilder.computeInputsDigest(
+      service, Collections.singletonList(framework), Collections.singletonList("android-29"))));
+
+    FileUtil.writeToFile(framework, "parcelable android.os.PersistableBundle;");
+    assertFalse(Arrays.equals(digest, AndroidSourceGeneratingBuilder.computeInputsDigest(
+      service, Collections.singletonList(framework), configuration)));
+  }
+
+  private static File createFile(File root, String relativePath, String content) throws IOException {
+    final File file = new File(root, FileUtil.toSystemDependentName(relativePath));
+    FileUtil.writeToFile(file, content);
+    return file;
+  }
+}
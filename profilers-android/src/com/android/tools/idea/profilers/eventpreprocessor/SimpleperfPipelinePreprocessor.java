@@ -23,9 +23,9 @@ import com.android.tools.profiler.proto.Cpu;
 import com.android.tools.profiler.proto.Transport;
 import com.android.tools.profilers.cpu.TracePreProcessor;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -33,7 +33,8 @@ import org.jetbrains.annotations.NotNull;
  */
 public class SimpleperfPipelinePreprocessor implements TransportEventPreprocessor, TransportBytesPreprocessor {
 
-  private final Map<String, List<String>> myTraceIdsToSymbols = new HashMap<>();
+  // Bytes requests are preprocessed concurrently on the grpc threads.
+  private final Map<String, List<String>> myTraceIdsToSymbols = new ConcurrentHashMap<>();
   private final TracePreProcessor myPreProcessor;
 
   public SimpleperfPipelinePreprocessor(@NotNull TracePreProcessor preProcessor) {